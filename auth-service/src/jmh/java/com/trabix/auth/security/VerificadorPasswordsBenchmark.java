@@ -0,0 +1,88 @@
+package com.trabix.auth.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logins por segundo por núcleo: VerificadorPasswords con un pool de un hilo, como
+ * passwordExecutor en una máquina de un núcleo. Multiplicar por los núcleos de auth-service
+ * da el techo de logins que el límite de la ruta en el gateway no debe superar.
+ *
+ * - verificar: contraseña correcta, hash con el costo configurado (login normal)
+ * - verificarConRehash: hash con costo menor; el login también calcula el hash nuevo
+ * - matchesDirecto: BCrypt en el hilo del benchmark, sin pool; la diferencia con
+ *   verificar es el costo de pasar por passwordExecutor
+ *
+ * mvn -Pjmh -pl auth-service exec:exec -Djmh.args="VerificadorPasswordsBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(1)
+@Fork(1)
+public class VerificadorPasswordsBenchmark {
+
+    private static final String PASSWORD = "Clave.Segura-2024";
+
+    /** trabix.security.bcrypt.costo */
+    @Param({"10", "12"})
+    private int costo;
+
+    private BCryptPasswordEncoder encoder;
+    private ThreadPoolTaskExecutor executor;
+    private VerificadorPasswords verificador;
+    private String hash;
+    private String hashCostoAnterior;
+
+    @Setup
+    public void preparar() {
+        encoder = new BCryptPasswordEncoder(costo);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(64);
+        executor.setThreadNamePrefix("BCrypt-");
+        executor.initialize();
+        verificador = new VerificadorPasswords(encoder, executor, costo, 60_000);
+
+        hash = encoder.encode(PASSWORD);
+        hashCostoAnterior = new BCryptPasswordEncoder(costo - 2).encode(PASSWORD);
+    }
+
+    @TearDown
+    public void cerrar() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public VerificadorPasswords.Resultado verificar() {
+        return verificador.verificar(PASSWORD, hash);
+    }
+
+    @Benchmark
+    public VerificadorPasswords.Resultado verificarConRehash() {
+        return verificador.verificar(PASSWORD, hashCostoAnterior);
+    }
+
+    @Benchmark
+    public boolean matchesDirecto() {
+        return encoder.matches(PASSWORD, hash);
+    }
+}
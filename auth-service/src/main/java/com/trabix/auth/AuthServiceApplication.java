@@ -2,6 +2,7 @@ package com.trabix.auth;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
@@ -16,7 +17,8 @@ import org.springframework.scheduling.annotation.EnableScheduling;
  * - Cambio de contraseña
  * - Protección contra fuerza bruta
  */
-@SpringBootApplication(scanBasePackages = {"com.trabix.auth", "com.trabix.common"})
+@SpringBootApplication(scanBasePackages = {"com.trabix.auth", "com.trabix.common"},
+        exclude = UserDetailsServiceAutoConfiguration.class)
 @EnableScheduling
 public class AuthServiceApplication {
 
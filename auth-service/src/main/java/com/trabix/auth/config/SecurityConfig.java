@@ -5,16 +5,12 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.AuthenticationProvider;
-import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
-import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -28,7 +24,12 @@ import java.util.List;
 
 /**
  * Configuración de seguridad para auth-service.
- * 
+ *
+ * Sin AuthenticationProvider/AuthenticationManager: el login (AuthService) carga el usuario
+ * una vez y verifica la contraseña en VerificadorPasswords, y el resto de requests se
+ * autentica con el JWT (JwtAuthenticationFilter). Por eso también se excluye
+ * UserDetailsServiceAutoConfiguration en AuthServiceApplication.
+ *
  * CORS configurable por ambiente:
  * - Desarrollo: permite localhost
  * - Producción: solo dominios específicos
@@ -40,7 +41,6 @@ import java.util.List;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
-    private final UserDetailsService userDetailsService;
 
     @Value("${trabix.cors.allowed-origins:http://localhost:3000,http://localhost:4200}")
     private String allowedOrigins;
@@ -72,30 +72,32 @@ public class SecurityConfig {
             .sessionManagement(session -> session
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             )
-            .authenticationProvider(authenticationProvider())
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
-        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
-        // Ocultar mensaje específico de "usuario no encontrado" por seguridad
-        authProvider.setHideUserNotFoundExceptions(true);
-        return authProvider;
+    public PasswordEncoder passwordEncoder(@Value("${trabix.security.bcrypt.costo:12}") int costo) {
+        return new BCryptPasswordEncoder(costo); // Los hashes con otro costo se rehacen al login
     }
 
-    @Bean
-    public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
-        return config.getAuthenticationManager();
-    }
-
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12); // Factor de costo 12 (más seguro)
+    /**
+     * Pool para BCrypt (ver VerificadorPasswords): un hilo por núcleo y cola acotada.
+     * Con la cola llena rechaza (AbortPolicy) en lugar de acumular logins.
+     */
+    @Bean(name = "passwordExecutor")
+    public ThreadPoolTaskExecutor passwordExecutor(
+            @Value("${trabix.security.bcrypt.hilos:0}") int hilos,
+            @Value("${trabix.security.bcrypt.cola:64}") int cola) {
+        int tamano = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(tamano);
+        executor.setMaxPoolSize(tamano);
+        executor.setQueueCapacity(cola);
+        executor.setThreadNamePrefix("BCrypt-");
+        executor.initialize();
+        return executor;
     }
 
     @Bean
@@ -3,13 +3,24 @@ package com.trabix.auth.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
 
 /**
  * Token de refresh para renovar access tokens sin re-login.
+ * 
+ * Se guarda solo el SHA-256 del token (64 hex, índice único de ancho fijo):
+ * el JWT completo nunca llega a la BD.
  */
 @Entity
-@Table(name = "refresh_tokens")
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "ux_refresh_tokens_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_refresh_tokens_usuario", columnList = "usuario_id"),
+        @Index(name = "idx_refresh_tokens_expiracion", columnList = "fecha_expiracion")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -25,8 +36,9 @@ public class RefreshToken {
     @ToString.Exclude
     private Usuario usuario;
 
-    @Column(nullable = false, unique = true, length = 500)
-    private String token;
+    /** SHA-256 del refresh token en hexadecimal (ver calcularHash) */
+    @Column(name = "token_hash", nullable = false, length = 64, columnDefinition = "char(64)")
+    private String tokenHash;
 
     @Column(name = "fecha_expiracion", nullable = false)
     private LocalDateTime fechaExpiracion;
@@ -74,4 +86,16 @@ public class RefreshToken {
     public void revocar() {
         this.revocado = true;
     }
+
+    /**
+     * SHA-256 del token en hexadecimal (equivale a encode(sha256(...), 'hex') en PostgreSQL).
+     */
+    public static String calcularHash(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
 }
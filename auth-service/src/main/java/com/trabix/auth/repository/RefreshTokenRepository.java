@@ -18,18 +18,18 @@ import java.util.Optional;
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
 
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
 
     /**
-     * Busca token válido (no revocado y no expirado).
+     * Busca token válido (no revocado y no expirado) por su hash.
      */
     @Query("""
         SELECT rt FROM RefreshToken rt 
-        WHERE rt.token = :token 
+        WHERE rt.tokenHash = :tokenHash 
         AND rt.revocado = false 
         AND rt.fechaExpiracion > :ahora
         """)
-    Optional<RefreshToken> findValidToken(@Param("token") String token, @Param("ahora") LocalDateTime ahora);
+    Optional<RefreshToken> findValidToken(@Param("tokenHash") String tokenHash, @Param("ahora") LocalDateTime ahora);
 
     /**
      * Lista tokens activos de un usuario.
@@ -42,6 +42,17 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
         """)
     List<RefreshToken> findActiveTokensByUsuario(@Param("usuario") Usuario usuario, @Param("ahora") LocalDateTime ahora);
 
+    /**
+     * Hash y expiración de los tokens activos de un usuario (carga de la caché de sesiones).
+     */
+    @Query("""
+        SELECT rt.tokenHash AS tokenHash, rt.fechaExpiracion AS fechaExpiracion FROM RefreshToken rt 
+        WHERE rt.usuario.id = :usuarioId 
+        AND rt.revocado = false 
+        AND rt.fechaExpiracion > :ahora
+        """)
+    List<SesionActiva> findSesionesActivas(@Param("usuarioId") Long usuarioId, @Param("ahora") LocalDateTime ahora);
+
     /**
      * Revoca todos los tokens de un usuario.
      */
@@ -50,18 +61,25 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     void revocarTodosDelUsuario(@Param("usuario") Usuario usuario);
 
     /**
-     * Revoca un token específico.
+     * Revoca un token específico (por su hash).
      */
     @Modifying
-    @Query("UPDATE RefreshToken rt SET rt.revocado = true WHERE rt.token = :token")
-    void revocarToken(@Param("token") String token);
+    @Query("UPDATE RefreshToken rt SET rt.revocado = true WHERE rt.tokenHash = :tokenHash")
+    void revocarToken(@Param("tokenHash") String tokenHash);
 
     /**
-     * Elimina tokens expirados (limpieza programada).
+     * Elimina un lote de tokens expirados (limpieza programada, ver TokenCleanupService).
+     * SKIP LOCKED: dos instancias limpiando a la vez no se bloquean entre sí.
      */
     @Modifying
-    @Query("DELETE FROM RefreshToken rt WHERE rt.fechaExpiracion < :fecha")
-    int eliminarExpirados(@Param("fecha") LocalDateTime fecha);
+    @Query(value = """
+        DELETE FROM refresh_tokens WHERE id IN (
+            SELECT id FROM refresh_tokens
+            WHERE fecha_expiracion < :fecha
+            LIMIT :lote
+            FOR UPDATE SKIP LOCKED)
+        """, nativeQuery = true)
+    int eliminarExpiradosLote(@Param("fecha") LocalDateTime fecha, @Param("lote") int lote);
 
     /**
      * Cuenta tokens activos de un usuario.
@@ -73,4 +91,12 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
         AND rt.fechaExpiracion > :ahora
         """)
     long contarTokensActivos(@Param("usuarioId") Long usuarioId, @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Proyección de una sesión activa.
+     */
+    interface SesionActiva {
+        String getTokenHash();
+        LocalDateTime getFechaExpiracion();
+    }
 }
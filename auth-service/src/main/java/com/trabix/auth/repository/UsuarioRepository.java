@@ -52,6 +52,14 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     @Query("UPDATE Usuario u SET u.bloqueadoHasta = :hasta WHERE u.cedula = :cedula")
     void bloquearCuenta(@Param("cedula") String cedula, @Param("hasta") LocalDateTime hasta);
 
+    /**
+     * Persiste un bloqueo por fuerza bruta (los intentos se cuentan en memoria).
+     */
+    @Modifying
+    @Query("UPDATE Usuario u SET u.intentosFallidos = :intentos, u.bloqueadoHasta = :hasta WHERE u.cedula = :cedula")
+    void registrarBloqueo(@Param("cedula") String cedula, @Param("intentos") int intentos,
+                          @Param("hasta") LocalDateTime hasta);
+
     /**
      * Actualiza la contraseña de un usuario.
      */
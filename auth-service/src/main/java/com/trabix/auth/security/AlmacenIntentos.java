@@ -0,0 +1,40 @@
+package com.trabix.auth.security;
+
+/**
+ * Almacén de intentos fallidos de login por clave ("cedula:...", "ip:...").
+ *
+ * Cuenta con una ventana deslizante aproximada: contador de la ventana actual más
+ * el de la anterior ponderado por la fracción que aún se solapa. Dos enteros por
+ * clave, sin guardar cada intento.
+ *
+ * Implementaciones (trabix.security.fuerza-bruta.almacen):
+ * - memoria (por defecto): una instancia de auth-service, acotada por max-claves
+ * - redis: compartido entre instancias, sobre el Redis de docker-compose
+ */
+public interface AlmacenIntentos {
+
+    /**
+     * Registra un fallo y devuelve los fallos en la ventana (incluido este).
+     */
+    double registrarFallo(String clave, long ventanaMs);
+
+    /**
+     * Fallos en la ventana, sin registrar uno nuevo.
+     */
+    double contar(String clave, long ventanaMs);
+
+    /**
+     * Olvida los fallos de la clave (login exitoso o bloqueo ya persistido).
+     */
+    void limpiar(String clave, long ventanaMs);
+
+    /**
+     * Estimación deslizante a partir de los contadores de la ventana actual y la anterior.
+     *
+     * @param transcurridoMs tiempo desde el inicio de la ventana actual
+     */
+    static double estimar(long actual, long anterior, long transcurridoMs, long ventanaMs) {
+        double solape = 1.0 - Math.min(1.0, (double) transcurridoMs / ventanaMs);
+        return actual + anterior * solape;
+    }
+}
@@ -0,0 +1,139 @@
+package com.trabix.auth.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Intentos fallidos en memoria (una instancia de auth-service).
+ *
+ * - Las claves sin fallos en las dos últimas ventanas se descartan periódicamente
+ * - Si se supera max-claves (p.ej. muchas IPs distintas) las claves nuevas comparten un
+ *   contador de desborde por tipo de clave ("cedula", "ip") y se programa una purga fuera
+ *   del hilo del request. Bajo un ataque distribuido el desborde bloquea antes, nunca después
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "trabix.security.fuerza-bruta.almacen", havingValue = "memoria", matchIfMissing = true)
+public class AlmacenIntentosMemoria implements AlmacenIntentos {
+
+    private final Map<String, Contador> contadores = new ConcurrentHashMap<>();
+    /** Contadores compartidos por las claves que no caben, uno por tipo de clave */
+    private final Map<String, Contador> desborde = new ConcurrentHashMap<>();
+    private final AtomicBoolean purgaPendiente = new AtomicBoolean();
+
+    @Value("${trabix.security.fuerza-bruta.max-claves:100000}")
+    private int maxClaves;
+
+    @Value("${trabix.security.fuerza-bruta.ventana-minutos:15}")
+    private long ventanaMinutos;
+
+    @Override
+    public double registrarFallo(String clave, long ventanaMs) {
+        long ahora = System.currentTimeMillis();
+        Contador contador = contadores.get(clave);
+        if (contador == null) {
+            if (contadores.size() >= maxClaves) {
+                programarPurga();
+                contador = desborde.computeIfAbsent(tipo(clave), t -> new Contador(ahora, ventanaMs));
+            } else {
+                contador = contadores.computeIfAbsent(clave, c -> new Contador(ahora, ventanaMs));
+            }
+        }
+        return contador.registrar(ahora, ventanaMs);
+    }
+
+    @Override
+    public double contar(String clave, long ventanaMs) {
+        Contador contador = contadores.get(clave);
+        if (contador == null && contadores.size() >= maxClaves) {
+            contador = desborde.get(tipo(clave));
+        }
+        return contador == null ? 0 : contador.contar(System.currentTimeMillis(), ventanaMs);
+    }
+
+    @Override
+    public void limpiar(String clave, long ventanaMs) {
+        contadores.remove(clave);
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgarVencidas() {
+        int purgadas = purgar(System.currentTimeMillis(), ventanaMinutos * 60_000);
+        if (purgadas > 0) {
+            log.debug("Contadores de intentos vencidos descartados: {} (quedan {})", purgadas, contadores.size());
+        }
+    }
+
+    private void programarPurga() {
+        if (purgaPendiente.compareAndSet(false, true)) {
+            log.warn("Límite de contadores de intentos alcanzado ({}): claves nuevas en contador de desborde",
+                    maxClaves);
+            CompletableFuture.runAsync(() -> {
+                try {
+                    purgarVencidas();
+                } finally {
+                    purgaPendiente.set(false);
+                }
+            });
+        }
+    }
+
+    private int purgar(long ahora, long ventanaMs) {
+        int antes = contadores.size();
+        contadores.values().removeIf(c -> c.vencido(ahora, ventanaMs));
+        desborde.values().removeIf(c -> c.vencido(ahora, ventanaMs));
+        return antes - contadores.size();
+    }
+
+    /**
+     * Prefijo de la clave ("cedula", "ip"): cada tipo tiene su propio umbral.
+     */
+    private static String tipo(String clave) {
+        int separador = clave.indexOf(':');
+        return separador < 0 ? clave : clave.substring(0, separador);
+    }
+
+    private static final class Contador {
+
+        private long inicioVentana;
+        private long actual;
+        private long anterior;
+
+        Contador(long ahora, long ventanaMs) {
+            this.inicioVentana = ahora - ahora % ventanaMs;
+        }
+
+        synchronized double registrar(long ahora, long ventanaMs) {
+            avanzar(ahora, ventanaMs);
+            actual++;
+            return AlmacenIntentos.estimar(actual, anterior, ahora - inicioVentana, ventanaMs);
+        }
+
+        synchronized double contar(long ahora, long ventanaMs) {
+            avanzar(ahora, ventanaMs);
+            return AlmacenIntentos.estimar(actual, anterior, ahora - inicioVentana, ventanaMs);
+        }
+
+        synchronized boolean vencido(long ahora, long ventanaMs) {
+            return ahora - inicioVentana >= 2 * ventanaMs;
+        }
+
+        private void avanzar(long ahora, long ventanaMs) {
+            long transcurridas = (ahora - inicioVentana) / ventanaMs;
+            if (transcurridas == 0) {
+                return;
+            }
+            anterior = transcurridas == 1 ? actual : 0;
+            actual = 0;
+            inicioVentana += transcurridas * ventanaMs;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.trabix.auth.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Intentos fallidos en Redis, compartidos entre instancias de auth-service.
+ *
+ * Una clave por ventana fija ("fb:{clave}:{n}") con INCR y expiración de dos ventanas;
+ * la estimación deslizante se hace leyendo la ventana actual y la anterior.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "trabix.security.fuerza-bruta.almacen", havingValue = "redis")
+public class AlmacenIntentosRedis implements AlmacenIntentos {
+
+    private static final String PREFIJO = "fb:";
+
+    private final StringRedisTemplate redis;
+
+    @Override
+    public double registrarFallo(String clave, long ventanaMs) {
+        long ahora = System.currentTimeMillis();
+        long ventana = ahora / ventanaMs;
+        String claveActual = PREFIJO + clave + ":" + ventana;
+
+        Long actual = redis.opsForValue().increment(claveActual);
+        if (actual != null && actual == 1) {
+            redis.expire(claveActual, Duration.ofMillis(2 * ventanaMs));
+        }
+        String anterior = redis.opsForValue().get(PREFIJO + clave + ":" + (ventana - 1));
+        return AlmacenIntentos.estimar(actual != null ? actual : 0, parsear(anterior),
+                ahora - ventana * ventanaMs, ventanaMs);
+    }
+
+    @Override
+    public double contar(String clave, long ventanaMs) {
+        long ahora = System.currentTimeMillis();
+        long ventana = ahora / ventanaMs;
+        List<String> valores = redis.opsForValue().multiGet(List.of(
+                PREFIJO + clave + ":" + ventana, PREFIJO + clave + ":" + (ventana - 1)));
+        if (valores == null) {
+            return 0;
+        }
+        return AlmacenIntentos.estimar(parsear(valores.get(0)), parsear(valores.get(1)),
+                ahora - ventana * ventanaMs, ventanaMs);
+    }
+
+    @Override
+    public void limpiar(String clave, long ventanaMs) {
+        // Solo cuentan la ventana actual y la anterior (las demás ya expiraron)
+        long ventana = System.currentTimeMillis() / ventanaMs;
+        redis.delete(List.of(PREFIJO + clave + ":" + ventana, PREFIJO + clave + ":" + (ventana - 1)));
+    }
+
+    private static long parsear(String valor) {
+        return valor == null ? 0 : Long.parseLong(valor);
+    }
+}
@@ -0,0 +1,53 @@
+package com.trabix.auth.security;
+
+import java.util.Map;
+
+/**
+ * Caché de sesiones activas por usuario: hash del refresh token → expiración (ms epoch).
+ *
+ * La BD (refresh_tokens) es la fuente de verdad; este almacén se escribe después de
+ * cada commit (write-through) y se recarga desde la BD cuando falta un usuario.
+ *
+ * Consistencia con las revocaciones:
+ * - Una revocación descarta la entrada completa del usuario e incrementa su versión
+ * - Las escrituras que vienen de una lectura de BD (carga, sesión confirmada) llevan la
+ *   versión leída antes de esa lectura y se ignoran si hubo una revocación entre medio:
+ *   una carga concurrente nunca vuelve a dejar en caché un hash ya revocado
+ * - Cada entrada vive a lo sumo ttl-segundos desde su carga; después se recarga desde BD
+ *   (re-chequea revocado aunque la revocación se haya hecho en otra instancia)
+ *
+ * Implementaciones (trabix.security.sesiones.almacen):
+ * - memoria (por defecto): LRU por usuario, una instancia de auth-service. Con varias
+ *   instancias, una revocación hecha en otra se ve a más tardar al vencer el TTL
+ * - redis: compartido entre instancias, sobre el Redis de docker-compose
+ */
+public interface AlmacenSesiones {
+
+    /**
+     * Sesiones del usuario; null si el usuario no está en caché o su carga venció.
+     */
+    Map<String, Long> obtener(Long usuarioId);
+
+    /**
+     * Versión de revocación del usuario. Se lee antes de consultar la BD y se pasa a
+     * cargar/agregar.
+     */
+    long version(Long usuarioId);
+
+    /**
+     * Reemplaza las sesiones del usuario con las leídas de BD, solo si su versión sigue
+     * siendo la indicada.
+     */
+    void cargar(Long usuarioId, Map<String, Long> sesiones, long version);
+
+    /**
+     * Agrega una sesión si el usuario está en caché y su versión sigue siendo la indicada
+     * (si no, se cargará desde BD).
+     */
+    void agregar(Long usuarioId, String tokenHash, long expira, long version);
+
+    /**
+     * Descarta las sesiones en caché del usuario tras una revocación en BD.
+     */
+    void invalidar(Long usuarioId);
+}
@@ -0,0 +1,90 @@
+package com.trabix.auth.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sesiones activas en memoria, acotadas a max-usuarios (LRU) y a ttl-segundos por carga.
+ *
+ * Cada valor es un mapa inmutable que se reemplaza completo en cada cambio: un
+ * usuario tiene pocas sesiones (max-sesiones-activas) y las lecturas no copian.
+ * Las versiones de revocación se guardan en franjas fijas (por hash del usuario): memoria
+ * acotada, y una colisión solo hace que una carga no se guarde.
+ */
+@Component
+@ConditionalOnProperty(name = "trabix.security.sesiones.almacen", havingValue = "memoria", matchIfMissing = true)
+public class AlmacenSesionesMemoria implements AlmacenSesiones {
+
+    private static final int FRANJAS = 4096;
+
+    private final Map<Long, Entrada> sesiones;
+    private final long[] versiones = new long[FRANJAS];
+    private final long ttlMs;
+
+    public AlmacenSesionesMemoria(@Value("${trabix.security.sesiones.max-usuarios:50000}") int maxUsuarios,
+                                  @Value("${trabix.security.sesiones.ttl-segundos:300}") long ttlSegundos) {
+        this.ttlMs = ttlSegundos * 1000;
+        this.sesiones = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entrada> menosUsado) {
+                return size() > maxUsuarios;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Map<String, Long> obtener(Long usuarioId) {
+        Entrada entrada = sesiones.get(usuarioId);
+        if (entrada == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entrada.cargadaEn() >= ttlMs) {
+            sesiones.remove(usuarioId);
+            return null;
+        }
+        return entrada.sesiones();
+    }
+
+    @Override
+    public synchronized long version(Long usuarioId) {
+        return versiones[franja(usuarioId)];
+    }
+
+    @Override
+    public synchronized void cargar(Long usuarioId, Map<String, Long> nuevas, long version) {
+        if (versiones[franja(usuarioId)] != version) {
+            return;
+        }
+        sesiones.put(usuarioId, new Entrada(Map.copyOf(nuevas), System.currentTimeMillis()));
+    }
+
+    @Override
+    public synchronized void agregar(Long usuarioId, String tokenHash, long expira, long version) {
+        Entrada actual = sesiones.get(usuarioId);
+        if (actual == null || versiones[franja(usuarioId)] != version) {
+            return;
+        }
+        Map<String, Long> nuevas = new HashMap<>(actual.sesiones());
+        nuevas.put(tokenHash, expira);
+        // Conserva el instante de carga: el TTL cuenta desde la última lectura completa de BD
+        sesiones.put(usuarioId, new Entrada(Map.copyOf(nuevas), actual.cargadaEn()));
+    }
+
+    @Override
+    public synchronized void invalidar(Long usuarioId) {
+        versiones[franja(usuarioId)]++;
+        sesiones.remove(usuarioId);
+    }
+
+    private static int franja(Long usuarioId) {
+        return Math.floorMod(usuarioId.hashCode(), FRANJAS);
+    }
+
+    private record Entrada(Map<String, Long> sesiones, long cargadaEn) {
+    }
+}
@@ -0,0 +1,118 @@
+package com.trabix.auth.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sesiones activas en Redis, compartidas entre instancias de auth-service.
+ *
+ * Un hash por usuario ("ses:{usuarioId}") con campo = hash del token y valor = expiración.
+ * Un hash vacío no existe en Redis: el campo centinela "_" marca "usuario cargado, sin sesiones".
+ * La clave expira a los ttl-segundos de su carga desde BD (agregar no la extiende).
+ *
+ * La versión de revocación vive en "ses:v:{usuarioId}". Cargar/agregar comparan la versión
+ * y escriben en un mismo script Lua, atómico frente a invalidar.
+ */
+@Component
+@ConditionalOnProperty(name = "trabix.security.sesiones.almacen", havingValue = "redis")
+public class AlmacenSesionesRedis implements AlmacenSesiones {
+
+    private static final String PREFIJO = "ses:";
+    private static final String PREFIJO_VERSION = "ses:v:";
+    private static final String CENTINELA = "_";
+
+    /** KEYS: sesiones, versión. ARGV: versión esperada, ttl ms, campo1, valor1, ... */
+    private static final RedisScript<Long> CARGAR = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[1] then return 0 end
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], unpack(ARGV, 3))
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    /** KEYS: sesiones, versión. ARGV: versión esperada, hash, expiración */
+    private static final RedisScript<Long> AGREGAR = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[1] then return 0 end
+            if redis.call('HEXISTS', KEYS[1], '_') == 0 then return 0 end
+            redis.call('HSET', KEYS[1], ARGV[2], ARGV[3])
+            return 1
+            """, Long.class);
+
+    /** KEYS: sesiones, versión. ARGV: ttl ms */
+    private static final RedisScript<Long> INVALIDAR = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[1])
+            local v = redis.call('INCR', KEYS[2])
+            redis.call('PEXPIRE', KEYS[2], ARGV[1])
+            return v
+            """, Long.class);
+
+    private final StringRedisTemplate redis;
+    private final long ttlMs;
+
+    public AlmacenSesionesRedis(StringRedisTemplate redis,
+                                @Value("${trabix.security.sesiones.ttl-segundos:300}") long ttlSegundos) {
+        this.redis = redis;
+        this.ttlMs = ttlSegundos * 1000;
+    }
+
+    @Override
+    public Map<String, Long> obtener(Long usuarioId) {
+        Map<Object, Object> valores = redis.opsForHash().entries(PREFIJO + usuarioId);
+        if (valores.isEmpty()) {
+            return null;
+        }
+        Map<String, Long> sesiones = new HashMap<>();
+        valores.forEach((campo, valor) -> {
+            if (!CENTINELA.equals(campo)) {
+                sesiones.put((String) campo, Long.parseLong((String) valor));
+            }
+        });
+        return sesiones;
+    }
+
+    @Override
+    public long version(Long usuarioId) {
+        String version = redis.opsForValue().get(PREFIJO_VERSION + usuarioId);
+        return version == null ? 0 : Long.parseLong(version);
+    }
+
+    @Override
+    public void cargar(Long usuarioId, Map<String, Long> sesiones, long version) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(version));
+        args.add(String.valueOf(ttlMs));
+        args.add(CENTINELA);
+        args.add("0");
+        sesiones.forEach((hash, expira) -> {
+            args.add(hash);
+            args.add(String.valueOf(expira));
+        });
+        redis.execute(CARGAR, claves(usuarioId), args.toArray());
+    }
+
+    @Override
+    public void agregar(Long usuarioId, String tokenHash, long expira, long version) {
+        // Solo si el usuario ya está cargado: sin el centinela, se cargará completo desde BD
+        redis.execute(AGREGAR, claves(usuarioId),
+                String.valueOf(version), tokenHash, String.valueOf(expira));
+    }
+
+    @Override
+    public void invalidar(Long usuarioId) {
+        // La versión sobrevive a cualquier carga en curso (que dura mucho menos que el TTL)
+        redis.execute(INVALIDAR, claves(usuarioId), String.valueOf(ttlMs));
+    }
+
+    private static List<String> claves(Long usuarioId) {
+        return List.of(PREFIJO + usuarioId, PREFIJO_VERSION + usuarioId);
+    }
+}
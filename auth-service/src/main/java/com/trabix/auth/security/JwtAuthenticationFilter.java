@@ -3,6 +3,7 @@ package com.trabix.auth.security;
 import com.trabix.auth.entity.Usuario;
 import com.trabix.auth.repository.UsuarioRepository;
 import com.trabix.common.enums.EstadoUsuario;
+import com.trabix.common.security.JwtClaims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -45,7 +46,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             final String jwt = authHeader.substring(7);
-            final String cedula = jwtService.extraerCedula(jwt);
+            // Un solo parseo: firma y expiración ya verificadas
+            final JwtClaims claims = jwtService.verificar(jwt).orElse(null);
+            final String cedula = claims != null ? claims.cedula() : null;
 
             // Si hay cédula y no hay autenticación previa
             if (cedula != null && SecurityContextHolder.getContext().getAuthentication() == null) {
@@ -53,7 +56,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         .findByCedulaAndEstado(cedula, EstadoUsuario.ACTIVO)
                         .orElse(null);
 
-                if (usuario != null && jwtService.esTokenValido(jwt, usuario)) {
+                if (usuario != null) {
                     // Verificar que no esté bloqueado
                     if (usuario.estaBloqueado()) {
                         log.warn("Intento de acceso con cuenta bloqueada: {}", cedula);
@@ -1,6 +1,8 @@
 package com.trabix.auth.security;
 
 import com.trabix.auth.entity.Usuario;
+import com.trabix.common.security.JwtClaims;
+import com.trabix.common.security.JwtVerifier;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
@@ -12,6 +14,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Servicio para generar y validar tokens JWT.
@@ -21,14 +24,17 @@ import java.util.Map;
 public class JwtService {
 
     private final SecretKey secretKey;
+    private final JwtVerifier verifier;
     private final long jwtExpiration;
     private final long refreshExpiration;
 
     public JwtService(
             @Value("${jwt.secret}") String secret,
             @Value("${jwt.expiration}") long jwtExpiration,
-            @Value("${jwt.refresh-expiration}") long refreshExpiration) {
+            @Value("${jwt.refresh-expiration}") long refreshExpiration,
+            @Value("${jwt.cache.max-entradas:10000}") int maxEntradasCache) {
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.verifier = new JwtVerifier(secret, maxEntradasCache);
         this.jwtExpiration = jwtExpiration;
         this.refreshExpiration = refreshExpiration;
     }
@@ -70,6 +76,14 @@ public class JwtService {
                 .compact();
     }
 
+    /**
+     * Verifica firma y expiración una sola vez y retorna los claims (con caché).
+     * Vacío si el token es inválido o expiró.
+     */
+    public Optional<JwtClaims> verificar(String token) {
+        return verifier.verificar(token);
+    }
+
     /**
      * Extrae la cédula (subject) del token.
      */
@@ -102,13 +116,9 @@ public class JwtService {
      * Verifica si el token es válido para el usuario.
      */
     public boolean esTokenValido(String token, Usuario usuario) {
-        try {
-            final String cedula = extraerCedula(token);
-            return cedula.equals(usuario.getCedula()) && !esTokenExpirado(token);
-        } catch (Exception e) {
-            log.warn("Token inválido: {}", e.getMessage());
-            return false;
-        }
+        return verificar(token)
+                .map(claims -> usuario.getCedula().equals(claims.cedula()))
+                .orElse(false);
     }
 
     /**
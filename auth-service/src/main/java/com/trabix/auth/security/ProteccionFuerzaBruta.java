@@ -0,0 +1,125 @@
+package com.trabix.auth.security;
+
+import com.trabix.auth.repository.UsuarioRepository;
+import com.trabix.common.exception.ValidacionNegocioException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Protección contra fuerza bruta en el login.
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * - Los fallos se cuentan en AlmacenIntentos (ventana deslizante), no en la tabla
+ *   usuarios: un ataque de credenciales no genera un UPDATE por intento
+ * - Por cédula: al llegar a max-intentos-login se persiste el bloqueo
+ *   (bloqueado_hasta) y se reinicia el contador. Es la única escritura
+ * - Por IP: al llegar a max-intentos-ip se rechazan los logins de esa IP hasta que
+ *   la ventana se desliza (cubre cédulas inexistentes y rotación de cédulas)
+ * - Si el almacén falla (p.ej. Redis caído) se registra y se continúa: el bloqueo
+ *   persistido y BCrypt siguen protegiendo
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+@Component
+public class ProteccionFuerzaBruta {
+
+    private final AlmacenIntentos almacen;
+    private final UsuarioRepository usuarioRepository;
+    private final int maxIntentosLogin;
+    private final int maxIntentosIp;
+    private final int bloqueoMinutos;
+    private final long ventanaMs;
+
+    public ProteccionFuerzaBruta(
+            AlmacenIntentos almacen,
+            UsuarioRepository usuarioRepository,
+            @Value("${trabix.security.max-intentos-login:5}") int maxIntentosLogin,
+            @Value("${trabix.security.fuerza-bruta.max-intentos-ip:20}") int maxIntentosIp,
+            @Value("${trabix.security.bloqueo-minutos:15}") int bloqueoMinutos,
+            @Value("${trabix.security.fuerza-bruta.ventana-minutos:15}") long ventanaMinutos) {
+        this.almacen = almacen;
+        this.usuarioRepository = usuarioRepository;
+        this.maxIntentosLogin = maxIntentosLogin;
+        this.maxIntentosIp = maxIntentosIp;
+        this.bloqueoMinutos = bloqueoMinutos;
+        this.ventanaMs = ventanaMinutos * 60_000;
+    }
+
+    /**
+     * Rechaza el login si la IP superó los intentos fallidos de la ventana.
+     */
+    public void verificarIp(String ip) {
+        if (ip == null) {
+            return;
+        }
+        try {
+            if (almacen.contar(claveIp(ip), ventanaMs) >= maxIntentosIp) {
+                log.warn("Login rechazado por exceso de intentos desde IP: {}", ip);
+                throw new ValidacionNegocioException(
+                        "Demasiados intentos fallidos desde esta dirección. Intente más tarde.");
+            }
+        } catch (ValidacionNegocioException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            log.warn("Error consultando intentos de login (IP {}): {}", ip, e.getMessage());
+        }
+    }
+
+    /**
+     * Registra un login fallido. Si la cédula existe y llega al máximo, persiste el bloqueo.
+     *
+     * @param cedulaExiste false para cédulas inexistentes (solo cuenta la IP)
+     */
+    @Transactional
+    public void registrarFallo(String cedula, boolean cedulaExiste, String ip) {
+        double intentos;
+        try {
+            if (ip != null) {
+                almacen.registrarFallo(claveIp(ip), ventanaMs);
+            }
+            if (!cedulaExiste) {
+                return;
+            }
+            intentos = almacen.registrarFallo(claveCedula(cedula), ventanaMs);
+        } catch (RuntimeException e) {
+            log.warn("Error registrando intento de login fallido ({}): {}", cedula, e.getMessage());
+            return;
+        }
+
+        log.warn("Intento de login fallido #{} para: {}", (int) Math.ceil(intentos), cedula);
+
+        if (intentos >= maxIntentosLogin) {
+            LocalDateTime hasta = LocalDateTime.now().plusMinutes(bloqueoMinutos);
+            usuarioRepository.registrarBloqueo(cedula, (int) Math.ceil(intentos), hasta);
+            olvidar(cedula);
+            log.warn("Cuenta bloqueada por exceso de intentos: {}", cedula);
+        }
+    }
+
+    /**
+     * Login exitoso: se olvidan los fallos de la cédula (los de la IP siguen contando).
+     */
+    public void registrarExito(String cedula) {
+        olvidar(cedula);
+    }
+
+    private void olvidar(String cedula) {
+        try {
+            almacen.limpiar(claveCedula(cedula), ventanaMs);
+        } catch (RuntimeException e) {
+            log.warn("Error limpiando intentos de login ({}): {}", cedula, e.getMessage());
+        }
+    }
+
+    private static String claveCedula(String cedula) {
+        return "cedula:" + cedula;
+    }
+
+    private static String claveIp(String ip) {
+        return "ip:" + ip;
+    }
+}
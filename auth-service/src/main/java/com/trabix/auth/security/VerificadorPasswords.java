@@ -0,0 +1,107 @@
+package com.trabix.auth.security;
+
+import com.trabix.common.exception.ServicioSaturadoException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Verificación de contraseñas BCrypt fuera de los hilos del servidor.
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * - BCrypt es CPU puro: corre en passwordExecutor (un hilo por núcleo) con cola
+ *   acotada. Cola llena → ServicioSaturadoException (503) inmediata, sin esperar
+ * - El hilo del request espera como máximo espera-ms el resultado
+ * - Rehash al login: si el hash guardado tiene un costo distinto a
+ *   trabix.security.bcrypt.costo, se genera uno nuevo con la contraseña en claro
+ *   (solo disponible en el login). Permite subir o bajar el costo sin forzar
+ *   cambios de contraseña
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+@Component
+public class VerificadorPasswords {
+
+    /** $2a$12$... / $2b$ / $2y$ */
+    private static final Pattern COSTO_BCRYPT = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor executor;
+    private final int costo;
+    private final long esperaMs;
+
+    public VerificadorPasswords(
+            PasswordEncoder passwordEncoder,
+            @Qualifier("passwordExecutor") ThreadPoolTaskExecutor executor,
+            @Value("${trabix.security.bcrypt.costo:12}") int costo,
+            @Value("${trabix.security.bcrypt.espera-ms:5000}") long esperaMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+        this.costo = costo;
+        this.esperaMs = esperaMs;
+    }
+
+    /**
+     * Verifica la contraseña contra el hash guardado y, si es válida y el costo
+     * cambió, calcula el nuevo hash en la misma tarea.
+     *
+     * @throws ServicioSaturadoException si la cola está llena o se agota la espera
+     */
+    public Resultado verificar(String password, String hash) {
+        Future<Resultado> tarea;
+        try {
+            tarea = executor.submit(() -> {
+                if (!passwordEncoder.matches(password, hash)) {
+                    return Resultado.INVALIDO;
+                }
+                return new Resultado(true, requiereRehash(hash) ? passwordEncoder.encode(password) : null);
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Verificación de contraseñas saturada: {} en cola", executor.getQueueSize());
+            throw new ServicioSaturadoException();
+        }
+
+        try {
+            return tarea.get(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            tarea.cancel(true);
+            log.warn("Verificación de contraseña superó {} ms", esperaMs);
+            throw new ServicioSaturadoException();
+        } catch (InterruptedException e) {
+            tarea.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServicioSaturadoException();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error verificando contraseña", e.getCause());
+        }
+    }
+
+    /**
+     * True si el hash no es BCrypt con el costo configurado.
+     */
+    public boolean requiereRehash(String hash) {
+        if (hash == null) {
+            return false;
+        }
+        Matcher m = COSTO_BCRYPT.matcher(hash);
+        return !m.find() || Integer.parseInt(m.group(1)) != costo;
+    }
+
+    /**
+     * @param hashNuevo hash con el costo actual; null si no hay que reemplazarlo
+     */
+    public record Resultado(boolean valido, String hashNuevo) {
+        static final Resultado INVALIDO = new Resultado(false, null);
+    }
+}
@@ -6,29 +6,32 @@ import com.trabix.auth.entity.Usuario;
 import com.trabix.auth.repository.RefreshTokenRepository;
 import com.trabix.auth.repository.UsuarioRepository;
 import com.trabix.auth.security.JwtService;
+import com.trabix.auth.security.ProteccionFuerzaBruta;
+import com.trabix.auth.security.VerificadorPasswords;
 import com.trabix.common.enums.EstadoUsuario;
 import com.trabix.common.exception.CredencialesInvalidasException;
 import com.trabix.common.exception.RecursoNoEncontradoException;
 import com.trabix.common.exception.ValidacionNegocioException;
+import com.trabix.common.security.JwtClaims;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.time.LocalDateTime;
 
 /**
  * Servicio de autenticación: login, logout, refresh token, cambio de contraseña.
  * 
  * SEGURIDAD:
- * - Protección contra fuerza bruta (bloqueo temporal)
- * - Máximo 5 intentos fallidos
+ * - Protección contra fuerza bruta (bloqueo temporal), ver ProteccionFuerzaBruta
+ * - Máximo 5 intentos fallidos por cédula en la ventana; también límite por IP
  * - Bloqueo de 15 minutos después de exceder intentos
  */
 @Slf4j
@@ -36,14 +39,16 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class AuthService {
 
+    private static final String TIPO_REFRESH = "refresh";
+
     private final UsuarioRepository usuarioRepository;
     private final RefreshTokenRepository refreshTokenRepository;
     private final JwtService jwtService;
-    private final AuthenticationManager authenticationManager;
+    private final VerificadorPasswords verificadorPasswords;
+    private final ProteccionFuerzaBruta proteccionFuerzaBruta;
+    private final SesionesActivas sesionesActivas;
     private final PasswordEncoder passwordEncoder;
-
-    @Value("${trabix.security.max-intentos-login:5}")
-    private int maxIntentosLogin;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${trabix.security.bloqueo-minutos:15}")
     private int bloqueoMinutos;
@@ -55,16 +60,25 @@ public class AuthService {
      * Autentica un usuario y genera tokens.
      * 
      * SEGURIDAD: Implementa protección contra fuerza bruta.
+     * 
+     * RENDIMIENTO:
+     * - El usuario se carga una sola vez (sin pasar por AuthenticationManager/UserDetailsService)
+     * - BCrypt corre en VerificadorPasswords, fuera de transacción: no retiene conexión de BD
+     * - Solo las escrituras del login exitoso van en una transacción corta
      */
-    @Transactional
     public AuthResponse login(LoginRequest request, HttpServletRequest httpRequest) {
         String cedula = request.getCedula();
+        String ip = obtenerIpParaLimite(httpRequest);
+
+        // 0. Rechazar IPs con demasiados fallos recientes
+        proteccionFuerzaBruta.verificarIp(ip);
         
         // 1. Verificar si el usuario existe
         Usuario usuario = usuarioRepository.findByCedula(cedula).orElse(null);
         
         if (usuario == null) {
             log.warn("Intento de login con cédula inexistente: {}", cedula);
+            proteccionFuerzaBruta.registrarFallo(cedula, false, ip);
             throw new CredencialesInvalidasException();
         }
 
@@ -82,71 +96,72 @@ public class AuthService {
             throw new CredencialesInvalidasException("Cuenta inactiva o suspendida");
         }
 
-        // 4. Intentar autenticación
-        try {
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(cedula, request.getPassword())
-            );
-        } catch (AuthenticationException e) {
-            // Incrementar intentos fallidos
-            manejarIntentoFallido(usuario);
+        // 4. Verificar contraseña (pool BCrypt acotado; 503 si está saturado)
+        VerificadorPasswords.Resultado verificacion =
+                verificadorPasswords.verificar(request.getPassword(), usuario.getPasswordHash());
+        if (!verificacion.valido()) {
+            // Cuenta en memoria; solo un bloqueo efectivo escribe en usuarios
+            proteccionFuerzaBruta.registrarFallo(cedula, true, ip);
             throw new CredencialesInvalidasException();
         }
 
-        // 5. Login exitoso - resetear intentos y registrar
-        usuario.registrarLoginExitoso();
-        usuarioRepository.save(usuario);
-
-        // 6. Limitar sesiones activas (revocar las más antiguas si excede)
-        limitarSesionesActivas(usuario);
+        // 5-8. Registrar login, limitar sesiones y emitir tokens
+        AuthResponse response = transactionTemplate.execute(status ->
+                completarLogin(usuario, verificacion.hashNuevo(), httpRequest));
 
-        // 7. Generar tokens
-        String accessToken = jwtService.generarAccessToken(usuario);
-        String refreshToken = jwtService.generarRefreshToken(usuario);
-
-        // 8. Guardar refresh token con info del dispositivo
-        guardarRefreshToken(usuario, refreshToken, httpRequest);
+        proteccionFuerzaBruta.registrarExito(cedula);
 
         log.info("Login exitoso: {} - Rol: {} - IP: {}", 
-                usuario.getCedula(), usuario.getRol(), obtenerIp(httpRequest));
+                usuario.getCedula(), usuario.getRol(), ip);
 
-        return construirAuthResponse(usuario, accessToken, refreshToken);
+        return response;
     }
 
     /**
      * Versión simplificada de login (sin HttpServletRequest).
      */
-    @Transactional
     public AuthResponse login(LoginRequest request) {
         return login(request, null);
     }
 
     /**
-     * Maneja un intento de login fallido.
+     * Escrituras del login exitoso (dentro de la transacción).
      */
-    private void manejarIntentoFallido(Usuario usuario) {
-        usuario.incrementarIntentosFallidos();
-        
-        if (usuario.getIntentosFallidos() >= maxIntentosLogin) {
-            usuario.bloquearCuenta(bloqueoMinutos);
-            log.warn("Cuenta bloqueada por exceso de intentos: {}", usuario.getCedula());
+    private AuthResponse completarLogin(Usuario usuario, String hashNuevo, HttpServletRequest httpRequest) {
+        // 5. Login exitoso - resetear intentos y registrar
+        LocalDateTime ahora = LocalDateTime.now();
+        usuarioRepository.registrarLoginExitoso(usuario.getCedula(), ahora);
+        usuario.registrarLoginExitoso();
+
+        if (hashNuevo != null) {
+            usuarioRepository.actualizarPassword(usuario.getId(), hashNuevo, ahora);
+            usuario.setPasswordHash(hashNuevo);
+            log.info("Hash de contraseña actualizado al costo actual para: {}", usuario.getCedula());
         }
-        
-        usuarioRepository.save(usuario);
-        log.warn("Intento de login fallido #{} para: {}", 
-                usuario.getIntentosFallidos(), usuario.getCedula());
+
+        // 6. Limitar sesiones activas (revocar las más antiguas si excede)
+        limitarSesionesActivas(usuario);
+
+        // 7. Generar tokens
+        String accessToken = jwtService.generarAccessToken(usuario);
+        String refreshToken = jwtService.generarRefreshToken(usuario);
+
+        // 8. Guardar refresh token con info del dispositivo
+        guardarRefreshToken(usuario, refreshToken, httpRequest);
+
+        return construirAuthResponse(usuario, accessToken, refreshToken);
     }
 
     /**
      * Limita el número de sesiones activas por usuario.
      */
     private void limitarSesionesActivas(Usuario usuario) {
-        long sesionesActivas = refreshTokenRepository.contarTokensActivos(
-                usuario.getId(), LocalDateTime.now());
+        int sesiones = sesionesActivas.contar(usuario.getId());
         
-        if (sesionesActivas >= maxSesionesActivas) {
+        if (sesiones >= maxSesionesActivas) {
             // Revocar todos los tokens anteriores
             refreshTokenRepository.revocarTodosDelUsuario(usuario);
+            sesionesActivas.revocarTodas(usuario.getId());
             log.info("Sesiones anteriores revocadas para: {} (excedió límite de {})", 
                     usuario.getCedula(), maxSesionesActivas);
         }
@@ -154,14 +169,22 @@ public class AuthService {
 
     /**
      * Renueva el access token usando el refresh token.
+     * 
+     * La firma se verifica con JwtService y la sesión con SesionesActivas (caché);
+     * el usuario se lee por PK para ver cambios de estado o bloqueo.
      */
-    @Transactional
     public AuthResponse refresh(RefreshTokenRequest request) {
-        RefreshToken refreshToken = refreshTokenRepository
-                .findValidToken(request.getRefreshToken(), LocalDateTime.now())
+        JwtClaims claims = jwtService.verificar(request.getRefreshToken())
+                .filter(c -> TIPO_REFRESH.equals(c.tipo()) && c.userId() != null)
                 .orElseThrow(() -> new CredencialesInvalidasException("Token de refresh inválido o expirado"));
 
-        Usuario usuario = refreshToken.getUsuario();
+        String tokenHash = RefreshToken.calcularHash(request.getRefreshToken());
+        if (!sesionesActivas.esValida(claims.userId(), tokenHash)) {
+            throw new CredencialesInvalidasException("Token de refresh inválido o expirado");
+        }
+
+        Usuario usuario = usuarioRepository.findById(claims.userId())
+                .orElseThrow(() -> new CredencialesInvalidasException("Token de refresh inválido o expirado"));
 
         if (usuario.getEstado() != EstadoUsuario.ACTIVO) {
             throw new CredencialesInvalidasException("Usuario inactivo");
@@ -188,6 +211,7 @@ public class AuthService {
                 .orElseThrow(() -> new RecursoNoEncontradoException("Usuario", usuarioId));
 
         refreshTokenRepository.revocarTodosDelUsuario(usuario);
+        sesionesActivas.revocarTodas(usuarioId);
         log.info("Logout: tokens revocados para usuario {}", usuario.getCedula());
     }
 
@@ -196,7 +220,12 @@ public class AuthService {
      */
     @Transactional
     public void logoutToken(String refreshToken) {
-        refreshTokenRepository.revocarToken(refreshToken);
+        String tokenHash = RefreshToken.calcularHash(refreshToken);
+        refreshTokenRepository.revocarToken(tokenHash);
+        // Un token con firma inválida o expirado no puede estar vigente en la caché
+        jwtService.verificar(refreshToken)
+                .map(JwtClaims::userId)
+                .ifPresent(usuarioId -> sesionesActivas.revocar(usuarioId, tokenHash));
         log.debug("Token específico revocado");
     }
 
@@ -229,6 +258,7 @@ public class AuthService {
 
         // Revocar todos los tokens (forzar re-login)
         refreshTokenRepository.revocarTodosDelUsuario(usuario);
+        sesionesActivas.revocarTodas(usuarioId);
 
         log.info("Contraseña cambiada para usuario: {}", usuario.getCedula());
     }
@@ -239,7 +269,7 @@ public class AuthService {
     private void guardarRefreshToken(Usuario usuario, String token, HttpServletRequest request) {
         RefreshToken refreshToken = RefreshToken.builder()
                 .usuario(usuario)
-                .token(token)
+                .tokenHash(RefreshToken.calcularHash(token))
                 .fechaExpiracion(LocalDateTime.now().plusSeconds(jwtService.getRefreshExpiration() / 1000))
                 .revocado(false)
                 .ipAddress(request != null ? obtenerIp(request) : null)
@@ -247,10 +277,11 @@ public class AuthService {
                 .build();
 
         refreshTokenRepository.save(refreshToken);
+        sesionesActivas.registrar(usuario.getId(), refreshToken.getTokenHash(), refreshToken.getFechaExpiracion());
     }
 
     /**
-     * Obtiene la IP del cliente.
+     * Obtiene la IP del cliente (solo informativa: la primera de X-Forwarded-For la elige el cliente).
      */
     private String obtenerIp(HttpServletRequest request) {
         if (request == null) return null;
@@ -269,6 +300,39 @@ public class AuthService {
         return ip;
     }
 
+    /**
+     * IP usada como clave del límite por IP de ProteccionFuerzaBruta.
+     *
+     * No usa la primera entrada de X-Forwarded-For ni X-Real-IP (las controla el cliente):
+     * si la conexión viene del gateway (dirección interna), toma la última entrada de
+     * X-Forwarded-For, que es la que añade el gateway; si no, la dirección de la conexión.
+     */
+    private String obtenerIpParaLimite(HttpServletRequest request) {
+        if (request == null) return null;
+
+        String remota = request.getRemoteAddr();
+        String reenviada = request.getHeader("X-Forwarded-For");
+        if (reenviada == null || reenviada.isBlank() || !esProxyInterno(remota)) {
+            return remota;
+        }
+        String ultima = reenviada.substring(reenviada.lastIndexOf(',') + 1).trim();
+        return ultima.isEmpty() ? remota : ultima;
+    }
+
+    private boolean esProxyInterno(String direccion) {
+        // Solo literales IP: getByName no debe resolver nombres por DNS
+        if (direccion == null || direccion.isEmpty()
+                || !direccion.chars().allMatch(c -> c == '.' || c == ':' || Character.digit(c, 16) >= 0)) {
+            return false;
+        }
+        try {
+            InetAddress inet = InetAddress.getByName(direccion);
+            return inet.isLoopbackAddress() || inet.isSiteLocalAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
     /**
      * Construye la respuesta de autenticación.
      */
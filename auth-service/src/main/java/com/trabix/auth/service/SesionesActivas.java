@@ -0,0 +1,158 @@
+package com.trabix.auth.service;
+
+import com.trabix.auth.entity.RefreshToken;
+import com.trabix.auth.repository.RefreshTokenRepository;
+import com.trabix.auth.security.AlmacenSesiones;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Sesiones activas (refresh tokens vigentes) por usuario, servidas desde AlmacenSesiones.
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * - Lectura: si el usuario no está en caché (o su carga superó el TTL) se cargan sus
+ *   sesiones con una sola consulta (hash + expiración) y se guardan
+ * - Escritura: la BD primero; la caché se actualiza después del commit
+ *   (si la transacción se revierte, la caché no cambia)
+ * - Revocación: descarta la entrada del usuario; las cargas y altas que leyeron la BD
+ *   antes de la revocación llevan una versión vieja y no se guardan
+ * - Refresh: un hash presente y no expirado en caché es válido sin SQL. Si no está,
+ *   se confirma en BD por el índice único de token_hash (cubre carreras entre una
+ *   carga y un login concurrente) y, si es válido, se vuelve a agregar
+ * - Fallos del almacén (p.ej. Redis caído): se registran y se usa la BD
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SesionesActivas {
+
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+
+    private final AlmacenSesiones almacen;
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    /**
+     * Número de sesiones vigentes del usuario.
+     */
+    public int contar(Long usuarioId) {
+        return de(usuarioId).size();
+    }
+
+    /**
+     * Verifica que el refresh token (por su hash) sea una sesión vigente del usuario.
+     */
+    public boolean esValida(Long usuarioId, String tokenHash) {
+        Long expira = de(usuarioId).get(tokenHash);
+        if (expira != null && expira > System.currentTimeMillis()) {
+            return true;
+        }
+
+        long version = versionSegura(usuarioId);
+        Optional<RefreshToken> enBd = refreshTokenRepository.findValidToken(tokenHash, LocalDateTime.now());
+        if (enBd.isEmpty() || !usuarioId.equals(enBd.get().getUsuario().getId())) {
+            return false;
+        }
+        long expiraEnBd = aMillis(enBd.get().getFechaExpiracion());
+        ejecutarSeguro(() -> almacen.agregar(usuarioId, tokenHash, expiraEnBd, version));
+        return true;
+    }
+
+    /**
+     * Registra una sesión nueva (ya guardada en BD).
+     */
+    public void registrar(Long usuarioId, String tokenHash, LocalDateTime expiracion) {
+        long expira = aMillis(expiracion);
+        long version = versionSegura(usuarioId);
+        despuesDelCommit(() -> almacen.agregar(usuarioId, tokenHash, expira, version));
+    }
+
+    /**
+     * Quita una sesión revocada en BD.
+     */
+    public void revocar(Long usuarioId, String tokenHash) {
+        despuesDelCommit(() -> almacen.invalidar(usuarioId));
+    }
+
+    /**
+     * Deja al usuario sin sesiones (todas revocadas en BD).
+     */
+    public void revocarTodas(Long usuarioId) {
+        despuesDelCommit(() -> almacen.invalidar(usuarioId));
+    }
+
+    private Map<String, Long> de(Long usuarioId) {
+        long ahora = System.currentTimeMillis();
+        Map<String, Long> sesiones = null;
+        try {
+            sesiones = almacen.obtener(usuarioId);
+        } catch (RuntimeException e) {
+            log.warn("Error leyendo sesiones en caché ({}): {}", usuarioId, e.getMessage());
+        }
+
+        if (sesiones == null) {
+            // Versión leída antes de la consulta: si entre medio se revoca, la carga no se guarda
+            long version = versionSegura(usuarioId);
+            sesiones = new HashMap<>();
+            for (RefreshTokenRepository.SesionActiva s :
+                    refreshTokenRepository.findSesionesActivas(usuarioId, LocalDateTime.now())) {
+                sesiones.put(s.getTokenHash(), aMillis(s.getFechaExpiracion()));
+            }
+            Map<String, Long> cargadas = sesiones;
+            ejecutarSeguro(() -> almacen.cargar(usuarioId, cargadas, version));
+            return cargadas;
+        }
+
+        // Las expiradas se ignoran; desaparecen en la siguiente recarga o revocación
+        Map<String, Long> vigentes = new HashMap<>(sesiones);
+        vigentes.values().removeIf(expira -> expira <= ahora);
+        return vigentes;
+    }
+
+    /**
+     * Versión de revocación del usuario; -1 si el almacén falla (ninguna escritura con
+     * esa versión se aplica).
+     */
+    private long versionSegura(Long usuarioId) {
+        try {
+            return almacen.version(usuarioId);
+        } catch (RuntimeException e) {
+            log.warn("Error leyendo versión de sesiones en caché ({}): {}", usuarioId, e.getMessage());
+            return -1;
+        }
+    }
+
+    private void despuesDelCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ejecutarSeguro(accion);
+                }
+            });
+        } else {
+            ejecutarSeguro(accion);
+        }
+    }
+
+    private void ejecutarSeguro(Runnable accion) {
+        try {
+            accion.run();
+        } catch (RuntimeException e) {
+            log.warn("Error actualizando caché de sesiones: {}", e.getMessage());
+        }
+    }
+
+    private static long aMillis(LocalDateTime fecha) {
+        return fecha.atZone(ZONA).toInstant().toEpochMilli();
+    }
+}
@@ -1,46 +1,153 @@
 package com.trabix.auth.service;
 
 import com.trabix.auth.repository.RefreshTokenRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Servicio programado para limpieza de tokens expirados.
  * Se ejecuta diariamente a las 3:00 AM.
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * POR LOTES (en lugar de un DELETE sin límite):
+ * - Cada lote borra hasta "lote" filas en su propia transacción corta
+ *   (índice idx_refresh_tokens_expiracion), con una pausa entre lotes para
+ *   repartir el WAL y no retener locks
+ * - La ejecución termina al quedar un lote incompleto o al agotar max-duracion-ms;
+ *   lo que falte se borra en la siguiente
+ * - Solo una limpieza a la vez por instancia; entre instancias, SKIP LOCKED
+ *
+ * No se particiona refresh_tokens por mes: PostgreSQL exige incluir la columna de
+ * partición en los índices únicos, y token_hash debe ser único por sí solo.
+ *
+ * MÉTRICAS (actuator):
+ * - auth.tokens.limpieza.eliminados: tokens borrados (avanza lote a lote)
+ * - auth.tokens.limpieza.lotes: lotes ejecutados en la limpieza en curso o la última
+ * - auth.tokens.limpieza.duracion: duración de cada limpieza
+ * ═══════════════════════════════════════════════════════════════════
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class TokenCleanupService {
 
     private final RefreshTokenRepository refreshTokenRepository;
+    private final TransactionTemplate transaccion;
+    private final ReentrantLock enCurso = new ReentrantLock();
+
+    private final Counter eliminados;
+    private final Timer duracion;
+    private final AtomicLong lotes = new AtomicLong();
+
+    private final int tamanoLote;
+    private final long pausaMs;
+    private final long maxDuracionMs;
+
+    public TokenCleanupService(
+            RefreshTokenRepository refreshTokenRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry registry,
+            @Value("${trabix.security.limpieza-tokens.lote:5000}") int tamanoLote,
+            @Value("${trabix.security.limpieza-tokens.pausa-ms:200}") long pausaMs,
+            @Value("${trabix.security.limpieza-tokens.max-duracion-ms:600000}") long maxDuracionMs) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+        this.pausaMs = pausaMs;
+        this.maxDuracionMs = maxDuracionMs;
+
+        this.eliminados = Counter.builder("auth.tokens.limpieza.eliminados")
+                .description("Refresh tokens expirados eliminados")
+                .register(registry);
+        this.duracion = Timer.builder("auth.tokens.limpieza.duracion")
+                .description("Duración de cada limpieza de refresh tokens")
+                .register(registry);
+        registry.gauge("auth.tokens.limpieza.lotes", lotes);
+    }
 
     /**
      * Elimina tokens expirados de la base de datos.
      * Se ejecuta diariamente a las 3:00 AM.
      */
     @Scheduled(cron = "0 0 3 * * ?")
-    @Transactional
     public void limpiarTokensExpirados() {
-        int eliminados = refreshTokenRepository.eliminarExpirados(LocalDateTime.now());
-        
-        if (eliminados > 0) {
-            log.info("🧹 Limpieza de tokens: {} tokens expirados eliminados", eliminados);
+        int total = limpiar();
+
+        if (total > 0) {
+            log.info("🧹 Limpieza de tokens: {} tokens expirados eliminados", total);
         }
     }
 
     /**
      * Ejecuta limpieza manual (para uso administrativo).
      */
-    @Transactional
     public int limpiarManualmente() {
-        int eliminados = refreshTokenRepository.eliminarExpirados(LocalDateTime.now());
-        log.info("🧹 Limpieza manual: {} tokens eliminados", eliminados);
-        return eliminados;
+        int total = limpiar();
+        log.info("🧹 Limpieza manual: {} tokens eliminados", total);
+        return total;
+    }
+
+    private int limpiar() {
+        if (!enCurso.tryLock()) {
+            log.info("Limpieza de tokens ya en curso, se omite");
+            return 0;
+        }
+        Timer.Sample muestra = Timer.start();
+        try {
+            LocalDateTime corte = LocalDateTime.now();
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDuracionMs);
+            int total = 0;
+            lotes.set(0);
+
+            while (true) {
+                Integer borrados = transaccion.execute(status ->
+                        refreshTokenRepository.eliminarExpiradosLote(corte, tamanoLote));
+                int n = borrados != null ? borrados : 0;
+                total += n;
+                eliminados.increment(n);
+                lotes.incrementAndGet();
+
+                if (n < tamanoLote) {
+                    break;
+                }
+                if (System.nanoTime() >= limite) {
+                    log.warn("Limpieza de tokens detenida por tiempo tras {} lotes ({} eliminados); continúa en la próxima",
+                            lotes.get(), total);
+                    break;
+                }
+                log.debug("Limpieza de tokens: lote {} ({} eliminados)", lotes.get(), total);
+                if (!pausar()) {
+                    break;
+                }
+            }
+            return total;
+        } finally {
+            muestra.stop(duracion);
+            enCurso.unlock();
+        }
+    }
+
+    private boolean pausar() {
+        if (pausaMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pausaMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 }
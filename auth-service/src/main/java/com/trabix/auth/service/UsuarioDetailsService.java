@@ -1,27 +0,0 @@
-package com.trabix.auth.service;
-
-import com.trabix.auth.repository.UsuarioRepository;
-import com.trabix.common.enums.EstadoUsuario;
-import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.stereotype.Service;
-
-/**
- * Servicio para cargar usuarios por cédula.
- * Usado por Spring Security para autenticación.
- */
-@Service
-@RequiredArgsConstructor
-public class UsuarioDetailsService implements UserDetailsService {
-
-    private final UsuarioRepository usuarioRepository;
-
-    @Override
-    public UserDetails loadUserByUsername(String cedula) throws UsernameNotFoundException {
-        return usuarioRepository.findByCedulaAndEstado(cedula, EstadoUsuario.ACTIVO)
-                .orElseThrow(() -> new UsernameNotFoundException(
-                        "Usuario no encontrado o inactivo: " + cedula));
-    }
-}
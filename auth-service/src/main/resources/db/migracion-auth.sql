@@ -0,0 +1,22 @@
+-- ============================================
+-- Migraciones de auth-service (idempotentes)
+-- Se ejecutan al arrancar, antes de que Hibernate actualice el esquema.
+-- Separador de sentencias: @@ (los bloques DO contienen ';')
+-- ============================================
+
+-- refresh_tokens.token (JWT completo, VARCHAR(500)) → token_hash (SHA-256 hex, CHAR(64)).
+-- Las sesiones vigentes se conservan: el hash se calcula igual que RefreshToken.calcularHash.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema()
+                 AND table_name = 'refresh_tokens' AND column_name = 'token') THEN
+        ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS token_hash CHAR(64);
+        UPDATE refresh_tokens SET token_hash = encode(sha256(convert_to(token, 'UTF8')), 'hex')
+            WHERE token_hash IS NULL;
+        ALTER TABLE refresh_tokens ALTER COLUMN token_hash SET NOT NULL;
+        ALTER TABLE refresh_tokens DROP COLUMN token;
+        CREATE UNIQUE INDEX IF NOT EXISTS ux_refresh_tokens_token_hash ON refresh_tokens(token_hash);
+    END IF;
+END $$
+@@
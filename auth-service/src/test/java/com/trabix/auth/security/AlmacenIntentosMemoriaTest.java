@@ -0,0 +1,51 @@
+package com.trabix.auth.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AlmacenIntentosMemoriaTest {
+
+    private static final long VENTANA_MS = 15 * 60_000;
+
+    private AlmacenIntentosMemoria almacen;
+
+    @BeforeEach
+    void setUp() {
+        almacen = new AlmacenIntentosMemoria();
+        ReflectionTestUtils.setField(almacen, "maxClaves", 2);
+        ReflectionTestUtils.setField(almacen, "ventanaMinutos", 15L);
+    }
+
+    @Test
+    void clavesNuevasAlLimiteCompartenDesbordePorTipo() {
+        almacen.registrarFallo("ip:10.0.0.1", VENTANA_MS);
+        almacen.registrarFallo("ip:10.0.0.2", VENTANA_MS);
+
+        // Contadores vigentes: la purga no libera espacio y las claves nuevas no se agregan
+        assertEquals(1, almacen.registrarFallo("ip:10.0.0.3", VENTANA_MS), 1e-9);
+        assertEquals(2, almacen.registrarFallo("ip:10.0.0.4", VENTANA_MS), 1e-9);
+        assertEquals(1, almacen.registrarFallo("cedula:123", VENTANA_MS), 1e-9);
+
+        assertEquals(2, almacen.contar("ip:10.0.0.5", VENTANA_MS), 1e-9);
+        assertEquals(1, almacen.contar("ip:10.0.0.1", VENTANA_MS), 1e-9);
+        assertEquals(2, contadores().size());
+    }
+
+    @Test
+    void bajoElLimiteCadaClaveTieneSuContador() {
+        almacen.registrarFallo("ip:10.0.0.1", VENTANA_MS);
+
+        assertEquals(1, almacen.registrarFallo("ip:10.0.0.2", VENTANA_MS), 1e-9);
+        assertEquals(0, almacen.contar("ip:10.0.0.3", VENTANA_MS), 1e-9);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> contadores() {
+        return (Map<String, ?>) ReflectionTestUtils.getField(almacen, "contadores");
+    }
+}
@@ -0,0 +1,58 @@
+package com.trabix.auth.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AlmacenSesionesMemoriaTest {
+
+    private static final Long USUARIO = 42L;
+
+    @Test
+    void cargaLeidaAntesDeUnaRevocacionNoSeGuarda() {
+        AlmacenSesionesMemoria almacen = new AlmacenSesionesMemoria(100, 300);
+
+        // Carga: versión leída, luego la consulta ve el token todavía vigente
+        long version = almacen.version(USUARIO);
+        Map<String, Long> leidas = Map.of("hash-revocado", Long.MAX_VALUE);
+
+        // Revocación confirmada en BD antes de que la carga escriba en caché
+        almacen.invalidar(USUARIO);
+        almacen.cargar(USUARIO, leidas, version);
+
+        assertNull(almacen.obtener(USUARIO));
+    }
+
+    @Test
+    void revocarDescartaLaEntradaCompleta() {
+        AlmacenSesionesMemoria almacen = new AlmacenSesionesMemoria(100, 300);
+        almacen.cargar(USUARIO, Map.of("a", Long.MAX_VALUE, "b", Long.MAX_VALUE), almacen.version(USUARIO));
+
+        almacen.invalidar(USUARIO);
+
+        assertNull(almacen.obtener(USUARIO));
+    }
+
+    @Test
+    void agregarConVersionViejaSeIgnora() {
+        AlmacenSesionesMemoria almacen = new AlmacenSesionesMemoria(100, 300);
+        long vieja = almacen.version(USUARIO);
+        almacen.invalidar(USUARIO);
+        almacen.cargar(USUARIO, Map.of(), almacen.version(USUARIO));
+
+        almacen.agregar(USUARIO, "hash-revocado", Long.MAX_VALUE, vieja);
+
+        assertEquals(Map.of(), almacen.obtener(USUARIO));
+    }
+
+    @Test
+    void cargaVencidaSeRecarga() {
+        AlmacenSesionesMemoria almacen = new AlmacenSesionesMemoria(100, 0);
+        almacen.cargar(USUARIO, Map.of("a", Long.MAX_VALUE), almacen.version(USUARIO));
+
+        assertNull(almacen.obtener(USUARIO));
+    }
+}
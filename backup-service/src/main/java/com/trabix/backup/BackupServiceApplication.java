@@ -3,6 +3,7 @@ package com.trabix.backup;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Servicio de respaldos TRABIX.
@@ -34,6 +35,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
  */
 @SpringBootApplication(scanBasePackages = {"com.trabix.backup", "com.trabix.common"})
 @EnableAsync
+@EnableScheduling
 public class BackupServiceApplication {
 
     public static void main(String[] args) {
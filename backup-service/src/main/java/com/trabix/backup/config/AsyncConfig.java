@@ -1,5 +1,6 @@
 package com.trabix.backup.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -25,4 +26,18 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Pool para exportar tablas en paralelo dentro de un backup.
+     * Cada hilo usa una conexión: debe quedar por debajo del pool de Hikari.
+     */
+    @Bean(name = "exportacionExecutor")
+    public Executor exportacionExecutor(@Value("${trabix.backup.hilos-exportacion:3}") int hilos) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setThreadNamePrefix("BackupExport-");
+        executor.initialize();
+        return executor;
+    }
 }
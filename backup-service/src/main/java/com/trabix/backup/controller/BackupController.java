@@ -3,19 +3,20 @@ package com.trabix.backup.controller;
 import com.trabix.backup.dto.BackupDTO;
 import com.trabix.backup.entity.Usuario;
 import com.trabix.backup.service.BackupService;
+import com.trabix.backup.service.DescargaBackup;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -30,6 +31,7 @@ import java.util.Map;
 public class BackupController {
 
     private final BackupService service;
+    private final DescargaBackup descargaBackup;
 
     // === Crear backup ===
 
@@ -41,6 +43,11 @@ public class BackupController {
                 .body(service.crearBackup(request, usuario.getId()));
     }
 
+    @PostMapping("/{id}/cancelar")
+    public ResponseEntity<BackupDTO.Response> cancelar(@PathVariable Long id) {
+        return ResponseEntity.ok(service.cancelar(id));
+    }
+
     // === Consultas ===
 
     @GetMapping("/{id}")
@@ -48,6 +55,11 @@ public class BackupController {
         return ResponseEntity.ok(service.obtener(id));
     }
 
+    @GetMapping("/{id}/cadena")
+    public ResponseEntity<List<BackupDTO.Response>> obtenerCadena(@PathVariable Long id) {
+        return ResponseEntity.ok(service.obtenerCadena(id));
+    }
+
     @GetMapping
     public ResponseEntity<BackupDTO.ListResponse> listar(
             @RequestParam(defaultValue = "0") int pagina,
@@ -81,16 +93,27 @@ public class BackupController {
 
     // === Descargar backup ===
 
+    /**
+     * Soporta Range / If-Range (206) para reanudar descargas cortadas.
+     */
     @GetMapping("/{id}/descargar")
-    public ResponseEntity<Resource> descargar(@PathVariable Long id) {
-        Resource resource = service.descargarBackup(id);
-        BackupDTO.Response backup = service.obtener(id);
-
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .header(HttpHeaders.CONTENT_DISPOSITION, 
-                        "attachment; filename=\"" + backup.getNombre() + ".zip\"")
-                .body(resource);
+    public void descargar(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        descargaBackup.enviar(id, request, response);
+    }
+
+    // === Restaurar backup ===
+
+    @PostMapping("/{id}/restaurar")
+    public ResponseEntity<BackupDTO.EstadoRestauracion> restaurar(
+            @PathVariable Long id,
+            @RequestBody(required = false) BackupDTO.RestaurarRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(service.restaurar(id, request));
+    }
+
+    @GetMapping("/restauracion")
+    public ResponseEntity<BackupDTO.EstadoRestauracion> obtenerEstadoRestauracion() {
+        return ResponseEntity.ok(service.obtenerEstadoRestauracion());
     }
 
     // === Eliminar backup ===
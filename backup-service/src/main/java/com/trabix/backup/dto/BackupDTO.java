@@ -1,6 +1,7 @@
 package com.trabix.backup.dto;
 
 import com.trabix.backup.entity.EstadoBackup;
+import com.trabix.backup.entity.TipoBackup;
 import lombok.*;
 
 import java.time.LocalDateTime;
@@ -18,13 +19,19 @@ public class BackupDTO {
     public static class Response {
         private Long id;
         private String nombre;
+        private TipoBackup tipo;
+        /** Backup anterior de la cadena (solo incrementales) */
+        private Long baseId;
         private String archivo;
         private Long tamanoBytes;
         private String tamanoFormateado;
+        /** SHA-256 del .zip para verificar la descarga */
+        private String sha256;
         private EstadoBackup estado;
         private String estadoDescripcion;
         private LocalDateTime fechaInicio;
         private LocalDateTime fechaFin;
+        private LocalDateTime fechaRestauracion;
         private Long duracionSegundos;
         private String duracionFormateada;
         private Integer totalUsuarios;
@@ -38,6 +45,33 @@ public class BackupDTO {
         private String mensajeError;
         private Long createdBy;
         private LocalDateTime createdAt;
+        /** Solo mientras el backup se ejecuta */
+        private Progreso progreso;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Progreso {
+        private int totalTablas;
+        private int tablasCompletadas;
+        private long registros;
+        private long bytes;
+        private boolean cancelando;
+        private List<ProgresoTabla> tablas;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProgresoTabla {
+        private String tabla;
+        private String estado;
+        private long registros;
+        /** Bytes JSON escritos (sin comprimir) */
+        private long bytes;
     }
 
     @Data
@@ -46,6 +80,32 @@ public class BackupDTO {
     @AllArgsConstructor
     public static class CreateRequest {
         private String notas;
+        /** COMPLETO por defecto */
+        private TipoBackup tipo;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RestaurarRequest {
+        /** Debe ser true: la restauración reemplaza los datos actuales */
+        private boolean confirmar;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EstadoRestauracion {
+        private Long backupId;
+        /** Backups aplicados en orden: completo raíz y sus incrementales */
+        private List<Long> cadena;
+        private String estado;
+        private LocalDateTime fechaInicio;
+        private LocalDateTime fechaFin;
+        private String mensaje;
+        private Progreso progreso;
     }
 
     @Data
@@ -89,5 +149,7 @@ public class BackupDTO {
         private int totalNotificaciones;
         private int totalCostosProduccion;
         private int totalMovimientosFondo;
+        /** false si los totales son estimados de las estadísticas de PostgreSQL */
+        private boolean conteosExactos;
     }
 }
@@ -40,17 +40,50 @@ public class Backup {
     @Column(name = "tamano_bytes")
     private Long tamanoBytes;
 
+    /**
+     * SHA-256 del archivo .zip (hex). Se calcula al completar el backup.
+     */
+    @Column(length = 64)
+    private String sha256;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     @Builder.Default
     private EstadoBackup estado = EstadoBackup.EN_PROCESO;
 
+    /**
+     * Tipo de backup. null en backups anteriores a los incrementales (equivale a COMPLETO).
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    @Builder.Default
+    private TipoBackup tipo = TipoBackup.COMPLETO;
+
+    /**
+     * Backup anterior de la cadena (solo incrementales).
+     */
+    @Column(name = "base_id")
+    private Long baseId;
+
+    /**
+     * Marcas de agua por tabla (JSON) para el siguiente incremental.
+     */
+    @Column(name = "marcas_agua", columnDefinition = "TEXT")
+    private String marcasAgua;
+
     @Column(name = "fecha_inicio", nullable = false)
     private LocalDateTime fechaInicio;
 
     @Column(name = "fecha_fin")
     private LocalDateTime fechaFin;
 
+    /**
+     * Última restauración del sistema a este backup. Los backups anteriores a cualquier
+     * restauración no sirven de base para un incremental.
+     */
+    @Column(name = "fecha_restauracion")
+    private LocalDateTime fechaRestauracion;
+
     // === Estadísticas del backup ===
 
     @Column(name = "total_usuarios")
@@ -125,6 +158,10 @@ public class Backup {
         return EstadoBackup.ERROR.equals(estado);
     }
 
+    public boolean esIncremental() {
+        return TipoBackup.INCREMENTAL.equals(tipo);
+    }
+
     // === Métodos de acción ===
 
     public void completar(long tamano) {
@@ -0,0 +1,25 @@
+package com.trabix.backup.entity;
+
+/**
+ * Tipo de backup.
+ */
+public enum TipoBackup {
+    COMPLETO("Completo", "Todas las filas de todas las tablas"),
+    INCREMENTAL("Incremental", "Solo filas modificadas y eliminadas desde el backup base");
+
+    private final String nombre;
+    private final String descripcion;
+
+    TipoBackup(String nombre, String descripcion) {
+        this.nombre = nombre;
+        this.descripcion = descripcion;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+}
@@ -1,5 +1,6 @@
 package com.trabix.backup.entity;
 
+import com.trabix.common.security.JwtClaims;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -33,4 +34,18 @@ public class Usuario {
     public boolean esAdmin() {
         return "ADMIN".equals(rol);
     }
+
+    /**
+     * Construye el usuario autenticado desde los claims del JWT, sin consultar la BD.
+     * Instancia no gestionada por JPA: solo identifica al usuario del request.
+     */
+    public static Usuario desdeClaims(JwtClaims claims) {
+        Usuario usuario = new Usuario();
+        usuario.id = claims.userId();
+        usuario.cedula = claims.cedula();
+        usuario.nombre = claims.nombre();
+        usuario.rol = claims.rol();
+        usuario.estado = "ACTIVO";
+        return usuario;
+    }
 }
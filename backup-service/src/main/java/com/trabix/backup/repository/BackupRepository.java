@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +32,22 @@ public interface BackupRepository extends JpaRepository<Backup, Long> {
      */
     boolean existsByEstado(EstadoBackup estado);
     
+    /**
+     * Último backup completado con marcas de agua (base para un incremental).
+     */
+    Optional<Backup> findTopByEstadoAndMarcasAguaIsNotNullOrderByFechaInicioDesc(EstadoBackup estado);
+
+    /**
+     * Verifica si algún incremental depende de este backup.
+     */
+    boolean existsByBaseId(Long baseId);
+
+    /**
+     * Fecha de la última restauración completada (null si nunca se restauró).
+     */
+    @Query("SELECT MAX(b.fechaRestauracion) FROM Backup b")
+    LocalDateTime findUltimaRestauracion();
+
     @Query("SELECT COALESCE(SUM(b.tamanoBytes), 0) FROM Backup b WHERE b.estado = com.trabix.backup.entity.EstadoBackup.COMPLETADO")
     Long sumarTamanoTotal();
     
@@ -1,15 +1,25 @@
 package com.trabix.backup.repository;
 
 import com.trabix.backup.entity.Usuario;
+import com.trabix.common.security.FuenteUsuariosRevocados;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
+public interface UsuarioRepository extends JpaRepository<Usuario, Long>, FuenteUsuariosRevocados {
     
     Optional<Usuario> findByCedula(String cedula);
     
     Optional<Usuario> findByCedulaAndEstado(String cedula, String estado);
+
+    /**
+     * IDs de usuarios no activos (deny-set de autenticación).
+     */
+    @Override
+    @Query("SELECT u.id FROM Usuario u WHERE u.estado <> 'ACTIVO'")
+    List<Long> findIdsNoActivos();
 }
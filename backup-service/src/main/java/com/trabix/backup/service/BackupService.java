@@ -1,11 +1,9 @@
 package com.trabix.backup.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.trabix.backup.dto.BackupDTO;
 import com.trabix.backup.entity.Backup;
 import com.trabix.backup.entity.EstadoBackup;
+import com.trabix.backup.entity.TipoBackup;
 import com.trabix.backup.repository.BackupRepository;
 import com.trabix.common.exception.RecursoNoEncontradoException;
 import com.trabix.common.exception.ValidacionNegocioException;
@@ -13,14 +11,10 @@ import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.*;
@@ -29,8 +23,6 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 /**
  * Servicio para crear y gestionar backups COMPLETOS del sistema.
@@ -45,6 +37,9 @@ public class BackupService {
 
     private final BackupRepository repository;
     private final JdbcTemplate jdbcTemplate;
+    private final MotorBackups motor;
+    private final RestauradorBackup restaurador;
+    private final EstadisticasTablas estadisticasTablas;
 
     @Value("${trabix.backup.ruta:./backups}")
     private String rutaBackups;
@@ -52,46 +47,8 @@ public class BackupService {
     @Value("${trabix.backup.prefijo:backup_TRABIX}")
     private String prefijoBackup;
 
-    private ObjectMapper objectMapper;
-
-    /**
-     * Lista de tablas a incluir en el backup.
-     * Orden importante: primero las que no tienen FK, luego las dependientes.
-     */
-    private static final List<String> TABLAS_BACKUP = Arrays.asList(
-            // Usuarios primero (no tiene FK)
-            "usuarios",
-            // Stock de equipos
-            "stock_equipos",
-            // Configuración
-            "configuracion_costos",
-            // Inventario y ventas
-            "lotes",
-            "tandas",
-            "ventas",
-            // Equipos
-            "asignaciones_equipo",
-            "pagos_mensualidad",
-            // Documentos
-            "documentos",
-            // Finanzas
-            "fondo_recompensas",
-            "movimientos_fondo",
-            "costos_produccion",
-            // Notificaciones
-            "notificaciones",
-            // Backups (metadata)
-            "backups"
-    );
-
     @PostConstruct
     public void init() {
-        // Configurar ObjectMapper
-        objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-
         // Crear directorio de backups si no existe
         try {
             Path path = Paths.get(rutaBackups);
@@ -117,9 +74,29 @@ public class BackupService {
                     "Ya hay un backup en proceso. Espere a que termine antes de crear otro.");
         }
 
+        if (restaurador.estaEnProceso()) {
+            throw new ValidacionNegocioException("Hay una restauración en proceso. Espere a que termine.");
+        }
+
+        // Un incremental parte del último backup completado con marcas de agua
+        TipoBackup tipo = request != null && request.getTipo() != null ? request.getTipo() : TipoBackup.COMPLETO;
+        Long baseId = null;
+        if (tipo == TipoBackup.INCREMENTAL) {
+            Backup base = repository.findTopByEstadoAndMarcasAguaIsNotNullOrderByFechaInicioDesc(EstadoBackup.COMPLETADO)
+                    .orElseThrow(() -> new ValidacionNegocioException(
+                            "No hay un backup base para el incremental. Cree primero un backup completo."));
+            // Tras una restauración las marcas de agua de la base no describen los datos actuales
+            LocalDateTime ultimaRestauracion = repository.findUltimaRestauracion();
+            if (ultimaRestauracion != null && base.getFechaInicio().isBefore(ultimaRestauracion)) {
+                throw new ValidacionNegocioException(
+                        "El sistema se restauró después del último backup. Cree primero un backup completo.");
+            }
+            baseId = base.getId();
+        }
+
         // Generar nombre único
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HHmmss"));
-        String nombre = prefijoBackup + "_" + timestamp;
+        String nombre = prefijoBackup + (tipo == TipoBackup.INCREMENTAL ? "_INC_" : "_") + timestamp;
         String nombreArchivo = nombre + ".zip";
         String rutaCompleta = Paths.get(rutaBackups, nombreArchivo).toString();
 
@@ -127,6 +104,8 @@ public class BackupService {
         Backup backup = Backup.builder()
                 .nombre(nombre)
                 .archivo(rutaCompleta)
+                .tipo(tipo)
+                .baseId(baseId)
                 .estado(EstadoBackup.EN_PROCESO)
                 .fechaInicio(LocalDateTime.now())
                 .notas(request != null ? request.getNotas() : null)
@@ -136,108 +115,28 @@ public class BackupService {
         Backup saved = repository.save(backup);
         log.info("Iniciando backup: {} (ID: {})", nombre, saved.getId());
 
-        // Ejecutar backup en segundo plano
-        ejecutarBackupAsync(saved.getId());
+        // Ejecutar backup en segundo plano (después del commit)
+        motor.programar(saved.getId());
 
         return mapToResponse(saved);
     }
 
     /**
-     * Ejecuta el backup de forma asíncrona.
-     * Usa REQUIRES_NEW para que tenga su propia transacción.
+     * Cancela un backup en ejecución. El archivo parcial se borra
+     * y el backup queda con error "cancelado".
      */
-    @Async("taskExecutor")
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void ejecutarBackupAsync(Long backupId) {
-        Backup backup = repository.findById(backupId).orElse(null);
-        if (backup == null) {
-            log.error("Backup no encontrado: {}", backupId);
-            return;
-        }
-
-        try {
-            // Recopilar todos los datos
-            Map<String, Object> datos = recopilarDatos(backup);
-
-            // Crear archivo JSON
-            String jsonContent = objectMapper.writeValueAsString(datos);
-
-            // Crear archivo ZIP
-            Path zipPath = Paths.get(backup.getArchivo());
-            try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipPath.toFile()))) {
-                ZipEntry entry = new ZipEntry(backup.getNombre() + ".json");
-                zos.putNextEntry(entry);
-                zos.write(jsonContent.getBytes("UTF-8"));
-                zos.closeEntry();
-            }
-
-            // Actualizar registro
-            long tamano = Files.size(zipPath);
-            backup.completar(tamano);
-            repository.save(backup);
-
-            log.info("Backup completado: {} - Tamaño: {} - Duración: {}", 
-                    backup.getNombre(), backup.getTamanoFormateado(), backup.getDuracionFormateada());
-
-        } catch (Exception e) {
-            log.error("Error al crear backup {}: {}", backup.getNombre(), e.getMessage(), e);
-            backup.marcarError("Error: " + e.getMessage());
-            repository.save(backup);
-        }
-    }
+    @Transactional(readOnly = true)
+    public BackupDTO.Response cancelar(Long id) {
+        Backup backup = repository.findById(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Backup", id));
 
-    /**
-     * Recopila todos los datos del sistema para el backup.
-     */
-    private Map<String, Object> recopilarDatos(Backup backup) {
-        Map<String, Object> datos = new LinkedHashMap<>();
-
-        // Metadata
-        Map<String, Object> metadata = new LinkedHashMap<>();
-        metadata.put("id", backup.getId());
-        metadata.put("nombre", backup.getNombre());
-        metadata.put("fechaCreacion", LocalDateTime.now().toString());
-        metadata.put("version", "2.0");
-        metadata.put("sistema", "TRABIX");
-        metadata.put("tablas", TABLAS_BACKUP);
-        datos.put("metadata", metadata);
-
-        // Exportar cada tabla
-        for (String tabla : TABLAS_BACKUP) {
-            try {
-                List<Map<String, Object>> registros = jdbcTemplate.queryForList(
-                        "SELECT * FROM " + tabla + " ORDER BY id");
-                datos.put(tabla, registros);
-                
-                // Actualizar estadísticas en el backup
-                actualizarEstadisticas(backup, tabla, registros.size());
-                
-                log.debug("Tabla {} exportada: {} registros", tabla, registros.size());
-            } catch (Exception e) {
-                // Si la tabla no existe, guardar lista vacía
-                log.warn("No se pudo exportar tabla {}: {}", tabla, e.getMessage());
-                datos.put(tabla, new ArrayList<>());
-            }
+        if (!backup.estaEnProceso() || !motor.cancelar(id)) {
+            throw new ValidacionNegocioException("El backup no se está ejecutando");
         }
 
-        log.info("Datos recopilados - Usuarios: {}, Ventas: {}, Lotes: {}, Asignaciones: {}, Documentos: {}", 
-                backup.getTotalUsuarios(), backup.getTotalVentas(), backup.getTotalLotes(), 
-                backup.getTotalAsignaciones(), backup.getTotalDocumentos());
-
-        return datos;
+        return mapToResponse(backup);
     }
 
-    private void actualizarEstadisticas(Backup backup, String tabla, int cantidad) {
-        switch (tabla) {
-            case "usuarios" -> backup.setTotalUsuarios(cantidad);
-            case "ventas" -> backup.setTotalVentas(cantidad);
-            case "lotes" -> backup.setTotalLotes(cantidad);
-            case "tandas" -> backup.setTotalTandas(cantidad);
-            case "asignaciones_equipo" -> backup.setTotalAsignaciones(cantidad);
-            case "documentos" -> backup.setTotalDocumentos(cantidad);
-            case "notificaciones" -> backup.setTotalNotificaciones(cantidad);
-        }
-    }
 
     // ==================== CONSULTAS ====================
 
@@ -248,6 +147,24 @@ public class BackupService {
         return mapToResponse(backup);
     }
 
+    /**
+     * Backups necesarios para restaurar el indicado, en orden de aplicación:
+     * el completo raíz seguido de cada incremental hasta este.
+     */
+    @Transactional(readOnly = true)
+    public List<BackupDTO.Response> obtenerCadena(Long id) {
+        LinkedList<BackupDTO.Response> cadena = new LinkedList<>();
+        Long actualId = id;
+        while (actualId != null) {
+            Long buscado = actualId;
+            Backup backup = repository.findById(buscado)
+                    .orElseThrow(() -> new RecursoNoEncontradoException("Backup", buscado));
+            cadena.addFirst(mapToResponse(backup));
+            actualId = backup.esIncremental() ? backup.getBaseId() : null;
+        }
+        return cadena;
+    }
+
     @Transactional(readOnly = true)
     public BackupDTO.ListResponse listar(Pageable pageable) {
         Page<Backup> page = repository.findAll(pageable);
@@ -293,30 +210,23 @@ public class BackupService {
 
     @Transactional(readOnly = true)
     public BackupDTO.EstadisticasActuales obtenerEstadisticasActuales() {
+        // Conteos estimados o de contadores (según configuración), cacheados: sin COUNT(*) por request
+        EstadisticasTablas.Conteos conteos = estadisticasTablas.obtener();
         return BackupDTO.EstadisticasActuales.builder()
-                .totalUsuarios(contarRegistros("usuarios"))
-                .totalVentas(contarRegistros("ventas"))
-                .totalLotes(contarRegistros("lotes"))
-                .totalTandas(contarRegistros("tandas"))
-                .totalAsignaciones(contarRegistros("asignaciones_equipo"))
+                .totalUsuarios(conteos.de("usuarios"))
+                .totalVentas(conteos.de("ventas"))
+                .totalLotes(conteos.de("lotes"))
+                .totalTandas(conteos.de("tandas"))
+                .totalAsignaciones(conteos.de("asignaciones_equipo"))
                 .stockDisponible(obtenerStockDisponible())
-                .totalDocumentos(contarRegistros("documentos"))
-                .totalNotificaciones(contarRegistros("notificaciones"))
-                .totalCostosProduccion(contarRegistros("costos_produccion"))
-                .totalMovimientosFondo(contarRegistros("movimientos_fondo"))
+                .totalDocumentos(conteos.de("documentos"))
+                .totalNotificaciones(conteos.de("notificaciones"))
+                .totalCostosProduccion(conteos.de("costos_produccion"))
+                .totalMovimientosFondo(conteos.de("movimientos_fondo"))
+                .conteosExactos(conteos.exactos())
                 .build();
     }
 
-    private int contarRegistros(String tabla) {
-        try {
-            Integer count = jdbcTemplate.queryForObject(
-                    "SELECT COUNT(*) FROM " + tabla, Integer.class);
-            return count != null ? count : 0;
-        } catch (Exception e) {
-            return 0;
-        }
-    }
-
     private int obtenerStockDisponible() {
         try {
             Integer stock = jdbcTemplate.queryForObject(
@@ -327,35 +237,23 @@ public class BackupService {
         }
     }
 
-    // ==================== DESCARGAR ====================
+    // ==================== RESTAURAR ====================
 
     /**
-     * Descarga el archivo .zip de un backup.
+     * Restaura el sistema al estado del backup (con su cadena de incrementales).
+     * REEMPLAZA los datos actuales: requiere confirmación explícita.
      */
-    @Transactional(readOnly = true)
-    public Resource descargarBackup(Long id) {
-        Backup backup = repository.findById(id)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Backup", id));
-
-        if (!backup.estaCompletado()) {
+    public BackupDTO.EstadoRestauracion restaurar(Long id, BackupDTO.RestaurarRequest request) {
+        if (request == null || !request.isConfirmar()) {
             throw new ValidacionNegocioException(
-                    "El backup no está completado. Estado actual: " + backup.getEstado().getNombre());
+                    "La restauración reemplaza los datos actuales. Envíe confirmar=true para continuar.");
         }
+        return restaurador.iniciar(id);
+    }
 
-        try {
-            Path path = Paths.get(backup.getArchivo());
-            Resource resource = new UrlResource(path.toUri());
-
-            if (!resource.exists() || !resource.isReadable()) {
-                throw new ValidacionNegocioException(
-                        "El archivo de backup no existe o no es accesible: " + backup.getArchivo());
-            }
-
-            log.info("Descargando backup: {} - {}", backup.getNombre(), backup.getTamanoFormateado());
-            return resource;
-        } catch (Exception e) {
-            throw new ValidacionNegocioException("Error al acceder al archivo: " + e.getMessage());
-        }
+    public BackupDTO.EstadoRestauracion obtenerEstadoRestauracion() {
+        return restaurador.obtenerEstado()
+                .orElseThrow(() -> new ValidacionNegocioException("No se ha ejecutado ninguna restauración"));
     }
 
     // ==================== ELIMINAR ====================
@@ -372,6 +270,11 @@ public class BackupService {
             throw new ValidacionNegocioException("No se puede eliminar un backup en proceso");
         }
 
+        if (repository.existsByBaseId(id)) {
+            throw new ValidacionNegocioException(
+                    "No se puede eliminar: hay backups incrementales que dependen de este");
+        }
+
         // Eliminar archivo físico
         try {
             Path path = Paths.get(backup.getArchivo());
@@ -425,13 +328,17 @@ public class BackupService {
         return BackupDTO.Response.builder()
                 .id(b.getId())
                 .nombre(b.getNombre())
+                .tipo(b.getTipo() != null ? b.getTipo() : TipoBackup.COMPLETO)
+                .baseId(b.getBaseId())
                 .archivo(b.getArchivo())
                 .tamanoBytes(b.getTamanoBytes())
                 .tamanoFormateado(b.getTamanoFormateado())
+                .sha256(b.getSha256())
                 .estado(b.getEstado())
                 .estadoDescripcion(b.getEstado().getNombre())
                 .fechaInicio(b.getFechaInicio())
                 .fechaFin(b.getFechaFin())
+                .fechaRestauracion(b.getFechaRestauracion())
                 .duracionSegundos(b.getDuracionSegundos())
                 .duracionFormateada(b.getDuracionFormateada())
                 .totalUsuarios(b.getTotalUsuarios())
@@ -445,6 +352,9 @@ public class BackupService {
                 .mensajeError(b.getMensajeError())
                 .createdBy(b.getCreatedBy())
                 .createdAt(b.getCreatedAt())
+                .progreso(b.estaEnProceso()
+                        ? motor.obtenerProgreso(b.getId()).map(ProgresoBackup::toDto).orElse(null)
+                        : null)
                 .build();
     }
 }
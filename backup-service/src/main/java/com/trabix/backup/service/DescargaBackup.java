@@ -0,0 +1,243 @@
+package com.trabix.backup.service;
+
+import com.trabix.backup.entity.Backup;
+import com.trabix.backup.repository.BackupRepository;
+import com.trabix.common.exception.RecursoNoEncontradoException;
+import com.trabix.common.exception.ValidacionNegocioException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Descarga de archivos de backup.
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * - Soporta Range (un solo rango) e If-Range: una descarga cortada se reanuda
+ *   desde el último byte recibido en lugar de empezar de nuevo (206 / 416)
+ * - El archivo no pasa por el heap: con Tomcat se delega en sendfile
+ *   (atributos org.apache.tomcat.sendfile.*), si no, FileChannel.transferTo
+ * - ETag y Repr-Digest con el SHA-256 del .zip para verificar la descarga completa
+ * - El SHA-256 se calcula al completar el backup; los backups anteriores
+ *   lo calculan en la primera descarga y queda guardado
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DescargaBackup {
+
+    private static final String SENDFILE_SOPORTADO = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARCHIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+
+    private static final String REPR_DIGEST = "Repr-Digest";
+    private static final int TAMANO_BUFFER_HASH = 64 * 1024;
+
+    private final BackupRepository repository;
+
+    /**
+     * Envía el archivo del backup (completo o el rango pedido) en la respuesta.
+     */
+    public void enviar(Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Backup backup = repository.findById(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Backup", id));
+
+        if (!backup.estaCompletado()) {
+            throw new ValidacionNegocioException(
+                    "El backup no está completado. Estado actual: " + backup.getEstado().getNombre());
+        }
+
+        Path path = Paths.get(backup.getArchivo());
+        if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+            throw new ValidacionNegocioException(
+                    "El archivo de backup no existe o no es accesible: " + backup.getArchivo());
+        }
+
+        String sha256 = obtenerSha256(backup, path);
+        long tamano = Files.size(path);
+        long ultimaModificacion = Files.getLastModifiedTime(path).toMillis();
+        String etag = "\"" + sha256 + "\"";
+
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + backup.getNombre() + ".zip\"");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, ultimaModificacion);
+        // El digest es del archivo completo (representación), también en respuestas 206
+        response.setHeader(REPR_DIGEST, "sha-256=:" + Base64.getEncoder().encodeToString(
+                HexFormat.of().parseHex(sha256)) + ":");
+
+        long inicio = 0;
+        long fin = tamano - 1;
+
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && aplicaRange(request.getHeader(HttpHeaders.IF_RANGE), etag, ultimaModificacion)) {
+            long[] rango = parsearRango(range, tamano);
+            if (rango == null) {
+                // Rango no satisfacible
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamano);
+                response.setContentLengthLong(0);
+                return;
+            }
+            if (rango.length == 2) {
+                inicio = rango[0];
+                fin = rango[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fin + "/" + tamano);
+            }
+        }
+
+        long longitud = fin - inicio + 1;
+        response.setContentLengthLong(longitud);
+
+        if ("HEAD".equals(request.getMethod()) || longitud == 0) {
+            return;
+        }
+
+        log.info("Descargando backup: {} - bytes {}-{}/{}", backup.getNombre(), inicio, fin, tamano);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTADO))) {
+            // Tomcat envía el archivo con sendfile al terminar el request
+            request.setAttribute(SENDFILE_ARCHIVO, path.toRealPath().toString());
+            request.setAttribute(SENDFILE_INICIO, inicio);
+            request.setAttribute(SENDFILE_FIN, fin + 1);
+            return;
+        }
+
+        try (FileChannel canal = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel salida = Channels.newChannel(response.getOutputStream());
+            long posicion = inicio;
+            long restante = longitud;
+            while (restante > 0) {
+                long enviados = canal.transferTo(posicion, restante, salida);
+                if (enviados <= 0) {
+                    break;
+                }
+                posicion += enviados;
+                restante -= enviados;
+            }
+        }
+    }
+
+    /**
+     * Calcula el SHA-256 (hex) de un archivo leyéndolo por bloques.
+     */
+    public static String calcularSha256(Path path) {
+        try (FileChannel canal = FileChannel.open(path, StandardOpenOption.READ)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANO_BUFFER_HASH);
+            while (canal.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String obtenerSha256(Backup backup, Path path) {
+        if (backup.getSha256() != null) {
+            return backup.getSha256();
+        }
+        // Backup anterior al cálculo del hash: se calcula una vez y se guarda
+        String sha256 = calcularSha256(path);
+        backup.setSha256(sha256);
+        repository.save(backup);
+        log.info("SHA-256 calculado para backup {}: {}", backup.getNombre(), sha256);
+        return sha256;
+    }
+
+    /**
+     * If-Range: el rango solo aplica si el archivo no cambió (ETag o fecha exacta).
+     * Si no coincide se envía el archivo completo.
+     */
+    private boolean aplicaRange(String ifRange, String etag, long ultimaModificacion) {
+        if (ifRange == null || ifRange.isBlank()) {
+            return true;
+        }
+        String valor = ifRange.trim();
+        if (valor.startsWith("\"") || valor.startsWith("W/")) {
+            // Solo validadores fuertes
+            return valor.equals(etag);
+        }
+        try {
+            long fecha = ZonedDateTime.parse(valor, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return fecha / 1000 == ultimaModificacion / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Interpreta el header Range para un solo rango de bytes.
+     *
+     * @return {inicio, fin} inclusivos; un arreglo vacío si el header se ignora
+     *         (mal formado o varios rangos: se envía completo); null si no es satisfacible
+     */
+    private long[] parsearRango(String range, long tamano) {
+        String valor = range.trim();
+        if (!valor.startsWith("bytes=") || valor.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String especificacion = valor.substring("bytes=".length()).trim();
+        int guion = especificacion.indexOf('-');
+        if (guion < 0) {
+            return new long[0];
+        }
+
+        try {
+            String desde = especificacion.substring(0, guion).trim();
+            String hasta = especificacion.substring(guion + 1).trim();
+
+            if (desde.isEmpty()) {
+                // Sufijo: los últimos N bytes
+                long sufijo = Long.parseLong(hasta);
+                if (sufijo <= 0 || tamano == 0) {
+                    return null;
+                }
+                return new long[]{Math.max(0, tamano - sufijo), tamano - 1};
+            }
+
+            long inicio = Long.parseLong(desde);
+            long fin = hasta.isEmpty() ? tamano - 1 : Math.min(Long.parseLong(hasta), tamano - 1);
+            if (inicio >= tamano) {
+                return null;
+            }
+            if (fin < inicio) {
+                return new long[0];
+            }
+            return new long[]{inicio, fin};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.trabix.backup.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Conteo de registros por tabla para el panel de estadísticas, sin COUNT(*) por request.
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * MODOS (trabix.backup.estadisticas.modo):
+ * - estimado: pg_stat_user_tables.n_live_tup (o pg_class.reltuples si las
+ *   estadísticas se reiniciaron); una sola consulta al catálogo, no lee las tablas
+ * - exacto: contadores mantenidos por triggers de sentencia (con transition tables):
+ *   cada INSERT/DELETE agrega una fila de delta en backup_conteos_delta (solo inserta,
+ *   sin contención entre escritores) y un proceso periódico los consolida en backup_conteos.
+ *   Total = base + suma de deltas pendientes
+ *
+ * CACHÉ:
+ * - El resultado se reutiliza durante cache-ms: el panel puede refrescar seguido
+ *
+ * RECONTEO (modo exacto):
+ * - Al instalar y después de una restauración (que carga sin triggers) se recuenta
+ *   cada tabla con COUNT(*) en paralelo, bajo LOCK SHARE para no perder deltas:
+ *   bloquea escrituras en esa tabla solo mientras se cuenta
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+@Component
+public class EstadisticasTablas {
+
+    public static final String MODO_ESTIMADO = "estimado";
+    public static final String MODO_EXACTO = "exacto";
+
+    /**
+     * Tablas del panel de estadísticas.
+     */
+    public static final List<String> TABLAS = List.of(
+            "usuarios",
+            "ventas",
+            "lotes",
+            "tandas",
+            "asignaciones_equipo",
+            "documentos",
+            "notificaciones",
+            "costos_produccion",
+            "movimientos_fondo"
+    );
+
+    private static final String TRIGGER_INSERT = "trg_backup_conteo_ins";
+    private static final String TRIGGER_DELETE = "trg_backup_conteo_del";
+    private static final String TRIGGER_TRUNCATE = "trg_backup_conteo_trunc";
+
+    /** Los reconteos (compartido) y la consolidación (exclusivo) no se mezclan */
+    private static final String CANDADO = "hashtext('backup_conteos')";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final Executor executor;
+
+    @Value("${trabix.backup.estadisticas.modo:estimado}")
+    private String modo;
+
+    @Value("${trabix.backup.estadisticas.cache-ms:10000}")
+    private long cacheMs;
+
+    /** Se activa cuando los contadores están instalados e inicializados */
+    private volatile boolean contadoresListos = false;
+
+    private volatile Cache cache;
+
+    public EstadisticasTablas(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Qualifier("exportacionExecutor") Executor executor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+    }
+
+    /**
+     * Registros por tabla (las que no existen cuentan 0).
+     */
+    public Conteos obtener() {
+        Cache actual = cache;
+        long ahora = System.currentTimeMillis();
+        if (actual != null && ahora - actual.instante < cacheMs) {
+            return actual.conteos;
+        }
+
+        Conteos conteos;
+        try {
+            conteos = usarExacto() ? leerExactos() : leerEstimados();
+        } catch (Exception e) {
+            log.warn("No se pudieron leer las estadísticas: {}", e.getMessage());
+            conteos = new Conteos(Map.of(), false);
+        }
+        cache = new Cache(ahora, conteos);
+        return conteos;
+    }
+
+    // ==================== MODO ESTIMADO ====================
+
+    private Conteos leerEstimados() {
+        Map<String, Long> valores = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT c.relname,
+                       CASE WHEN COALESCE(s.n_live_tup, 0) > 0 OR c.reltuples < 0
+                            THEN COALESCE(s.n_live_tup, 0)
+                            ELSE c.reltuples::bigint END
+                FROM pg_class c
+                LEFT JOIN pg_stat_user_tables s ON s.relid = c.oid
+                WHERE c.relnamespace = current_schema()::regnamespace
+                  AND c.relkind IN ('r', 'p')
+                  AND c.relname = ANY (?)
+                """,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", TABLAS.toArray())),
+                rs -> {
+                    valores.put(rs.getString(1), rs.getLong(2));
+                });
+        return new Conteos(ordenar(valores), false);
+    }
+
+    // ==================== MODO EXACTO ====================
+
+    private boolean usarExacto() {
+        return MODO_EXACTO.equalsIgnoreCase(modo) && contadoresListos;
+    }
+
+    private Conteos leerExactos() {
+        Map<String, Long> valores = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT c.tabla, c.total + COALESCE(d.delta, 0)
+                FROM backup_conteos c
+                LEFT JOIN (SELECT tabla, SUM(delta) AS delta FROM backup_conteos_delta GROUP BY tabla) d
+                       ON d.tabla = c.tabla
+                """,
+                rs -> {
+                    valores.put(rs.getString(1), rs.getLong(2));
+                });
+        if (valores.size() < TABLAS.size()) {
+            // Tablas creadas después del arranque aún sin contador: se completa con el estimado
+            leerEstimados().valores().forEach(valores::putIfAbsent);
+        }
+        return new Conteos(ordenar(valores), true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void instalar() {
+        if (!MODO_EXACTO.equalsIgnoreCase(modo)) {
+            log.info("Estadísticas en modo {}", MODO_ESTIMADO);
+            return;
+        }
+        try {
+            jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS backup_conteos (
+                    tabla VARCHAR(100) PRIMARY KEY,
+                    total BIGINT NOT NULL
+                )
+                """);
+            jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS backup_conteos_delta (
+                    id BIGSERIAL PRIMARY KEY,
+                    tabla VARCHAR(100) NOT NULL,
+                    delta BIGINT NOT NULL
+                )
+                """);
+            jdbcTemplate.execute("""
+                CREATE OR REPLACE FUNCTION registrar_conteo_backup()
+                RETURNS TRIGGER AS $$
+                DECLARE
+                    cantidad BIGINT;
+                BEGIN
+                    IF TG_OP = 'INSERT' THEN
+                        SELECT COUNT(*) INTO cantidad FROM nuevas;
+                    ELSE
+                        SELECT -COUNT(*) INTO cantidad FROM viejas;
+                    END IF;
+                    IF cantidad <> 0 THEN
+                        INSERT INTO backup_conteos_delta (tabla, delta) VALUES (TG_TABLE_NAME, cantidad);
+                    END IF;
+                    RETURN NULL;
+                END;
+                $$ language 'plpgsql'
+                """);
+            jdbcTemplate.execute("""
+                CREATE OR REPLACE FUNCTION reiniciar_conteo_backup()
+                RETURNS TRIGGER AS $$
+                BEGIN
+                    DELETE FROM backup_conteos_delta WHERE tabla = TG_TABLE_NAME;
+                    UPDATE backup_conteos SET total = 0 WHERE tabla = TG_TABLE_NAME;
+                    RETURN NULL;
+                END;
+                $$ language 'plpgsql'
+                """);
+
+            List<String> nuevas = new ArrayList<>();
+            for (String tabla : TABLAS) {
+                if (instalarTriggers(tabla)) {
+                    nuevas.add(tabla);
+                }
+            }
+
+            // Tablas sin contador (recién instaladas o de una instalación incompleta)
+            List<String> sinContador = new ArrayList<>(nuevas);
+            for (String tabla : TABLAS) {
+                if (!sinContador.contains(tabla) && existeTabla(tabla) && !tieneContador(tabla)) {
+                    sinContador.add(tabla);
+                }
+            }
+            recontar(sinContador);
+
+            contadoresListos = true;
+            log.info("Estadísticas en modo {} ({} tablas recontadas)", MODO_EXACTO, sinContador.size());
+        } catch (Exception e) {
+            log.error("No se pudieron instalar los contadores, se usan estimados: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recuenta todas las tablas. Se llama después de una restauración.
+     */
+    public void recontarTodas() {
+        cache = null;
+        if (!contadoresListos) {
+            return;
+        }
+        try {
+            recontar(TABLAS.stream().filter(this::existeTabla).toList());
+            log.info("Contadores de estadísticas recontados");
+        } catch (Exception e) {
+            log.error("Error al recontar estadísticas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Pasa los deltas acumulados a backup_conteos para que la suma siga siendo corta.
+     */
+    @Scheduled(fixedDelayString = "${trabix.backup.estadisticas.consolidar-ms:60000}")
+    public void consolidar() {
+        if (!contadoresListos) {
+            return;
+        }
+        try {
+            Integer tablas = transaccion.execute(status -> {
+                jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + CANDADO + ")");
+                return jdbcTemplate.update("""
+                    WITH consumidos AS (
+                        DELETE FROM backup_conteos_delta RETURNING tabla, delta
+                    ), sumas AS (
+                        SELECT tabla, SUM(delta) AS delta FROM consumidos GROUP BY tabla
+                    )
+                    UPDATE backup_conteos c SET total = c.total + s.delta
+                    FROM sumas s WHERE c.tabla = s.tabla
+                    """);
+            });
+            if (tablas != null && tablas > 0) {
+                log.debug("Deltas de conteo consolidados en {} tablas", tablas);
+            }
+        } catch (Exception e) {
+            log.warn("No se pudieron consolidar los conteos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Cuenta las tablas en paralelo, cada una en su transacción.
+     */
+    private void recontar(List<String> tablas) {
+        List<CompletableFuture<Void>> futuros = tablas.stream()
+                .map(tabla -> CompletableFuture.runAsync(() -> recontar(tabla), executor))
+                .toList();
+        CompletableFuture.allOf(futuros.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private void recontar(String tabla) {
+        transaccion.executeWithoutResult(status -> {
+            // Sin escrituras concurrentes: el COUNT y los deltas borrados corresponden al mismo estado
+            jdbcTemplate.execute("SELECT pg_advisory_xact_lock_shared(" + CANDADO + ")");
+            jdbcTemplate.execute("LOCK TABLE " + tabla + " IN SHARE MODE");
+            jdbcTemplate.update("DELETE FROM backup_conteos_delta WHERE tabla = ?", tabla);
+            jdbcTemplate.update("""
+                    INSERT INTO backup_conteos (tabla, total)
+                    SELECT ?, COUNT(*) FROM %s
+                    ON CONFLICT (tabla) DO UPDATE SET total = EXCLUDED.total
+                    """.formatted(tabla), tabla);
+        });
+    }
+
+    private boolean instalarTriggers(String tabla) {
+        if (!existeTabla(tabla)) {
+            return false;
+        }
+        Boolean existe = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_trigger WHERE tgname = ? AND tgrelid = to_regclass(?))",
+                Boolean.class, TRIGGER_INSERT, tabla);
+        if (Boolean.TRUE.equals(existe)) {
+            return false;
+        }
+
+        transaccion.executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE TRIGGER " + TRIGGER_INSERT + " AFTER INSERT ON " + tabla
+                    + " REFERENCING NEW TABLE AS nuevas FOR EACH STATEMENT EXECUTE FUNCTION registrar_conteo_backup()");
+            jdbcTemplate.execute("CREATE TRIGGER " + TRIGGER_DELETE + " AFTER DELETE ON " + tabla
+                    + " REFERENCING OLD TABLE AS viejas FOR EACH STATEMENT EXECUTE FUNCTION registrar_conteo_backup()");
+            jdbcTemplate.execute("CREATE TRIGGER " + TRIGGER_TRUNCATE + " AFTER TRUNCATE ON " + tabla
+                    + " FOR EACH STATEMENT EXECUTE FUNCTION reiniciar_conteo_backup()");
+        });
+        return true;
+    }
+
+    private boolean tieneContador(String tabla) {
+        Boolean existe = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM backup_conteos WHERE tabla = ?)", Boolean.class, tabla);
+        return Boolean.TRUE.equals(existe);
+    }
+
+    private boolean existeTabla(String tabla) {
+        Boolean existe = jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, tabla);
+        return Boolean.TRUE.equals(existe);
+    }
+
+    private static Map<String, Long> ordenar(Map<String, Long> valores) {
+        Map<String, Long> resultado = new LinkedHashMap<>();
+        for (String tabla : TABLAS) {
+            resultado.put(tabla, valores.getOrDefault(tabla, 0L));
+        }
+        return resultado;
+    }
+
+    /**
+     * @param exactos false si los valores son estimados del catálogo
+     */
+    public record Conteos(Map<String, Long> valores, boolean exactos) {
+
+        public int de(String tabla) {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(0, valores.getOrDefault(tabla, 0L)));
+        }
+    }
+
+    private record Cache(long instante, Conteos conteos) {
+    }
+}
@@ -0,0 +1,572 @@
+package com.trabix.backup.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Escritor de backups en streaming.
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * FORMATO DEL ZIP:
+ * - metadata.json: datos del backup y lista de tablas
+ * - <tabla>.json: un arreglo JSON con los registros de la tabla (ordenados por id)
+ * - conteos.json: registros exportados por tabla (la restauración los verifica)
+ * - eliminados.json (solo incrementales): filas eliminadas desde la base {tabla, registro_id, eliminado_en}
+ *
+ * INCREMENTALES:
+ * - Con marca de agua de la base, una tabla con columna updated_at exporta solo
+ *   updated_at > marca.tiempo o id > marca.id; sin updated_at se exporta completa
+ * - Ambos criterios son rangos indexados (idx_<tabla>_updated_at y la PK) unidos con
+ *   UNION ALL (ver db/migracion-backup.sql)
+ * - metadata.modos indica por tabla "completa" o "incremental"
+ * - La nueva marca de cada tabla es now() e id máximo al inicio de su transacción:
+ *   lo que se confirme después entra en el siguiente incremental
+ *
+ * MEMORIA:
+ * - Cada tabla se lee con un cursor JDBC de solo avance (fetch size configurable)
+ *   y cada fila se escribe directo con JsonGenerator, sin armar listas ni Strings
+ * - El uso de memoria no depende de la cantidad de registros
+ * - El cursor de PostgreSQL requiere autocommit desactivado: cada tabla
+ *   se lee dentro de una transacción de solo lectura
+ *
+ * PARALELISMO:
+ * - Las tablas se exportan en paralelo en el pool exportacionExecutor,
+ *   cada una a un archivo temporal junto al destino
+ * - El hilo que llama arma el ZIP en el orden de las tablas a medida que terminan
+ * - Si una tabla falla o se cancela el backup, las demás se detienen en la siguiente fila
+ *
+ * CONSISTENCIA (snapshot-consistente: true):
+ * - Una conexión coordinadora abre una transacción REPEATABLE READ y publica
+ *   su snapshot con pg_export_snapshot()
+ * - Cada tabla (y eliminados.json) se lee en una transacción que importa ese snapshot
+ *   con SET TRANSACTION SNAPSHOT: todas ven el mismo instante aunque corran en paralelo,
+ *   así ventas, tandas y cuadres del archivo cuadran entre sí
+ * - No bloquea escrituras; la coordinadora queda abierta hasta terminar el ZIP
+ * - La marca de agua de todas las tablas es el inicio de la transacción coordinadora
+ * - Si no se puede exportar el snapshot se sigue con una transacción por tabla
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+@Component
+public class ExportadorBackup {
+
+    public static final String MODO_COMPLETA = "completa";
+    public static final String MODO_INCREMENTAL = "incremental";
+    public static final String ENTRADA_METADATA = "metadata.json";
+    public static final String ENTRADA_CONTEOS = "conteos.json";
+    public static final String ENTRADA_ELIMINADOS = "eliminados.json";
+
+    /** Formato de los identificadores de pg_export_snapshot(), p.ej. 00000003-0000001B-1 */
+    private static final Pattern ID_SNAPSHOT = Pattern.compile("[0-9A-Fa-f-]+");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final TransactionTemplate transaccion;
+    private final TransactionTemplate transaccionSnapshot;
+    private final Executor executor;
+    private final ObjectMapper objectMapper;
+
+    @Value("${trabix.backup.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${trabix.backup.snapshot-consistente:true}")
+    private boolean snapshotConsistente;
+
+    public ExportadorBackup(JdbcTemplate jdbcTemplate,
+                            DataSource dataSource,
+                            PlatformTransactionManager transactionManager,
+                            @Qualifier("exportacionExecutor") Executor executor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccion.setReadOnly(true);
+        // SET TRANSACTION SNAPSHOT solo se admite en REPEATABLE READ o SERIALIZABLE
+        this.transaccionSnapshot = new TransactionTemplate(transactionManager);
+        this.transaccionSnapshot.setReadOnly(true);
+        this.transaccionSnapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.executor = executor;
+
+        // Sin INDENT_OUTPUT: el ZIP comprime igual y se evita inflar el contenido
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.objectMapper.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Exporta la metadata y las tablas indicadas al archivo ZIP de destino.
+     * Las tablas que no existen se exportan como arreglo vacío.
+     * Agrega a la metadata los modos por tabla.
+     *
+     * @throws java.util.concurrent.CancellationException si se canceló el backup
+     */
+    public Resultado exportar(Path destino, Map<String, Object> metadata, List<String> tablas,
+                              PlanExportacion plan, ProgresoBackup progreso) throws IOException {
+        // Modo de cada tabla antes de arrancar: la metadata va primero en el ZIP
+        Set<String> conUpdatedAt = tablasConUpdatedAt(tablas);
+        Map<String, String> modos = new LinkedHashMap<>();
+        for (String tabla : tablas) {
+            boolean incremental = plan.desde().containsKey(tabla) && conUpdatedAt.contains(tabla);
+            modos.put(tabla, incremental ? MODO_INCREMENTAL : MODO_COMPLETA);
+        }
+        metadata.put("modos", modos);
+
+        Path temporal = Files.createTempDirectory(destino.toAbsolutePath().getParent(), ".exportando_");
+        Instantanea instantanea = snapshotConsistente ? Instantanea.abrir(dataSource) : null;
+        metadata.put("snapshotConsistente", instantanea != null);
+        AtomicBoolean abortado = new AtomicBoolean(false);
+        List<CompletableFuture<ResultadoTabla>> futuros = new ArrayList<>(tablas.size());
+
+        try {
+            for (String tabla : tablas) {
+                Path archivo = temporal.resolve(tabla + ".json");
+                MarcaAgua desde = MODO_INCREMENTAL.equals(modos.get(tabla)) ? plan.desde().get(tabla) : null;
+                futuros.add(CompletableFuture.supplyAsync(
+                        () -> exportarTabla(tabla, archivo, desde, instantanea, progreso, abortado), executor));
+            }
+
+            Map<String, ResultadoTabla> resultados = new LinkedHashMap<>();
+            long eliminados = 0;
+            try (ZipOutputStream zip = new ZipOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(destino)))) {
+
+                zip.putNextEntry(new ZipEntry(ENTRADA_METADATA));
+                objectMapper.writeValue(zip, metadata);
+                zip.closeEntry();
+
+                for (int i = 0; i < tablas.size(); i++) {
+                    String tabla = tablas.get(i);
+                    ResultadoTabla resultado = esperar(futuros.get(i));
+                    Path archivo = temporal.resolve(tabla + ".json");
+
+                    zip.putNextEntry(new ZipEntry(tabla + ".json"));
+                    Files.copy(archivo, zip);
+                    zip.closeEntry();
+                    Files.delete(archivo);
+
+                    resultados.put(tabla, resultado);
+                }
+
+                Map<String, Long> conteos = new LinkedHashMap<>();
+                resultados.forEach((tabla, r) -> conteos.put(tabla, r.registros()));
+                zip.putNextEntry(new ZipEntry(ENTRADA_CONTEOS));
+                objectMapper.writeValue(zip, conteos);
+                zip.closeEntry();
+
+                if (plan.eliminadosDesde() != null) {
+                    zip.putNextEntry(new ZipEntry(ENTRADA_ELIMINADOS));
+                    eliminados = exportarEliminados(zip, plan.eliminadosDesde(), instantanea, progreso);
+                    zip.closeEntry();
+                }
+            }
+            return new Resultado(resultados, eliminados);
+        } catch (IOException | RuntimeException e) {
+            abortado.set(true);
+            // Esperar a que los hilos suelten sus archivos antes de borrar el temporal
+            futuros.forEach(f -> f.handle((r, ex) -> null).join());
+            throw e;
+        } finally {
+            borrarDirectorio(temporal);
+            if (instantanea != null) {
+                instantanea.close();
+            }
+        }
+    }
+
+    /**
+     * Escribe una tabla a su archivo temporal. Se ejecuta en el pool de exportación.
+     *
+     * @param desde       marca de agua de la base; null para exportar la tabla completa
+     * @param instantanea snapshot compartido; null para leer en una transacción propia
+     */
+    private ResultadoTabla exportarTabla(String tabla, Path archivo, MarcaAgua desde, Instantanea instantanea,
+                                         ProgresoBackup progreso, AtomicBoolean abortado) {
+        ProgresoBackup.Tabla estado = progreso.tabla(tabla);
+        estado.iniciar();
+
+        try (OutputStream out = new ContadorBytes(
+                new BufferedOutputStream(Files.newOutputStream(archivo)), estado);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+
+            generator.writeStartArray();
+            ResultadoTabla resultado = enTransaccion(instantanea, status -> {
+                if (!existeTabla(tabla)) {
+                    return new ResultadoTabla(0, null);
+                }
+                // Marca tomada antes de leer: lo que se confirme después entra en el próximo incremental.
+                // Con snapshot compartido el instante es el de la coordinadora, no el de este hilo
+                LocalDateTime tiempo = instantanea != null
+                        ? instantanea.tiempo()
+                        : jdbcTemplate.queryForObject("SELECT now()::timestamp", LocalDateTime.class);
+                MarcaAgua marca = new MarcaAgua(tiempo,
+                        jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + tabla, Long.class));
+                long registros = escribirRegistros(generator, tabla, desde, progreso, abortado);
+                return new ResultadoTabla(registros, marca);
+            });
+            generator.writeEndArray();
+
+            estado.completar();
+            log.debug("Tabla {} exportada ({}): {} registros", tabla,
+                    desde != null ? MODO_INCREMENTAL : MODO_COMPLETA, resultado.registros());
+            return resultado;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long escribirRegistros(JsonGenerator generator, String tabla, MarcaAgua desde,
+                                   ProgresoBackup progreso, AtomicBoolean abortado) {
+        ProgresoBackup.Tabla estado = progreso.tabla(tabla);
+        long[] registros = {0};
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps;
+            if (desde == null) {
+                ps = con.prepareStatement("SELECT * FROM " + tabla + " ORDER BY id",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            } else {
+                // Dos rangos disjuntos, cada uno sobre su índice (updated_at, PK), en lugar de un OR
+                // que PostgreSQL resuelve recorriendo la tabla completa
+                ps = con.prepareStatement("SELECT * FROM ("
+                                + "SELECT * FROM " + tabla + " WHERE updated_at > ?"
+                                + " UNION ALL "
+                                + "SELECT * FROM " + tabla + " WHERE id > ? AND (updated_at <= ? OR updated_at IS NULL)"
+                                + ") cambios ORDER BY id",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setObject(1, desde.tiempo());
+                ps.setLong(2, desde.id() != null ? desde.id() : 0L);
+                ps.setObject(3, desde.tiempo());
+            }
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, rs -> {
+            progreso.verificarCancelacion();
+            if (abortado.get()) {
+                throw new IllegalStateException("Exportación abortada por error en otra tabla");
+            }
+
+            ResultSetMetaData meta = rs.getMetaData();
+            int columnas = meta.getColumnCount();
+            try {
+                generator.writeStartObject();
+                for (int i = 1; i <= columnas; i++) {
+                    generator.writeFieldName(JdbcUtils.lookupColumnName(meta, i));
+                    generator.writeObject(valorColumna(rs, meta, i));
+                }
+                generator.writeEndObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            registros[0]++;
+            estado.sumarRegistro();
+        });
+
+        return registros[0];
+    }
+
+    /**
+     * Valor de una columna en una forma que la restauración puede cargar tal cual:
+     * fechas sin conversión de zona horaria y json/jsonb como texto.
+     */
+    private static Object valorColumna(ResultSet rs, ResultSetMetaData meta, int i) throws SQLException {
+        if ("timestamptz".equals(meta.getColumnTypeName(i))) {
+            return rs.getObject(i, OffsetDateTime.class);
+        }
+        return switch (meta.getColumnType(i)) {
+            case Types.TIMESTAMP -> rs.getObject(i, LocalDateTime.class);
+            case Types.DATE -> rs.getObject(i, LocalDate.class);
+            case Types.TIME -> rs.getObject(i, LocalTime.class);
+            case Types.OTHER -> rs.getString(i);
+            default -> JdbcUtils.getResultSetValue(rs, i);
+        };
+    }
+
+    /**
+     * Escribe las eliminaciones registradas después de la fecha dada.
+     */
+    private long exportarEliminados(OutputStream out, LocalDateTime desde, Instantanea instantanea,
+                                    ProgresoBackup progreso) throws IOException {
+        long[] registros = {0};
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            enTransaccion(instantanea, status -> {
+                jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(
+                            "SELECT tabla, registro_id, eliminado_en FROM " + RegistroEliminaciones.TABLA
+                                    + " WHERE eliminado_en > ? ORDER BY id",
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setObject(1, desde);
+                    ps.setFetchSize(fetchSize);
+                    return ps;
+                }, rs -> {
+                    progreso.verificarCancelacion();
+                    try {
+                        generator.writeStartObject();
+                        generator.writeStringField("tabla", rs.getString(1));
+                        generator.writeNumberField("registro_id", rs.getLong(2));
+                        generator.writeFieldName("eliminado_en");
+                        generator.writeObject(rs.getObject(3, LocalDateTime.class));
+                        generator.writeEndObject();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    registros[0]++;
+                });
+                return null;
+            });
+            generator.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return registros[0];
+    }
+
+    /**
+     * Tablas (de las indicadas) que tienen columna updated_at.
+     */
+    private Set<String> tablasConUpdatedAt(Collection<String> tablas) {
+        Set<String> resultado = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT table_name FROM information_schema.columns "
+                        + "WHERE table_schema = current_schema() AND column_name = 'updated_at'",
+                String.class));
+        resultado.retainAll(tablas);
+        return resultado;
+    }
+
+    private boolean existeTabla(String tabla) {
+        Boolean existe = jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, tabla);
+        if (!Boolean.TRUE.equals(existe)) {
+            log.warn("No se pudo exportar tabla {}: no existe", tabla);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Ejecuta la lectura en una transacción de solo lectura; con snapshot compartido,
+     * lo importa antes de cualquier consulta (SET TRANSACTION SNAPSHOT debe ser la primera).
+     */
+    private <T> T enTransaccion(Instantanea instantanea, TransactionCallback<T> accion) {
+        if (instantanea == null) {
+            return transaccion.execute(accion);
+        }
+        return transaccionSnapshot.execute(status -> {
+            jdbcTemplate.execute("SET TRANSACTION SNAPSHOT '" + instantanea.id() + "'");
+            return accion.doInTransaction(status);
+        });
+    }
+
+    /**
+     * Espera el resultado de una tabla, desenvolviendo la excepción original.
+     */
+    private static ResultadoTabla esperar(CompletableFuture<ResultadoTabla> futuro) throws IOException {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (causa instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    private static void borrarDirectorio(Path directorio) {
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            archivos.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    log.warn("No se pudo borrar temporal {}: {}", p, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.warn("No se pudo borrar directorio temporal {}: {}", directorio, e.getMessage());
+        }
+    }
+
+    /**
+     * Marca de agua de una tabla: instante e id máximo al momento de exportarla.
+     */
+    public record MarcaAgua(LocalDateTime tiempo, Long id) {
+    }
+
+    /**
+     * Qué exportar de forma incremental.
+     *
+     * @param desde           marca por tabla (tablas ausentes se exportan completas)
+     * @param eliminadosDesde fecha desde la que se exportan eliminaciones; null para no exportarlas
+     */
+    public record PlanExportacion(Map<String, MarcaAgua> desde, LocalDateTime eliminadosDesde) {
+
+        public static PlanExportacion completo() {
+            return new PlanExportacion(Map.of(), null);
+        }
+    }
+
+    /**
+     * @param marca nueva marca de agua; null si la tabla no existe
+     */
+    public record ResultadoTabla(long registros, MarcaAgua marca) {
+    }
+
+    public record Resultado(Map<String, ResultadoTabla> tablas, long eliminados) {
+    }
+
+    /**
+     * Transacción coordinadora que publica el snapshot compartido.
+     * Usa una conexión propia del pool, fuera de la gestión de Spring, abierta durante todo el export.
+     */
+    private static final class Instantanea implements AutoCloseable {
+
+        private final Connection conexion;
+        private final String id;
+        private final LocalDateTime tiempo;
+
+        private Instantanea(Connection conexion, String id, LocalDateTime tiempo) {
+            this.conexion = conexion;
+            this.id = id;
+            this.tiempo = tiempo;
+        }
+
+        /**
+         * @return null si no se pudo exportar el snapshot
+         */
+        static Instantanea abrir(DataSource dataSource) {
+            Connection conexion = null;
+            try {
+                conexion = dataSource.getConnection();
+                conexion.setAutoCommit(false);
+                conexion.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                conexion.setReadOnly(true);
+
+                String id;
+                LocalDateTime tiempo;
+                try (Statement st = conexion.createStatement();
+                     ResultSet rs = st.executeQuery("SELECT pg_export_snapshot(), now()::timestamp")) {
+                    rs.next();
+                    id = rs.getString(1);
+                    tiempo = rs.getObject(2, LocalDateTime.class);
+                }
+                if (id == null || !ID_SNAPSHOT.matcher(id).matches()) {
+                    throw new SQLException("Identificador de snapshot inesperado: " + id);
+                }
+
+                log.debug("Snapshot de exportación {} ({})", id, tiempo);
+                return new Instantanea(conexion, id, tiempo);
+            } catch (SQLException e) {
+                log.warn("No se pudo exportar el snapshot, cada tabla se lee en su propia transacción: {}",
+                        e.getMessage());
+                cerrar(conexion);
+                return null;
+            }
+        }
+
+        String id() {
+            return id;
+        }
+
+        LocalDateTime tiempo() {
+            return tiempo;
+        }
+
+        @Override
+        public void close() {
+            cerrar(conexion);
+        }
+
+        private static void cerrar(Connection conexion) {
+            if (conexion == null) {
+                return;
+            }
+            try {
+                conexion.rollback();
+            } catch (SQLException e) {
+                log.debug("Rollback de la transacción coordinadora: {}", e.getMessage());
+            }
+            try {
+                conexion.close();
+            } catch (SQLException e) {
+                log.warn("No se pudo cerrar la conexión coordinadora: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Cuenta los bytes escritos para el progreso de la tabla.
+     */
+    private static final class ContadorBytes extends FilterOutputStream {
+
+        private final ProgresoBackup.Tabla estado;
+
+        ContadorBytes(OutputStream out, ProgresoBackup.Tabla estado) {
+            super(out);
+            this.estado = estado;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            estado.sumarBytes(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            estado.sumarBytes(len);
+        }
+    }
+}
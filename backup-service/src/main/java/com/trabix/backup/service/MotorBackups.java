@@ -0,0 +1,316 @@
+package com.trabix.backup.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.trabix.backup.entity.Backup;
+import com.trabix.backup.entity.EstadoBackup;
+import com.trabix.backup.entity.TipoBackup;
+import com.trabix.backup.repository.BackupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Motor de ejecución de backups.
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * - El request solo crea el registro: la exportación corre en taskExecutor
+ *   una vez confirmada la transacción (antes @Async no aplicaba por la
+ *   auto-invocación y el request quedaba bloqueado durante todo el backup)
+ * - Las tablas se exportan en paralelo (ExportadorBackup)
+ * - El progreso por tabla se guarda en memoria y se expone en GET /backups/{id}
+ * - Un backup en ejecución se puede cancelar: se borra el archivo parcial
+ * - Al arrancar, los backups que quedaron EN_PROCESO (reinicio a mitad) se marcan con error
+ *
+ * INCREMENTALES:
+ * - Cada backup guarda sus marcas de agua por tabla (marcas_agua)
+ * - Un incremental exporta lo posterior a las marcas de su base menos un margen
+ *   (transacciones que escribieron updated_at antes de la marca pero confirmaron después);
+ *   las filas repetidas entre backups son inofensivas porque la restauración aplica por id
+ * - Restaurar = backup COMPLETO raíz + cada incremental de la cadena en orden (baseId)
+ * - Después de una restauración no se aceptan incrementales sobre backups anteriores a ella
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+@Service
+public class MotorBackups {
+
+    /**
+     * Lista de tablas a incluir en el backup.
+     * Orden importante: primero las que no tienen FK, luego las dependientes.
+     */
+    static final List<String> TABLAS_BACKUP = Arrays.asList(
+            // Usuarios primero (no tiene FK)
+            "usuarios",
+            // Stock de equipos
+            "stock_equipos",
+            // Configuración
+            "configuracion_costos",
+            // Inventario y ventas
+            "lotes",
+            "tandas",
+            "ventas",
+            "cuadres",
+            // Equipos
+            "asignaciones_equipo",
+            "pagos_mensualidad",
+            // Documentos
+            "documentos",
+            // Finanzas
+            "fondo_recompensas",
+            "movimientos_fondo",
+            "costos_produccion",
+            // Notificaciones
+            "notificaciones",
+            // Backups (metadata)
+            "backups"
+    );
+
+    private final BackupRepository repository;
+    private final ExportadorBackup exportador;
+    private final RegistroEliminaciones registroEliminaciones;
+    private final Executor taskExecutor;
+    private final ObjectMapper objectMapper;
+
+    @Value("${trabix.backup.incremental.margen-segundos:600}")
+    private long margenSegundos;
+
+    private final Map<Long, ProgresoBackup> enCurso = new ConcurrentHashMap<>();
+
+    public MotorBackups(BackupRepository repository,
+                        ExportadorBackup exportador,
+                        RegistroEliminaciones registroEliminaciones,
+                        @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.repository = repository;
+        this.exportador = exportador;
+        this.registroEliminaciones = registroEliminaciones;
+        this.taskExecutor = taskExecutor;
+
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    /**
+     * Marca con error los backups que quedaron EN_PROCESO por un reinicio.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void marcarInterrumpidos() {
+        for (Backup backup : repository.findByEstadoOrderByFechaInicioDesc(EstadoBackup.EN_PROCESO)) {
+            borrarArchivo(backup);
+            backup.marcarError("Backup interrumpido: el servicio se reinició durante la ejecución");
+            repository.save(backup);
+            log.warn("Backup {} marcado como interrumpido", backup.getNombre());
+        }
+    }
+
+    /**
+     * Programa la ejecución del backup. Si hay una transacción activa,
+     * arranca después del commit para que el hilo del backup vea el registro.
+     */
+    public void programar(Long backupId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    iniciar(backupId);
+                }
+            });
+        } else {
+            iniciar(backupId);
+        }
+    }
+
+    /**
+     * Solicita la cancelación de un backup en ejecución.
+     *
+     * @return false si el backup no se está ejecutando en esta instancia
+     */
+    public boolean cancelar(Long backupId) {
+        ProgresoBackup progreso = enCurso.get(backupId);
+        if (progreso == null) {
+            return false;
+        }
+        progreso.cancelar();
+        log.info("Cancelación solicitada para backup {}", backupId);
+        return true;
+    }
+
+    public Optional<ProgresoBackup> obtenerProgreso(Long backupId) {
+        return Optional.ofNullable(enCurso.get(backupId));
+    }
+
+    private void iniciar(Long backupId) {
+        ProgresoBackup progreso = new ProgresoBackup(TABLAS_BACKUP);
+        enCurso.put(backupId, progreso);
+        try {
+            taskExecutor.execute(() -> ejecutar(backupId, progreso));
+        } catch (RejectedExecutionException e) {
+            enCurso.remove(backupId);
+            repository.findById(backupId).ifPresent(backup -> {
+                backup.marcarError("Error: cola de backups llena");
+                repository.save(backup);
+            });
+            log.error("Backup {} rechazado: cola de ejecución llena", backupId);
+        }
+    }
+
+    /**
+     * Ejecuta el backup en el hilo de taskExecutor.
+     */
+    private void ejecutar(Long backupId, ProgresoBackup progreso) {
+        try {
+            Backup backup = repository.findById(backupId).orElse(null);
+            if (backup == null) {
+                log.error("Backup no encontrado: {}", backupId);
+                return;
+            }
+
+            try {
+                // Exportar en streaming: una entrada del ZIP por tabla
+                Path zipPath = Paths.get(backup.getArchivo());
+                ExportadorBackup.Resultado resultado = exportador.exportar(
+                        zipPath, construirMetadata(backup), TABLAS_BACKUP, construirPlan(backup), progreso);
+                resultado.tablas().forEach((tabla, r) -> actualizarEstadisticas(backup, tabla, (int) r.registros()));
+
+                MarcasAgua marcas = MarcasAgua.de(resultado);
+                backup.setMarcasAgua(objectMapper.writeValueAsString(marcas));
+                backup.setSha256(DescargaBackup.calcularSha256(zipPath));
+                backup.completar(Files.size(zipPath));
+
+                if (!backup.esIncremental() && marcas.eliminados() != null) {
+                    int purgados = registroEliminaciones.purgarAnteriores(
+                            marcas.eliminados().minusSeconds(margenSegundos));
+                    log.debug("Eliminaciones purgadas tras backup completo: {}", purgados);
+                }
+
+                log.info("Backup completado: {} - Tamaño: {} - Duración: {}",
+                        backup.getNombre(), backup.getTamanoFormateado(), backup.getDuracionFormateada());
+                log.info("Datos exportados - Usuarios: {}, Ventas: {}, Lotes: {}, Asignaciones: {}, Documentos: {}",
+                        backup.getTotalUsuarios(), backup.getTotalVentas(), backup.getTotalLotes(),
+                        backup.getTotalAsignaciones(), backup.getTotalDocumentos());
+
+            } catch (CancellationException e) {
+                borrarArchivo(backup);
+                backup.marcarError("Backup cancelado por el usuario");
+                log.info("Backup cancelado: {}", backup.getNombre());
+
+            } catch (Exception e) {
+                log.error("Error al crear backup {}: {}", backup.getNombre(), e.getMessage(), e);
+                borrarArchivo(backup);
+                backup.marcarError("Error: " + e.getMessage());
+            }
+
+            repository.save(backup);
+        } finally {
+            enCurso.remove(backupId);
+        }
+    }
+
+    /**
+     * Metadata del backup (entrada metadata.json del ZIP).
+     * Versión 3.0: una entrada JSON por tabla en lugar de un único documento.
+     */
+    private Map<String, Object> construirMetadata(Backup backup) {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("id", backup.getId());
+        metadata.put("nombre", backup.getNombre());
+        metadata.put("fechaCreacion", LocalDateTime.now().toString());
+        metadata.put("version", "3.0");
+        metadata.put("sistema", "TRABIX");
+        metadata.put("tipo", backup.getTipo() != null ? backup.getTipo().name() : TipoBackup.COMPLETO.name());
+        metadata.put("baseId", backup.getBaseId());
+        metadata.put("tablas", TABLAS_BACKUP);
+        return metadata;
+    }
+
+    /**
+     * Plan de exportación: completo, o desde las marcas de la base menos el margen.
+     */
+    private ExportadorBackup.PlanExportacion construirPlan(Backup backup) throws IOException {
+        if (!backup.esIncremental()) {
+            return ExportadorBackup.PlanExportacion.completo();
+        }
+
+        Backup base = repository.findById(backup.getBaseId())
+                .filter(b -> b.estaCompletado() && b.getMarcasAgua() != null)
+                .orElseThrow(() -> new IllegalStateException(
+                        "El backup base " + backup.getBaseId() + " no está disponible"));
+        MarcasAgua marcas = objectMapper.readValue(base.getMarcasAgua(), MarcasAgua.class);
+
+        Map<String, ExportadorBackup.MarcaAgua> desde = new HashMap<>();
+        marcas.tablas().forEach((tabla, marca) -> desde.put(tabla,
+                new ExportadorBackup.MarcaAgua(marca.tiempo().minusSeconds(margenSegundos), marca.id())));
+        LocalDateTime eliminadosDesde = marcas.eliminados() != null
+                ? marcas.eliminados().minusSeconds(margenSegundos)
+                : base.getFechaInicio().minusSeconds(margenSegundos);
+
+        return new ExportadorBackup.PlanExportacion(desde, eliminadosDesde);
+    }
+
+    private void actualizarEstadisticas(Backup backup, String tabla, int cantidad) {
+        switch (tabla) {
+            case "usuarios" -> backup.setTotalUsuarios(cantidad);
+            case "ventas" -> backup.setTotalVentas(cantidad);
+            case "lotes" -> backup.setTotalLotes(cantidad);
+            case "tandas" -> backup.setTotalTandas(cantidad);
+            case "asignaciones_equipo" -> backup.setTotalAsignaciones(cantidad);
+            case "documentos" -> backup.setTotalDocumentos(cantidad);
+            case "notificaciones" -> backup.setTotalNotificaciones(cantidad);
+        }
+    }
+
+    /**
+     * Marcas de agua guardadas en Backup.marcasAgua.
+     *
+     * @param eliminados la marca más antigua entre las tablas: base para exportar eliminaciones
+     */
+    record MarcasAgua(Map<String, ExportadorBackup.MarcaAgua> tablas, LocalDateTime eliminados) {
+
+        static MarcasAgua de(ExportadorBackup.Resultado resultado) {
+            Map<String, ExportadorBackup.MarcaAgua> tablas = new LinkedHashMap<>();
+            LocalDateTime minima = null;
+            for (Map.Entry<String, ExportadorBackup.ResultadoTabla> e : resultado.tablas().entrySet()) {
+                ExportadorBackup.MarcaAgua marca = e.getValue().marca();
+                if (marca == null || marca.tiempo() == null) {
+                    continue;
+                }
+                tablas.put(e.getKey(), marca);
+                if (minima == null || marca.tiempo().isBefore(minima)) {
+                    minima = marca.tiempo();
+                }
+            }
+            return new MarcasAgua(tablas, minima);
+        }
+    }
+
+    private void borrarArchivo(Backup backup) {
+        try {
+            Files.deleteIfExists(Paths.get(backup.getArchivo()));
+        } catch (IOException e) {
+            log.warn("No se pudo borrar el archivo parcial {}: {}", backup.getArchivo(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.trabix.backup.service;
+
+import com.trabix.backup.dto.BackupDTO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progreso en memoria de un backup en ejecución.
+ *
+ * Lo actualizan los hilos de exportación (registros y bytes por tabla)
+ * y lo leen los requests de consulta: todos los contadores son atómicos o volátiles.
+ */
+public class ProgresoBackup {
+
+    public static final String PENDIENTE = "PENDIENTE";
+    public static final String EN_PROCESO = "EN_PROCESO";
+    public static final String COMPLETADA = "COMPLETADA";
+
+    /** Orden fijo de las tablas: el mapa no cambia después de construirse */
+    private final Map<String, Tabla> tablas;
+    private volatile boolean cancelado = false;
+
+    public ProgresoBackup(List<String> nombresTablas) {
+        Map<String, Tabla> mapa = new LinkedHashMap<>();
+        for (String nombre : nombresTablas) {
+            mapa.put(nombre, new Tabla(nombre));
+        }
+        this.tablas = Collections.unmodifiableMap(mapa);
+    }
+
+    public Tabla tabla(String nombre) {
+        return tablas.get(nombre);
+    }
+
+    /**
+     * Solicita la cancelación. Los hilos de exportación la detectan en la siguiente fila.
+     */
+    public void cancelar() {
+        cancelado = true;
+    }
+
+    public boolean estaCancelado() {
+        return cancelado;
+    }
+
+    /**
+     * Lanza CancellationException si se solicitó la cancelación.
+     */
+    public void verificarCancelacion() {
+        if (cancelado) {
+            throw new CancellationException("Backup cancelado");
+        }
+    }
+
+    public BackupDTO.Progreso toDto() {
+        List<BackupDTO.ProgresoTabla> detalle = new ArrayList<>(tablas.size());
+        int completadas = 0;
+        long registros = 0;
+        long bytes = 0;
+
+        for (Tabla tabla : tablas.values()) {
+            BackupDTO.ProgresoTabla dto = tabla.toDto();
+            detalle.add(dto);
+            registros += dto.getRegistros();
+            bytes += dto.getBytes();
+            if (COMPLETADA.equals(dto.getEstado())) {
+                completadas++;
+            }
+        }
+
+        return BackupDTO.Progreso.builder()
+                .totalTablas(tablas.size())
+                .tablasCompletadas(completadas)
+                .registros(registros)
+                .bytes(bytes)
+                .cancelando(cancelado)
+                .tablas(detalle)
+                .build();
+    }
+
+    /**
+     * Progreso de una tabla.
+     */
+    public static final class Tabla {
+
+        private final String nombre;
+        private volatile String estado = PENDIENTE;
+        private final AtomicLong registros = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+
+        private Tabla(String nombre) {
+            this.nombre = nombre;
+        }
+
+        public void iniciar() {
+            estado = EN_PROCESO;
+        }
+
+        public void completar() {
+            estado = COMPLETADA;
+        }
+
+        public void sumarRegistro() {
+            registros.incrementAndGet();
+        }
+
+        public void sumarBytes(long cantidad) {
+            bytes.addAndGet(cantidad);
+        }
+
+        private BackupDTO.ProgresoTabla toDto() {
+            return BackupDTO.ProgresoTabla.builder()
+                    .tabla(nombre)
+                    .estado(estado)
+                    .registros(registros.get())
+                    .bytes(bytes.get())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.trabix.backup.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Registro de eliminaciones (tombstones) para los backups incrementales.
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * - Tabla backup_eliminados: (tabla, registro_id, eliminado_en)
+ * - Un trigger AFTER DELETE en cada tabla del backup registra las filas eliminadas
+ * - Un incremental exporta las eliminaciones posteriores a su base
+ * - Al completar un backup COMPLETO se purgan las anteriores: ninguna cadena nueva las necesita
+ *
+ * Se instala al arrancar (idempotente) porque varias tablas del backup
+ * las crean otros servicios con ddl-auto y no están en init-db.sql.
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RegistroEliminaciones {
+
+    static final String TABLA = "backup_eliminados";
+    private static final String TRIGGER = "trg_backup_eliminados";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void instalar() {
+        try {
+            jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS backup_eliminados (
+                    id BIGSERIAL PRIMARY KEY,
+                    tabla VARCHAR(100) NOT NULL,
+                    registro_id BIGINT NOT NULL,
+                    eliminado_en TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+                )
+                """);
+            jdbcTemplate.execute(
+                    "CREATE INDEX IF NOT EXISTS idx_backup_eliminados_fecha ON backup_eliminados(eliminado_en)");
+            jdbcTemplate.execute("""
+                CREATE OR REPLACE FUNCTION registrar_eliminacion_backup()
+                RETURNS TRIGGER AS $$
+                BEGIN
+                    INSERT INTO backup_eliminados (tabla, registro_id) VALUES (TG_TABLE_NAME, OLD.id);
+                    RETURN OLD;
+                END;
+                $$ language 'plpgsql'
+                """);
+
+            int instalados = 0;
+            for (String tabla : MotorBackups.TABLAS_BACKUP) {
+                if (instalarTrigger(tabla)) {
+                    instalados++;
+                }
+            }
+            log.info("Registro de eliminaciones listo ({} triggers nuevos)", instalados);
+        } catch (Exception e) {
+            log.error("No se pudo instalar el registro de eliminaciones: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Elimina los registros anteriores a la fecha dada.
+     */
+    public int purgarAnteriores(LocalDateTime fecha) {
+        return jdbcTemplate.update("DELETE FROM backup_eliminados WHERE eliminado_en < ?", fecha);
+    }
+
+    private boolean instalarTrigger(String tabla) {
+        Boolean existeTabla = jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, tabla);
+        if (!Boolean.TRUE.equals(existeTabla)) {
+            return false;
+        }
+
+        Boolean existeTrigger = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_trigger WHERE tgname = ? AND tgrelid = to_regclass(?))",
+                Boolean.class, TRIGGER, tabla);
+        if (Boolean.TRUE.equals(existeTrigger)) {
+            return false;
+        }
+
+        jdbcTemplate.execute("CREATE TRIGGER " + TRIGGER + " AFTER DELETE ON " + tabla
+                + " FOR EACH ROW EXECUTE FUNCTION registrar_eliminacion_backup()");
+        return true;
+    }
+}
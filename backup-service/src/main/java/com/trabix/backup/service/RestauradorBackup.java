@@ -0,0 +1,639 @@
+package com.trabix.backup.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trabix.backup.dto.BackupDTO;
+import com.trabix.backup.entity.Backup;
+import com.trabix.backup.entity.EstadoBackup;
+import com.trabix.backup.repository.BackupRepository;
+import com.trabix.common.exception.RecursoNoEncontradoException;
+import com.trabix.common.exception.ValidacionNegocioException;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Restauración de backups (formato 3.0: una entrada JSON por tabla).
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * FLUJO (una sola transacción, en taskExecutor):
+ * 1. Cadena: backup COMPLETO raíz + incrementales hasta el indicado (baseId)
+ * 2. Se desactivan triggers y FKs con session_replication_role = replica;
+ *    sin permiso para ello se difieren las restricciones diferibles y
+ *    se confía en el orden de TABLAS_BACKUP (padres antes que hijos)
+ * 3. COMPLETO: TRUNCATE ... CASCADE de las tablas y carga con COPY FROM STDIN
+ * 4. INCREMENTAL: COPY a una tabla temporal + INSERT ... ON CONFLICT (id) DO UPDATE,
+ *    luego se aplican las eliminaciones de eliminados.json (tablas hijas primero)
+ * 5. Se verifican los registros contra conteos.json y se reinician las secuencias
+ *
+ * MEMORIA:
+ * - Las entradas se leen del ZIP con el parser de streaming de Jackson y cada fila
+ *   va directo al COPY en bloques de 64 KB: no depende del tamaño de la tabla
+ *
+ * NOTAS:
+ * - La tabla backups no se restaura: es el registro de los propios backups
+ * - La fecha de la restauración queda en el backup restaurado: el siguiente incremental
+ *   exige un backup completo posterior a ella
+ * - TRUNCATE CASCADE vacía también las tablas derivadas que referencian a las
+ *   restauradas (jerarquía, resúmenes, outbox); los servicios las reconstruyen al reiniciar
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+@Service
+public class RestauradorBackup {
+
+    public static final String EN_PROCESO = "EN_PROCESO";
+    public static final String COMPLETADA = "COMPLETADA";
+    public static final String ERROR = "ERROR";
+
+    private static final String TABLA_BACKUPS = "backups";
+    private static final int TAMANO_BLOQUE_COPY = 64 * 1024;
+    private static final String TABLA_ELIMINADOS = "tmp_restauracion_eliminados";
+
+    private final BackupRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final TransactionTemplate transaccion;
+    private final Executor taskExecutor;
+    private final EstadisticasTablas estadisticasTablas;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /** Última restauración (en curso o terminada) */
+    private volatile Restauracion actual;
+
+    public RestauradorBackup(BackupRepository repository,
+                             JdbcTemplate jdbcTemplate,
+                             DataSource dataSource,
+                             PlatformTransactionManager transactionManager,
+                             @Qualifier("taskExecutor") Executor taskExecutor,
+                             EstadisticasTablas estadisticasTablas) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        this.estadisticasTablas = estadisticasTablas;
+    }
+
+    /**
+     * Valida la cadena del backup y programa la restauración.
+     */
+    public synchronized BackupDTO.EstadoRestauracion iniciar(Long backupId) {
+        if (estaEnProceso()) {
+            throw new ValidacionNegocioException("Ya hay una restauración en proceso");
+        }
+        if (repository.existsByEstado(EstadoBackup.EN_PROCESO)) {
+            throw new ValidacionNegocioException("Hay un backup en proceso. Espere a que termine antes de restaurar.");
+        }
+
+        List<Backup> cadena = obtenerCadena(backupId);
+        List<String> tablas = tablasRestaurables(cadena.get(0));
+
+        Restauracion restauracion = new Restauracion(backupId,
+                cadena.stream().map(Backup::getId).collect(Collectors.toList()),
+                new ProgresoBackup(tablas));
+        actual = restauracion;
+
+        try {
+            taskExecutor.execute(() -> ejecutar(restauracion, cadena, tablas));
+        } catch (RejectedExecutionException e) {
+            restauracion.terminar(ERROR, "Error: cola de ejecución llena");
+            throw new ValidacionNegocioException("No se pudo programar la restauración: cola de ejecución llena");
+        }
+        log.warn("Restauración programada: backup {} (cadena {})", backupId, restauracion.cadena);
+        return restauracion.toDto();
+    }
+
+    public Optional<BackupDTO.EstadoRestauracion> obtenerEstado() {
+        Restauracion r = actual;
+        return Optional.ofNullable(r).map(Restauracion::toDto);
+    }
+
+    public boolean estaEnProceso() {
+        Restauracion r = actual;
+        return r != null && EN_PROCESO.equals(r.estado);
+    }
+
+    // ==================== EJECUCIÓN ====================
+
+    private void ejecutar(Restauracion restauracion, List<Backup> cadena, List<String> tablas) {
+        try {
+            transaccion.executeWithoutResult(status -> {
+                Connection con = DataSourceUtils.getConnection(dataSource);
+                try {
+                    CopyManager copy = con.unwrap(PGConnection.class).getCopyAPI();
+                    desactivarRestricciones(con);
+
+                    for (int i = 0; i < cadena.size(); i++) {
+                        aplicarBackup(copy, cadena.get(i), i == 0, tablas, restauracion.progreso);
+                    }
+                    tablas.forEach(this::reiniciarSecuencia);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    DataSourceUtils.releaseConnection(con, dataSource);
+                }
+            });
+
+            restauracion.terminar(COMPLETADA, "Restauración completada");
+            log.warn("Restauración completada: backup {}", restauracion.backupId);
+            registrarRestauracion(restauracion);
+            // La carga corre sin triggers: los contadores de estadísticas quedaron desfasados
+            estadisticasTablas.recontarTodas();
+        } catch (Exception e) {
+            log.error("Error en restauración del backup {}: {}", restauracion.backupId, e.getMessage(), e);
+            restauracion.terminar(ERROR, "Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deja constancia de la restauración en el backup restaurado: los incrementales
+     * posteriores no pueden partir de un backup anterior a ella.
+     */
+    private void registrarRestauracion(Restauracion restauracion) {
+        try {
+            repository.findById(restauracion.backupId).ifPresent(backup -> {
+                backup.setFechaRestauracion(restauracion.fechaFin);
+                repository.save(backup);
+            });
+        } catch (Exception e) {
+            log.error("No se registró la restauración del backup {} ({}): cree un backup completo antes del "
+                    + "próximo incremental", restauracion.backupId, e.getMessage());
+        }
+    }
+
+    /**
+     * Intenta desactivar triggers y FKs; si no hay permiso, difiere lo diferible.
+     */
+    private void desactivarRestricciones(Connection con) throws SQLException {
+        Savepoint savepoint = con.setSavepoint();
+        try (Statement st = con.createStatement()) {
+            st.execute("SET LOCAL session_replication_role = replica");
+            con.releaseSavepoint(savepoint);
+            log.info("Restauración sin triggers ni FKs (session_replication_role = replica)");
+        } catch (SQLException e) {
+            con.rollback(savepoint);
+            try (Statement st = con.createStatement()) {
+                st.execute("SET CONSTRAINTS ALL DEFERRED");
+            }
+            log.warn("Sin permiso para session_replication_role ({}): se carga en orden de FK", e.getMessage());
+        }
+    }
+
+    private void aplicarBackup(CopyManager copy, Backup backup, boolean esRaiz,
+                               List<String> tablas, ProgresoBackup progreso) throws SQLException, IOException {
+        log.info("Aplicando backup {} ({})", backup.getNombre(), esRaiz ? "completo" : "incremental");
+
+        try (ZipFile zip = new ZipFile(backup.getArchivo())) {
+            Map<String, Long> conteos = leerConteos(zip);
+
+            if (esRaiz) {
+                jdbcTemplate.execute("TRUNCATE TABLE " + String.join(", ", tablas) + " CASCADE");
+            }
+
+            for (String tabla : tablas) {
+                ZipEntry entrada = zip.getEntry(tabla + ".json");
+                if (entrada == null) {
+                    continue;
+                }
+
+                ProgresoBackup.Tabla estado = progreso.tabla(tabla);
+                estado.iniciar();
+                long registros = cargarTabla(copy, zip, entrada, tabla, !esRaiz, estado);
+                estado.completar();
+
+                Long esperados = conteos.get(tabla);
+                if (esperados != null && esperados != registros) {
+                    throw new IllegalStateException(String.format(
+                            "Conteo inválido en %s (%s): archivo=%d, esperado=%d",
+                            backup.getNombre(), tabla, registros, esperados));
+                }
+                if (esRaiz) {
+                    Long enTabla = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + tabla, Long.class);
+                    if (enTabla == null || enTabla != registros) {
+                        throw new IllegalStateException(String.format(
+                                "Conteo inválido tras cargar %s: tabla=%d, archivo=%d", tabla, enTabla, registros));
+                    }
+                }
+                log.debug("Tabla {} restaurada desde {}: {} registros", tabla, backup.getNombre(), registros);
+            }
+
+            if (!esRaiz) {
+                aplicarEliminaciones(copy, zip, tablas);
+            }
+        }
+    }
+
+    /**
+     * Carga una entrada del ZIP con COPY. En modo upsert copia a una temporal y fusiona por id.
+     */
+    private long cargarTabla(CopyManager copy, ZipFile zip, ZipEntry entrada, String tabla,
+                             boolean upsert, ProgresoBackup.Tabla estado) throws SQLException, IOException {
+        Map<String, String> tipos = tiposColumnas(tabla);
+
+        try (InputStream in = zip.getInputStream(entrada);
+             JsonParser parser = objectMapper.getFactory().createParser(in)) {
+
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalStateException("Entrada " + entrada.getName() + " no es un arreglo JSON");
+            }
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return 0;
+            }
+
+            // La primera fila define las columnas (solo las que existen en la tabla)
+            Map<String, String> primera = leerFilaComoMapa(parser);
+            List<String> columnas = primera.keySet().stream()
+                    .filter(tipos::containsKey)
+                    .collect(Collectors.toList());
+            if (!columnas.contains("id")) {
+                throw new IllegalStateException("La tabla " + tabla + " no tiene columna id en el backup");
+            }
+            Map<String, Integer> indices = new HashMap<>();
+            String[] tiposDestino = new String[columnas.size()];
+            for (int i = 0; i < columnas.size(); i++) {
+                indices.put(columnas.get(i), i);
+                tiposDestino[i] = tipos.get(columnas.get(i));
+            }
+
+            String listaColumnas = columnas.stream().map(c -> "\"" + c + "\"").collect(Collectors.joining(", "));
+            String destino = upsert ? crearTemporal(tabla) : tabla;
+
+            CopyIn copyIn = copy.copyIn("COPY " + destino + " (" + listaColumnas + ") FROM STDIN");
+            long registros;
+            try {
+                EscritorCopy escritor = new EscritorCopy(copyIn, tiposDestino);
+                String[] fila = new String[columnas.size()];
+                for (int i = 0; i < columnas.size(); i++) {
+                    fila[i] = primera.get(columnas.get(i));
+                }
+                escritor.escribir(fila);
+                estado.sumarRegistro();
+
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    leerFila(parser, indices, fila);
+                    escritor.escribir(fila);
+                    estado.sumarRegistro();
+                }
+                escritor.vaciar();
+                registros = copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+
+            if (upsert) {
+                fusionar(tabla, destino, columnas, listaColumnas);
+            }
+            return registros;
+        }
+    }
+
+    private String crearTemporal(String tabla) {
+        String temporal = "tmp_restauracion_" + tabla;
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + temporal);
+        jdbcTemplate.execute("CREATE TEMP TABLE " + temporal + " (LIKE " + tabla + " INCLUDING DEFAULTS) ON COMMIT DROP");
+        return temporal;
+    }
+
+    private void fusionar(String tabla, String temporal, List<String> columnas, String listaColumnas) {
+        String actualizaciones = columnas.stream()
+                .filter(c -> !"id".equals(c))
+                .map(c -> "\"" + c + "\" = EXCLUDED.\"" + c + "\"")
+                .collect(Collectors.joining(", "));
+        String conflicto = actualizaciones.isEmpty() ? "DO NOTHING" : "DO UPDATE SET " + actualizaciones;
+
+        jdbcTemplate.update("INSERT INTO " + tabla + " (" + listaColumnas + ") SELECT " + listaColumnas
+                + " FROM " + temporal + " ON CONFLICT (id) " + conflicto);
+        jdbcTemplate.execute("DROP TABLE " + temporal);
+    }
+
+    /**
+     * Aplica eliminados.json de un incremental: las marcas se copian a una temporal y se
+     * borran por tabla en orden inverso a TABLAS_BACKUP (hijos antes que padres), de modo
+     * que sin session_replication_role las FKs no diferibles no rechazan el borrado.
+     */
+    private void aplicarEliminaciones(CopyManager copy, ZipFile zip, List<String> tablas)
+            throws SQLException, IOException {
+        ZipEntry entrada = zip.getEntry(ExportadorBackup.ENTRADA_ELIMINADOS);
+        if (entrada == null) {
+            return;
+        }
+
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLA_ELIMINADOS);
+        jdbcTemplate.execute("CREATE TEMP TABLE " + TABLA_ELIMINADOS
+                + " (tabla VARCHAR(64) NOT NULL, registro_id BIGINT NOT NULL) ON COMMIT DROP");
+
+        CopyIn copyIn = copy.copyIn("COPY " + TABLA_ELIMINADOS + " (tabla, registro_id) FROM STDIN");
+        try (InputStream in = zip.getInputStream(entrada);
+             JsonParser parser = objectMapper.getFactory().createParser(in)) {
+
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalStateException("Entrada eliminados.json no es un arreglo JSON");
+            }
+            EscritorCopy escritor = new EscritorCopy(copyIn, new String[]{"character varying", "bigint"});
+            String[] fila = new String[2];
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode nodo = parser.readValueAsTree();
+                fila[0] = nodo.path("tabla").asText();
+                fila[1] = String.valueOf(nodo.path("registro_id").asLong());
+                escritor.escribir(fila);
+            }
+            escritor.vaciar();
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+
+        long total = 0;
+        for (int i = tablas.size() - 1; i >= 0; i--) {
+            String tabla = tablas.get(i);
+            total += jdbcTemplate.update("DELETE FROM " + tabla + " WHERE id IN (SELECT registro_id FROM "
+                    + TABLA_ELIMINADOS + " WHERE tabla = ?)", tabla);
+        }
+        jdbcTemplate.execute("DROP TABLE " + TABLA_ELIMINADOS);
+        log.debug("Eliminaciones aplicadas: {}", total);
+    }
+
+    private void reiniciarSecuencia(String tabla) {
+        String secuencia = jdbcTemplate.queryForObject(
+                "SELECT pg_get_serial_sequence(?, 'id')", String.class, tabla);
+        if (secuencia != null) {
+            // MAX(id) + incremento: con secuencias en bloques (ventas_id_seq, pooled) el primer
+            // nextval marca el final del bloque y el bloque empieza justo después de MAX(id)
+            jdbcTemplate.queryForObject("SELECT setval(?, COALESCE((SELECT MAX(id) FROM " + tabla + "), 0)"
+                            + " + (SELECT seqincrement FROM pg_sequence WHERE seqrelid = ?::regclass), false)",
+                    Long.class, secuencia, secuencia);
+        }
+    }
+
+    // ==================== LECTURA DEL ARCHIVO ====================
+
+    /**
+     * Lee una fila como mapa columna → texto, en el orden del archivo.
+     */
+    private Map<String, String> leerFilaComoMapa(JsonParser parser) throws IOException {
+        Map<String, String> fila = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String columna = parser.getCurrentName();
+            parser.nextToken();
+            fila.put(columna, valorTexto(parser));
+        }
+        return fila;
+    }
+
+    /**
+     * Lee una fila sobre el arreglo reutilizable; las columnas ausentes quedan null.
+     */
+    private void leerFila(JsonParser parser, Map<String, Integer> indices, String[] fila) throws IOException {
+        Arrays.fill(fila, null);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Integer indice = indices.get(parser.getCurrentName());
+            parser.nextToken();
+            if (indice == null) {
+                parser.skipChildren();
+            } else {
+                fila[indice] = valorTexto(parser);
+            }
+        }
+    }
+
+    /**
+     * Texto del valor actual tal como lo acepta PostgreSQL en COPY.
+     */
+    private String valorTexto(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        return switch (token) {
+            case VALUE_NULL -> null;
+            case VALUE_STRING, VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getText();
+            case VALUE_TRUE -> "true";
+            case VALUE_FALSE -> "false";
+            case START_OBJECT, START_ARRAY -> {
+                JsonNode nodo = parser.readValueAsTree();
+                // Backups 3.0 previos escribían PGobject como {type, value}
+                if (nodo.isObject() && nodo.has("type") && nodo.has("value")) {
+                    yield nodo.get("value").isNull() ? null : nodo.get("value").asText();
+                }
+                yield nodo.toString();
+            }
+            default -> throw new IllegalStateException("Token inesperado en backup: " + token);
+        };
+    }
+
+    private Map<String, Long> leerConteos(ZipFile zip) throws IOException {
+        ZipEntry entrada = zip.getEntry(ExportadorBackup.ENTRADA_CONTEOS);
+        if (entrada == null) {
+            log.warn("El backup {} no tiene conteos.json: no se verifican registros", zip.getName());
+            return Map.of();
+        }
+        try (InputStream in = zip.getInputStream(entrada)) {
+            Map<String, Long> conteos = new HashMap<>();
+            objectMapper.readTree(in).fields().forEachRemaining(e -> conteos.put(e.getKey(), e.getValue().asLong()));
+            return conteos;
+        }
+    }
+
+    private Map<String, String> tiposColumnas(String tabla) {
+        Map<String, String> tipos = new HashMap<>();
+        jdbcTemplate.query("SELECT column_name, data_type FROM information_schema.columns "
+                        + "WHERE table_schema = current_schema() AND table_name = ?",
+                rs -> {
+                    tipos.put(rs.getString(1), rs.getString(2));
+                }, tabla);
+        return tipos;
+    }
+
+    // ==================== VALIDACIÓN ====================
+
+    /**
+     * Backups a aplicar en orden: completo raíz y sus incrementales.
+     */
+    private List<Backup> obtenerCadena(Long backupId) {
+        LinkedList<Backup> cadena = new LinkedList<>();
+        Long actualId = backupId;
+        while (actualId != null) {
+            Long buscado = actualId;
+            Backup backup = repository.findById(buscado)
+                    .orElseThrow(() -> new RecursoNoEncontradoException("Backup", buscado));
+            if (!backup.estaCompletado()) {
+                throw new ValidacionNegocioException("El backup " + backup.getNombre() + " no está completado");
+            }
+            if (!Files.isReadable(Paths.get(backup.getArchivo()))) {
+                throw new ValidacionNegocioException("El archivo del backup " + backup.getNombre() + " no existe");
+            }
+            cadena.addFirst(backup);
+            actualId = backup.esIncremental() ? backup.getBaseId() : null;
+        }
+        return cadena;
+    }
+
+    /**
+     * Tablas del backup raíz que se restauran (todas menos backups). Deben existir en la BD.
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> tablasRestaurables(Backup raiz) {
+        Map<String, Object> metadata;
+        try (ZipFile zip = new ZipFile(raiz.getArchivo())) {
+            ZipEntry entrada = zip.getEntry(ExportadorBackup.ENTRADA_METADATA);
+            if (entrada == null) {
+                throw new ValidacionNegocioException(
+                        "Formato de backup no soportado: solo se restauran backups versión 3.0 o posterior");
+            }
+            try (InputStream in = zip.getInputStream(entrada)) {
+                metadata = objectMapper.readValue(in, Map.class);
+            }
+        } catch (IOException e) {
+            throw new ValidacionNegocioException("No se pudo leer el backup: " + e.getMessage());
+        }
+
+        List<String> tablas = ((List<String>) metadata.getOrDefault("tablas", List.of())).stream()
+                .filter(t -> !TABLA_BACKUPS.equals(t))
+                .collect(Collectors.toList());
+        for (String tabla : tablas) {
+            Boolean existe = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, tabla);
+            if (!Boolean.TRUE.equals(existe)) {
+                throw new ValidacionNegocioException("La tabla " + tabla
+                        + " no existe: inicie todos los servicios para crear el esquema antes de restaurar");
+            }
+        }
+        return tablas;
+    }
+
+    // ==================== TIPOS INTERNOS ====================
+
+    /**
+     * Escribe filas en formato texto de COPY, en bloques.
+     */
+    private static final class EscritorCopy {
+
+        private final CopyIn copyIn;
+        private final String[] tipos;
+        private final StringBuilder buffer = new StringBuilder(TAMANO_BLOQUE_COPY + 1024);
+
+        EscritorCopy(CopyIn copyIn, String[] tipos) {
+            this.copyIn = copyIn;
+            this.tipos = tipos;
+        }
+
+        void escribir(String[] fila) throws SQLException {
+            for (int i = 0; i < fila.length; i++) {
+                if (i > 0) {
+                    buffer.append('\t');
+                }
+                String valor = fila[i];
+                if (valor == null) {
+                    buffer.append("\\N");
+                } else if ("bytea".equals(tipos[i])) {
+                    // Jackson exporta byte[] en base64; COPY espera \x + hex
+                    buffer.append("\\\\x").append(HexFormat.of().formatHex(Base64.getDecoder().decode(valor)));
+                } else {
+                    escapar(valor);
+                }
+            }
+            buffer.append('\n');
+            if (buffer.length() >= TAMANO_BLOQUE_COPY) {
+                vaciar();
+            }
+        }
+
+        void vaciar() throws SQLException {
+            if (buffer.length() > 0) {
+                byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+                buffer.setLength(0);
+            }
+        }
+
+        private void escapar(String valor) {
+            for (int i = 0; i < valor.length(); i++) {
+                char c = valor.charAt(i);
+                switch (c) {
+                    case '\\' -> buffer.append("\\\\");
+                    case '\n' -> buffer.append("\\n");
+                    case '\r' -> buffer.append("\\r");
+                    case '\t' -> buffer.append("\\t");
+                    default -> buffer.append(c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Estado de una restauración. Lo escribe el hilo de ejecución y lo leen los requests.
+     */
+    private static final class Restauracion {
+
+        private final Long backupId;
+        private final List<Long> cadena;
+        private final ProgresoBackup progreso;
+        private final LocalDateTime fechaInicio = LocalDateTime.now();
+        private volatile String estado = EN_PROCESO;
+        private volatile LocalDateTime fechaFin;
+        private volatile String mensaje;
+
+        Restauracion(Long backupId, List<Long> cadena, ProgresoBackup progreso) {
+            this.backupId = backupId;
+            this.cadena = cadena;
+            this.progreso = progreso;
+        }
+
+        void terminar(String estadoFinal, String mensajeFinal) {
+            this.mensaje = mensajeFinal;
+            this.fechaFin = LocalDateTime.now();
+            this.estado = estadoFinal;
+        }
+
+        BackupDTO.EstadoRestauracion toDto() {
+            return BackupDTO.EstadoRestauracion.builder()
+                    .backupId(backupId)
+                    .cadena(cadena)
+                    .estado(estado)
+                    .fechaInicio(fechaInicio)
+                    .fechaFin(fechaFin)
+                    .mensaje(mensaje)
+                    .progreso(progreso.toDto())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+-- ============================================
+-- Migraciones de backup-service (idempotentes)
+-- Se ejecutan al arrancar, antes de que Hibernate actualice el esquema.
+-- Separador de sentencias: @@ (los bloques DO contienen ';')
+-- ============================================
+
+-- Índice sobre updated_at de cada tabla del backup que tenga la columna.
+-- El incremental lee updated_at > marca (rango en este índice) UNION ALL id > marca
+-- (rango en la PK); sin el índice el primer rango es un seq scan de toda la tabla.
+-- Las tablas son de otros servicios: las que todavía no existen se indexan en el
+-- siguiente arranque de backup-service.
+DO $$
+DECLARE
+    tabla TEXT;
+BEGIN
+    FOREACH tabla IN ARRAY ARRAY[
+        'usuarios', 'stock_equipos', 'configuracion_costos', 'lotes', 'tandas', 'ventas', 'cuadres',
+        'asignaciones_equipo', 'pagos_mensualidad', 'documentos', 'fondo_recompensas',
+        'movimientos_fondo', 'costos_produccion', 'notificaciones'
+    ] LOOP
+        IF EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = current_schema()
+                     AND table_name = tabla
+                     AND column_name = 'updated_at') THEN
+            EXECUTE format('CREATE INDEX IF NOT EXISTS %I ON %I (updated_at)', 'idx_' || tabla || '_updated_at', tabla);
+        END IF;
+    END LOOP;
+END $$
+@@
@@ -0,0 +1,116 @@
+package com.trabix.billing.service;
+
+import com.trabix.billing.entity.Usuario;
+import com.trabix.billing.repository.UsuarioRepository;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cadena de reclutadores de un vendedor con 30 niveles sobre él: recorrido sobre los
+ * arreglos de IndiceJerarquia contra el recorrido perezoso por JPA (una consulta por nivel).
+ *
+ * El recorrido JPA corre contra H2 en memoria: sin red ni PostgreSQL, así que su costo
+ * real en despliegue es mayor que el medido aquí.
+ *
+ * mvn -Pjmh -pl billing-service exec:exec -Djmh.args="IndiceJerarquiaBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndiceJerarquiaBenchmark {
+
+    private static final int NIVELES = 30;
+
+    private SessionFactory sessionFactory;
+    private IndiceJerarquia indice;
+    private Long vendedorId;
+
+    @Setup
+    public void preparar() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Usuario.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:jerarquia;DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .buildSessionFactory();
+
+        // Admin, 30 reclutadores encadenados y el vendedor al final
+        List<Object[]> filas = new ArrayList<>();
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            Usuario reclutador = null;
+            for (int nivel = 1; nivel <= NIVELES + 2; nivel++) {
+                Usuario usuario = new Usuario();
+                usuario.setCedula("10" + nivel);
+                usuario.setNombre("Usuario N" + nivel);
+                usuario.setTelefono("3000000000");
+                usuario.setNivel("N" + nivel);
+                usuario.setRol(nivel == 1 ? "ADMIN" : "VENDEDOR");
+                usuario.setEstado("ACTIVO");
+                usuario.setReclutador(reclutador);
+                session.persist(usuario);
+
+                filas.add(new Object[]{usuario.getId(), reclutador != null ? reclutador.getId() : null,
+                        usuario.getNivel(), usuario.getRol(), usuario.getNombre()});
+                reclutador = usuario;
+            }
+            session.getTransaction().commit();
+            vendedorId = reclutador.getId();
+        }
+
+        UsuarioRepository repositorio = mock(UsuarioRepository.class);
+        when(repositorio.obtenerFirmaUsuarios()).thenReturn(List.<Object[]>of(new Object[]{filas.size(), vendedorId, null}));
+        when(repositorio.findJerarquiaPlana()).thenReturn(filas);
+        indice = new IndiceJerarquia(repositorio);
+        indice.refrescar();
+    }
+
+    @TearDown
+    public void cerrar() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void indiceEnArreglos(Blackhole bh) {
+        IndiceJerarquia.Cadena cadena = indice.cadenaReclutadores(vendedorId).orElseThrow();
+        for (int i = 0; i < cadena.tamano(); i++) {
+            bh.consume(cadena.nivel(i));
+            bh.consume(cadena.nombre(i));
+        }
+    }
+
+    @Benchmark
+    public void recorridoPerezosoJpa(Blackhole bh) {
+        try (Session session = sessionFactory.openSession()) {
+            Usuario actual = session.get(Usuario.class, vendedorId).getReclutador();
+            while (actual != null && !actual.esAdmin()) {
+                bh.consume(actual.getNivel());
+                bh.consume(actual.getNombre());
+                actual = actual.getReclutador();
+            }
+        }
+    }
+}
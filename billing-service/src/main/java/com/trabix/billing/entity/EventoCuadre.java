@@ -0,0 +1,61 @@
+package com.trabix.billing.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Evento del outbox de cuadres (tabla eventos_cuadre).
+ *
+ * Lo escriben sales-service (ventas registradas/aprobadas/rechazadas, con el delta
+ * de stock y recaudado), inventory-service (salidas de stock, tanda liberada) y este
+ * servicio (cuadre generado, tanda liberada).
+ * MotorTriggersCuadre lo consume y elimina la fila.
+ */
+@Entity
+@Table(name = "eventos_cuadre")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoCuadre {
+
+    public static final String CUADRE_GENERADO = "CUADRE_GENERADO";
+    public static final String TANDA_LIBERADA = "TANDA_LIBERADA";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tanda_id", nullable = false)
+    private Long tandaId;
+
+    @Column(nullable = false, length = 30)
+    private String tipo;
+
+    @Column(name = "delta_stock", nullable = false)
+    @Builder.Default
+    private Integer deltaStock = 0;
+
+    @Column(name = "delta_recaudado", nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal deltaRecaudado = BigDecimal.ZERO;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * Eventos que cambian el estado de la tanda (no solo sus contadores):
+     * el motor recarga la tanda desde la BD en lugar de aplicar deltas.
+     */
+    public boolean requiereRecarga() {
+        return CUADRE_GENERADO.equals(tipo) || TANDA_LIBERADA.equals(tipo);
+    }
+}
@@ -1,5 +1,6 @@
 package com.trabix.billing.entity;
 
+import com.trabix.common.security.JwtClaims;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -55,4 +56,19 @@ public class Usuario {
     public boolean esAdmin() {
         return "N1".equals(nivel) || "ADMIN".equals(rol);
     }
+
+    /**
+     * Construye el usuario autenticado desde los claims del JWT, sin consultar la BD.
+     * Instancia no gestionada por JPA: solo identifica al usuario del request.
+     */
+    public static Usuario desdeClaims(JwtClaims claims) {
+        Usuario usuario = new Usuario();
+        usuario.id = claims.userId();
+        usuario.cedula = claims.cedula();
+        usuario.nombre = claims.nombre();
+        usuario.nivel = claims.nivel();
+        usuario.rol = claims.rol();
+        usuario.estado = "ACTIVO";
+        return usuario;
+    }
 }
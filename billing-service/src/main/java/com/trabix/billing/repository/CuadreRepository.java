@@ -57,6 +57,9 @@ public interface CuadreRepository extends JpaRepository<Cuadre, Long> {
             @Param("estado") String estado);
     
     boolean existsByTandaIdAndEstado(Long tandaId, String estado);
+
+    @Query("SELECT c.tanda.id FROM Cuadre c WHERE c.estado = :estado")
+    List<Long> findTandaIdsByEstado(@Param("estado") String estado);
     
     boolean existsByTandaIdAndTipo(Long tandaId, TipoCuadre tipo);
     
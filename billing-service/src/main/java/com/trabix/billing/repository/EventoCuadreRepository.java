@@ -0,0 +1,41 @@
+package com.trabix.billing.repository;
+
+import com.trabix.billing.entity.EventoCuadre;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EventoCuadreRepository extends JpaRepository<EventoCuadre, Long> {
+
+    /**
+     * Siguiente lote de eventos pendientes, en orden de llegada.
+     */
+    List<EventoCuadre> findTop500ByOrderByIdAsc();
+
+    /**
+     * Descarta todos los eventos visibles en la transacción actual.
+     * Se usa al reconstruir el estado: esos eventos ya están reflejados en la BD.
+     */
+    @Modifying
+    @Query("DELETE FROM EventoCuadre e")
+    int descartarTodos();
+
+    /**
+     * Mayor id de evento de la tanda visible en la transacción actual.
+     */
+    @Query("SELECT MAX(e.id) FROM EventoCuadre e WHERE e.tandaId = :tandaId")
+    Long findMaxIdByTandaId(@Param("tandaId") Long tandaId);
+
+    /**
+     * Descarta los eventos de una tanda hasta el id indicado.
+     * Se usa al recargar la tanda: esos eventos ya están reflejados en lo leído.
+     */
+    @Modifying
+    @Query("DELETE FROM EventoCuadre e WHERE e.tandaId = :tandaId AND e.id <= :maxId")
+    int descartarPorTanda(@Param("tandaId") Long tandaId, @Param("maxId") Long maxId);
+}
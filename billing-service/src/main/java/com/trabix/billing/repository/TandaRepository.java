@@ -54,6 +54,18 @@ public interface TandaRepository extends JpaRepository<Tanda, Long> {
         """)
     List<Tanda> findTandas1Liberadas();
 
+    /**
+     * Todas las tandas liberadas con lote y vendedor cargados.
+     * Usado por MotorTriggersCuadre para construir su estado inicial.
+     */
+    @Query("""
+        SELECT t FROM Tanda t 
+        JOIN FETCH t.lote l
+        JOIN FETCH l.usuario
+        WHERE t.estado = 'LIBERADA'
+        """)
+    List<Tanda> findTandasLiberadasConLote();
+
     /**
      * Encuentra Tandas 1 con alerta de stock (20% o menos).
      * Solo informativo - el cuadre real es por monto recaudado.
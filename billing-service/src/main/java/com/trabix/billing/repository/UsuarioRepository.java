@@ -1,6 +1,7 @@
 package com.trabix.billing.repository;
 
 import com.trabix.billing.entity.Usuario;
+import com.trabix.common.security.FuenteUsuariosRevocados;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,7 +11,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
+public interface UsuarioRepository extends JpaRepository<Usuario, Long>, FuenteUsuariosRevocados {
 
     Optional<Usuario> findByCedula(String cedula);
     
@@ -32,4 +33,23 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     
     @Query("SELECT u FROM Usuario u WHERE u.nivel = 'N1' OR u.rol = 'ADMIN'")
     Optional<Usuario> findAdmin();
+
+    /**
+     * IDs de usuarios no activos (deny-set de autenticación).
+     */
+    @Override
+    @Query("SELECT u.id FROM Usuario u WHERE u.estado <> 'ACTIVO'")
+    List<Long> findIdsNoActivos();
+
+    /**
+     * Jerarquía plana para el índice en memoria: id, reclutador_id, nivel, rol, nombre.
+     */
+    @Query(value = "SELECT id, reclutador_id, nivel, rol, nombre FROM usuarios ORDER BY id", nativeQuery = true)
+    List<Object[]> findJerarquiaPlana();
+
+    /**
+     * Firma de la tabla usuarios para detectar cambios sin recargarla: cantidad, último id, último updated_at.
+     */
+    @Query(value = "SELECT COUNT(*), MAX(id), MAX(updated_at) FROM usuarios", nativeQuery = true)
+    List<Object[]> obtenerFirmaUsuarios();
 }
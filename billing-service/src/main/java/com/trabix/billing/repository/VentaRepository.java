@@ -22,6 +22,18 @@ public interface VentaRepository extends JpaRepository<Venta, Long> {
         """)
     BigDecimal sumarRecaudadoPorTanda(@Param("tandaId") Long tandaId);
     
+    /**
+     * Recaudado agrupado por tanda para todas las tandas liberadas: [tandaId, total].
+     */
+    @Query("""
+        SELECT v.tanda.id, SUM(v.precioTotal) FROM Venta v 
+        WHERE v.tanda.estado = 'LIBERADA' 
+        AND v.estado = 'APROBADA' 
+        AND v.tipo != 'REGALO'
+        GROUP BY v.tanda.id
+        """)
+    List<Object[]> sumarRecaudadoTandasLiberadas();
+    
     @Query("""
         SELECT COALESCE(SUM(v.precioTotal), 0) FROM Venta v 
         JOIN v.tanda t 
@@ -3,6 +3,7 @@ package com.trabix.billing.service;
 import com.trabix.billing.dto.CalculoCuadreResponse;
 import com.trabix.billing.entity.*;
 import com.trabix.billing.repository.*;
+import com.trabix.common.dinero.Dinero;
 import com.trabix.common.enums.TipoCuadre;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,7 +11,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -39,6 +39,11 @@ import java.util.List;
  * - T2: Recuperar inversión vendedor + Ganancias excedentes (trigger: stock ≤10%)
  * - T3: Ganancias puras (trigger: stock ≤20%)
  * ═══════════════════════════════════════════════════════════════════
+ * 
+ * ARITMÉTICA: montos en centavos (long) con Dinero; BigDecimal solo al leer
+ * de BD/entidades y al armar la respuesta. Redondeo HALF_UP a pesos enteros.
+ * En la respuesta los montos redondeados a pesos (partes de ganancias y cascada) van
+ * con escala 0 y los derivados de BD con escala 2: el mismo JSON que con BigDecimal.
  */
 @Slf4j
 @Service
@@ -48,8 +53,11 @@ public class CalculadorCuadreService {
     private final VentaRepository ventaRepository;
     private final CuadreRepository cuadreRepository;
     private final UsuarioRepository usuarioRepository;
+    private final IndiceJerarquia indiceJerarquia;
 
-    private static final BigDecimal CIEN = new BigDecimal("100");
+    private static final BigDecimal PORCENTAJE_40 = BigDecimal.valueOf(40);
+    private static final BigDecimal PORCENTAJE_50 = BigDecimal.valueOf(50);
+    private static final BigDecimal PORCENTAJE_60 = BigDecimal.valueOf(60);
 
     /**
      * Calcula el cuadre para una tanda.
@@ -61,27 +69,26 @@ public class CalculadorCuadreService {
         int totalTandas = lote.getNumeroTandas();
 
         // Recaudado de esta tanda
-        BigDecimal recaudadoTanda = ventaRepository.sumarRecaudadoPorTanda(tanda.getId());
-        if (recaudadoTanda == null) recaudadoTanda = BigDecimal.ZERO;
+        long recaudadoTanda = Dinero.deBigDecimal(ventaRepository.sumarRecaudadoPorTanda(tanda.getId()));
 
         // Excedente del cuadre anterior (se arrastra)
-        BigDecimal excedenteAnterior = cuadreRepository.obtenerUltimoExcedente(lote.getId())
-                .orElse(BigDecimal.ZERO);
+        long excedenteAnterior = Dinero.deBigDecimal(
+                cuadreRepository.obtenerUltimoExcedente(lote.getId()).orElse(null));
 
-        BigDecimal disponibleTotal = recaudadoTanda.add(excedenteAnterior);
+        long disponibleTotal = Dinero.sumar(recaudadoTanda, excedenteAnterior);
 
         CalculoCuadreResponse.CalculoCuadreResponseBuilder builder = CalculoCuadreResponse.builder()
                 .tipo(tipo)
                 .modelo(modelo)
-                .totalRecaudado(recaudadoTanda)
-                .excedenteAnterior(excedenteAnterior)
-                .disponibleTotal(disponibleTotal);
+                .totalRecaudado(Dinero.aBigDecimal(recaudadoTanda))
+                .excedenteAnterior(Dinero.aBigDecimal(excedenteAnterior))
+                .disponibleTotal(Dinero.aBigDecimal(disponibleTotal));
 
         List<String> pasos = new ArrayList<>();
         pasos.add(String.format("📊 Tanda %d de %d", tanda.getNumero(), totalTandas));
         pasos.add(String.format("Total recaudado en tanda: $%s", formatMoney(recaudadoTanda)));
         
-        if (excedenteAnterior.compareTo(BigDecimal.ZERO) > 0) {
+        if (excedenteAnterior > 0) {
             pasos.add(String.format("➕ Excedente del cuadre anterior: $%s", formatMoney(excedenteAnterior)));
             pasos.add(String.format("💰 Disponible total: $%s", formatMoney(disponibleTotal)));
         }
@@ -114,11 +121,11 @@ public class CalculadorCuadreService {
      */
     private CalculoCuadreResponse calcularCuadreInversionSamuel(
             CalculoCuadreResponse.CalculoCuadreResponseBuilder builder,
-            Lote lote, BigDecimal disponible, List<String> pasos) {
+            Lote lote, long disponible, List<String> pasos) {
 
-        BigDecimal inversionSamuel = lote.getInversionSamuel();
-        BigDecimal inversionVendedor = lote.getInversionVendedor();
-        BigDecimal inversionTotal = lote.getInversionPercibidaTotal();
+        long inversionTotal = inversionTotal(lote);
+        long inversionSamuel = Dinero.porcentajePesos(inversionTotal, lote.getPorcentajeInversionSamuel());
+        long inversionVendedor = Dinero.porcentajePesos(inversionTotal, lote.getPorcentajeInversionVendedor());
 
         pasos.add("");
         pasos.add("═══ CUADRE TANDA 1: INVERSIÓN SAMUEL ═══");
@@ -126,14 +133,14 @@ public class CalculadorCuadreService {
         pasos.add(String.format("• Inversión Samuel (50%%): $%s", formatMoney(inversionSamuel)));
         pasos.add(String.format("• Inversión vendedor (50%%): $%s (se recupera en T2)", formatMoney(inversionVendedor)));
 
-        BigDecimal debeTransferir = inversionSamuel;
-        BigDecimal excedente = BigDecimal.ZERO;
+        long debeTransferir = inversionSamuel;
+        long excedente = 0;
 
-        if (disponible.compareTo(debeTransferir) >= 0) {
+        if (disponible >= debeTransferir) {
             // Hay suficiente para cubrir inversión de Samuel
-            excedente = disponible.subtract(debeTransferir);
+            excedente = Dinero.restar(disponible, debeTransferir);
             
-            if (excedente.compareTo(BigDecimal.ZERO) > 0) {
+            if (excedente > 0) {
                 pasos.add(String.format("✅ Recaudado suficiente para inversión Samuel"));
                 pasos.add(String.format("✨ Excedente para T2: $%s", formatMoney(excedente)));
                 pasos.add("📌 Este excedente pasa a T2 para recuperar inversión del vendedor");
@@ -149,11 +156,11 @@ public class CalculadorCuadreService {
         pasos.add(String.format("👤 VENDEDOR SE QUEDA CON: $0 (aún debe recuperar su inversión en T2)"));
 
         return builder
-                .inversionSamuel(inversionSamuel)
-                .inversionVendedor(inversionVendedor)
-                .montoQueDebeTransferir(debeTransferir)
+                .inversionSamuel(Dinero.aBigDecimal(inversionSamuel))
+                .inversionVendedor(Dinero.aBigDecimal(inversionVendedor))
+                .montoQueDebeTransferir(Dinero.aBigDecimal(debeTransferir))
                 .montoParaVendedor(BigDecimal.ZERO) // En T1 vendedor no recibe nada
-                .excedenteResultante(excedente)
+                .excedenteResultante(Dinero.aBigDecimal(excedente))
                 .pasosCalculo(pasos)
                 .build();
     }
@@ -171,9 +178,9 @@ public class CalculadorCuadreService {
      */
     private CalculoCuadreResponse calcularCuadreT2_DosTandas(
             CalculoCuadreResponse.CalculoCuadreResponseBuilder builder,
-            Lote lote, BigDecimal disponible, List<String> pasos) {
+            Lote lote, long disponible, List<String> pasos) {
 
-        BigDecimal inversionVendedor = lote.getInversionVendedor();
+        long inversionVendedor = Dinero.porcentajePesos(inversionTotal(lote), lote.getPorcentajeInversionVendedor());
         int porcentajeGananciaSamuel = lote.getPorcentajeGananciaSamuel();
         int porcentajeGananciaVendedor = lote.getPorcentajeGananciaVendedor();
 
@@ -182,29 +189,27 @@ public class CalculadorCuadreService {
         pasos.add(String.format("Inversión vendedor pendiente: $%s", formatMoney(inversionVendedor)));
         pasos.add(String.format("Modelo ganancias: %d/%d", porcentajeGananciaVendedor, porcentajeGananciaSamuel));
 
-        BigDecimal montoVendedor = BigDecimal.ZERO;
-        BigDecimal debeTransferir = BigDecimal.ZERO;
-        BigDecimal ganancias = BigDecimal.ZERO;
+        long montoVendedor = 0;
+        long debeTransferir = 0;
+        long ganancias = 0;
 
-        if (disponible.compareTo(inversionVendedor) >= 0) {
+        if (disponible >= inversionVendedor) {
             // Vendedor recupera toda su inversión
             montoVendedor = inversionVendedor;
-            ganancias = disponible.subtract(inversionVendedor);
+            ganancias = Dinero.restar(disponible, inversionVendedor);
             
             pasos.add(String.format("✅ Vendedor recupera TODA su inversión: $%s", formatMoney(inversionVendedor)));
             
-            if (ganancias.compareTo(BigDecimal.ZERO) > 0) {
+            if (ganancias > 0) {
                 pasos.add("");
                 pasos.add(String.format("💰 GANANCIAS GENERADAS: $%s", formatMoney(ganancias)));
                 pasos.add(String.format("📊 Distribución %d/%d:", porcentajeGananciaVendedor, porcentajeGananciaSamuel));
                 
                 // Calcular distribución de ganancias según modelo
-                BigDecimal gananciaSamuel = ganancias
-                        .multiply(BigDecimal.valueOf(porcentajeGananciaSamuel))
-                        .divide(CIEN, 0, RoundingMode.HALF_UP);
-                BigDecimal gananciaVendedor = ganancias.subtract(gananciaSamuel);
+                long gananciaSamuel = Dinero.porcentajePesos(ganancias, porcentajeGananciaSamuel);
+                long gananciaVendedor = Dinero.restar(ganancias, gananciaSamuel);
                 
-                montoVendedor = montoVendedor.add(gananciaVendedor);
+                montoVendedor = Dinero.sumar(montoVendedor, gananciaVendedor);
                 debeTransferir = gananciaSamuel;
                 
                 pasos.add(String.format("  • Vendedor (%d%%): $%s", porcentajeGananciaVendedor, formatMoney(gananciaVendedor)));
@@ -215,7 +220,7 @@ public class CalculadorCuadreService {
         } else {
             // No alcanza para inversión completa
             montoVendedor = disponible;
-            BigDecimal faltante = inversionVendedor.subtract(disponible);
+            long faltante = Dinero.restar(inversionVendedor, disponible);
             pasos.add(String.format("⚠️ Vendedor recupera parcial: $%s", formatMoney(disponible)));
             pasos.add(String.format("📌 Falta por recuperar: $%s", formatMoney(faltante)));
             pasos.add("❌ Sin ganancias (no recuperó inversión completa)");
@@ -227,12 +232,13 @@ public class CalculadorCuadreService {
         pasos.add("🎉 ¡LOTE COMPLETADO!");
 
         return builder
-                .inversionVendedor(inversionVendedor)
-                .gananciasBrutas(ganancias)
+                .inversionVendedor(Dinero.aBigDecimal(inversionVendedor))
+                // Sin inversión recuperada no hubo cálculo de ganancias: cero sin decimales, como antes
+                .gananciasBrutas(disponible >= inversionVendedor ? Dinero.aBigDecimal(ganancias) : BigDecimal.ZERO)
                 .porcentajeVendedor(BigDecimal.valueOf(porcentajeGananciaVendedor))
                 .porcentajeSamuel(BigDecimal.valueOf(porcentajeGananciaSamuel))
-                .montoQueDebeTransferir(debeTransferir)
-                .montoParaVendedor(montoVendedor)
+                .montoQueDebeTransferir(Dinero.aBigDecimalPesos(debeTransferir))
+                .montoParaVendedor(Dinero.aBigDecimal(montoVendedor))
                 .excedenteResultante(BigDecimal.ZERO)
                 .pasosCalculo(pasos)
                 .build();
@@ -251,9 +257,9 @@ public class CalculadorCuadreService {
      */
     private CalculoCuadreResponse calcularCuadreT2_TresTandas(
             CalculoCuadreResponse.CalculoCuadreResponseBuilder builder,
-            Lote lote, BigDecimal disponible, List<String> pasos) {
+            Lote lote, long disponible, List<String> pasos) {
 
-        BigDecimal inversionVendedor = lote.getInversionVendedor();
+        long inversionVendedor = Dinero.porcentajePesos(inversionTotal(lote), lote.getPorcentajeInversionVendedor());
         int porcentajeGananciaSamuel = lote.getPorcentajeGananciaSamuel();
         int porcentajeGananciaVendedor = lote.getPorcentajeGananciaVendedor();
 
@@ -262,30 +268,28 @@ public class CalculadorCuadreService {
         pasos.add(String.format("Inversión vendedor pendiente: $%s", formatMoney(inversionVendedor)));
         pasos.add(String.format("Modelo ganancias: %d/%d", porcentajeGananciaVendedor, porcentajeGananciaSamuel));
 
-        BigDecimal montoVendedor = BigDecimal.ZERO;
-        BigDecimal debeTransferir = BigDecimal.ZERO;
-        BigDecimal ganancias = BigDecimal.ZERO;
+        long montoVendedor = 0;
+        long debeTransferir = 0;
+        long ganancias = 0;
 
-        if (disponible.compareTo(inversionVendedor) >= 0) {
+        if (disponible >= inversionVendedor) {
             // Vendedor recupera toda su inversión
             montoVendedor = inversionVendedor;
-            ganancias = disponible.subtract(inversionVendedor);
+            ganancias = Dinero.restar(disponible, inversionVendedor);
             
             pasos.add(String.format("✅ Vendedor recupera TODA su inversión: $%s", formatMoney(inversionVendedor)));
             pasos.add("🔔 ¡ALERTA! Ya recuperó su inversión. De aquí en adelante son GANANCIAS.");
             
-            if (ganancias.compareTo(BigDecimal.ZERO) > 0) {
+            if (ganancias > 0) {
                 pasos.add("");
                 pasos.add(String.format("💰 GANANCIAS GENERADAS: $%s", formatMoney(ganancias)));
                 pasos.add(String.format("📊 Distribución %d/%d:", porcentajeGananciaVendedor, porcentajeGananciaSamuel));
                 
                 // Calcular distribución de ganancias según modelo
-                BigDecimal gananciaSamuel = ganancias
-                        .multiply(BigDecimal.valueOf(porcentajeGananciaSamuel))
-                        .divide(CIEN, 0, RoundingMode.HALF_UP);
-                BigDecimal gananciaVendedor = ganancias.subtract(gananciaSamuel);
+                long gananciaSamuel = Dinero.porcentajePesos(ganancias, porcentajeGananciaSamuel);
+                long gananciaVendedor = Dinero.restar(ganancias, gananciaSamuel);
                 
-                montoVendedor = montoVendedor.add(gananciaVendedor);
+                montoVendedor = Dinero.sumar(montoVendedor, gananciaVendedor);
                 debeTransferir = gananciaSamuel;
                 
                 pasos.add(String.format("  • Vendedor (%d%%): $%s", porcentajeGananciaVendedor, formatMoney(gananciaVendedor)));
@@ -296,14 +300,14 @@ public class CalculadorCuadreService {
         } else {
             // No alcanza para inversión completa
             montoVendedor = disponible;
-            BigDecimal faltante = inversionVendedor.subtract(disponible);
+            long faltante = Dinero.restar(inversionVendedor, disponible);
             pasos.add(String.format("⚠️ Vendedor recupera parcial: $%s", formatMoney(disponible)));
             pasos.add(String.format("📌 Falta por recuperar: $%s", formatMoney(faltante)));
             pasos.add("❌ Sin ganancias aún (no ha recuperado inversión completa)");
         }
 
         pasos.add("");
-        if (debeTransferir.compareTo(BigDecimal.ZERO) > 0) {
+        if (debeTransferir > 0) {
             pasos.add(String.format("💵 DEBE TRANSFERIR (%d%% ganancias): $%s", 
                     porcentajeGananciaSamuel, formatMoney(debeTransferir)));
         } else {
@@ -313,12 +317,13 @@ public class CalculadorCuadreService {
         pasos.add("✅ Con cuadre exitoso se libera Tanda 3 (ganancias puras)");
 
         return builder
-                .inversionVendedor(inversionVendedor)
-                .gananciasBrutas(ganancias)
+                .inversionVendedor(Dinero.aBigDecimal(inversionVendedor))
+                // Sin inversión recuperada no hubo cálculo de ganancias: cero sin decimales, como antes
+                .gananciasBrutas(disponible >= inversionVendedor ? Dinero.aBigDecimal(ganancias) : BigDecimal.ZERO)
                 .porcentajeVendedor(BigDecimal.valueOf(porcentajeGananciaVendedor))
                 .porcentajeSamuel(BigDecimal.valueOf(porcentajeGananciaSamuel))
-                .montoQueDebeTransferir(debeTransferir)
-                .montoParaVendedor(montoVendedor)
+                .montoQueDebeTransferir(Dinero.aBigDecimalPesos(debeTransferir))
+                .montoParaVendedor(Dinero.aBigDecimal(montoVendedor))
                 .excedenteResultante(BigDecimal.ZERO)
                 .pasosCalculo(pasos)
                 .build();
@@ -336,7 +341,7 @@ public class CalculadorCuadreService {
      */
     private CalculoCuadreResponse calcularCuadreGanancias(
             CalculoCuadreResponse.CalculoCuadreResponseBuilder builder,
-            Lote lote, BigDecimal disponible, List<String> pasos) {
+            Lote lote, long disponible, List<String> pasos) {
 
         pasos.add("");
         pasos.add("═══ CUADRE GANANCIAS PURAS ═══");
@@ -353,15 +358,13 @@ public class CalculadorCuadreService {
      */
     private CalculoCuadreResponse calcularGanancias60_40(
             CalculoCuadreResponse.CalculoCuadreResponseBuilder builder,
-            Lote lote, BigDecimal ganancias, List<String> pasos) {
+            Lote lote, long ganancias, List<String> pasos) {
 
         pasos.add("Modelo: 60/40 (N2 directo con Samuel)");
         pasos.add(String.format("💰 Ganancias totales: $%s", formatMoney(ganancias)));
 
-        BigDecimal montoVendedor = ganancias
-                .multiply(new BigDecimal("0.60"))
-                .setScale(0, RoundingMode.HALF_UP);
-        BigDecimal montoSamuel = ganancias.subtract(montoVendedor);
+        long montoVendedor = Dinero.porcentajePesos(ganancias, 60);
+        long montoSamuel = Dinero.restar(ganancias, montoVendedor);
 
         pasos.add("");
         pasos.add("📊 Distribución:");
@@ -373,11 +376,11 @@ public class CalculadorCuadreService {
         pasos.add("🎉 ¡LOTE COMPLETADO!");
 
         return builder
-                .gananciasBrutas(ganancias)
-                .porcentajeVendedor(new BigDecimal("60"))
-                .porcentajeSamuel(new BigDecimal("40"))
-                .montoQueDebeTransferir(montoSamuel)
-                .montoParaVendedor(montoVendedor)
+                .gananciasBrutas(Dinero.aBigDecimal(ganancias))
+                .porcentajeVendedor(PORCENTAJE_60)
+                .porcentajeSamuel(PORCENTAJE_40)
+                .montoQueDebeTransferir(Dinero.aBigDecimal(montoSamuel))
+                .montoParaVendedor(Dinero.aBigDecimalPesos(montoVendedor))
                 .excedenteResultante(BigDecimal.ZERO)
                 .pasosCalculo(pasos)
                 .build();
@@ -395,7 +398,7 @@ public class CalculadorCuadreService {
      */
     private CalculoCuadreResponse calcularGananciasCascada(
             CalculoCuadreResponse.CalculoCuadreResponseBuilder builder,
-            Lote lote, BigDecimal ganancias, List<String> pasos) {
+            Lote lote, long ganancias, List<String> pasos) {
 
         pasos.add("Modelo: 50/50 Cascada (N3+)");
         pasos.add(String.format("💰 Ganancias totales: $%s", formatMoney(ganancias)));
@@ -404,16 +407,14 @@ public class CalculadorCuadreService {
         List<CalculoCuadreResponse.DistribucionNivel> distribucion = new ArrayList<>();
 
         // 50% para el vendedor directo
-        BigDecimal montoVendedor = ganancias
-                .multiply(new BigDecimal("0.50"))
-                .setScale(0, RoundingMode.HALF_UP);
-        BigDecimal montoSamuel = ganancias.subtract(montoVendedor);
+        long montoVendedor = Dinero.porcentajePesos(ganancias, 50);
+        long montoSamuel = Dinero.restar(ganancias, montoVendedor);
 
         distribucion.add(CalculoCuadreResponse.DistribucionNivel.builder()
                 .nivel(vendedor.getNivel())
                 .nombre(vendedor.getNombre())
-                .porcentaje(new BigDecimal("50"))
-                .monto(montoVendedor)
+                .porcentaje(PORCENTAJE_50)
+                .monto(Dinero.aBigDecimalPesos(montoVendedor))
                 .explicacion("50% directo (vendedor)")
                 .build());
 
@@ -427,36 +428,32 @@ public class CalculadorCuadreService {
         pasos.add("");
         pasos.add("📌 Samuel distribuirá en cascada:");
 
-        Usuario actual = vendedor.getReclutador();
-        BigDecimal subiendo = montoSamuel;
-
-        while (actual != null && !actual.esAdmin()) {
-            BigDecimal montoNivel = subiendo
-                    .multiply(new BigDecimal("0.50"))
-                    .setScale(0, RoundingMode.HALF_UP);
-            subiendo = subiendo.subtract(montoNivel);
-
-            distribucion.add(CalculoCuadreResponse.DistribucionNivel.builder()
-                    .nivel(actual.getNivel())
-                    .nombre(actual.getNombre())
-                    .porcentaje(new BigDecimal("50"))
-                    .monto(montoNivel)
-                    .explicacion("50% de lo que sube")
-                    .build());
-
-            pasos.add(String.format("    ⬆️ %s (%s): $%s", 
-                    actual.getNombre(), actual.getNivel(), formatMoney(montoNivel)));
+        long subiendo = montoSamuel;
+        IndiceJerarquia.Cadena cadena = indiceJerarquia.cadenaReclutadores(vendedor.getId()).orElse(null);
 
-            actual = actual.getReclutador();
+        if (cadena != null) {
+            // Cadena desde el índice en memoria: sin consultas por nivel
+            for (int i = 0; i < cadena.tamano(); i++) {
+                subiendo = agregarNivelCascada(distribucion, pasos, cadena.nivel(i), cadena.nombre(i), subiendo);
+            }
+        } else {
+            // Índice no disponible o usuario recién creado: recorrido perezoso por JPA
+            Usuario actual = vendedor.getReclutador();
+            while (actual != null && !actual.esAdmin()) {
+                subiendo = agregarNivelCascada(distribucion, pasos, actual.getNivel(), actual.getNombre(), subiendo);
+                actual = actual.getReclutador();
+            }
         }
 
         // Lo que queda llega a Samuel (N1)
-        Usuario samuel = usuarioRepository.findAdmin().orElse(null);
-        if (samuel != null && subiendo.compareTo(BigDecimal.ZERO) > 0) {
+        String nombreSamuel = indiceJerarquia.nombreAdmin()
+                .or(() -> usuarioRepository.findAdmin().map(Usuario::getNombre))
+                .orElse(null);
+        if (nombreSamuel != null && subiendo > 0) {
             distribucion.add(CalculoCuadreResponse.DistribucionNivel.builder()
                     .nivel("N1")
-                    .nombre(samuel.getNombre())
-                    .monto(subiendo)
+                    .nombre(nombreSamuel)
+                    .monto(Dinero.aBigDecimal(subiendo))
                     .explicacion("Resto que llega al tope")
                     .build());
             pasos.add(String.format("    ⬆️ Samuel (N1): $%s", formatMoney(subiendo)));
@@ -468,17 +465,45 @@ public class CalculadorCuadreService {
         pasos.add("🎉 ¡LOTE COMPLETADO!");
 
         return builder
-                .gananciasBrutas(ganancias)
-                .porcentajeVendedor(new BigDecimal("50"))
-                .porcentajeSamuel(new BigDecimal("50"))
+                .gananciasBrutas(Dinero.aBigDecimal(ganancias))
+                .porcentajeVendedor(PORCENTAJE_50)
+                .porcentajeSamuel(PORCENTAJE_50)
                 .distribucionCascada(distribucion)
-                .montoQueDebeTransferir(montoSamuel)
-                .montoParaVendedor(montoVendedor)
+                .montoQueDebeTransferir(Dinero.aBigDecimal(montoSamuel))
+                .montoParaVendedor(Dinero.aBigDecimalPesos(montoVendedor))
                 .excedenteResultante(BigDecimal.ZERO)
                 .pasosCalculo(pasos)
                 .build();
     }
 
+    /**
+     * Inversión percibida total en centavos (mismo valor que Lote.getInversionPercibidaTotal).
+     */
+    private static long inversionTotal(Lote lote) {
+        return Math.multiplyExact(Dinero.deBigDecimal(lote.getCostoPercibidoUnitario()), lote.getCantidadTotal());
+    }
+
+    /**
+     * Agrega un nivel de la cascada (50% de lo que sube) y retorna lo que sigue subiendo.
+     */
+    private long agregarNivelCascada(List<CalculoCuadreResponse.DistribucionNivel> distribucion,
+                                     List<String> pasos, String nivel, String nombre,
+                                     long subiendo) {
+        long montoNivel = Dinero.porcentajePesos(subiendo, 50);
+
+        distribucion.add(CalculoCuadreResponse.DistribucionNivel.builder()
+                .nivel(nivel)
+                .nombre(nombre)
+                .porcentaje(PORCENTAJE_50)
+                .monto(Dinero.aBigDecimalPesos(montoNivel))
+                .explicacion("50% de lo que sube")
+                .build());
+
+        pasos.add(String.format("    ⬆️ %s (%s): $%s", nombre, nivel, formatMoney(montoNivel)));
+
+        return Dinero.restar(subiendo, montoNivel);
+    }
+
     /**
      * Verifica si hay suficiente recaudado para cuadrar Tanda 1.
      * T1 se cuadra por MONTO, no por porcentaje de stock.
@@ -496,8 +521,7 @@ public class CalculadorCuadreService {
         return recaudado.compareTo(inversionSamuel) >= 0;
     }
 
-    private String formatMoney(BigDecimal amount) {
-        if (amount == null) return "0";
-        return String.format("%,.0f", amount);
+    private String formatMoney(long centavos) {
+        return Dinero.formatear(centavos);
     }
 }
@@ -58,6 +58,7 @@ public class CuadreService {
     private final VentaRepository ventaRepository;
     private final CalculadorCuadreService calculadorService;
     private final WhatsAppTextService whatsAppService;
+    private final EventoCuadreRepository eventoCuadreRepository;
 
     /**
      * Genera un cuadre para una tanda.
@@ -107,6 +108,7 @@ public class CuadreService {
 
         tanda.setEstado("EN_CUADRE");
         tandaRepository.save(tanda);
+        publicarEvento(tandaId, EventoCuadre.CUADRE_GENERADO);
 
         log.info("🔔 Cuadre generado: ID={}, Tanda={}/{}, Tipo={}, MontoEsperado={}",
                 cuadre.getId(), tanda.getNumero(), lote.getNumeroTandas(), 
@@ -228,6 +230,7 @@ public class CuadreService {
                     tanda.setStockActual(tanda.getCantidadAsignada());
                     tanda.setFechaLiberacion(LocalDateTime.now());
                     tandaRepository.save(tanda);
+                    publicarEvento(tanda.getId(), EventoCuadre.TANDA_LIBERADA);
                     log.info("📦 Tanda liberada: Lote={}, Tanda={}/{}", 
                             lote.getId(), tanda.getNumero(), lote.getNumeroTandas());
                 }
@@ -236,6 +239,16 @@ public class CuadreService {
         }
     }
 
+    /**
+     * Notifica a MotorTriggersCuadre que la tanda cambió de estado (misma transacción).
+     */
+    private void publicarEvento(Long tandaId, String tipo) {
+        eventoCuadreRepository.save(EventoCuadre.builder()
+                .tandaId(tandaId)
+                .tipo(tipo)
+                .build());
+    }
+
     /**
      * Verifica si todas las tandas del lote están cuadradas.
      */
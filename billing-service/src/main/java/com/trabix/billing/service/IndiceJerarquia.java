@@ -0,0 +1,219 @@
+package com.trabix.billing.service;
+
+import com.trabix.billing.repository.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Índice en memoria de la jerarquía de reclutamiento (puntero al reclutador por usuario).
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * RENDIMIENTO:
+ * - La cadena de reclutadores hasta el admin se recorre sobre arreglos,
+ *   sin cargar cada reclutador de forma perezosa (antes: una consulta por nivel)
+ * - El admin (N1) queda resuelto en el índice: no se consulta findAdmin en cada cuadre
+ *
+ * ACTUALIZACIÓN:
+ * - Los usuarios los modifica user-service, así que el índice se recarga al arrancar
+ *   y cuando cambia la firma de la tabla usuarios (cantidad, último id, último updated_at)
+ * - Mientras no esté cargado, o si el usuario aún no está en el índice,
+ *   el llamador debe recorrer la relación JPA como antes
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndiceJerarquia {
+
+    private static final int SIN_PADRE = -1;
+
+    private final UsuarioRepository usuarioRepository;
+
+    /** null mientras no se haya cargado por primera vez */
+    private volatile Snapshot snapshot;
+    private volatile List<Object> firma;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        refrescar();
+    }
+
+    /**
+     * Recarga el índice solo si la tabla usuarios cambió. Si falla, se conserva el último índice.
+     */
+    @Scheduled(fixedDelayString = "${trabix.jerarquia.refresco-ms:30000}")
+    public void refrescar() {
+        try {
+            List<Object> nueva = Arrays.asList(usuarioRepository.obtenerFirmaUsuarios().get(0));
+            if (snapshot != null && nueva.equals(firma)) {
+                return;
+            }
+            snapshot = Snapshot.de(usuarioRepository.findJerarquiaPlana());
+            firma = nueva;
+            log.debug("Índice de jerarquía cargado: {} usuarios", snapshot.ids.length);
+        } catch (Exception e) {
+            log.warn("No se pudo refrescar el índice de jerarquía: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Cadena de reclutadores de un usuario, del más cercano hacia arriba,
+     * detenida en el primer admin (sin incluirlo).
+     * Vacío si el índice no está cargado o el usuario no figura aún.
+     */
+    public Optional<Cadena> cadenaReclutadores(Long usuarioId) {
+        Snapshot actual = snapshot;
+        if (actual == null || usuarioId == null) {
+            return Optional.empty();
+        }
+        Integer posicion = actual.posiciones.get(usuarioId);
+        if (posicion == null) {
+            return Optional.empty();
+        }
+
+        int[] padres = actual.padres;
+        int[] buffer = new int[8];
+        int tamano = 0;
+        int nodo = padres[posicion];
+        // El límite de pasos protege ante ciclos en datos corruptos
+        for (int pasos = 0; nodo != SIN_PADRE && !actual.admin[nodo] && pasos < padres.length; pasos++) {
+            if (tamano == buffer.length) {
+                buffer = Arrays.copyOf(buffer, tamano * 2);
+            }
+            buffer[tamano++] = nodo;
+            nodo = padres[nodo];
+        }
+        return Optional.of(new Cadena(actual, buffer, tamano));
+    }
+
+    /**
+     * Nombre del admin (N1) según el índice. Vacío si no está cargado o no hay admin.
+     */
+    public Optional<String> nombreAdmin() {
+        Snapshot actual = snapshot;
+        if (actual == null || actual.posicionAdmin == SIN_PADRE) {
+            return Optional.empty();
+        }
+        return Optional.of(actual.nombres[actual.posicionAdmin]);
+    }
+
+    /**
+     * Vista de solo lectura sobre una cadena de reclutadores del índice.
+     */
+    public static final class Cadena {
+
+        private final Snapshot snapshot;
+        private final int[] posiciones;
+        private final int tamano;
+
+        private Cadena(Snapshot snapshot, int[] posiciones, int tamano) {
+            this.snapshot = snapshot;
+            this.posiciones = posiciones;
+            this.tamano = tamano;
+        }
+
+        public int tamano() {
+            return tamano;
+        }
+
+        public String nombre(int i) {
+            return snapshot.nombres[posiciones[i]];
+        }
+
+        public String nivel(int i) {
+            return Snapshot.NIVELES[snapshot.niveles[posiciones[i]]];
+        }
+    }
+
+    /**
+     * Foto inmutable de la jerarquía. Cada usuario ocupa una posición en los arreglos;
+     * el reclutador se guarda como posición (no como id) para recorrer sin búsquedas.
+     */
+    private static final class Snapshot {
+
+        /** Texto de cada nivel indexado por su número ("N0".."N127") */
+        private static final String[] NIVELES = new String[Byte.MAX_VALUE + 1];
+
+        static {
+            for (int i = 0; i < NIVELES.length; i++) {
+                NIVELES[i] = "N" + i;
+            }
+        }
+
+        private final Map<Long, Integer> posiciones;
+        private final long[] ids;
+        private final int[] padres;
+        private final byte[] niveles;
+        private final boolean[] admin;
+        private final String[] nombres;
+        private int posicionAdmin = SIN_PADRE;
+
+        private Snapshot(int total) {
+            this.posiciones = new HashMap<>(total * 2);
+            this.ids = new long[total];
+            this.padres = new int[total];
+            this.niveles = new byte[total];
+            this.admin = new boolean[total];
+            this.nombres = new String[total];
+        }
+
+        /**
+         * Filas: id, reclutador_id, nivel, rol, nombre (ordenadas por id).
+         */
+        static Snapshot de(List<Object[]> filas) {
+            Snapshot s = new Snapshot(filas.size());
+            long[] reclutadores = new long[filas.size()];
+
+            for (int i = 0; i < filas.size(); i++) {
+                Object[] fila = filas.get(i);
+                long id = ((Number) fila[0]).longValue();
+                String nivel = (String) fila[2];
+                String rol = (String) fila[3];
+
+                s.ids[i] = id;
+                s.posiciones.put(id, i);
+                reclutadores[i] = fila[1] != null ? ((Number) fila[1]).longValue() : 0L;
+                s.niveles[i] = parsearNivel(nivel);
+                s.admin[i] = "N1".equals(nivel) || "ADMIN".equals(rol);
+                s.nombres[i] = (String) fila[4];
+
+                // Si hay varios admins se prefiere el N1
+                if (s.admin[i] && (s.posicionAdmin == SIN_PADRE
+                        || s.niveles[i] == 1 && s.niveles[s.posicionAdmin] != 1)) {
+                    s.posicionAdmin = i;
+                }
+            }
+
+            for (int i = 0; i < reclutadores.length; i++) {
+                Integer padre = reclutadores[i] != 0L ? s.posiciones.get(reclutadores[i]) : null;
+                s.padres[i] = padre != null ? padre : SIN_PADRE;
+            }
+
+            return s;
+        }
+
+        private static byte parsearNivel(String nivel) {
+            if (nivel != null && nivel.length() > 1 && nivel.charAt(0) == 'N') {
+                try {
+                    int numero = Integer.parseInt(nivel.substring(1));
+                    if (numero >= 0 && numero <= Byte.MAX_VALUE) {
+                        return (byte) numero;
+                    }
+                } catch (NumberFormatException ignored) {
+                    // nivel no estándar
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.trabix.billing.service;
+
+import com.trabix.billing.entity.EventoCuadre;
+import com.trabix.billing.entity.Lote;
+import com.trabix.billing.entity.Tanda;
+import com.trabix.billing.repository.CuadreRepository;
+import com.trabix.billing.repository.EventoCuadreRepository;
+import com.trabix.billing.repository.TandaRepository;
+import com.trabix.billing.repository.VentaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Motor incremental de triggers de cuadre (reemplaza el escaneo completo cada 5 minutos).
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * FUNCIONAMIENTO:
+ * - Al arrancar (y en la reconciliación diaria) carga el estado de todas las
+ *   tandas liberadas: stock, recaudado e inversión Samuel
+ * - sales-service escribe en eventos_cuadre cada venta registrada/aprobada/rechazada
+ *   con su delta de stock y recaudado (misma transacción que la venta); inventory-service
+ *   escribe las salidas de stock (STOCK_REDUCIDO) y las tandas liberadas
+ * - Cada segundo se consumen los eventos pendientes y solo se evalúan las tandas afectadas
+ *
+ * TRIGGERS (mismos que TandaRepository.findTandasParaCuadrePorStock):
+ * - T1: recaudado >= inversión Samuel
+ * - T2 (≤50 TRABIX): stock ≤ 20%
+ * - T2 (>50 TRABIX): stock ≤ 10%
+ * - T3: stock ≤ 20%
+ *
+ * CONSISTENCIA:
+ * - La lectura de eventos y las recargas de tandas usan REPEATABLE READ: una tanda recargada
+ *   refleja todos sus eventos visibles en el snapshot (también los que quedan fuera del
+ *   lote de 500), así que al recargarla se descartan todos ellos hasta el mayor id visible
+ * - Si falla el cuadre automático la tanda se reintenta cada trabix.cuadre.reintento-ms
+ * - Supone una sola instancia de billing-service consumiendo el outbox
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+@Service
+public class MotorTriggersCuadre {
+
+    private final EventoCuadreRepository eventoRepository;
+    private final TandaRepository tandaRepository;
+    private final VentaRepository ventaRepository;
+    private final CuadreRepository cuadreRepository;
+    private final CuadreService cuadreService;
+    private final TransactionTemplate transaccion;
+
+    @Value("${trabix.cuadre-automatico:false}")
+    private boolean cuadreAutomatico;
+
+    @Value("${trabix.cuadre.reintento-ms:300000}")
+    private long reintentoMs;
+
+    private final Map<Long, EstadoTrigger> estados = new ConcurrentHashMap<>();
+    /** Tandas cuyo cuadre automático falló, con el instante del siguiente intento */
+    private final Map<Long, Long> reintentos = new ConcurrentHashMap<>();
+    private volatile boolean inicializado = false;
+
+    public MotorTriggersCuadre(EventoCuadreRepository eventoRepository,
+                               TandaRepository tandaRepository,
+                               VentaRepository ventaRepository,
+                               CuadreRepository cuadreRepository,
+                               CuadreService cuadreService,
+                               PlatformTransactionManager transactionManager) {
+        this.eventoRepository = eventoRepository;
+        this.tandaRepository = tandaRepository;
+        this.ventaRepository = ventaRepository;
+        this.cuadreRepository = cuadreRepository;
+        this.cuadreService = cuadreService;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccion.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        reconstruir();
+    }
+
+    /**
+     * Reconciliación diaria: reconstruye el estado desde la BD por si hubo cambios fuera del outbox.
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void reconstruir() {
+        List<Long> disparadas = transaccion.execute(status -> {
+            Map<Long, BigDecimal> recaudados = new HashMap<>();
+            for (Object[] fila : ventaRepository.sumarRecaudadoTandasLiberadas()) {
+                recaudados.put((Long) fila[0], (BigDecimal) fila[1]);
+            }
+            Set<Long> conCuadrePendiente = new HashSet<>(cuadreRepository.findTandaIdsByEstado("PENDIENTE"));
+
+            estados.clear();
+            reintentos.clear();
+            List<Long> resultado = new ArrayList<>();
+            for (Tanda tanda : tandaRepository.findTandasLiberadasConLote()) {
+                EstadoTrigger estado = EstadoTrigger.de(tanda,
+                        recaudados.getOrDefault(tanda.getId(), BigDecimal.ZERO));
+                estado.notificado = conCuadrePendiente.contains(tanda.getId());
+                estados.put(tanda.getId(), estado);
+                if (estado.evaluar()) {
+                    resultado.add(tanda.getId());
+                }
+            }
+
+            // Los eventos visibles ya están reflejados en lo que se acaba de leer
+            int descartados = eventoRepository.descartarTodos();
+            log.info("Motor de triggers de cuadre: {} tandas liberadas cargadas, {} eventos descartados",
+                    estados.size(), descartados);
+            return resultado;
+        });
+
+        inicializado = true;
+        disparadas.forEach(this::notificarTrigger);
+    }
+
+    /**
+     * Consume los eventos pendientes y evalúa solo las tandas afectadas.
+     */
+    @Scheduled(fixedDelayString = "${trabix.cuadre.eventos-intervalo-ms:1000}")
+    public void procesarEventos() {
+        if (!inicializado) {
+            return;
+        }
+
+        List<Long> disparadas = new ArrayList<>(transaccion.execute(status -> {
+            List<EventoCuadre> eventos = eventoRepository.findTop500ByOrderByIdAsc();
+            if (eventos.isEmpty()) {
+                return List.<Long>of();
+            }
+
+            Map<Long, List<EventoCuadre>> porTanda = new LinkedHashMap<>();
+            for (EventoCuadre evento : eventos) {
+                porTanda.computeIfAbsent(evento.getTandaId(), id -> new ArrayList<>()).add(evento);
+            }
+
+            List<Long> resultado = new ArrayList<>();
+            List<EventoCuadre> aplicados = new ArrayList<>();
+            porTanda.forEach((tandaId, eventosTanda) -> {
+                EstadoTrigger estado = estados.get(tandaId);
+                boolean recargar = estado == null
+                        || eventosTanda.stream().anyMatch(EventoCuadre::requiereRecarga);
+
+                if (recargar) {
+                    estado = recargar(tandaId);
+                    descartarEventosRecargados(tandaId);
+                } else {
+                    for (EventoCuadre evento : eventosTanda) {
+                        estado.aplicar(evento);
+                    }
+                    aplicados.addAll(eventosTanda);
+                }
+
+                if (estado != null && estado.evaluar()) {
+                    resultado.add(tandaId);
+                }
+            });
+
+            if (!aplicados.isEmpty()) {
+                eventoRepository.deleteAllInBatch(aplicados);
+            }
+            return resultado;
+        }));
+
+        agregarReintentosVencidos(disparadas);
+        disparadas.forEach(this::notificarTrigger);
+    }
+
+    /**
+     * La recarga leyó la tanda con todos sus eventos visibles en el snapshot, incluidos
+     * los que no entraron en este lote: se descartan para no aplicarlos dos veces.
+     */
+    private void descartarEventosRecargados(Long tandaId) {
+        Long maxVisible = eventoRepository.findMaxIdByTandaId(tandaId);
+        if (maxVisible != null) {
+            eventoRepository.descartarPorTanda(tandaId, maxVisible);
+        }
+    }
+
+    /**
+     * Añade las tandas cuyo cuadre automático falló y ya toca reintentar,
+     * si siguen cumpliendo el trigger.
+     */
+    private void agregarReintentosVencidos(List<Long> disparadas) {
+        if (reintentos.isEmpty()) {
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+        reintentos.forEach((tandaId, siguiente) -> {
+            if (siguiente > ahora) {
+                return;
+            }
+            reintentos.remove(tandaId);
+            EstadoTrigger estado = estados.get(tandaId);
+            if (estado != null && !disparadas.contains(tandaId) && estado.evaluar()) {
+                disparadas.add(tandaId);
+            }
+        });
+    }
+
+    /**
+     * Recarga una tanda desde la BD. Si ya no está liberada deja de seguirse.
+     */
+    private EstadoTrigger recargar(Long tandaId) {
+        Tanda tanda = tandaRepository.findByIdWithLote(tandaId).orElse(null);
+        if (tanda == null || !"LIBERADA".equals(tanda.getEstado())) {
+            estados.remove(tandaId);
+            return null;
+        }
+
+        EstadoTrigger estado = EstadoTrigger.de(tanda, ventaRepository.sumarRecaudadoPorTanda(tandaId));
+        estado.notificado = cuadreRepository.existsByTandaIdAndEstado(tandaId, "PENDIENTE");
+        estados.put(tandaId, estado);
+        return estado;
+    }
+
+    private void notificarTrigger(Long tandaId) {
+        EstadoTrigger estado = estados.get(tandaId);
+        if (estado == null) {
+            return;
+        }
+
+        if (estado.numero == 1) {
+            log.info("🔔 Tanda 1 requiere cuadre por monto: Lote={}, Recaudado={}, InversionSamuel={}, Vendedor={}",
+                    estado.loteId, estado.recaudado, estado.inversionSamuel, estado.vendedor);
+        } else {
+            log.info("🔔 Tanda {}/{} requiere cuadre por stock: Lote={}, Stock={}/{}, Vendedor={}",
+                    estado.numero, estado.totalTandas, estado.loteId,
+                    estado.stockActual, estado.stockEntregado, estado.vendedor);
+        }
+
+        if (cuadreAutomatico) {
+            try {
+                cuadreService.generarCuadre(tandaId, false);
+                log.info("✅ Cuadre generado automáticamente para tanda {}", tandaId);
+            } catch (Exception e) {
+                log.error("Error generando cuadre automático: {}", e.getMessage());
+                // Se rearma para que el siguiente intento vuelva a dispararlo
+                estado.notificado = false;
+                reintentos.put(tandaId, System.currentTimeMillis() + reintentoMs);
+            }
+        }
+    }
+
+    /**
+     * Estado de trigger de una tanda liberada, mantenido incrementalmente.
+     * Solo lo modifica el hilo del scheduler.
+     */
+    private static final class EstadoTrigger {
+
+        private Long loteId;
+        private String vendedor;
+        private int numero;
+        private int totalTandas;
+        private int cantidadTotalLote;
+        private BigDecimal inversionSamuel;
+        private int stockEntregado;
+        private int stockActual;
+        private BigDecimal recaudado;
+        /** true cuando ya se notificó el trigger (o existe cuadre pendiente) */
+        private boolean notificado;
+
+        static EstadoTrigger de(Tanda tanda, BigDecimal recaudado) {
+            Lote lote = tanda.getLote();
+            EstadoTrigger estado = new EstadoTrigger();
+            estado.loteId = lote.getId();
+            estado.vendedor = lote.getUsuario() != null ? lote.getUsuario().getNombre() : null;
+            estado.numero = tanda.getNumero();
+            estado.totalTandas = lote.getNumeroTandas();
+            estado.cantidadTotalLote = lote.getCantidadTotal();
+            estado.inversionSamuel = lote.getInversionSamuel();
+            estado.stockEntregado = tanda.getStockEntregado();
+            estado.stockActual = tanda.getStockActual();
+            estado.recaudado = recaudado != null ? recaudado : BigDecimal.ZERO;
+            return estado;
+        }
+
+        void aplicar(EventoCuadre evento) {
+            if (evento.getDeltaStock() != null) {
+                stockActual += evento.getDeltaStock();
+            }
+            if (evento.getDeltaRecaudado() != null) {
+                recaudado = recaudado.add(evento.getDeltaRecaudado());
+            }
+        }
+
+        /**
+         * Retorna true solo cuando la tanda cruza el umbral por primera vez.
+         * Si vuelve a estar por encima (ej. venta rechazada) se rearma.
+         */
+        boolean evaluar() {
+            boolean cumple = cumpleTrigger();
+            boolean disparar = cumple && !notificado;
+            notificado = cumple;
+            return disparar;
+        }
+
+        private boolean cumpleTrigger() {
+            if (numero == 1) {
+                return inversionSamuel != null && recaudado.compareTo(inversionSamuel) >= 0;
+            }
+            if (stockEntregado <= 0) {
+                return false;
+            }
+            int porcentaje;
+            if (cantidadTotalLote <= 50) {
+                if (numero != 2) return false;
+                porcentaje = 20;
+            } else if (numero == 2) {
+                porcentaje = 10;
+            } else if (numero == 3) {
+                porcentaje = 20;
+            } else {
+                return false;
+            }
+            return stockActual <= (stockEntregado * porcentaje / 100);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.trabix.billing.service;
+
+import com.trabix.billing.entity.EventoCuadre;
+import com.trabix.billing.entity.Lote;
+import com.trabix.billing.entity.Tanda;
+import com.trabix.billing.entity.Usuario;
+import com.trabix.billing.repository.CuadreRepository;
+import com.trabix.billing.repository.EventoCuadreRepository;
+import com.trabix.billing.repository.TandaRepository;
+import com.trabix.billing.repository.VentaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * MotorTriggersCuadre con repositorios simulados: eventos de stock del outbox
+ * (p.ej. STOCK_REDUCIDO de inventory-service) deben disparar el cuadre de la tanda.
+ */
+class MotorTriggersCuadreTest {
+
+    private static final long TANDA_ID = 7L;
+
+    private final EventoCuadreRepository eventoRepository = mock(EventoCuadreRepository.class);
+    private final TandaRepository tandaRepository = mock(TandaRepository.class);
+    private final VentaRepository ventaRepository = mock(VentaRepository.class);
+    private final CuadreRepository cuadreRepository = mock(CuadreRepository.class);
+    private final CuadreService cuadreService = mock(CuadreService.class);
+
+    private MotorTriggersCuadre motor;
+
+    @BeforeEach
+    void iniciar() {
+        motor = new MotorTriggersCuadre(eventoRepository, tandaRepository, ventaRepository,
+                cuadreRepository, cuadreService, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(motor, "cuadreAutomatico", true);
+        ReflectionTestUtils.setField(motor, "reintentoMs", 300_000L);
+
+        // Lote de 30 TRABIX (2 tandas): T2 dispara con stock ≤ 20% de 15 = 3
+        when(tandaRepository.findTandasLiberadasConLote()).thenReturn(List.of(tandaDos(15, 5)));
+        motor.reconstruir();
+    }
+
+    @Test
+    void eventoDeStockQueCruzaElUmbralDisparaCuadre() {
+        EventoCuadre evento = eventoStock(1L, -2);
+        when(eventoRepository.findTop500ByOrderByIdAsc()).thenReturn(List.of(evento));
+
+        motor.procesarEventos();
+
+        verify(cuadreService).generarCuadre(TANDA_ID, false);
+        verify(eventoRepository).deleteAllInBatch(List.of(evento));
+    }
+
+    @Test
+    void eventoDeStockPorEncimaDelUmbralNoDispara() {
+        when(eventoRepository.findTop500ByOrderByIdAsc()).thenReturn(List.of(eventoStock(1L, -1)));
+
+        motor.procesarEventos();
+
+        verify(cuadreService, never()).generarCuadre(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void triggerYaNotificadoNoSeRepite() {
+        when(eventoRepository.findTop500ByOrderByIdAsc())
+                .thenReturn(List.of(eventoStock(1L, -2)))
+                .thenReturn(List.of(eventoStock(2L, -1)));
+
+        motor.procesarEventos();
+        motor.procesarEventos();
+
+        verify(cuadreService, times(1)).generarCuadre(TANDA_ID, false);
+    }
+
+    private static EventoCuadre eventoStock(long id, int deltaStock) {
+        return EventoCuadre.builder()
+                .id(id)
+                .tandaId(TANDA_ID)
+                .tipo("STOCK_REDUCIDO")
+                .deltaStock(deltaStock)
+                .deltaRecaudado(BigDecimal.ZERO)
+                .build();
+    }
+
+    private static Tanda tandaDos(int stockEntregado, int stockActual) {
+        Usuario vendedor = new Usuario();
+        vendedor.setId(3L);
+        vendedor.setNombre("Vendedor");
+
+        Lote lote = new Lote();
+        lote.setId(5L);
+        lote.setUsuario(vendedor);
+        lote.setCantidadTotal(30);
+        lote.setCostoPercibidoUnitario(new BigDecimal("2400"));
+        lote.setModelo("MODELO_60_40");
+        lote.setEstado("ACTIVO");
+
+        Tanda tanda = new Tanda();
+        tanda.setId(TANDA_ID);
+        tanda.setLote(lote);
+        tanda.setNumero(2);
+        tanda.setCantidadAsignada(stockEntregado);
+        tanda.setStockEntregado(stockEntregado);
+        tanda.setStockActual(stockActual);
+        tanda.setEstado("LIBERADA");
+        return tanda;
+    }
+}
@@ -0,0 +1,114 @@
+package com.trabix.common.dinero;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cuadre de ganancias en cascada 50/50: fórmulas BigDecimal anteriores contra Dinero.
+ *
+ * Cada operación reparte las ganancias de un lote entre el vendedor y los niveles de la
+ * cascada, y formatea cada monto como en los pasos del cálculo. Para ver la asignación
+ * por operación (gc.alloc.rate.norm) correr con el perfilador de GC:
+ *
+ * mvn -Pjmh -pl common exec:exec -Djmh.args="DineroBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DineroBenchmark {
+
+    private static final BigDecimal MEDIO = new BigDecimal("0.50");
+    private static final int MONTOS = 1024;
+
+    /** Reclutadores sobre el vendedor */
+    @Param({"3", "8"})
+    private int niveles;
+
+    private long[] centavos;
+    private BigDecimal[] montos;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(20261016L);
+        centavos = new long[MONTOS];
+        montos = new BigDecimal[MONTOS];
+        for (int i = 0; i < MONTOS; i++) {
+            centavos[i] = random.nextLong(1, 10_000_000_000L);
+            montos[i] = BigDecimal.valueOf(centavos[i], Dinero.ESCALA);
+        }
+    }
+
+    @Benchmark
+    public void bigDecimal(Blackhole bh) {
+        BigDecimal ganancias = montos[siguiente++ & (MONTOS - 1)];
+        BigDecimal montoVendedor = ganancias.multiply(MEDIO).setScale(0, RoundingMode.HALF_UP);
+        BigDecimal subiendo = ganancias.subtract(montoVendedor);
+        bh.consume(String.format("%,.0f", montoVendedor));
+        for (int i = 0; i < niveles; i++) {
+            BigDecimal montoNivel = subiendo.multiply(MEDIO).setScale(0, RoundingMode.HALF_UP);
+            bh.consume(String.format("%,.0f", montoNivel));
+            subiendo = subiendo.subtract(montoNivel);
+        }
+        bh.consume(subiendo);
+    }
+
+    @Benchmark
+    public void dinero(Blackhole bh) {
+        long ganancias = centavos[siguiente++ & (MONTOS - 1)];
+        long montoVendedor = Dinero.porcentajePesos(ganancias, 50);
+        long subiendo = Dinero.restar(ganancias, montoVendedor);
+        bh.consume(Dinero.formatear(montoVendedor));
+        for (int i = 0; i < niveles; i++) {
+            long montoNivel = Dinero.porcentajePesos(subiendo, 50);
+            bh.consume(Dinero.formatear(montoNivel));
+            subiendo = Dinero.restar(subiendo, montoNivel);
+        }
+        bh.consume(subiendo);
+    }
+
+    /**
+     * Solo la aritmética, sin formatear: aísla el costo de BigDecimal frente a long.
+     */
+    @Benchmark
+    public void bigDecimalSinFormato(Blackhole bh) {
+        BigDecimal ganancias = montos[siguiente++ & (MONTOS - 1)];
+        BigDecimal subiendo = ganancias.subtract(ganancias.multiply(MEDIO).setScale(0, RoundingMode.HALF_UP));
+        for (int i = 0; i < niveles; i++) {
+            BigDecimal montoNivel = subiendo.multiply(MEDIO).setScale(0, RoundingMode.HALF_UP);
+            bh.consume(montoNivel);
+            subiendo = subiendo.subtract(montoNivel);
+        }
+        bh.consume(subiendo);
+    }
+
+    @Benchmark
+    public void dineroSinFormato(Blackhole bh) {
+        long ganancias = centavos[siguiente++ & (MONTOS - 1)];
+        long subiendo = Dinero.restar(ganancias, Dinero.porcentajePesos(ganancias, 50));
+        for (int i = 0; i < niveles; i++) {
+            long montoNivel = Dinero.porcentajePesos(subiendo, 50);
+            bh.consume(montoNivel);
+            subiendo = Dinero.restar(subiendo, montoNivel);
+        }
+        bh.consume(subiendo);
+    }
+}
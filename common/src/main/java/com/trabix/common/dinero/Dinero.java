@@ -0,0 +1,101 @@
+package com.trabix.common.dinero;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Aritmética de dinero sobre long escalado: 1 = un centavo (escala 2, igual que las
+ * columnas DECIMAL(x,2)). Sin objetos intermedios en los cálculos.
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * - Conversión exacta desde/hacia BigDecimal solo en los bordes (BD y DTOs)
+ * - Redondeo explícito HALF_UP a pesos enteros, igual que
+ *   BigDecimal.setScale(0, RoundingMode.HALF_UP) sobre el valor exacto
+ * - Desbordamiento → ArithmeticException (multiplyExact/addExact)
+ * ═══════════════════════════════════════════════════════════════════
+ */
+public final class Dinero {
+
+    public static final int ESCALA = 2;
+    public static final long CENTAVOS_POR_PESO = 100;
+
+    private Dinero() {
+    }
+
+    /**
+     * Convierte un monto de BD/DTO a centavos. Null se toma como cero.
+     *
+     * @throws ArithmeticException si tiene más de dos decimales significativos
+     */
+    public static long deBigDecimal(BigDecimal monto) {
+        if (monto == null) {
+            return 0;
+        }
+        return monto.setScale(ESCALA, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Convierte centavos a BigDecimal con escala 2.
+     */
+    public static BigDecimal aBigDecimal(long centavos) {
+        return BigDecimal.valueOf(centavos, ESCALA);
+    }
+
+    /**
+     * Convierte un monto ya redondeado a pesos enteros a BigDecimal con escala 0
+     * (la escala de setScale(0, HALF_UP), que es la que exponen los DTOs para estos montos).
+     *
+     * @throws ArithmeticException si el monto tiene centavos
+     */
+    public static BigDecimal aBigDecimalPesos(long centavos) {
+        return BigDecimal.valueOf(centavos, ESCALA).setScale(0, RoundingMode.UNNECESSARY);
+    }
+
+    /**
+     * porcentaje% del monto, redondeado HALF_UP a pesos enteros.
+     * Equivale a monto × porcentaje / 100 con setScale(0, HALF_UP).
+     */
+    public static long porcentajePesos(long centavos, int porcentaje) {
+        long pesos = dividirHalfUp(Math.multiplyExact(centavos, porcentaje), 100 * CENTAVOS_POR_PESO);
+        return pesos * CENTAVOS_POR_PESO;
+    }
+
+    /**
+     * Redondea HALF_UP a pesos enteros.
+     */
+    public static long redondearPesos(long centavos) {
+        return dividirHalfUp(centavos, CENTAVOS_POR_PESO) * CENTAVOS_POR_PESO;
+    }
+
+    public static long sumar(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long restar(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    /**
+     * Formato para mostrar: pesos enteros (HALF_UP) con separador de miles,
+     * igual a String.format("%,.0f", BigDecimal) (incluido "-0" para montos entre -0,50 y 0).
+     */
+    public static String formatear(long centavos) {
+        long pesos = dividirHalfUp(centavos, CENTAVOS_POR_PESO);
+        if (pesos == 0 && centavos < 0) {
+            return "-0";
+        }
+        return String.format("%,d", pesos);
+    }
+
+    /**
+     * n / d redondeado HALF_UP (la mitad se aleja de cero), con d > 0.
+     */
+    static long dividirHalfUp(long n, long d) {
+        long cociente = n / d;
+        long resto = n % d;
+        if (Math.abs(resto) >= d - Math.abs(resto)) {
+            cociente += Long.signum(n);
+        }
+        return cociente;
+    }
+}
@@ -0,0 +1,19 @@
+package com.trabix.common.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Excepción cuando el servicio no tiene capacidad para atender la solicitud
+ * (cola de trabajo llena). El cliente puede reintentar más tarde.
+ */
+public class ServicioSaturadoException extends TrabixException {
+
+    public ServicioSaturadoException() {
+        super("Servicio saturado. Intente nuevamente en unos segundos.",
+                "SERVICIO_SATURADO", HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    public ServicioSaturadoException(String mensaje) {
+        super(mensaje, "SERVICIO_SATURADO", HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
@@ -0,0 +1,82 @@
+package com.trabix.common.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Caché de resultados de verificación de tokens, por SHA-256 del token.
+ *
+ * Compartida por JwtVerifier (servicios) y VerificadorToken (gateway): sin servlet ni
+ * Spring. Cada entrada vive hasta que expira el token; la caché está acotada a
+ * maxEntradas (0 = deshabilitada) como LRU: al llenarse, cada inserción descarta la
+ * entrada menos usada en O(1), sin recorrer la caché. Las expiradas se eliminan al
+ * leerlas o al quedar como menos usadas.
+ *
+ * El SHA-256 del token se calcula fuera del lock; dentro solo hay operaciones O(1).
+ *
+ * @param <V> resultado de la verificación (claims, identidad firmada...)
+ */
+public class CacheTokens<V> {
+
+    private final int maxEntradas;
+    private final Function<V, Instant> expiracion;
+    private final Map<String, V> cache;
+
+    public CacheTokens(int maxEntradas, Function<V, Instant> expiracion) {
+        this.maxEntradas = maxEntradas;
+        this.expiracion = expiracion;
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> menosUsada) {
+                return size() > maxEntradas;
+            }
+        };
+    }
+
+    /**
+     * Clave de caché del token (SHA-256 en base64): el token no se guarda en memoria.
+     */
+    public String clave(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Valor en caché, o null si no está. Una entrada expirada se elimina y se retorna tal
+     * cual: el llamador decide (expirada = token expirado, no se vuelve a parsear).
+     */
+    public synchronized V obtener(String clave, Instant ahora) {
+        V valor = cache.get(clave);
+        if (valor != null && estaExpirado(valor, ahora)) {
+            cache.remove(clave);
+        }
+        return valor;
+    }
+
+    public synchronized void guardar(String clave, V valor) {
+        if (maxEntradas <= 0) {
+            return;
+        }
+        cache.put(clave, valor);
+    }
+
+    public synchronized int tamano() {
+        return cache.size();
+    }
+
+    public boolean estaExpirado(V valor, Instant ahora) {
+        Instant exp = expiracion.apply(valor);
+        return exp == null || !exp.isAfter(ahora);
+    }
+}
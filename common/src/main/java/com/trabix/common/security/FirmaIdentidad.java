@@ -0,0 +1,160 @@
+package com.trabix.common.security;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Firma y verificación de la identidad X-User-* que el gateway propaga a los servicios.
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * Única implementación del formato, usada por el gateway (firmar, WebFlux) y por
+ * los servicios (verificar, vía IdentidadGateway): sin servlet ni Spring.
+ *
+ * X-User-Firma = base64url(HMAC-SHA256(secreto, "v1|id|cedula|rol|nivel|nombre|exp")),
+ * nombre codificado como URL (UTF-8) tal como viaja en el header, exp en segundos epoch.
+ *
+ * El secreto es obligatorio: sin él el gateway no puede firmar y los servicios
+ * no pueden distinguir headers fabricados por un cliente.
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+public class FirmaIdentidad {
+
+    public static final String HEADER_ID = "X-User-Id";
+    public static final String HEADER_CEDULA = "X-User-Cedula";
+    public static final String HEADER_ROL = "X-User-Rol";
+    public static final String HEADER_NIVEL = "X-User-Nivel";
+    public static final String HEADER_NOMBRE = "X-User-Nombre";
+    public static final String HEADER_EXPIRACION = "X-User-Exp";
+    public static final String HEADER_FIRMA = "X-User-Firma";
+
+    /** Headers de identidad: los que envía el cliente se descartan siempre en el gateway */
+    public static final List<String> HEADERS_IDENTIDAD = List.of(
+            HEADER_ID, HEADER_CEDULA, HEADER_ROL, HEADER_NIVEL,
+            HEADER_NOMBRE, HEADER_EXPIRACION, HEADER_FIRMA);
+
+    private static final String VERSION = "v1";
+    private static final String ALGORITMO = "HmacSHA256";
+
+    private final SecretKeySpec clave;
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * @throws IllegalStateException si el secreto no está configurado
+     */
+    public FirmaIdentidad(String secreto) {
+        if (secreto == null || secreto.isBlank()) {
+            throw new IllegalStateException("Secreto de identidad no configurado: definir IDENTIDAD_SECRET "
+                    + "(trabix.security.identidad.secreto) o activar el perfil dev");
+        }
+        this.clave = new SecretKeySpec(secreto.getBytes(StandardCharsets.UTF_8), ALGORITMO);
+        this.macs = ThreadLocal.withInitial(this::crearMac);
+    }
+
+    /**
+     * Headers X-User-* firmados, en orden y listos para agregar al request.
+     */
+    public Map<String, String> firmar(Long userId, String cedula, String rol, String nivel, String nombre,
+                                      Instant expiracion) {
+        String id = String.valueOf(userId);
+        String nivelHeader = nivel != null ? nivel : "";
+        String nombreHeader = nombre != null ? URLEncoder.encode(nombre, StandardCharsets.UTF_8) : "";
+        String exp = String.valueOf(expiracion.getEpochSecond());
+
+        byte[] firma = calcular(id, cedula, rol, nivelHeader, nombreHeader, exp);
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(HEADER_ID, id);
+        headers.put(HEADER_CEDULA, cedula);
+        headers.put(HEADER_ROL, rol);
+        headers.put(HEADER_NIVEL, nivelHeader);
+        headers.put(HEADER_NOMBRE, nombreHeader);
+        headers.put(HEADER_EXPIRACION, exp);
+        headers.put(HEADER_FIRMA, Base64.getUrlEncoder().withoutPadding().encodeToString(firma));
+        return Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * Claims del usuario si los headers traen una identidad firmada válida y vigente.
+     *
+     * @param header valor de un header por nombre (null si no viene)
+     */
+    public Optional<JwtClaims> verificar(Function<String, String> header) {
+        String firma = header.apply(HEADER_FIRMA);
+        if (firma == null) {
+            return Optional.empty();
+        }
+
+        String id = header.apply(HEADER_ID);
+        String cedula = header.apply(HEADER_CEDULA);
+        String rol = header.apply(HEADER_ROL);
+        String nivel = header.apply(HEADER_NIVEL);
+        String nombre = header.apply(HEADER_NOMBRE);
+        String exp = header.apply(HEADER_EXPIRACION);
+        if (id == null || cedula == null || rol == null || exp == null) {
+            return Optional.empty();
+        }
+
+        byte[] esperada = calcular(id, cedula, rol,
+                nivel != null ? nivel : "", nombre != null ? nombre : "", exp);
+        byte[] recibida;
+        try {
+            recibida = Base64.getUrlDecoder().decode(firma);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (!MessageDigest.isEqual(esperada, recibida)) {
+            log.warn("Identidad de gateway con firma inválida (usuario {})", id);
+            return Optional.empty();
+        }
+
+        try {
+            Instant expiracion = Instant.ofEpochSecond(Long.parseLong(exp));
+            JwtClaims claims = new JwtClaims(
+                    cedula,
+                    Long.valueOf(id),
+                    rol,
+                    vacioComoNull(nivel),
+                    nombre != null ? vacioComoNull(URLDecoder.decode(nombre, StandardCharsets.UTF_8)) : null,
+                    null,
+                    expiracion);
+            return claims.estaExpirado(Instant.now()) ? Optional.empty() : Optional.of(claims);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] calcular(String id, String cedula, String rol, String nivel, String nombre, String exp) {
+        String contenido = String.join("|", VERSION, id, cedula, rol, nivel, nombre, exp);
+        return macs.get().doFinal(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac crearMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO);
+            mac.init(clave);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 no disponible", e);
+        }
+    }
+
+    private static String vacioComoNull(String valor) {
+        return valor == null || valor.isEmpty() ? null : valor;
+    }
+}
@@ -0,0 +1,17 @@
+package com.trabix.common.security;
+
+import java.util.List;
+
+/**
+ * Consulta de los usuarios que no pueden autenticarse, para UsuariosRevocados.
+ *
+ * La implementa el UsuarioRepository de cada servicio (una @Query sobre usuarios.estado):
+ * con el repositorio presente, UsuariosRevocadosAutoConfiguration registra el deny-set.
+ */
+public interface FuenteUsuariosRevocados {
+
+    /**
+     * IDs de usuarios no activos.
+     */
+    List<Long> findIdsNoActivos();
+}
@@ -0,0 +1,38 @@
+package com.trabix.common.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.Optional;
+
+/**
+ * Identidad del usuario propagada por el gateway en headers firmados.
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * - El gateway verifica el JWT una sola vez y agrega X-User-* al request
+ *   (los X-User-* que envía el cliente se descartan siempre)
+ * - X-User-Firma = HMAC-SHA256 (secreto interno) de los demás headers:
+ *   un cliente que llame directo al servicio no puede fabricarlos
+ * - El servicio solo verifica un HMAC: sin parsear el JWT ni consultar la BD
+ * - Si no hay headers válidos el servicio usa el Bearer como antes
+ *
+ * Formato y verificación en FirmaIdentidad, la misma clase con la que firma el gateway.
+ * ═══════════════════════════════════════════════════════════════════
+ */
+public class IdentidadGateway {
+
+    private final FirmaIdentidad firma;
+
+    /**
+     * @throws IllegalStateException si el secreto no está configurado (falla el arranque)
+     */
+    public IdentidadGateway(String secreto) {
+        this.firma = new FirmaIdentidad(secreto);
+    }
+
+    /**
+     * Claims del usuario si el request trae una identidad firmada válida y vigente.
+     */
+    public Optional<JwtClaims> verificar(HttpServletRequest request) {
+        return firma.verificar(request::getHeader);
+    }
+}
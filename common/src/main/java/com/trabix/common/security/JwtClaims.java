@@ -0,0 +1,29 @@
+package com.trabix.common.security;
+
+import java.time.Instant;
+
+/**
+ * Claims de un token JWT ya verificado (firma y expiración).
+ * Inmutable: se obtiene una sola vez por token y se reutiliza desde la caché.
+ *
+ * Campos generados por auth-service (JwtService.generarAccessToken):
+ * - sub: cédula
+ * - userId, rol, nivel, nombre
+ * - type: "refresh" solo en refresh tokens
+ */
+public record JwtClaims(
+        String cedula,
+        Long userId,
+        String rol,
+        String nivel,
+        String nombre,
+        String tipo,
+        Instant expiracion) {
+
+    /**
+     * Verifica si el token ya expiró en el instante dado.
+     */
+    public boolean estaExpirado(Instant ahora) {
+        return expiracion == null || !expiracion.isAfter(ahora);
+    }
+}
@@ -0,0 +1,83 @@
+package com.trabix.common.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Verificador de tokens JWT compartido por todos los servicios.
+ *
+ * RENDIMIENTO:
+ * - El parser se construye una sola vez (antes se creaba en cada llamada)
+ * - Cada token se parsea y se verifica la firma HMAC una sola vez
+ * - Los claims verificados se guardan en caché por SHA-256 del token,
+ *   hasta que el token expira: requests repetidos del mismo cliente no hacen criptografía
+ * - La caché (CacheTokens, la misma del gateway) es LRU acotada a maxEntradas:
+ *   insertar con la caché llena cuesta O(1)
+ */
+@Slf4j
+public class JwtVerifier {
+
+    private final JwtParser parser;
+    private final CacheTokens<JwtClaims> cache;
+
+    public JwtVerifier(String secret, int maxEntradas) {
+        this.parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        this.cache = new CacheTokens<>(maxEntradas, JwtClaims::expiracion);
+    }
+
+    /**
+     * Verifica firma y expiración del token y retorna sus claims.
+     * Retorna vacío si el token es inválido o expiró.
+     */
+    public Optional<JwtClaims> verificar(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        Instant ahora = Instant.now();
+        String clave = cache.clave(token);
+
+        JwtClaims enCache = cache.obtener(clave, ahora);
+        if (enCache != null) {
+            return enCache.estaExpirado(ahora) ? Optional.empty() : Optional.of(enCache);
+        }
+
+        JwtClaims claims;
+        try {
+            claims = parsear(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.warn("Token inválido: {}", e.getMessage());
+            return Optional.empty();
+        }
+
+        if (claims.estaExpirado(ahora)) {
+            return Optional.empty();
+        }
+
+        cache.guardar(clave, claims);
+        return Optional.of(claims);
+    }
+
+    private JwtClaims parsear(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        return new JwtClaims(
+                claims.getSubject(),
+                claims.get("userId", Long.class),
+                claims.get("rol", String.class),
+                claims.get("nivel", String.class),
+                claims.get("nombre", String.class),
+                claims.get("type", String.class),
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null
+        );
+    }
+}
@@ -0,0 +1,86 @@
+package com.trabix.common.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Deny-set local de usuarios que ya no pueden autenticarse (inactivos/desactivados).
+ *
+ * Permite construir el principal desde los claims del JWT sin consultar la BD
+ * en cada request: la única consulta es el refresco periódico de esta lista.
+ *
+ * Una sola implementación para todos los servicios: la registra
+ * UsuariosRevocadosAutoConfiguration con la consulta del repositorio del servicio
+ * (FuenteUsuariosRevocados). Requiere @EnableScheduling en la aplicación.
+ */
+@Slf4j
+public class UsuariosRevocados {
+
+    private final FuenteUsuariosRevocados fuente;
+    private final boolean principalDesdeToken;
+
+    /** null mientras no se haya cargado por primera vez */
+    private volatile Set<Long> revocados;
+
+    /**
+     * @param principalDesdeToken false = el principal se consulta siempre en la BD
+     *                            (trabix.security.principal-desde-token)
+     */
+    public UsuariosRevocados(FuenteUsuariosRevocados fuente, boolean principalDesdeToken) {
+        this.fuente = fuente;
+        this.principalDesdeToken = principalDesdeToken;
+    }
+
+    /**
+     * Refresca la lista. Si falla, se conserva la última lista cargada.
+     */
+    @Scheduled(fixedDelayString = "${trabix.security.revocados-refresco-ms:30000}")
+    public void refrescar() {
+        try {
+            Set<Long> nuevos = Set.copyOf(fuente.findIdsNoActivos());
+            if (revocados == null || !revocados.equals(nuevos)) {
+                log.debug("Usuarios revocados actualizados: {}", nuevos.size());
+            }
+            revocados = nuevos;
+        } catch (Exception e) {
+            log.warn("No se pudo refrescar la lista de usuarios revocados: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * true cuando la lista ya se cargó al menos una vez.
+     */
+    public boolean estaCargada() {
+        return revocados != null;
+    }
+
+    /**
+     * Verifica si el usuario está revocado.
+     * Sin lista cargada se considera revocado (el llamador debe consultar la BD).
+     */
+    public boolean estaRevocado(Long usuarioId) {
+        Set<Long> actual = revocados;
+        return actual == null || usuarioId == null || actual.contains(usuarioId);
+    }
+
+    /**
+     * Principal del request.
+     * Modo sin estado: construido desde los claims + deny-set local (sin SQL).
+     * Si el modo está desactivado, el token no trae los claims o la lista aún no cargó,
+     * se consulta la BD.
+     *
+     * @param desdeClaims usuario del servicio construido desde los claims (Usuario::desdeClaims)
+     * @param desdeBd     usuario activo consultado en la BD, o null
+     * @return null si el usuario está revocado o no está activo
+     */
+    public <U> U resolverPrincipal(JwtClaims claims, Function<JwtClaims, U> desdeClaims, Supplier<U> desdeBd) {
+        if (principalDesdeToken && claims.userId() != null && claims.rol() != null && estaCargada()) {
+            return estaRevocado(claims.userId()) ? null : desdeClaims.apply(claims);
+        }
+        return desdeBd.get();
+    }
+}
@@ -0,0 +1,24 @@
+package com.trabix.common.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Deny-set de usuarios revocados para todo servicio cuyo repositorio implemente
+ * FuenteUsuariosRevocados. Va después de los repositorios JPA para poder detectarlos.
+ */
+@AutoConfiguration(afterName = "org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration")
+public class UsuariosRevocadosAutoConfiguration {
+
+    @Bean
+    @ConditionalOnBean(FuenteUsuariosRevocados.class)
+    @ConditionalOnMissingBean
+    public UsuariosRevocados usuariosRevocados(
+            FuenteUsuariosRevocados fuente,
+            @Value("${trabix.security.principal-desde-token:true}") boolean principalDesdeToken) {
+        return new UsuariosRevocados(fuente, principalDesdeToken);
+    }
+}
@@ -0,0 +1,287 @@
+package com.trabix.common.dinero;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Paridad entre Dinero (centavos en long) y las fórmulas BigDecimal que usaba
+ * CalculadorCuadreService antes de migrar a Dinero.
+ *
+ * Las referencias copian las fórmulas anteriores tal cual (×0.50 / ×0.60 con
+ * setScale(0, HALF_UP), porcentaje/100 con divide(…, 0, HALF_UP) y "%,.0f").
+ * Entradas aleatorias con semilla fija, incluyendo negativos y empates .50.
+ */
+class DineroTest {
+
+    private static final BigDecimal CIEN = new BigDecimal("100");
+    private static final int CASOS = 20_000;
+    /** ±1.000 millones de pesos, en centavos */
+    private static final long MAXIMO = 100_000_000_000L;
+
+    private final Random random = new Random(20261016L);
+
+    // ==================== PRIMITIVAS ====================
+
+    @Test
+    void redondeoHalfUpEnBordes() {
+        long[] casos = {0, 1, 49, 50, 51, 99, 100, 149, 150, 250, -1, -49, -50, -51, -150, -250};
+        for (long centavos : casos) {
+            BigDecimal monto = BigDecimal.valueOf(centavos, 2);
+            assertIgual(monto.setScale(0, RoundingMode.HALF_UP), Dinero.redondearPesos(centavos), "redondear " + monto);
+            assertIgual(monto.multiply(new BigDecimal("0.50")).setScale(0, RoundingMode.HALF_UP),
+                    Dinero.porcentajePesos(centavos, 50), "50% de " + monto);
+            assertEquals(String.format("%,.0f", monto), Dinero.formatear(centavos), "formato " + monto);
+            // Misma escala que setScale(0, HALF_UP): el JSON de los DTOs no cambia
+            assertEquals(monto.setScale(0, RoundingMode.HALF_UP), Dinero.aBigDecimalPesos(Dinero.redondearPesos(centavos)),
+                    "pesos " + monto);
+        }
+        assertThrows(ArithmeticException.class, () -> Dinero.aBigDecimalPesos(150));
+    }
+
+    @Test
+    void porcentajesYFormatoAleatorios() {
+        int[] porcentajes = {40, 50, 60, 100};
+        for (int i = 0; i < CASOS; i++) {
+            int porcentaje = porcentajes[random.nextInt(porcentajes.length)];
+            long centavos = monto(porcentaje);
+            BigDecimal monto = BigDecimal.valueOf(centavos, 2);
+
+            BigDecimal esperado = monto.multiply(BigDecimal.valueOf(porcentaje)).divide(CIEN, 0, RoundingMode.HALF_UP);
+            assertIgual(esperado, Dinero.porcentajePesos(centavos, porcentaje), porcentaje + "% de " + monto);
+            assertIgual(monto.setScale(0, RoundingMode.HALF_UP), Dinero.redondearPesos(centavos), "redondear " + monto);
+            assertEquals(String.format("%,.0f", monto), Dinero.formatear(centavos), "formato " + monto);
+        }
+    }
+
+    @Test
+    void conversionExacta() {
+        for (int i = 0; i < CASOS; i++) {
+            long centavos = monto(100);
+            BigDecimal monto = BigDecimal.valueOf(centavos, 2);
+            assertEquals(centavos, Dinero.deBigDecimal(monto));
+            assertEquals(centavos, Dinero.deBigDecimal(monto.setScale(4)));
+            assertEquals(monto, Dinero.aBigDecimal(centavos));
+        }
+        assertEquals(0, Dinero.deBigDecimal(null));
+        assertThrows(ArithmeticException.class, () -> Dinero.deBigDecimal(new BigDecimal("1.005")));
+        assertThrows(ArithmeticException.class, () -> Dinero.sumar(Long.MAX_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> Dinero.porcentajePesos(Long.MAX_VALUE / 10, 60));
+    }
+
+    // ==================== FLUJOS DE CUADRE ====================
+
+    /**
+     * Lote de 2 tandas: T1 inversión Samuel (el excedente pasa a T2), T2 inversión vendedor + ganancias.
+     */
+    @Test
+    void loteDeDosTandas() {
+        for (int i = 0; i < CASOS; i++) {
+            Lote lote = lote();
+            long excedenteT1 = compararT1(lote, monto(100), monto(100));
+            compararT2(lote, monto(lote.porcentajeGananciaSamuel), excedenteT1);
+        }
+    }
+
+    /**
+     * Lote de 3 tandas: T1, T2 (inversión vendedor + ganancias excedentes) y T3 ganancias puras
+     * con el modelo del lote (60/40 o cascada 50/50).
+     */
+    @Test
+    void loteDeTresTandas() {
+        for (int i = 0; i < CASOS; i++) {
+            Lote lote = lote();
+            long excedenteT1 = compararT1(lote, monto(100), monto(100));
+            compararT2(lote, monto(lote.porcentajeGananciaSamuel), excedenteT1);
+            if (lote.modelo6040) {
+                comparar6040(monto(60));
+            } else {
+                compararCascada(monto(50), random.nextInt(8));
+            }
+        }
+    }
+
+    @Test
+    void cascadaConEmpatesYNegativos() {
+        for (int i = 0; i < CASOS; i++) {
+            long ganancias = random.nextBoolean() ? empate(50, random.nextLong(-MAXIMO, MAXIMO)) : monto(50);
+            compararCascada(ganancias, random.nextInt(12));
+        }
+    }
+
+    // ==================== COMPARACIÓN POR TANDA ====================
+
+    private long compararT1(Lote lote, long recaudado, long excedenteAnterior) {
+        BigDecimal disponibleRef = dec(recaudado).add(dec(excedenteAnterior));
+        BigDecimal inversionSamuelRef = lote.inversionTotalRef()
+                .multiply(new BigDecimal("0.50")).setScale(0, RoundingMode.HALF_UP);
+        BigDecimal excedenteRef = disponibleRef.compareTo(inversionSamuelRef) >= 0
+                ? disponibleRef.subtract(inversionSamuelRef) : BigDecimal.ZERO;
+
+        long disponible = Dinero.sumar(recaudado, excedenteAnterior);
+        long inversionSamuel = Dinero.porcentajePesos(lote.inversionTotal(), 50);
+        long excedente = disponible >= inversionSamuel ? Dinero.restar(disponible, inversionSamuel) : 0;
+
+        assertIgual(disponibleRef, disponible, "T1 disponible");
+        assertIgual(inversionSamuelRef, inversionSamuel, "T1 inversión Samuel");
+        assertIgual(excedenteRef, excedente, "T1 excedente");
+        assertEquals(String.format("%,.0f", inversionSamuelRef), Dinero.formatear(inversionSamuel));
+        return excedente;
+    }
+
+    private void compararT2(Lote lote, long recaudado, long excedenteAnterior) {
+        int porcentajeSamuel = lote.porcentajeGananciaSamuel;
+        BigDecimal disponibleRef = dec(recaudado).add(dec(excedenteAnterior));
+        BigDecimal inversionVendedorRef = lote.inversionTotalRef()
+                .multiply(new BigDecimal("0.50")).setScale(0, RoundingMode.HALF_UP);
+        BigDecimal montoVendedorRef;
+        BigDecimal debeTransferirRef = BigDecimal.ZERO;
+        BigDecimal gananciasRef = BigDecimal.ZERO;
+        if (disponibleRef.compareTo(inversionVendedorRef) >= 0) {
+            montoVendedorRef = inversionVendedorRef;
+            gananciasRef = disponibleRef.subtract(inversionVendedorRef);
+            if (gananciasRef.compareTo(BigDecimal.ZERO) > 0) {
+                BigDecimal gananciaSamuel = gananciasRef
+                        .multiply(BigDecimal.valueOf(porcentajeSamuel))
+                        .divide(CIEN, 0, RoundingMode.HALF_UP);
+                montoVendedorRef = montoVendedorRef.add(gananciasRef.subtract(gananciaSamuel));
+                debeTransferirRef = gananciaSamuel;
+            }
+        } else {
+            montoVendedorRef = disponibleRef;
+        }
+
+        long disponible = Dinero.sumar(recaudado, excedenteAnterior);
+        long inversionVendedor = Dinero.porcentajePesos(lote.inversionTotal(), 50);
+        long montoVendedor;
+        long debeTransferir = 0;
+        long ganancias = 0;
+        if (disponible >= inversionVendedor) {
+            montoVendedor = inversionVendedor;
+            ganancias = Dinero.restar(disponible, inversionVendedor);
+            if (ganancias > 0) {
+                long gananciaSamuel = Dinero.porcentajePesos(ganancias, porcentajeSamuel);
+                montoVendedor = Dinero.sumar(montoVendedor, Dinero.restar(ganancias, gananciaSamuel));
+                debeTransferir = gananciaSamuel;
+            }
+        } else {
+            montoVendedor = disponible;
+        }
+
+        assertIgual(inversionVendedorRef, inversionVendedor, "T2 inversión vendedor");
+        assertIgual(gananciasRef, ganancias, "T2 ganancias");
+        assertIgual(montoVendedorRef, montoVendedor, "T2 monto vendedor");
+        assertIgual(debeTransferirRef, debeTransferir, "T2 debe transferir");
+        assertEquals(String.format("%,.0f", montoVendedorRef), Dinero.formatear(montoVendedor));
+    }
+
+    private void comparar6040(long ganancias) {
+        BigDecimal gananciasRef = dec(ganancias);
+        BigDecimal montoVendedorRef = gananciasRef.multiply(new BigDecimal("0.60")).setScale(0, RoundingMode.HALF_UP);
+        BigDecimal montoSamuelRef = gananciasRef.subtract(montoVendedorRef);
+
+        long montoVendedor = Dinero.porcentajePesos(ganancias, 60);
+        long montoSamuel = Dinero.restar(ganancias, montoVendedor);
+
+        assertIgual(montoVendedorRef, montoVendedor, "60/40 vendedor de " + gananciasRef);
+        assertIgual(montoSamuelRef, montoSamuel, "60/40 Samuel de " + gananciasRef);
+    }
+
+    private void compararCascada(long ganancias, int niveles) {
+        BigDecimal gananciasRef = dec(ganancias);
+        List<BigDecimal> referencia = new ArrayList<>();
+        BigDecimal montoVendedorRef = gananciasRef.multiply(new BigDecimal("0.50")).setScale(0, RoundingMode.HALF_UP);
+        referencia.add(montoVendedorRef);
+        BigDecimal subiendoRef = gananciasRef.subtract(montoVendedorRef);
+        for (int i = 0; i < niveles; i++) {
+            BigDecimal montoNivel = subiendoRef.multiply(new BigDecimal("0.50")).setScale(0, RoundingMode.HALF_UP);
+            referencia.add(montoNivel);
+            subiendoRef = subiendoRef.subtract(montoNivel);
+        }
+        referencia.add(subiendoRef);
+
+        List<Long> calculado = new ArrayList<>();
+        long montoVendedor = Dinero.porcentajePesos(ganancias, 50);
+        calculado.add(montoVendedor);
+        long subiendo = Dinero.restar(ganancias, montoVendedor);
+        for (int i = 0; i < niveles; i++) {
+            long montoNivel = Dinero.porcentajePesos(subiendo, 50);
+            calculado.add(montoNivel);
+            subiendo = Dinero.restar(subiendo, montoNivel);
+        }
+        calculado.add(subiendo);
+
+        for (int i = 0; i < referencia.size(); i++) {
+            assertIgual(referencia.get(i), calculado.get(i), "cascada de " + gananciasRef + ", posición " + i);
+            assertEquals(String.format("%,.0f", referencia.get(i)), Dinero.formatear(calculado.get(i)));
+        }
+    }
+
+    // ==================== GENERADORES ====================
+
+    /**
+     * Monto aleatorio en centavos: un tercio son empates .50 para el porcentaje dado,
+     * un tercio pesos enteros y el resto cualquier valor (todos con signo).
+     */
+    private long monto(int porcentaje) {
+        long base = random.nextLong(-MAXIMO, MAXIMO);
+        return switch (random.nextInt(3)) {
+            case 0 -> empate(porcentaje, base);
+            case 1 -> base / 100 * 100;
+            default -> base;
+        };
+    }
+
+    /**
+     * Primer monto desde base cuyo porcentaje cae exactamente en medio peso.
+     */
+    private static long empate(int porcentaje, long base) {
+        long centavos = base;
+        while (Math.floorMod(centavos * porcentaje, 100 * Dinero.CENTAVOS_POR_PESO) != 50 * Dinero.CENTAVOS_POR_PESO) {
+            centavos++;
+        }
+        return centavos;
+    }
+
+    private Lote lote() {
+        long costoUnitario = random.nextLong(1, 1_000_000);
+        int cantidad = random.nextInt(1, 5_000);
+        return new Lote(costoUnitario, cantidad, random.nextBoolean());
+    }
+
+    private static BigDecimal dec(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    private static void assertIgual(BigDecimal esperado, long centavos, String caso) {
+        assertEquals(0, esperado.compareTo(Dinero.aBigDecimal(centavos)),
+                () -> caso + ": esperado " + esperado + ", obtenido " + Dinero.aBigDecimal(centavos));
+    }
+
+    /**
+     * Datos del lote que usan los cálculos (costo percibido unitario en centavos).
+     */
+    private record Lote(long costoUnitario, int cantidad, boolean modelo6040, int porcentajeGananciaSamuel) {
+
+        Lote(long costoUnitario, int cantidad, boolean modelo6040) {
+            this(costoUnitario, cantidad, modelo6040, modelo6040 ? 40 : 50);
+        }
+
+        /** Como Lote.getInversionPercibidaTotal */
+        BigDecimal inversionTotalRef() {
+            return dec(costoUnitario).multiply(BigDecimal.valueOf(cantidad));
+        }
+
+        /** Como CalculadorCuadreService.inversionTotal */
+        long inversionTotal() {
+            return Math.multiplyExact(Dinero.deBigDecimal(dec(costoUnitario)), cantidad);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.trabix.common.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Caché LRU de tokens verificados: tope, orden de descarte y expiración.
+ */
+class CacheTokensTest {
+
+    private static final Instant AHORA = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Instant VIGENTE = AHORA.plusSeconds(3600);
+
+    @Test
+    void llenaDescartaLaMenosUsada() {
+        CacheTokens<Instant> cache = new CacheTokens<>(3, exp -> exp);
+        cache.guardar("a", VIGENTE);
+        cache.guardar("b", VIGENTE);
+        cache.guardar("c", VIGENTE);
+
+        // "a" se usa: la menos usada pasa a ser "b"
+        assertNotNull(cache.obtener("a", AHORA));
+        cache.guardar("d", VIGENTE);
+
+        assertEquals(3, cache.tamano());
+        assertNull(cache.obtener("b", AHORA));
+        assertNotNull(cache.obtener("a", AHORA));
+        assertNotNull(cache.obtener("c", AHORA));
+        assertNotNull(cache.obtener("d", AHORA));
+    }
+
+    @Test
+    void nuncaSuperaElTope() {
+        CacheTokens<Instant> cache = new CacheTokens<>(1000, exp -> exp);
+        for (int i = 0; i < 50_000; i++) {
+            cache.guardar(cache.clave("token-" + i), VIGENTE);
+        }
+
+        assertEquals(1000, cache.tamano());
+        assertNotNull(cache.obtener(cache.clave("token-49999"), AHORA));
+        assertNull(cache.obtener(cache.clave("token-0"), AHORA));
+    }
+
+    @Test
+    void expiradaSeRetornaUnaVezYSeElimina() {
+        CacheTokens<Instant> cache = new CacheTokens<>(10, exp -> exp);
+        Instant expirada = AHORA.minusSeconds(1);
+        cache.guardar("a", expirada);
+
+        assertSame(expirada, cache.obtener("a", AHORA));
+        assertNull(cache.obtener("a", AHORA));
+        assertEquals(0, cache.tamano());
+    }
+
+    @Test
+    void sinEntradasNoGuarda() {
+        CacheTokens<Instant> cache = new CacheTokens<>(0, exp -> exp);
+        cache.guardar("a", VIGENTE);
+
+        assertEquals(0, cache.tamano());
+    }
+}
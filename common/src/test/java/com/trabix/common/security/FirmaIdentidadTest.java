@@ -0,0 +1,87 @@
+package com.trabix.common.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Formato v1 de la identidad X-User-*: lo firma el gateway y lo verifican los servicios.
+ *
+ * La firma esperada se calculó fuera de Java (HMAC-SHA256 de
+ * "v1|42|1012345678|VENDEDOR|N2|Jos%C3%A9+P%C3%A9rez|1893456000" con "secreto-prueba"):
+ * si cambia, los servicios desplegados dejan de aceptar la identidad del gateway.
+ */
+class FirmaIdentidadTest {
+
+    private static final String SECRETO = "secreto-prueba";
+
+    private final FirmaIdentidad firma = new FirmaIdentidad(SECRETO);
+
+    @Test
+    void firmaCoincideConElFormatoV1() {
+        Map<String, String> headers = firma.firmar(42L, "1012345678", "VENDEDOR", "N2", "José Pérez",
+                Instant.ofEpochSecond(1_893_456_000L));
+
+        assertEquals(FirmaIdentidad.HEADERS_IDENTIDAD, headers.keySet().stream().toList());
+        assertEquals("42", headers.get(FirmaIdentidad.HEADER_ID));
+        assertEquals("Jos%C3%A9+P%C3%A9rez", headers.get(FirmaIdentidad.HEADER_NOMBRE));
+        assertEquals("1893456000", headers.get(FirmaIdentidad.HEADER_EXPIRACION));
+        assertEquals("PBr8GM0tQdFMAfTDBrc1KrGdRv4qtMWI0Bl4o5dh58U", headers.get(FirmaIdentidad.HEADER_FIRMA));
+    }
+
+    @Test
+    void identidadFirmadaSeVerifica() {
+        Instant expiracion = Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS);
+        Map<String, String> headers = firma.firmar(42L, "1012345678", "VENDEDOR", "N2", "José Pérez", expiracion);
+
+        JwtClaims claims = new FirmaIdentidad(SECRETO).verificar(headers::get).orElseThrow();
+
+        assertEquals(new JwtClaims("1012345678", 42L, "VENDEDOR", "N2", "José Pérez", null, expiracion), claims);
+    }
+
+    @Test
+    void camposOpcionalesVaciosVuelvenComoNull() {
+        Map<String, String> headers = firma.firmar(7L, "123", "ADMIN", null, null,
+                Instant.now().plus(1, ChronoUnit.HOURS));
+
+        JwtClaims claims = firma.verificar(headers::get).orElseThrow();
+
+        assertNull(claims.nivel());
+        assertNull(claims.nombre());
+    }
+
+    @Test
+    void rechazaHeadersAlteradosOtroSecretoYExpirados() {
+        Map<String, String> headers = firma.firmar(42L, "1012345678", "VENDEDOR", "N2", "Ana",
+                Instant.now().plus(1, ChronoUnit.HOURS));
+
+        Map<String, String> alterados = new HashMap<>(headers);
+        alterados.put(FirmaIdentidad.HEADER_ROL, "ADMIN");
+        assertEquals(Optional.empty(), firma.verificar(alterados::get));
+
+        Map<String, String> sinFirma = new HashMap<>(headers);
+        sinFirma.remove(FirmaIdentidad.HEADER_FIRMA);
+        assertEquals(Optional.empty(), firma.verificar(sinFirma::get));
+
+        assertEquals(Optional.empty(), new FirmaIdentidad("otro-secreto").verificar(headers::get));
+
+        Map<String, String> expirados = firma.firmar(42L, "1012345678", "VENDEDOR", "N2", "Ana",
+                Instant.now().minus(1, ChronoUnit.SECONDS));
+        assertTrue(firma.verificar(expirados::get).isEmpty());
+    }
+
+    @Test
+    void sinSecretoNoArranca() {
+        assertThrows(IllegalStateException.class, () -> new FirmaIdentidad(""));
+        assertThrows(IllegalStateException.class, () -> new FirmaIdentidad(null));
+    }
+}
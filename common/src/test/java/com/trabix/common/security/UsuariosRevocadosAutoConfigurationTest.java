@@ -0,0 +1,59 @@
+package com.trabix.common.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Registro del deny-set compartido y resolución del principal (sin estado o desde la BD).
+ */
+class UsuariosRevocadosAutoConfigurationTest {
+
+    private static final JwtClaims ACTIVO = claims(1L);
+    private static final JwtClaims REVOCADO = claims(2L);
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(UsuariosRevocadosAutoConfiguration.class));
+
+    @Test
+    void sinFuenteNoSeRegistra() {
+        runner.run(contexto -> assertThat(contexto).doesNotHaveBean(UsuariosRevocados.class));
+    }
+
+    @Test
+    void conFuenteResuelveDesdeLosClaims() {
+        runner.withBean(FuenteUsuariosRevocados.class, () -> () -> List.of(2L))
+                .run(contexto -> {
+                    UsuariosRevocados revocados = contexto.getBean(UsuariosRevocados.class);
+
+                    // Sin lista cargada: siempre a la BD
+                    assertThat(revocados.resolverPrincipal(ACTIVO, c -> "token", () -> "bd")).isEqualTo("bd");
+
+                    revocados.refrescar();
+                    assertThat(revocados.resolverPrincipal(ACTIVO, c -> "token", () -> "bd")).isEqualTo("token");
+                    assertThat(revocados.resolverPrincipal(REVOCADO, c -> "token", () -> "bd")).isNull();
+                });
+    }
+
+    @Test
+    void modoSinEstadoDesactivadoConsultaLaBd() {
+        runner.withBean(FuenteUsuariosRevocados.class, () -> List::of)
+                .withPropertyValues("trabix.security.principal-desde-token=false")
+                .run(contexto -> {
+                    UsuariosRevocados revocados = contexto.getBean(UsuariosRevocados.class);
+                    revocados.refrescar();
+
+                    assertThat(revocados.resolverPrincipal(ACTIVO, c -> "token", () -> "bd")).isEqualTo("bd");
+                });
+    }
+
+    private static JwtClaims claims(Long userId) {
+        return new JwtClaims("100" + userId, userId, "VENDEDOR", "N2", "Usuario", null,
+                Instant.now().plusSeconds(3600));
+    }
+}
@@ -1,5 +1,6 @@
 package com.trabix.document.entity;
 
+import com.trabix.common.security.JwtClaims;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -43,4 +44,19 @@ public class Usuario {
     public boolean esAdmin() {
         return "ADMIN".equals(this.rol);
     }
+
+    /**
+     * Construye el usuario autenticado desde los claims del JWT, sin consultar la BD.
+     * Instancia no gestionada por JPA: solo identifica al usuario del request.
+     */
+    public static Usuario desdeClaims(JwtClaims claims) {
+        Usuario usuario = new Usuario();
+        usuario.id = claims.userId();
+        usuario.cedula = claims.cedula();
+        usuario.nombre = claims.nombre();
+        usuario.nivel = claims.nivel();
+        usuario.rol = claims.rol();
+        usuario.estado = "ACTIVO";
+        return usuario;
+    }
 }
@@ -2,6 +2,7 @@ package com.trabix.finance;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Servicio de finanzas TRABIX.
@@ -18,6 +19,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * - Todo se gestiona manualmente por el ADMIN
  */
 @SpringBootApplication(scanBasePackages = {"com.trabix.finance", "com.trabix.common"})
+@EnableScheduling
 public class FinanceServiceApplication {
 
     public static void main(String[] args) {
@@ -1,5 +1,6 @@
 package com.trabix.finance.entity;
 
+import com.trabix.common.security.JwtClaims;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -63,4 +64,19 @@ public class Usuario {
     public String getNombreCompleto() {
         return String.format("%s (%s)", this.nombre, this.cedula);
     }
+
+    /**
+     * Construye el usuario autenticado desde los claims del JWT, sin consultar la BD.
+     * Instancia no gestionada por JPA: solo identifica al usuario del request.
+     */
+    public static Usuario desdeClaims(JwtClaims claims) {
+        Usuario usuario = new Usuario();
+        usuario.id = claims.userId();
+        usuario.cedula = claims.cedula();
+        usuario.nombre = claims.nombre();
+        usuario.nivel = claims.nivel();
+        usuario.rol = claims.rol();
+        usuario.estado = "ACTIVO";
+        return usuario;
+    }
 }
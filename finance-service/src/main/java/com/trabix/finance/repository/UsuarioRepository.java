@@ -1,17 +1,27 @@
 package com.trabix.finance.repository;
 
+import com.trabix.common.security.FuenteUsuariosRevocados;
 import com.trabix.finance.entity.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
+public interface UsuarioRepository extends JpaRepository<Usuario, Long>, FuenteUsuariosRevocados {
     
     Optional<Usuario> findByCedula(String cedula);
     
     Optional<Usuario> findByCedulaAndEstado(String cedula, String estado);
     
     boolean existsByCedula(String cedula);
+
+    /**
+     * IDs de usuarios no activos (deny-set de autenticación).
+     */
+    @Override
+    @Query("SELECT u.id FROM Usuario u WHERE u.estado <> 'ACTIVO'")
+    List<Long> findIdsNoActivos();
 }
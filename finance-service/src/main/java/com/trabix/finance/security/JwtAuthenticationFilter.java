@@ -1,5 +1,7 @@
 package com.trabix.finance.security;
 
+import com.trabix.common.security.JwtClaims;
+import com.trabix.common.security.UsuariosRevocados;
 import com.trabix.finance.entity.Usuario;
 import com.trabix.finance.repository.UsuarioRepository;
 import jakarta.servlet.FilterChain;
@@ -29,6 +31,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UsuarioRepository usuarioRepository;
+    private final UsuariosRevocados usuariosRevocados;
 
     @Override
     protected void doFilterInternal(
@@ -36,23 +39,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain) throws ServletException, IOException {
 
+        // Identidad firmada por el gateway: evita parsear el JWT en cada servicio
+        final JwtClaims identidad = jwtService.verificarIdentidad(request).orElse(null);
         final String authHeader = request.getHeader("Authorization");
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (identidad == null && (authHeader == null || !authHeader.startsWith("Bearer "))) {
             filterChain.doFilter(request, response);
             return;
         }
 
         try {
-            final String jwt = authHeader.substring(7);
+            final JwtClaims claims = identidad != null
+                    ? identidad
+                    : jwtService.verificar(authHeader.substring(7)).orElse(null);
 
-            if (jwtService.esTokenValido(jwt)) {
-                final String cedula = jwtService.extraerCedula(jwt);
-                final String rol = jwtService.extraerRol(jwt);
+            if (claims != null) {
+                final String cedula = claims.cedula();
+                final String rol = claims.rol();
 
                 if (cedula != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    Usuario usuario = usuarioRepository.findByCedulaAndEstado(cedula, "ACTIVO")
-                            .orElse(null);
+                    Usuario usuario = resolverUsuario(claims);
 
                     if (usuario != null) {
                         UsernamePasswordAuthenticationToken authToken =
@@ -75,4 +81,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Obtiene el usuario autenticado: desde los claims + deny-set (sin SQL) o, si el modo
+     * sin estado no aplica, desde la BD (UsuariosRevocados.resolverPrincipal).
+     */
+    private Usuario resolverUsuario(JwtClaims claims) {
+        return usuariosRevocados.resolverPrincipal(claims, Usuario::desdeClaims,
+                () -> usuarioRepository.findByCedulaAndEstado(claims.cedula(), "ACTIVO").orElse(null));
+    }
 }
@@ -2,6 +2,7 @@ package com.trabix.gateway;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * API Gateway TRABIX.
@@ -30,6 +31,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * ╚═══════════════════════════════════════════════════════════════╝
  */
 @SpringBootApplication
+@EnableScheduling
 public class GatewayServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,148 @@
+package com.trabix.gateway.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Almacén en memoria de respuestas GET cacheadas por usuario.
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * - Clave: usuario + familia + path + query (ver CacheRespuestaGatewayFilterFactory)
+ * - Acotado por bytes (max-bytes): al superarlo se descartan las menos usadas (LRU)
+ * - Las respuestas mayores a max-bytes-entrada no se guardan
+ * - Grupo = usuario + familia: una escritura del usuario invalida todo su grupo
+ * - Cada grupo tiene una generación: una respuesta que empezó antes de una
+ *   invalidación no se guarda al terminar (evita guardar datos ya viejos)
+ *
+ * Las secciones críticas son cortas (sin I/O): se sincroniza sobre el almacén.
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+@Component
+public class CacheRespuestas {
+
+    /** Bytes estimados por entrada además del cuerpo (clave, headers, nodos) */
+    private static final int SOBRECARGA_ENTRADA = 256;
+
+    private final long maxBytes;
+    private final int maxBytesEntrada;
+
+    /** Orden de acceso: la primera es la menos usada */
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Set<String>> clavesPorGrupo = new HashMap<>();
+    private final Map<String, Long> generaciones = new HashMap<>();
+    private long bytes = 0;
+
+    public CacheRespuestas(
+            @Value("${trabix.gateway.cache.max-bytes:16777216}") long maxBytes,
+            @Value("${trabix.gateway.cache.max-bytes-entrada:262144}") int maxBytesEntrada) {
+        this.maxBytes = maxBytes;
+        this.maxBytesEntrada = maxBytesEntrada;
+    }
+
+    /**
+     * Respuesta vigente para la clave; null si no hay o expiró.
+     */
+    public synchronized Entrada obtener(String clave, long ahora) {
+        Entrada entrada = entradas.get(clave);
+        if (entrada == null) {
+            return null;
+        }
+        if (entrada.expira() <= ahora) {
+            quitar(clave);
+            return null;
+        }
+        return entrada;
+    }
+
+    /**
+     * Generación actual del grupo; se pasa a guardar() al terminar la respuesta.
+     */
+    public synchronized long generacion(String grupo) {
+        return generaciones.getOrDefault(grupo, 0L);
+    }
+
+    /**
+     * Guarda la respuesta si el grupo no se invalidó desde que empezó el request.
+     */
+    public synchronized boolean guardar(String clave, Entrada entrada, long generacion) {
+        if (entrada.cuerpo().length > maxBytesEntrada
+                || generaciones.getOrDefault(entrada.grupo(), 0L) != generacion) {
+            return false;
+        }
+
+        quitar(clave);
+        entradas.put(clave, entrada);
+        clavesPorGrupo.computeIfAbsent(entrada.grupo(), g -> new HashSet<>()).add(clave);
+        bytes += tamano(clave, entrada);
+
+        Iterator<Map.Entry<String, Entrada>> it = entradas.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Entrada> menosUsada = it.next();
+            it.remove();
+            desindexar(menosUsada.getKey(), menosUsada.getValue());
+        }
+        return true;
+    }
+
+    /**
+     * Descarta las respuestas del grupo (usuario + familia).
+     */
+    public synchronized int invalidar(String grupo) {
+        generaciones.merge(grupo, 1L, Long::sum);
+        Set<String> claves = clavesPorGrupo.remove(grupo);
+        if (claves == null) {
+            return 0;
+        }
+        for (String clave : claves) {
+            Entrada entrada = entradas.remove(clave);
+            if (entrada != null) {
+                bytes -= tamano(clave, entrada);
+            }
+        }
+        return claves.size();
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    private void quitar(String clave) {
+        Entrada anterior = entradas.remove(clave);
+        if (anterior != null) {
+            desindexar(clave, anterior);
+        }
+    }
+
+    private void desindexar(String clave, Entrada entrada) {
+        bytes -= tamano(clave, entrada);
+        Set<String> claves = clavesPorGrupo.get(entrada.grupo());
+        if (claves != null) {
+            claves.remove(clave);
+            if (claves.isEmpty()) {
+                clavesPorGrupo.remove(entrada.grupo());
+            }
+        }
+    }
+
+    private static long tamano(String clave, Entrada entrada) {
+        return (long) entrada.cuerpo().length + clave.length() * 2L + SOBRECARGA_ENTRADA;
+    }
+
+    /**
+     * Respuesta cacheada (solo 200).
+     *
+     * @param expira instante (ms epoch) en que deja de ser válida
+     */
+    public record Entrada(String grupo, MediaType contentType, byte[] cuerpo, String etag, long expira) {
+    }
+}
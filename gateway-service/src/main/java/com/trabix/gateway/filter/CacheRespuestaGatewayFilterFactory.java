@@ -0,0 +1,215 @@
+package com.trabix.gateway.filter;
+
+import com.trabix.gateway.cache.CacheRespuestas;
+import com.trabix.gateway.security.VerificadorToken;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Caché de respuestas por usuario para endpoints GET consultados con polling
+ * (stock, contadores de notificaciones, cuadres pendientes...).
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * USO (por ruta, después de StripPrefix: los paths son los del servicio):
+ *   - name: CacheRespuesta
+ *     args:
+ *       ttl: 5s
+ *       rutas: /ventas/me/stock, /ventas/pendientes/count
+ *       familia: ventas        # opcional, por defecto el id de la ruta
+ *
+ * - Solo requests con identidad verificada (IdentidadFilter); clave = usuario + familia + path + query
+ * - Solo se guardan respuestas 200 sin Cache-Control: no-store
+ * - ETag (SHA-256 del cuerpo) en todas las respuestas; If-None-Match coincidente → 304
+ * - POST/PUT/PATCH/DELETE del usuario en una ruta de la familia invalida su grupo
+ *   antes y después de la escritura. Cambios hechos por otro usuario expiran por TTL
+ * - X-Cache: HIT / MISS
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+@Component
+public class CacheRespuestaGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<CacheRespuestaGatewayFilterFactory.Config> {
+
+    private static final String HEADER_CACHE = "X-Cache";
+    private static final Set<HttpMethod> ESCRITURAS =
+            Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+
+    private final CacheRespuestas cache;
+
+    public CacheRespuestaGatewayFilterFactory(CacheRespuestas cache) {
+        super(Config.class);
+        this.cache = cache;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        List<PathPattern> patrones = new ArrayList<>();
+        for (String ruta : config.getRutas()) {
+            patrones.add(PathPatternParser.defaultInstance.parse(ruta.trim()));
+        }
+        long ttlMs = config.getTtl().toMillis();
+
+        return (exchange, chain) -> {
+            VerificadorToken.Identidad identidad = exchange.getAttribute(IdentidadFilter.IDENTIDAD);
+            if (identidad == null) {
+                return chain.filter(exchange);
+            }
+
+            ServerHttpRequest request = exchange.getRequest();
+            String grupo = identidad.userId() + "|" + familia(config, exchange);
+
+            if (ESCRITURAS.contains(request.getMethod())) {
+                cache.invalidar(grupo);
+                return chain.filter(exchange).doFinally(senal -> cache.invalidar(grupo));
+            }
+
+            if (!HttpMethod.GET.equals(request.getMethod())
+                    || patrones.stream().noneMatch(p -> p.matches(request.getPath().pathWithinApplication()))) {
+                return chain.filter(exchange);
+            }
+
+            String query = request.getURI().getRawQuery();
+            String clave = grupo + "|" + request.getPath().value() + (query != null ? "?" + query : "");
+
+            CacheRespuestas.Entrada entrada = cache.obtener(clave, System.currentTimeMillis());
+            if (entrada != null) {
+                return responderDesdeCache(exchange, entrada);
+            }
+
+            long generacion = cache.generacion(grupo);
+            ServerHttpResponse captura = new Captura(exchange, clave, grupo, generacion, ttlMs);
+            return chain.filter(exchange.mutate().response(captura).build());
+        };
+    }
+
+    private static String familia(Config config, ServerWebExchange exchange) {
+        if (config.getFamilia() != null && !config.getFamilia().isBlank()) {
+            return config.getFamilia();
+        }
+        Route ruta = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return ruta != null ? ruta.getId() : "";
+    }
+
+    private Mono<Void> responderDesdeCache(ServerWebExchange exchange, CacheRespuestas.Entrada entrada) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.setETag(entrada.etag());
+        headers.setCacheControl("private, no-cache");
+        headers.set(HEADER_CACHE, "HIT");
+
+        if (coincideEtag(exchange, entrada.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+
+        response.setStatusCode(HttpStatus.OK);
+        if (entrada.contentType() != null) {
+            headers.setContentType(entrada.contentType());
+        }
+        headers.setContentLength(entrada.cuerpo().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(entrada.cuerpo())));
+    }
+
+    private static boolean coincideEtag(ServerWebExchange exchange, String etag) {
+        return exchange.getRequest().getHeaders().getIfNoneMatch().stream()
+                .anyMatch(valor -> valor.equals(etag) || valor.equals("W/" + etag) || valor.equals("*"));
+    }
+
+    private static String calcularEtag(byte[] cuerpo) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(cuerpo);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Captura el cuerpo de la respuesta del servicio para guardarlo y calcular el ETag.
+     */
+    private final class Captura extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+        private final String clave;
+        private final String grupo;
+        private final long generacion;
+        private final long ttlMs;
+
+        Captura(ServerWebExchange exchange, String clave, String grupo, long generacion, long ttlMs) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+            this.clave = clave;
+            this.grupo = grupo;
+            this.generacion = generacion;
+            this.ttlMs = ttlMs;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!HttpStatus.OK.equals(getStatusCode())) {
+                return super.writeWith(body);
+            }
+
+            return DataBufferUtils.join(body).flatMap(buffer -> {
+                byte[] cuerpo = new byte[buffer.readableByteCount()];
+                buffer.read(cuerpo);
+                DataBufferUtils.release(buffer);
+
+                HttpHeaders headers = getHeaders();
+                String etag = calcularEtag(cuerpo);
+                headers.setETag(etag);
+                headers.set(HEADER_CACHE, "MISS");
+
+                String cacheControl = headers.getCacheControl();
+                if (cacheControl == null || !cacheControl.contains("no-store")) {
+                    cache.guardar(clave, new CacheRespuestas.Entrada(grupo, headers.getContentType(), cuerpo,
+                            etag, System.currentTimeMillis() + ttlMs), generacion);
+                }
+
+                if (coincideEtag(exchange, etag)) {
+                    setStatusCode(HttpStatus.NOT_MODIFIED);
+                    headers.remove(HttpHeaders.CONTENT_LENGTH);
+                    headers.remove(HttpHeaders.TRANSFER_ENCODING);
+                    return getDelegate().setComplete();
+                }
+                return super.writeWith(Mono.just(bufferFactory().wrap(cuerpo)));
+            });
+        }
+    }
+
+    @Data
+    public static class Config {
+        /** Tiempo de vida de cada respuesta */
+        private Duration ttl = Duration.ofSeconds(5);
+        /** Patrones de path (del servicio) que se cachean */
+        private List<String> rutas = new ArrayList<>();
+        /** Familia de recursos; por defecto el id de la ruta */
+        private String familia;
+    }
+}
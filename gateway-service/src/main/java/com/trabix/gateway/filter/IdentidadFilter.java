@@ -0,0 +1,65 @@
+package com.trabix.gateway.filter;
+
+import com.trabix.common.security.FirmaIdentidad;
+import com.trabix.gateway.security.VerificadorToken;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Filtro global que verifica el JWT una sola vez y propaga la identidad firmada.
+ *
+ * - Siempre elimina los X-User-* que envía el cliente
+ * - Con un Bearer válido agrega X-User-Id, X-User-Rol, X-User-Nivel, ... y X-User-Firma
+ * - Sin token o con token inválido el request sigue sin identidad:
+ *   cada servicio decide si la ruta es pública (login) o responde 401
+ * - El header Authorization se conserva para los servicios que aún verifican el JWT
+ *
+ * La identidad queda en el atributo IDENTIDAD del exchange para los filtros posteriores.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdentidadFilter implements GlobalFilter, Ordered {
+
+    public static final String IDENTIDAD = IdentidadFilter.class.getName() + ".identidad";
+    public static final int ORDEN = 0;
+
+    private static final String BEARER = "Bearer ";
+
+    private final VerificadorToken verificador;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        VerificadorToken.Identidad identidad = authHeader != null && authHeader.startsWith(BEARER)
+                ? verificador.verificar(authHeader.substring(BEARER.length())).orElse(null)
+                : null;
+
+        ServerHttpRequest mutado = request.mutate()
+                .headers(headers -> {
+                    FirmaIdentidad.HEADERS_IDENTIDAD.forEach(headers::remove);
+                    if (identidad != null) {
+                        identidad.headers().forEach(headers::set);
+                    }
+                })
+                .build();
+
+        if (identidad != null) {
+            exchange.getAttributes().put(IDENTIDAD, identidad);
+        }
+        return chain.filter(exchange.mutate().request(mutado).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDEN;
+    }
+}
@@ -0,0 +1,196 @@
+package com.trabix.gateway.filter;
+
+import com.trabix.gateway.limite.AlmacenCubetas;
+import com.trabix.gateway.security.VerificadorToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Control de admisión del gateway: limitación por cubetas de tokens y descarte de carga.
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * ORDEN DE VERIFICACIÓN (la primera que falla responde 429 con Retry-After):
+ * 1. Concurrencia: más de max-concurrentes requests en curso → se descarta
+ *    sin consumir tokens (protege los hilos BCrypt de auth-service y la BD)
+ * 2. Cubeta por usuario (identidad verificada) o, sin identidad, por IP
+ * 3. Cubeta por ruta: por defecto trabix.gateway.limites.ruta.*, o la metadata
+ *    de la ruta (limite-capacidad / limite-por-segundo), p.ej. auth-service para el login
+ *
+ * MÉTRICAS (actuator):
+ * - gateway.admision{resultado=admitido|rechazado, motivo, ruta}
+ * - gateway.admision.en_curso
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+@Component
+public class LimiteSolicitudesFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDEN = IdentidadFilter.ORDEN + 1;
+
+    private static final String METADATA_CAPACIDAD = "limite-capacidad";
+    private static final String METADATA_POR_SEGUNDO = "limite-por-segundo";
+
+    private static final String MOTIVO_CONCURRENCIA = "concurrencia";
+    private static final String MOTIVO_USUARIO = "usuario";
+    private static final String MOTIVO_IP = "ip";
+    private static final String MOTIVO_RUTA = "ruta";
+    private static final String ADMITIDO = "admitido";
+
+    private final AlmacenCubetas almacen;
+    private final MeterRegistry registry;
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final Map<String, Counter> contadores = new ConcurrentHashMap<>();
+    private final Map<String, AlmacenCubetas.Limite> limitesRuta = new ConcurrentHashMap<>();
+
+    private final int maxConcurrentes;
+    private final AlmacenCubetas.Limite limiteUsuario;
+    private final AlmacenCubetas.Limite limiteIp;
+    private final AlmacenCubetas.Limite limiteRuta;
+
+    public LimiteSolicitudesFilter(
+            AlmacenCubetas almacen,
+            MeterRegistry registry,
+            @Value("${trabix.gateway.limites.max-concurrentes:500}") int maxConcurrentes,
+            @Value("${trabix.gateway.limites.usuario.capacidad:40}") double usuarioCapacidad,
+            @Value("${trabix.gateway.limites.usuario.por-segundo:10}") double usuarioPorSegundo,
+            @Value("${trabix.gateway.limites.ip.capacidad:100}") double ipCapacidad,
+            @Value("${trabix.gateway.limites.ip.por-segundo:30}") double ipPorSegundo,
+            @Value("${trabix.gateway.limites.ruta.capacidad:2000}") double rutaCapacidad,
+            @Value("${trabix.gateway.limites.ruta.por-segundo:1000}") double rutaPorSegundo) {
+        this.almacen = almacen;
+        this.registry = registry;
+        this.maxConcurrentes = maxConcurrentes;
+        this.limiteUsuario = new AlmacenCubetas.Limite(usuarioCapacidad, usuarioPorSegundo);
+        this.limiteIp = new AlmacenCubetas.Limite(ipCapacidad, ipPorSegundo);
+        this.limiteRuta = new AlmacenCubetas.Limite(rutaCapacidad, rutaPorSegundo);
+        registry.gauge("gateway.admision.en_curso", enCurso);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route ruta = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String rutaId = ruta != null ? ruta.getId() : "sin-ruta";
+
+        if (enCurso.incrementAndGet() > maxConcurrentes) {
+            enCurso.decrementAndGet();
+            return rechazar(exchange, rutaId, MOTIVO_CONCURRENCIA, 1000);
+        }
+
+        VerificadorToken.Identidad identidad = exchange.getAttribute(IdentidadFilter.IDENTIDAD);
+        String motivoCliente = identidad != null ? MOTIVO_USUARIO : MOTIVO_IP;
+        String claveCliente = identidad != null
+                ? "usuario:" + identidad.userId()
+                : "ip:" + ipCliente(exchange);
+        AlmacenCubetas.Limite limiteCliente = identidad != null ? limiteUsuario : limiteIp;
+
+        return consumir(claveCliente, limiteCliente)
+                .flatMap(cliente -> {
+                    if (!cliente.admitido()) {
+                        return Mono.just(new Decision(motivoCliente, cliente));
+                    }
+                    return consumir("ruta:" + rutaId, limiteDeRuta(ruta))
+                            .map(r -> new Decision(MOTIVO_RUTA, r));
+                })
+                .flatMap(decision -> {
+                    if (!decision.consumo().admitido()) {
+                        return rechazar(exchange, rutaId, decision.motivo(), decision.consumo().esperaMs());
+                    }
+                    contador(ADMITIDO, "-", rutaId).increment();
+                    return chain.filter(exchange);
+                })
+                // Un solo punto de liberación: completado, error o cancelación del cliente
+                .doFinally(senal -> enCurso.decrementAndGet());
+    }
+
+    private Mono<AlmacenCubetas.Consumo> consumir(String clave, AlmacenCubetas.Limite limite) {
+        if (!limite.estaActivo()) {
+            return Mono.just(AlmacenCubetas.Consumo.ADMITIDO);
+        }
+        // Si el almacén falla (p.ej. uno remoto) se admite: el límite no debe tumbar el gateway
+        return almacen.consumir(clave, limite)
+                .onErrorResume(e -> {
+                    log.warn("Error en almacén de cubetas ({}): {}", clave, e.getMessage());
+                    return Mono.just(AlmacenCubetas.Consumo.ADMITIDO);
+                });
+    }
+
+    private AlmacenCubetas.Limite limiteDeRuta(Route ruta) {
+        if (ruta == null) {
+            return limiteRuta;
+        }
+        return limitesRuta.computeIfAbsent(ruta.getId(), id -> {
+            Map<String, Object> metadata = ruta.getMetadata();
+            Object capacidad = metadata.get(METADATA_CAPACIDAD);
+            Object porSegundo = metadata.get(METADATA_POR_SEGUNDO);
+            if (capacidad == null || porSegundo == null) {
+                return limiteRuta;
+            }
+            return new AlmacenCubetas.Limite(
+                    Double.parseDouble(String.valueOf(capacidad)),
+                    Double.parseDouble(String.valueOf(porSegundo)));
+        });
+    }
+
+    private Mono<Void> rechazar(ServerWebExchange exchange, String rutaId, String motivo, long esperaMs) {
+        contador("rechazado", motivo, rutaId).increment();
+        long segundos = Math.max(1, (esperaMs + 999) / 1000);
+        log.debug("Solicitud rechazada ({}) en {} - reintentar en {}s", motivo, rutaId, segundos);
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(segundos));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        String cuerpo = "{\"exito\":false,\"error\":{\"codigo\":\"DEMASIADAS_SOLICITUDES\","
+                + "\"mensaje\":\"Demasiadas solicitudes. Intente de nuevo en " + segundos + " s\"},"
+                + "\"timestamp\":\"" + LocalDateTime.now() + "\"}";
+        return response.writeWith(Mono.just(
+                response.bufferFactory().wrap(cuerpo.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private Counter contador(String resultado, String motivo, String rutaId) {
+        return contadores.computeIfAbsent(resultado + "|" + motivo + "|" + rutaId,
+                k -> Counter.builder("gateway.admision")
+                        .tag("resultado", resultado)
+                        .tag("motivo", motivo)
+                        .tag("ruta", rutaId)
+                        .register(registry));
+    }
+
+    private static String ipCliente(ServerWebExchange exchange) {
+        InetSocketAddress remota = exchange.getRequest().getRemoteAddress();
+        if (remota == null || remota.getAddress() == null) {
+            return "desconocida";
+        }
+        return remota.getAddress().getHostAddress();
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDEN;
+    }
+
+    private record Decision(String motivo, AlmacenCubetas.Consumo consumo) {
+    }
+}
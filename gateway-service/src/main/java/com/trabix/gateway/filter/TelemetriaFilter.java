@@ -0,0 +1,101 @@
+package com.trabix.gateway.filter;
+
+import com.trabix.gateway.security.VerificadorToken;
+import com.trabix.gateway.telemetria.RegistroAccesos;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtro global de telemetría: latencia por ruta y estado, y log de accesos.
+ * Reemplaza a LoggingFilter (dos log.info síncronos por request en el event loop).
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * MÉTRICAS (/actuator/prometheus):
+ * - gateway.solicitudes{ruta, metodo, estado}: timer con histograma (buckets para
+ *   histogram_quantile en Prometheus), medido con System.nanoTime()
+ * - Cancelaciones del cliente se registran con estado 499
+ *
+ * LOG DE ACCESOS:
+ * - Se delega en RegistroAccesos (cola + hilo propio, por lotes y con muestreo de 2xx)
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Component
+public class TelemetriaFilter implements GlobalFilter, Ordered {
+
+    private static final int ESTADO_CANCELADO = 499;
+
+    private final MeterRegistry registry;
+    private final RegistroAccesos registroAccesos;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public TelemetriaFilter(MeterRegistry registry, RegistroAccesos registroAccesos) {
+        this.registry = registry;
+        this.registroAccesos = registroAccesos;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long inicio = System.nanoTime();
+        return chain.filter(exchange).doFinally(senal -> registrar(exchange, inicio, senal));
+    }
+
+    private void registrar(ServerWebExchange exchange, long inicio, SignalType senal) {
+        long duracion = System.nanoTime() - inicio;
+
+        ServerHttpRequest request = exchange.getRequest();
+        String metodo = request.getMethod().name();
+        Route ruta = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String rutaId = ruta != null ? ruta.getId() : "sin-ruta";
+
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        int estado = senal == SignalType.CANCEL ? ESTADO_CANCELADO : status != null ? status.value() : 200;
+
+        timer(rutaId, metodo, estado).record(duracion, TimeUnit.NANOSECONDS);
+
+        VerificadorToken.Identidad identidad = exchange.getAttribute(IdentidadFilter.IDENTIDAD);
+        InetSocketAddress remota = request.getRemoteAddress();
+        registroAccesos.registrar(new RegistroAccesos.Acceso(
+                metodo,
+                request.getURI().getRawPath(),
+                estado,
+                duracion,
+                rutaId,
+                remota != null && remota.getAddress() != null ? remota.getAddress().getHostAddress() : "unknown",
+                identidad != null ? identidad.userId() : null));
+    }
+
+    private Timer timer(String rutaId, String metodo, int estado) {
+        return timers.computeIfAbsent(rutaId + "|" + metodo + "|" + estado,
+                k -> Timer.builder("gateway.solicitudes")
+                        .description("Latencia de las solicitudes por ruta, método y estado")
+                        .tag("ruta", rutaId)
+                        .tag("metodo", metodo)
+                        .tag("estado", String.valueOf(estado))
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(registry));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE; // Ejecutar primero: mide también los 429 del control de admisión
+    }
+}
@@ -0,0 +1,40 @@
+package com.trabix.gateway.limite;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Almacén de cubetas de tokens para el control de admisión.
+ *
+ * La implementación por defecto es en memoria (AlmacenCubetasMemoria): cada instancia
+ * del gateway limita por separado. Para compartir los límites entre instancias se puede
+ * implementar sobre el Redis de docker-compose (por ejemplo, un script Lua que recargue
+ * y consuma en una sola operación) y registrarla como bean @Primary.
+ */
+public interface AlmacenCubetas {
+
+    /**
+     * Intenta consumir un token de la cubeta indicada.
+     *
+     * @param clave  identifica la cubeta (p.ej. "usuario:15", "ip:10.0.0.3", "ruta:auth-service")
+     * @param limite capacidad y recarga de la cubeta
+     */
+    Mono<Consumo> consumir(String clave, Limite limite);
+
+    /**
+     * Capacidad (ráfaga máxima) y tokens recargados por segundo.
+     */
+    record Limite(double capacidad, double porSegundo) {
+
+        public boolean estaActivo() {
+            return capacidad > 0 && porSegundo > 0;
+        }
+    }
+
+    /**
+     * @param esperaMs tiempo hasta que haya un token disponible (0 si se admitió)
+     */
+    record Consumo(boolean admitido, long esperaMs) {
+
+        public static final Consumo ADMITIDO = new Consumo(true, 0);
+    }
+}
@@ -0,0 +1,113 @@
+package com.trabix.gateway.limite;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cubetas de tokens en memoria (una instancia del gateway).
+ *
+ * - Cada cubeta se recarga de forma perezosa al consumir (sin hilos por cubeta)
+ * - Solo se descartan cubetas llenas (inactivas al menos capacidad/recarga): descartarlas
+ *   equivale a conservarlas. Una cubeta con tokens consumidos nunca se borra
+ * - Si se supera max-cubetas (p.ej. muchas IPs distintas) las claves nuevas comparten una
+ *   cubeta de desborde por límite y se programa una purga fuera del event loop
+ */
+@Slf4j
+@Component
+public class AlmacenCubetasMemoria implements AlmacenCubetas {
+
+    private final Map<String, Cubeta> cubetas = new ConcurrentHashMap<>();
+    /** Cubetas compartidas por las claves que no caben, una por límite */
+    private final Map<Limite, Cubeta> desborde = new ConcurrentHashMap<>();
+    private final AtomicBoolean purgaPendiente = new AtomicBoolean();
+
+    @Value("${trabix.gateway.limites.max-cubetas:100000}")
+    private int maxCubetas;
+
+    @Override
+    public Mono<Consumo> consumir(String clave, Limite limite) {
+        long ahora = System.nanoTime();
+        Cubeta cubeta = cubetas.get(clave);
+        if (cubeta == null) {
+            if (cubetas.size() >= maxCubetas) {
+                programarPurga();
+                cubeta = desborde.computeIfAbsent(limite, l -> new Cubeta(l.capacidad(), ahora));
+            } else {
+                cubeta = cubetas.computeIfAbsent(clave, c -> new Cubeta(limite.capacidad(), ahora));
+            }
+        }
+        return Mono.just(cubeta.consumir(limite, ahora));
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgarLlenas() {
+        int purgadas = purgar(System.nanoTime());
+        if (purgadas > 0) {
+            log.debug("Cubetas llenas descartadas: {} (quedan {})", purgadas, cubetas.size());
+        }
+    }
+
+    private void programarPurga() {
+        if (purgaPendiente.compareAndSet(false, true)) {
+            log.warn("Límite de cubetas alcanzado ({}): claves nuevas en cubeta de desborde", maxCubetas);
+            Schedulers.boundedElastic().schedule(() -> {
+                try {
+                    purgarLlenas();
+                } finally {
+                    purgaPendiente.set(false);
+                }
+            });
+        }
+    }
+
+    private int purgar(long ahora) {
+        int antes = cubetas.size();
+        cubetas.values().removeIf(c -> c.estaLlena(ahora));
+        return antes - cubetas.size();
+    }
+
+    private static final class Cubeta {
+
+        private double tokens;
+        private long ultimaRecarga;
+        private Limite limite;
+
+        Cubeta(double tokens, long ahora) {
+            this.tokens = tokens;
+            this.ultimaRecarga = ahora;
+        }
+
+        synchronized Consumo consumir(Limite limite, long ahora) {
+            this.limite = limite;
+            double transcurrido = (ahora - ultimaRecarga) / 1_000_000_000.0;
+            tokens = Math.min(limite.capacidad(), tokens + transcurrido * limite.porSegundo());
+            ultimaRecarga = ahora;
+
+            if (tokens >= 1) {
+                tokens -= 1;
+                return Consumo.ADMITIDO;
+            }
+            long esperaMs = (long) Math.ceil((1 - tokens) / limite.porSegundo() * 1000);
+            return new Consumo(false, esperaMs);
+        }
+
+        /**
+         * true si con la recarga pendiente la cubeta ya tiene toda su capacidad.
+         */
+        synchronized boolean estaLlena(long ahora) {
+            if (limite == null) {
+                return false;
+            }
+            double transcurrido = (ahora - ultimaRecarga) / 1_000_000_000.0;
+            return tokens + transcurrido * limite.porSegundo() >= limite.capacidad();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.trabix.gateway.security;
+
+import com.trabix.common.security.CacheTokens;
+import com.trabix.common.security.FirmaIdentidad;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Verificación de JWT en el gateway y firma de la identidad propagada a los servicios.
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * - Cada token se parsea y se verifica una sola vez; el resultado (headers X-User-*
+ *   ya firmados) queda en caché por SHA-256 del token hasta que expira
+ * - Solo CPU y memoria, sin I/O: se ejecuta en el event loop sin bloquear
+ * - Los refresh tokens no generan identidad
+ * - Firma (FirmaIdentidad) y caché (CacheTokens) son las de common, las mismas
+ *   que verifican los servicios: el formato no se duplica
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+@Component
+public class VerificadorToken {
+
+    private final JwtParser parser;
+    private final FirmaIdentidad firma;
+    private final CacheTokens<Identidad> cache;
+
+    public VerificadorToken(
+            @Value("${jwt.secret}") String secret,
+            @Value("${jwt.cache.max-entradas:10000}") int maxEntradas,
+            @Value("${trabix.security.identidad.secreto}") String secretoIdentidad) {
+        this.parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        this.firma = new FirmaIdentidad(secretoIdentidad);
+        this.cache = new CacheTokens<>(maxEntradas, Identidad::expiracion);
+    }
+
+    /**
+     * Identidad firmada del token. Vacío si el token es inválido, expiró o es de refresh.
+     */
+    public Optional<Identidad> verificar(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        Instant ahora = Instant.now();
+        String clave = cache.clave(token);
+
+        Identidad enCache = cache.obtener(clave, ahora);
+        if (enCache != null) {
+            return enCache.estaExpirada(ahora) ? Optional.empty() : Optional.of(enCache);
+        }
+
+        Claims claims;
+        try {
+            claims = parser.parseSignedClaims(token).getPayload();
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Token inválido en gateway: {}", e.getMessage());
+            return Optional.empty();
+        }
+
+        Long userId = claims.get("userId", Long.class);
+        String rol = claims.get("rol", String.class);
+        if ("refresh".equals(claims.get("type", String.class)) || userId == null || rol == null
+                || claims.getSubject() == null || claims.getExpiration() == null) {
+            return Optional.empty();
+        }
+
+        Instant expiracion = claims.getExpiration().toInstant();
+        Identidad identidad = new Identidad(userId, rol,
+                firma.firmar(userId, claims.getSubject(), rol, claims.get("nivel", String.class),
+                        claims.get("nombre", String.class), expiracion),
+                expiracion);
+        if (identidad.estaExpirada(ahora)) {
+            return Optional.empty();
+        }
+
+        cache.guardar(clave, identidad);
+        return Optional.of(identidad);
+    }
+
+    /**
+     * Identidad verificada de un token, con los headers listos para propagar.
+     */
+    public record Identidad(Long userId, String rol, Map<String, String> headers, Instant expiracion) {
+
+        public boolean estaExpirada(Instant ahora) {
+            return !expiracion.isAfter(ahora);
+        }
+    }
+}
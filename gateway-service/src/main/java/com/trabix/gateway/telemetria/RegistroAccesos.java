@@ -0,0 +1,145 @@
+package com.trabix.gateway.telemetria;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Log de accesos asíncrono y por lotes.
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * - El event loop solo encola el registro (offer sin bloqueo); si la cola está
+ *   llena se descarta y se cuenta (se informa en el siguiente lote)
+ * - Un hilo propio vacía la cola en lotes y escribe un solo evento de log por lote
+ *   en el logger "ACCESO" (se puede dirigir a otro archivo desde logback)
+ * - Muestreo: las respuestas 2xx rápidas se registran con probabilidad muestreo-2xx;
+ *   errores (4xx/5xx) y solicitudes lentas (> lento-ms) siempre
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+@Component
+public class RegistroAccesos {
+
+    private static final Logger ACCESO = LoggerFactory.getLogger("ACCESO");
+
+    private final BlockingQueue<Acceso> cola;
+    private final AtomicLong descartados = new AtomicLong();
+    private final int tamanoLote;
+    private final double muestreo2xx;
+    private final long lentoNanos;
+
+    private volatile boolean activo = true;
+    private Thread escritor;
+
+    public RegistroAccesos(
+            @Value("${trabix.gateway.telemetria.cola:10000}") int capacidadCola,
+            @Value("${trabix.gateway.telemetria.lote:256}") int tamanoLote,
+            @Value("${trabix.gateway.telemetria.muestreo-2xx:0.05}") double muestreo2xx,
+            @Value("${trabix.gateway.telemetria.lento-ms:1000}") long lentoMs) {
+        this.cola = new ArrayBlockingQueue<>(capacidadCola);
+        this.tamanoLote = tamanoLote;
+        this.muestreo2xx = muestreo2xx;
+        this.lentoNanos = TimeUnit.MILLISECONDS.toNanos(lentoMs);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        escritor = new Thread(this::escribir, "acceso-log");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        activo = false;
+        escritor.interrupt();
+        escritor.join(TimeUnit.SECONDS.toMillis(2));
+    }
+
+    /**
+     * Encola el acceso si pasa el muestreo. No bloquea.
+     */
+    public void registrar(Acceso acceso) {
+        if (!ACCESO.isInfoEnabled() || !debeRegistrarse(acceso)) {
+            return;
+        }
+        if (!cola.offer(acceso)) {
+            descartados.incrementAndGet();
+        }
+    }
+
+    private boolean debeRegistrarse(Acceso acceso) {
+        if (acceso.estado() < 200 || acceso.estado() >= 300 || acceso.duracionNanos() >= lentoNanos) {
+            return true;
+        }
+        return muestreo2xx >= 1 || (muestreo2xx > 0 && ThreadLocalRandom.current().nextDouble() < muestreo2xx);
+    }
+
+    private void escribir() {
+        List<Acceso> lote = new ArrayList<>(tamanoLote);
+        while (activo || !cola.isEmpty()) {
+            try {
+                Acceso primero = cola.poll(1, TimeUnit.SECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                cola.drainTo(lote, tamanoLote - 1);
+                emitir(lote);
+            } catch (InterruptedException e) {
+                // Al detener: se vacía lo pendiente antes de salir
+                cola.drainTo(lote);
+                emitir(lote);
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Error escribiendo log de accesos: {}", e.getMessage());
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void emitir(List<Acceso> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder(lote.size() * 96);
+        for (Acceso a : lote) {
+            if (!sb.isEmpty()) {
+                sb.append('\n');
+            }
+            sb.append(a.metodo()).append(' ').append(a.path())
+                    .append(" - ").append(a.estado())
+                    .append(" - ").append(TimeUnit.NANOSECONDS.toMicros(a.duracionNanos()) / 1000.0).append("ms")
+                    .append(" - ruta=").append(a.ruta())
+                    .append(" ip=").append(a.ip());
+            if (a.usuarioId() != null) {
+                sb.append(" usuario=").append(a.usuarioId());
+            }
+        }
+        long perdidos = descartados.getAndSet(0);
+        if (perdidos > 0) {
+            sb.append("\n(").append(perdidos).append(" accesos descartados por cola llena)");
+        }
+        ACCESO.info(sb.toString());
+    }
+
+    /**
+     * Un acceso ya terminado.
+     */
+    public record Acceso(String metodo, String path, int estado, long duracionNanos,
+                         String ruta, String ip, Long usuarioId) {
+    }
+}
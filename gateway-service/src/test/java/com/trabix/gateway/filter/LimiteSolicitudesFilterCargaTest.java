@@ -0,0 +1,261 @@
+package com.trabix.gateway.filter;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de carga del control de admisión contra un backend de capacidad fija.
+ *
+ * El backend atiende BACKEND_HILOS requests a la vez y tarda ESPERA_BACKEND_MS en cada una
+ * (capacidad: 20 por segundo); el resto espera en su cola. La carga es de lazo abierto:
+ * SOBRECARGA veces esa capacidad a ritmo fijo, sin esperar respuestas, y la latencia se mide
+ * desde el instante programado de cada envío (un envío atrasado cuenta como latencia).
+ *
+ * Con max-concurrentes = BACKEND_HILOS el gateway descarta el exceso con 429 en lugar de
+ * encolarlo: las admitidas no esperan en el backend y su p99 queda cerca de ESPERA_BACKEND_MS.
+ * Sin descarte, la cola del backend crecería (SOBRECARGA - 1) × capacidad por segundo: unos
+ * 10 s de espera al final de la prueba. Las cotas de p99 dejan margen para una máquina lenta
+ * (gateway, backend y cliente comparten CPU) sin acercarse a ese valor.
+ *
+ * Antes de medir se calienta el gateway (JIT, conexiones al backend) con carga sin exceso.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("dev")
+class LimiteSolicitudesFilterCargaTest {
+
+    private static final int BACKEND_HILOS = 4;
+    private static final long ESPERA_BACKEND_MS = 200;
+    private static final double CAPACIDAD_BACKEND = BACKEND_HILOS * 1000.0 / ESPERA_BACKEND_MS;
+    private static final int SOBRECARGA = 3;
+    private static final int DURACION_SEGUNDOS = 5;
+
+    /** Ráfaga de la ruta con límite propio; recarga 1 por segundo */
+    private static final int CAPACIDAD_RUTA_LIMITADA = 10;
+
+    /** Más que las solicitudes en vuelo a la vez (admitidas + rechazos en curso) */
+    private static final int HILOS_CLIENTE = 64;
+
+    private static final HttpServer BACKEND = iniciarBackend();
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registry) {
+        String uri = "http://localhost:" + BACKEND.getAddress().getPort();
+        // Reemplaza las rutas de application.yml por dos rutas al backend de prueba
+        registry.add("spring.cloud.gateway.routes[0].id", () -> "carga");
+        registry.add("spring.cloud.gateway.routes[0].uri", () -> uri);
+        registry.add("spring.cloud.gateway.routes[0].predicates[0]", () -> "Path=/api/carga/**");
+        registry.add("spring.cloud.gateway.routes[1].id", () -> "limitada");
+        registry.add("spring.cloud.gateway.routes[1].uri", () -> uri);
+        registry.add("spring.cloud.gateway.routes[1].predicates[0]", () -> "Path=/api/limitada/**");
+        registry.add("spring.cloud.gateway.routes[1].metadata.limite-capacidad", () -> CAPACIDAD_RUTA_LIMITADA);
+        registry.add("spring.cloud.gateway.routes[1].metadata.limite-por-segundo", () -> 1);
+        registry.add("trabix.gateway.limites.max-concurrentes", () -> BACKEND_HILOS);
+        // Todas las solicitudes salen de la misma IP: solo se prueban concurrencia y ruta
+        registry.add("trabix.gateway.limites.ip.capacidad", () -> 0);
+        registry.add("trabix.gateway.limites.ruta.capacidad", () -> 0);
+        // Cada 429 se registra en el log de accesos y en DEBUG: a este volumen solo agrega ruido
+        registry.add("logging.level.ACCESO", () -> "WARN");
+        registry.add("logging.level.com.trabix", () -> "INFO");
+    }
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterAll
+    static void detenerBackend() {
+        BACKEND.stop(0);
+    }
+
+    @Test
+    void sobrecargaSeDescartaConLatenciaAcotada() throws Exception {
+        disparar("/api/carga/calentamiento", CAPACIDAD_BACKEND / 2, (int) CAPACIDAD_BACKEND * 2);
+        double rechazadasCalentamiento = conteo("concurrencia", "carga");
+
+        double porSegundo = CAPACIDAD_BACKEND * SOBRECARGA;
+        List<Resultado> resultados = disparar("/api/carga/recurso", porSegundo, (int) porSegundo * DURACION_SEGUNDOS);
+
+        List<Long> admitidas = new ArrayList<>();
+        List<Long> rechazadas = new ArrayList<>();
+        for (Resultado resultado : resultados) {
+            if (resultado.estado() == HttpStatus.OK.value()) {
+                admitidas.add(resultado.latenciaMs());
+            } else {
+                assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), resultado.estado());
+                assertRechazo(resultado);
+                rechazadas.add(resultado.latenciaMs());
+            }
+        }
+
+        // El backend sigue trabajando a capacidad: se admite lo que puede atender y se descarta el resto
+        assertTrue(admitidas.size() >= CAPACIDAD_BACKEND * DURACION_SEGUNDOS / 2, () -> "Admitidas: " + admitidas.size());
+        assertTrue(rechazadas.size() >= resultados.size() / 2, () -> "Rechazadas: " + rechazadas.size());
+        assertEquals(rechazadas.size(), conteo("concurrencia", "carga") - rechazadasCalentamiento);
+
+        long p99Admitidas = percentil(admitidas, 0.99);
+        long p99Rechazadas = percentil(rechazadas, 0.99);
+        // Las admitidas no hacen cola en el backend; las rechazadas no llegan a él
+        assertTrue(p99Admitidas < 5 * ESPERA_BACKEND_MS,
+                () -> "p99 admitidas " + p99Admitidas + " ms (" + admitidas.size() + " de " + resultados.size() + ")");
+        assertTrue(p99Rechazadas < ESPERA_BACKEND_MS,
+                () -> "p99 rechazadas " + p99Rechazadas + " ms (" + rechazadas.size() + " de " + resultados.size() + ")");
+    }
+
+    @Test
+    void rutaConLimitePropioDescartaElExcesoDeLaRafaga() throws Exception {
+        // Una tras otra (y sin espera en el backend): solo actúa la cubeta, no max-concurrentes
+        WebTestClient cliente = WebTestClient.bindToServer().baseUrl("http://localhost:" + puerto).build();
+        List<Resultado> resultados = new ArrayList<>();
+        for (int i = 0; i < 3 * CAPACIDAD_RUTA_LIMITADA; i++) {
+            resultados.add(solicitar(cliente, "/api/limitada/recurso", System.nanoTime()));
+        }
+
+        long admitidas = resultados.stream().filter(r -> r.estado() == HttpStatus.OK.value()).count();
+        List<Resultado> rechazadas = resultados.stream()
+                .filter(r -> r.estado() == HttpStatus.TOO_MANY_REQUESTS.value())
+                .toList();
+
+        assertEquals(resultados.size(), admitidas + rechazadas.size());
+        // La ráfaga más lo recargado mientras dura la prueba (menos de un segundo)
+        assertTrue(admitidas >= CAPACIDAD_RUTA_LIMITADA && admitidas <= CAPACIDAD_RUTA_LIMITADA + 2,
+                () -> "Admitidas: " + admitidas);
+        rechazadas.forEach(this::assertRechazo);
+        assertEquals(rechazadas.size(), conteo("ruta", "limitada"));
+    }
+
+    private void assertRechazo(Resultado resultado) {
+        assertNotNull(resultado.retryAfter(), "429 sin Retry-After");
+        assertTrue(Long.parseLong(resultado.retryAfter()) >= 1);
+        assertTrue(resultado.cuerpo().contains("\"codigo\":\"DEMASIADAS_SOLICITUDES\""), resultado.cuerpo());
+    }
+
+    private double conteo(String motivo, String ruta) {
+        Counter contador = meterRegistry.find("gateway.admision")
+                .tag("resultado", "rechazado")
+                .tag("motivo", motivo)
+                .tag("ruta", ruta)
+                .counter();
+        return contador != null ? contador.count() : 0;
+    }
+
+    /**
+     * Envía total solicitudes a ritmo fijo (lazo abierto), cada una en su propio hilo y con
+     * conexiones suficientes: el pool por defecto de Reactor Netty encolaría en el cliente.
+     */
+    private List<Resultado> disparar(String uri, double porSegundo, int total) throws Exception {
+        ConnectionProvider conexiones = ConnectionProvider.builder("carga").maxConnections(HILOS_CLIENTE).build();
+        WebTestClient cliente = WebTestClient.bindToServer(new ReactorClientHttpConnector(HttpClient.create(conexiones)))
+                .baseUrl("http://localhost:" + puerto)
+                .responseTimeout(Duration.ofSeconds(30))
+                .build();
+
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS_CLIENTE);
+        try {
+            long intervaloNanos = (long) (1_000_000_000L / porSegundo);
+            long inicio = System.nanoTime();
+            List<Future<Resultado>> futuros = new ArrayList<>();
+            for (int i = 0; i < total; i++) {
+                long programado = inicio + i * intervaloNanos;
+                LockSupport.parkNanos(programado - System.nanoTime());
+                futuros.add(hilos.submit(() -> solicitar(cliente, uri, programado)));
+            }
+            List<Resultado> resultados = new ArrayList<>();
+            for (Future<Resultado> futuro : futuros) {
+                resultados.add(futuro.get());
+            }
+            return resultados;
+        } finally {
+            hilos.shutdownNow();
+            conexiones.dispose();
+        }
+    }
+
+    private static Resultado solicitar(WebTestClient cliente, String uri, long inicio) {
+        EntityExchangeResult<String> respuesta = cliente.get().uri(uri)
+                .exchange()
+                .expectBody(String.class)
+                .returnResult();
+        long latenciaMs = (System.nanoTime() - inicio) / 1_000_000;
+        String cuerpo = respuesta.getResponseBody();
+        return new Resultado(
+                respuesta.getStatus().value(),
+                latenciaMs,
+                respuesta.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER),
+                cuerpo != null ? cuerpo : "");
+    }
+
+    private static long percentil(List<Long> latencias, double p) {
+        List<Long> ordenadas = new ArrayList<>(latencias);
+        Collections.sort(ordenadas);
+        int indice = (int) Math.ceil(p * ordenadas.size()) - 1;
+        return ordenadas.get(Math.max(0, indice));
+    }
+
+    /**
+     * Backend con BACKEND_HILOS hilos: lo que no cabe espera en la cola del servidor.
+     * Solo la ruta de carga tarda ESPERA_BACKEND_MS.
+     */
+    private static HttpServer iniciarBackend() {
+        try {
+            HttpServer servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+            servidor.createContext("/", intercambio -> {
+                if (intercambio.getRequestURI().getPath().startsWith("/api/carga/")) {
+                    try {
+                        Thread.sleep(ESPERA_BACKEND_MS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                byte[] cuerpo = "{\"exito\":true}".getBytes(StandardCharsets.UTF_8);
+                intercambio.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, "application/json");
+                intercambio.sendResponseHeaders(200, cuerpo.length);
+                try (OutputStream salida = intercambio.getResponseBody()) {
+                    salida.write(cuerpo);
+                }
+            });
+            servidor.setExecutor(Executors.newFixedThreadPool(BACKEND_HILOS));
+            servidor.start();
+            return servidor;
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo iniciar el backend de prueba", e);
+        }
+    }
+
+    private record Resultado(int estado, long latenciaMs, String retryAfter, String cuerpo) {
+    }
+}
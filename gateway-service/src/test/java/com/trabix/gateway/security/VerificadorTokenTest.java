@@ -0,0 +1,70 @@
+package com.trabix.gateway.security;
+
+import com.trabix.common.security.FirmaIdentidad;
+import com.trabix.common.security.JwtClaims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * La identidad que firma el gateway es la que aceptan los servicios (IdentidadGateway
+ * verifica con la misma FirmaIdentidad de common).
+ */
+class VerificadorTokenTest {
+
+    private static final String SECRETO_JWT = "clave_de_prueba_del_gateway_de_al_menos_256_bits_0123456789";
+    private static final String SECRETO_IDENTIDAD = "secreto-identidad-prueba";
+
+    private final VerificadorToken verificador = new VerificadorToken(SECRETO_JWT, 100, SECRETO_IDENTIDAD);
+
+    @Test
+    void identidadDelGatewaySeVerificaEnLosServicios() {
+        Instant expiracion = Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS);
+        String token = token("1012345678", 42L, "VENDEDOR", "N2", "José Pérez", null, expiracion);
+
+        VerificadorToken.Identidad identidad = verificador.verificar(token).orElseThrow();
+        JwtClaims claims = new FirmaIdentidad(SECRETO_IDENTIDAD).verificar(identidad.headers()::get).orElseThrow();
+
+        assertEquals(new JwtClaims("1012345678", 42L, "VENDEDOR", "N2", "José Pérez", null, expiracion), claims);
+        assertSame(identidad, verificador.verificar(token).orElseThrow());
+    }
+
+    @Test
+    void refreshTokensNoGeneranIdentidad() {
+        String token = token("1012345678", 42L, "VENDEDOR", "N2", "Ana", "refresh",
+                Instant.now().plus(1, ChronoUnit.HOURS));
+
+        assertTrue(verificador.verificar(token).isEmpty());
+    }
+
+    @Test
+    void sinSecretoDeIdentidadNoArranca() {
+        assertThrows(IllegalStateException.class, () -> new VerificadorToken(SECRETO_JWT, 100, ""));
+    }
+
+    private static String token(String cedula, Long userId, String rol, String nivel, String nombre,
+                                String tipo, Instant expiracion) {
+        var builder = Jwts.builder()
+                .subject(cedula)
+                .claim("userId", userId)
+                .claim("rol", rol)
+                .claim("nivel", nivel)
+                .claim("nombre", nombre)
+                .expiration(Date.from(expiracion))
+                .signWith(Keys.hmacShaKeyFor(SECRETO_JWT.getBytes(StandardCharsets.UTF_8)));
+        if (tipo != null) {
+            builder.claim("type", tipo);
+        }
+        return builder.compact();
+    }
+}
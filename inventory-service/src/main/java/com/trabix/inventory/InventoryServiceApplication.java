@@ -2,12 +2,14 @@ package com.trabix.inventory;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Servicio de inventario TRABIX.
  * Maneja: lotes, tandas, stock, liberación de tandas.
  */
 @SpringBootApplication(scanBasePackages = {"com.trabix.inventory", "com.trabix.common"})
+@EnableScheduling
 public class InventoryServiceApplication {
 
     public static void main(String[] args) {
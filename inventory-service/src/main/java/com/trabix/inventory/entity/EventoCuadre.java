@@ -0,0 +1,54 @@
+package com.trabix.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Evento de outbox consumido por billing-service para evaluar triggers de cuadre.
+ *
+ * Se escribe en la misma transacción que el cambio de la tanda:
+ * - STOCK_REDUCIDO: deltaStock negativo (salida de stock registrada en inventario)
+ * - TANDA_LIBERADA: billing-service recarga la tanda desde la BD
+ *
+ * billing-service elimina las filas una vez procesadas.
+ */
+@Entity
+@Table(name = "eventos_cuadre")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoCuadre {
+
+    public static final String STOCK_REDUCIDO = "STOCK_REDUCIDO";
+    public static final String TANDA_LIBERADA = "TANDA_LIBERADA";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tanda_id", nullable = false)
+    private Long tandaId;
+
+    @Column(nullable = false, length = 30)
+    private String tipo;
+
+    @Column(name = "delta_stock", nullable = false)
+    @Builder.Default
+    private Integer deltaStock = 0;
+
+    @Column(name = "delta_recaudado", nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal deltaRecaudado = BigDecimal.ZERO;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,9 @@
+package com.trabix.inventory.repository;
+
+import com.trabix.inventory.entity.EventoCuadre;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EventoCuadreRepository extends JpaRepository<EventoCuadre, Long> {
+}
@@ -6,9 +6,11 @@ import com.trabix.common.enums.ModeloNegocio;
 import com.trabix.common.exception.RecursoNoEncontradoException;
 import com.trabix.common.exception.ValidacionNegocioException;
 import com.trabix.inventory.dto.*;
+import com.trabix.inventory.entity.EventoCuadre;
 import com.trabix.inventory.entity.Lote;
 import com.trabix.inventory.entity.Tanda;
 import com.trabix.inventory.entity.Usuario;
+import com.trabix.inventory.repository.EventoCuadreRepository;
 import com.trabix.inventory.repository.LoteRepository;
 import com.trabix.inventory.repository.TandaRepository;
 import com.trabix.inventory.repository.UsuarioRepository;
@@ -50,6 +52,7 @@ public class InventarioService {
     private final TandaRepository tandaRepository;
     private final UsuarioRepository usuarioRepository;
     private final StockProduccionService stockProduccionService;
+    private final EventoCuadreRepository eventoCuadreRepository;
 
     @Value("${trabix.costo-percibido-unitario:2400}")
     private double costoPercibidoDefault;
@@ -163,6 +166,8 @@ public class InventarioService {
     private void liberarTandaInterna(Tanda tanda, Usuario usuario) {
         tanda.liberar();
         tandaRepository.save(tanda);
+
+        publicarEventoCuadre(tanda.getId(), EventoCuadre.TANDA_LIBERADA, 0);
         
         // Notificar al servicio de stock de producción
         stockProduccionService.entregarStockAVendedor(tanda, usuario);
@@ -256,6 +261,8 @@ public class InventarioService {
         tanda.reducirStock(cantidad);
         tandaRepository.save(tanda);
 
+        publicarEventoCuadre(tanda.getId(), EventoCuadre.STOCK_REDUCIDO, -cantidad);
+
         log.debug("Stock reducido: Lote={}, Tanda={}, Cantidad={}, StockRestante={}", 
                 tanda.getLote().getId(), tanda.getNumero(), cantidad, tanda.getStockActual());
 
@@ -265,6 +272,19 @@ public class InventarioService {
         return mapToTandaResponse(tanda);
     }
 
+    /**
+     * Registra el cambio de la tanda en el outbox de cuadres (misma transacción).
+     * billing-service lo consume para evaluar triggers sin escanear todas las tandas.
+     */
+    private void publicarEventoCuadre(Long tandaId, String tipo, int deltaStock) {
+        eventoCuadreRepository.save(EventoCuadre.builder()
+                .tandaId(tandaId)
+                .tipo(tipo)
+                .deltaStock(deltaStock)
+                .deltaRecaudado(BigDecimal.ZERO)
+                .build());
+    }
+
     /**
      * Verifica los triggers de alerta/cuadre según la tanda.
      */
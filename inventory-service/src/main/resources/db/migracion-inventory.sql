@@ -0,0 +1,16 @@
+-- ============================================
+-- Migraciones de inventory-service (idempotentes)
+-- Se ejecutan al arrancar, antes de que Hibernate valide el esquema (ddl-auto: validate).
+-- Separador de sentencias: @@ (los bloques DO contienen ';')
+-- ============================================
+
+-- Outbox de eventos de cuadre (inventory/sales-service escriben, billing-service consume y elimina)
+CREATE TABLE IF NOT EXISTS eventos_cuadre (
+    id BIGSERIAL PRIMARY KEY,
+    tanda_id BIGINT NOT NULL,
+    tipo VARCHAR(30) NOT NULL,
+    delta_stock INT NOT NULL DEFAULT 0,
+    delta_recaudado DECIMAL(12,2) NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+@@
@@ -2,12 +2,14 @@ package com.trabix.sales;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Servicio de ventas TRABIX.
  * Maneja: registro de ventas, tipos de venta, aprobación, estadísticas.
  */
 @SpringBootApplication(scanBasePackages = {"com.trabix.sales", "com.trabix.common"})
+@EnableScheduling
 public class SalesServiceApplication {
 
     public static void main(String[] args) {
@@ -43,6 +43,8 @@ public class SecurityConfig {
                 // Aprobar/rechazar ventas solo admin
                 .requestMatchers(HttpMethod.POST, "/ventas/*/aprobar").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.POST, "/ventas/*/rechazar").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.POST, "/ventas/aprobar-batch").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.POST, "/ventas/resumenes/reconstruir").hasRole("ADMIN")
                 // Listar todas las ventas solo admin
                 .requestMatchers(HttpMethod.GET, "/ventas").hasRole("ADMIN")
                 // Ventas pendientes solo admin
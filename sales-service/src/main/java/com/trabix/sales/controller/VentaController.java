@@ -4,6 +4,7 @@ import com.trabix.common.dto.ApiResponse;
 import com.trabix.common.dto.PaginaResponse;
 import com.trabix.sales.dto.*;
 import com.trabix.sales.entity.Usuario;
+import com.trabix.sales.service.ResumenVentasService;
 import com.trabix.sales.service.VentaService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -33,6 +34,7 @@ import java.util.Map;
 public class VentaController {
 
     private final VentaService ventaService;
+    private final ResumenVentasService resumenVentasService;
 
     // === Endpoints para vendedores ===
 
@@ -48,6 +50,19 @@ public class VentaController {
                 .body(ApiResponse.ok(response, "Venta registrada. Pendiente de aprobación."));
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Registrar ventas en lote",
+            description = "Registra varias ventas en una sola operación (cierre del día). Todas o ninguna.")
+    public ResponseEntity<ApiResponse<List<VentaResponse>>> registrarVentasBatch(
+            @AuthenticationPrincipal Usuario usuario,
+            @Valid @RequestBody RegistrarVentasBatchRequest request) {
+
+        List<VentaResponse> response = ventaService.registrarVentasBatch(usuario.getId(), request.getVentas());
+        return ResponseEntity
+                .status(HttpStatus.CREATED)
+                .body(ApiResponse.ok(response, response.size() + " ventas registradas. Pendientes de aprobación."));
+    }
+
     @GetMapping("/me")
     @Operation(summary = "Mis ventas", description = "Lista las ventas del usuario autenticado.")
     public ResponseEntity<ApiResponse<List<VentaResponse>>> misVentas(
@@ -137,6 +152,16 @@ public class VentaController {
         return ResponseEntity.ok(ApiResponse.ok(response, "Venta aprobada"));
     }
 
+    @PostMapping("/aprobar-batch")
+    @Operation(summary = "Aprobar ventas en lote",
+            description = "Aprueba varias ventas pendientes en una sola operación. Todas o ninguna. Solo ADMIN.")
+    public ResponseEntity<ApiResponse<List<VentaResponse>>> aprobarVentasBatch(
+            @Valid @RequestBody AprobarVentasBatchRequest request) {
+
+        List<VentaResponse> response = ventaService.aprobarVentasBatch(request.getVentaIds());
+        return ResponseEntity.ok(ApiResponse.ok(response, response.size() + " ventas aprobadas"));
+    }
+
     @PostMapping("/{id}/rechazar")
     @Operation(summary = "Rechazar venta", description = "Rechaza una venta pendiente. Solo ADMIN.")
     public ResponseEntity<ApiResponse<VentaResponse>> rechazarVenta(
@@ -147,6 +172,14 @@ public class VentaController {
         return ResponseEntity.ok(ApiResponse.ok(response, "Venta rechazada. Stock restaurado."));
     }
 
+    @PostMapping("/resumenes/reconstruir")
+    @Operation(summary = "Reconstruir resúmenes",
+            description = "Recalcula desde cero los resúmenes de ventas por usuario. Solo ADMIN.")
+    public ResponseEntity<ApiResponse<Map<String, Integer>>> reconstruirResumenes() {
+        int usuarios = resumenVentasService.reconstruir();
+        return ResponseEntity.ok(ApiResponse.ok(Map.of("usuarios", usuarios), "Resúmenes reconstruidos"));
+    }
+
     // === Consultas por usuario específico ===
 
     @GetMapping("/usuario/{usuarioId}")
@@ -0,0 +1,26 @@
+package com.trabix.sales.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request para aprobar varias ventas pendientes en una sola operación.
+ * Se aprueban todas o ninguna.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AprobarVentasBatchRequest {
+
+    @NotEmpty(message = "Debe enviar al menos una venta")
+    @Size(max = 500, message = "Máximo 500 ventas por lote")
+    private List<@NotNull Long> ventaIds;
+}
@@ -0,0 +1,26 @@
+package com.trabix.sales.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request para registrar varias ventas en una sola operación (cierre del día).
+ * Se registran todas o ninguna.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegistrarVentasBatchRequest {
+
+    @NotEmpty(message = "Debe enviar al menos una venta")
+    @Size(max = 500, message = "Máximo 500 ventas por lote")
+    private List<@Valid RegistrarVentaRequest> ventas;
+}
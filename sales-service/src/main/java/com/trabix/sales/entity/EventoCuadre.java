@@ -0,0 +1,52 @@
+package com.trabix.sales.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Evento de outbox consumido por billing-service para evaluar triggers de cuadre.
+ *
+ * Se escribe en la misma transacción que la venta, con el cambio que produjo:
+ * - VENTA_REGISTRADA: deltaStock negativo (stock se reduce al registrar)
+ * - VENTA_APROBADA: deltaRecaudado = precio total (0 si es REGALO)
+ * - VENTA_RECHAZADA: deltaStock positivo (stock restaurado)
+ *
+ * billing-service elimina las filas una vez procesadas.
+ */
+@Entity
+@Table(name = "eventos_cuadre")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoCuadre {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tanda_id", nullable = false)
+    private Long tandaId;
+
+    @Column(nullable = false, length = 30)
+    private String tipo;
+
+    @Column(name = "delta_stock", nullable = false)
+    @Builder.Default
+    private Integer deltaStock = 0;
+
+    @Column(name = "delta_recaudado", nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal deltaRecaudado = BigDecimal.ZERO;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
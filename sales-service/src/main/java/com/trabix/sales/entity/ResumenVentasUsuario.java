@@ -0,0 +1,220 @@
+package com.trabix.sales.entity;
+
+import com.trabix.common.enums.TipoVenta;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Resumen materializado de ventas por usuario (tabla resumen_ventas_usuario).
+ *
+ * Se mantiene incrementalmente al registrar/aprobar/rechazar ventas
+ * (ResumenVentasUsuarioRepository.acumular) para que /ventas/me/resumen sea
+ * una lectura por clave primaria en lugar de nueve agregaciones sobre ventas.
+ *
+ * Los agregados (unidades, recaudado, partes, ganancias, por tipo) son solo de ventas APROBADAS,
+ * igual que las consultas que reemplaza. Una instancia también se usa como delta a acumular.
+ */
+@Entity
+@Table(name = "resumen_ventas_usuario")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumenVentasUsuario {
+
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    // === Por estado ===
+
+    @Column(name = "ventas_pendientes", nullable = false)
+    @Builder.Default
+    private Integer ventasPendientes = 0;
+
+    @Column(name = "ventas_aprobadas", nullable = false)
+    @Builder.Default
+    private Integer ventasAprobadas = 0;
+
+    @Column(name = "ventas_rechazadas", nullable = false)
+    @Builder.Default
+    private Integer ventasRechazadas = 0;
+
+    // === Totales de ventas aprobadas ===
+
+    @Column(name = "total_unidades", nullable = false)
+    @Builder.Default
+    private Integer totalUnidades = 0;
+
+    /** Recaudado sin regalos */
+    @Column(name = "total_recaudado", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal totalRecaudado = BigDecimal.ZERO;
+
+    @Column(name = "parte_vendedor", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal parteVendedor = BigDecimal.ZERO;
+
+    @Column(name = "parte_samuel", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal parteSamuel = BigDecimal.ZERO;
+
+    /** Parte del vendedor de ventas con esGanancia=true */
+    @Column(name = "ganancia_real_vendedor", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal gananciaRealVendedor = BigDecimal.ZERO;
+
+    /** Parte de Samuel de ventas con esGanancia=true */
+    @Column(name = "ganancia_real_samuel", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal gananciaRealSamuel = BigDecimal.ZERO;
+
+    // === Por tipo (ventas aprobadas) ===
+
+    @Column(name = "ventas_unidad", nullable = false)
+    @Builder.Default
+    private Integer ventasUnidad = 0;
+
+    @Column(name = "unidades_unidad", nullable = false)
+    @Builder.Default
+    private Integer unidadesUnidad = 0;
+
+    @Column(name = "recaudado_unidad", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal recaudadoUnidad = BigDecimal.ZERO;
+
+    @Column(name = "ventas_promo", nullable = false)
+    @Builder.Default
+    private Integer ventasPromo = 0;
+
+    @Column(name = "unidades_promo", nullable = false)
+    @Builder.Default
+    private Integer unidadesPromo = 0;
+
+    @Column(name = "recaudado_promo", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal recaudadoPromo = BigDecimal.ZERO;
+
+    @Column(name = "ventas_sin_licor", nullable = false)
+    @Builder.Default
+    private Integer ventasSinLicor = 0;
+
+    @Column(name = "unidades_sin_licor", nullable = false)
+    @Builder.Default
+    private Integer unidadesSinLicor = 0;
+
+    @Column(name = "recaudado_sin_licor", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal recaudadoSinLicor = BigDecimal.ZERO;
+
+    @Column(name = "ventas_regalo", nullable = false)
+    @Builder.Default
+    private Integer ventasRegalo = 0;
+
+    @Column(name = "unidades_regalo", nullable = false)
+    @Builder.Default
+    private Integer unidadesRegalo = 0;
+
+    /** MAYOR_CON_LICOR + MAYOR_SIN_LICOR */
+    @Column(name = "ventas_mayor", nullable = false)
+    @Builder.Default
+    private Integer ventasMayor = 0;
+
+    @Column(name = "unidades_mayor", nullable = false)
+    @Builder.Default
+    private Integer unidadesMayor = 0;
+
+    @Column(name = "recaudado_mayor", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal recaudadoMayor = BigDecimal.ZERO;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Delta vacío para un usuario.
+     */
+    public static ResumenVentasUsuario delta(Long usuarioId) {
+        return ResumenVentasUsuario.builder().usuarioId(usuarioId).build();
+    }
+
+    /**
+     * Venta registrada (queda pendiente).
+     */
+    public void registrar() {
+        ventasPendientes++;
+    }
+
+    /**
+     * Venta rechazada (sale de pendientes).
+     */
+    public void rechazar() {
+        ventasPendientes--;
+        ventasRechazadas++;
+    }
+
+    /**
+     * Venta aprobada: sale de pendientes y suma a los agregados.
+     */
+    public void aprobar(Venta venta) {
+        ventasPendientes--;
+        ventasAprobadas++;
+
+        int cantidad = venta.getCantidad();
+        BigDecimal monto = nulo(venta.getPrecioTotal());
+        BigDecimal parteVendedorVenta = nulo(venta.getParteVendedor());
+        BigDecimal parteSamuelVenta = nulo(venta.getParteSamuel());
+
+        totalUnidades += cantidad;
+        if (venta.generaIngreso()) {
+            totalRecaudado = totalRecaudado.add(monto);
+        }
+        parteVendedor = parteVendedor.add(parteVendedorVenta);
+        parteSamuel = parteSamuel.add(parteSamuelVenta);
+        if (Boolean.TRUE.equals(venta.getEsGanancia())) {
+            gananciaRealVendedor = gananciaRealVendedor.add(parteVendedorVenta);
+            gananciaRealSamuel = gananciaRealSamuel.add(parteSamuelVenta);
+        }
+
+        TipoVenta tipo = venta.getTipo();
+        switch (tipo) {
+            case UNIDAD -> {
+                ventasUnidad++;
+                unidadesUnidad += cantidad;
+                recaudadoUnidad = recaudadoUnidad.add(monto);
+            }
+            case PROMO -> {
+                ventasPromo++;
+                unidadesPromo += cantidad;
+                recaudadoPromo = recaudadoPromo.add(monto);
+            }
+            case SIN_LICOR -> {
+                ventasSinLicor++;
+                unidadesSinLicor += cantidad;
+                recaudadoSinLicor = recaudadoSinLicor.add(monto);
+            }
+            case REGALO -> {
+                ventasRegalo++;
+                unidadesRegalo += cantidad;
+            }
+            case MAYOR_CON_LICOR, MAYOR_SIN_LICOR -> {
+                ventasMayor++;
+                unidadesMayor += cantidad;
+                recaudadoMayor = recaudadoMayor.add(monto);
+            }
+        }
+    }
+
+    private static BigDecimal nulo(BigDecimal valor) {
+        return valor != null ? valor : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,115 @@
+package com.trabix.sales.repository;
+
+import com.trabix.sales.entity.ResumenVentasUsuario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ResumenVentasUsuarioRepository extends JpaRepository<ResumenVentasUsuario, Long> {
+
+    /**
+     * Suma el delta al resumen del usuario (lo crea si no existe).
+     * Atómico en la BD: ventas concurrentes del mismo usuario no pierden actualizaciones.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO resumen_ventas_usuario AS r (
+            usuario_id, ventas_pendientes, ventas_aprobadas, ventas_rechazadas,
+            total_unidades, total_recaudado, parte_vendedor, parte_samuel,
+            ganancia_real_vendedor, ganancia_real_samuel, ventas_unidad,
+            unidades_unidad, recaudado_unidad, ventas_promo, unidades_promo,
+            recaudado_promo, ventas_sin_licor, unidades_sin_licor,
+            recaudado_sin_licor, ventas_regalo, unidades_regalo, ventas_mayor,
+            unidades_mayor, recaudado_mayor, updated_at
+        ) VALUES (
+            :#{#d.usuarioId}, :#{#d.ventasPendientes}, :#{#d.ventasAprobadas},
+            :#{#d.ventasRechazadas}, :#{#d.totalUnidades},
+            :#{#d.totalRecaudado}, :#{#d.parteVendedor}, :#{#d.parteSamuel},
+            :#{#d.gananciaRealVendedor}, :#{#d.gananciaRealSamuel},
+            :#{#d.ventasUnidad}, :#{#d.unidadesUnidad}, :#{#d.recaudadoUnidad},
+            :#{#d.ventasPromo}, :#{#d.unidadesPromo}, :#{#d.recaudadoPromo},
+            :#{#d.ventasSinLicor}, :#{#d.unidadesSinLicor},
+            :#{#d.recaudadoSinLicor}, :#{#d.ventasRegalo},
+            :#{#d.unidadesRegalo}, :#{#d.ventasMayor}, :#{#d.unidadesMayor},
+            :#{#d.recaudadoMayor}, CURRENT_TIMESTAMP
+        )
+        ON CONFLICT (usuario_id) DO UPDATE SET
+            ventas_pendientes = r.ventas_pendientes + EXCLUDED.ventas_pendientes,
+            ventas_aprobadas = r.ventas_aprobadas + EXCLUDED.ventas_aprobadas,
+            ventas_rechazadas = r.ventas_rechazadas + EXCLUDED.ventas_rechazadas,
+            total_unidades = r.total_unidades + EXCLUDED.total_unidades,
+            total_recaudado = r.total_recaudado + EXCLUDED.total_recaudado,
+            parte_vendedor = r.parte_vendedor + EXCLUDED.parte_vendedor,
+            parte_samuel = r.parte_samuel + EXCLUDED.parte_samuel,
+            ganancia_real_vendedor = r.ganancia_real_vendedor + EXCLUDED.ganancia_real_vendedor,
+            ganancia_real_samuel = r.ganancia_real_samuel + EXCLUDED.ganancia_real_samuel,
+            ventas_unidad = r.ventas_unidad + EXCLUDED.ventas_unidad,
+            unidades_unidad = r.unidades_unidad + EXCLUDED.unidades_unidad,
+            recaudado_unidad = r.recaudado_unidad + EXCLUDED.recaudado_unidad,
+            ventas_promo = r.ventas_promo + EXCLUDED.ventas_promo,
+            unidades_promo = r.unidades_promo + EXCLUDED.unidades_promo,
+            recaudado_promo = r.recaudado_promo + EXCLUDED.recaudado_promo,
+            ventas_sin_licor = r.ventas_sin_licor + EXCLUDED.ventas_sin_licor,
+            unidades_sin_licor = r.unidades_sin_licor + EXCLUDED.unidades_sin_licor,
+            recaudado_sin_licor = r.recaudado_sin_licor + EXCLUDED.recaudado_sin_licor,
+            ventas_regalo = r.ventas_regalo + EXCLUDED.ventas_regalo,
+            unidades_regalo = r.unidades_regalo + EXCLUDED.unidades_regalo,
+            ventas_mayor = r.ventas_mayor + EXCLUDED.ventas_mayor,
+            unidades_mayor = r.unidades_mayor + EXCLUDED.unidades_mayor,
+            recaudado_mayor = r.recaudado_mayor + EXCLUDED.recaudado_mayor,
+            updated_at = CURRENT_TIMESTAMP
+        """, nativeQuery = true)
+    void acumular(@Param("d") ResumenVentasUsuario delta);
+
+    @Modifying
+    @Query(value = "DELETE FROM resumen_ventas_usuario", nativeQuery = true)
+    int eliminarTodos();
+
+    /**
+     * Recalcula todos los resúmenes desde ventas en una sola pasada (GROUP BY usuario_id).
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO resumen_ventas_usuario (
+            usuario_id, ventas_pendientes, ventas_aprobadas, ventas_rechazadas,
+            total_unidades, total_recaudado, parte_vendedor, parte_samuel,
+            ganancia_real_vendedor, ganancia_real_samuel, ventas_unidad,
+            unidades_unidad, recaudado_unidad, ventas_promo, unidades_promo,
+            recaudado_promo, ventas_sin_licor, unidades_sin_licor,
+            recaudado_sin_licor, ventas_regalo, unidades_regalo, ventas_mayor,
+            unidades_mayor, recaudado_mayor, updated_at
+        )
+        SELECT
+            v.usuario_id,
+            COUNT(*) FILTER (WHERE v.estado = 'PENDIENTE'),
+            COUNT(*) FILTER (WHERE v.estado = 'APROBADA'),
+            COUNT(*) FILTER (WHERE v.estado = 'RECHAZADA'),
+            COALESCE(SUM(v.cantidad) FILTER (WHERE v.estado = 'APROBADA'), 0),
+            COALESCE(SUM(v.precio_total) FILTER (WHERE v.estado = 'APROBADA' AND v.tipo <> 'REGALO'), 0),
+            COALESCE(SUM(v.parte_vendedor) FILTER (WHERE v.estado = 'APROBADA'), 0),
+            COALESCE(SUM(v.parte_samuel) FILTER (WHERE v.estado = 'APROBADA'), 0),
+            COALESCE(SUM(v.parte_vendedor) FILTER (WHERE v.estado = 'APROBADA' AND v.es_ganancia), 0),
+            COALESCE(SUM(v.parte_samuel) FILTER (WHERE v.estado = 'APROBADA' AND v.es_ganancia), 0),
+            COUNT(*) FILTER (WHERE v.estado = 'APROBADA' AND v.tipo = 'UNIDAD'),
+            COALESCE(SUM(v.cantidad) FILTER (WHERE v.estado = 'APROBADA' AND v.tipo = 'UNIDAD'), 0),
+            COALESCE(SUM(v.precio_total) FILTER (WHERE v.estado = 'APROBADA' AND v.tipo = 'UNIDAD'), 0),
+            COUNT(*) FILTER (WHERE v.estado = 'APROBADA' AND v.tipo = 'PROMO'),
+            COALESCE(SUM(v.cantidad) FILTER (WHERE v.estado = 'APROBADA' AND v.tipo = 'PROMO'), 0),
+            COALESCE(SUM(v.precio_total) FILTER (WHERE v.estado = 'APROBADA' AND v.tipo = 'PROMO'), 0),
+            COUNT(*) FILTER (WHERE v.estado = 'APROBADA' AND v.tipo = 'SIN_LICOR'),
+            COALESCE(SUM(v.cantidad) FILTER (WHERE v.estado = 'APROBADA' AND v.tipo = 'SIN_LICOR'), 0),
+            COALESCE(SUM(v.precio_total) FILTER (WHERE v.estado = 'APROBADA' AND v.tipo = 'SIN_LICOR'), 0),
+            COUNT(*) FILTER (WHERE v.estado = 'APROBADA' AND v.tipo = 'REGALO'),
+            COALESCE(SUM(v.cantidad) FILTER (WHERE v.estado = 'APROBADA' AND v.tipo = 'REGALO'), 0),
+            COUNT(*) FILTER (WHERE v.estado = 'APROBADA' AND v.tipo IN ('MAYOR_CON_LICOR', 'MAYOR_SIN_LICOR')),
+            COALESCE(SUM(v.cantidad) FILTER (WHERE v.estado = 'APROBADA' AND v.tipo IN ('MAYOR_CON_LICOR', 'MAYOR_SIN_LICOR')), 0),
+            COALESCE(SUM(v.precio_total) FILTER (WHERE v.estado = 'APROBADA' AND v.tipo IN ('MAYOR_CON_LICOR', 'MAYOR_SIN_LICOR')), 0),
+            CURRENT_TIMESTAMP
+        FROM ventas v
+        GROUP BY v.usuario_id
+        """, nativeQuery = true)
+    int reconstruirDesdeVentas();
+}
@@ -1,11 +1,14 @@
 package com.trabix.sales.repository;
 
 import com.trabix.sales.entity.Tanda;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,11 +16,28 @@ import java.util.Optional;
 public interface TandaRepository extends JpaRepository<Tanda, Long> {
 
     /**
-     * Busca la tanda activa (liberada con stock) de un usuario.
+     * Busca la tanda para modificar su stock/recaudado, bloqueando la fila (SELECT ... FOR UPDATE).
+     * Las ventas concurrentes sobre la misma tanda esperan en lugar de fallar por @Version.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Tanda t WHERE t.id = :id")
+    Optional<Tanda> findByIdParaActualizar(@Param("id") Long id);
+
+    /**
+     * Variante en bloque de findByIdParaActualizar (ventas en lote).
+     * Ordenadas por ID para que dos lotes concurrentes bloqueen en el mismo orden.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Tanda t WHERE t.id IN :ids ORDER BY t.id")
+    List<Tanda> findAllByIdParaActualizar(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Busca el ID de la tanda activa (liberada con stock) de un usuario.
      * USA FIFO: Primero ordena por lote (fecha_creacion ASC), luego por tanda (numero ASC).
+     * Retorna solo el ID para luego cargarla con findByIdParaActualizar.
      */
     @Query(value = """
-        SELECT t.* FROM tandas t
+        SELECT t.id FROM tandas t
         JOIN lotes l ON t.lote_id = l.id
         WHERE l.usuario_id = :usuarioId
         AND l.estado = 'ACTIVO'
@@ -26,7 +46,7 @@ public interface TandaRepository extends JpaRepository<Tanda, Long> {
         ORDER BY l.fecha_creacion ASC, t.numero ASC
         LIMIT 1
         """, nativeQuery = true)
-    Optional<Tanda> findTandaActivaDeUsuario(@Param("usuarioId") Long usuarioId);
+    Optional<Long> findIdTandaActivaDeUsuario(@Param("usuarioId") Long usuarioId);
 
     /**
      * Lista todas las tandas activas de un usuario (FIFO).
@@ -42,6 +62,20 @@ public interface TandaRepository extends JpaRepository<Tanda, Long> {
         """, nativeQuery = true)
     List<Tanda> findTandasActivasDeUsuario(@Param("usuarioId") Long usuarioId);
 
+    /**
+     * IDs de las tandas activas de un usuario (FIFO), para bloquearlas con findAllByIdParaActualizar.
+     */
+    @Query(value = """
+        SELECT t.id FROM tandas t
+        JOIN lotes l ON t.lote_id = l.id
+        WHERE l.usuario_id = :usuarioId
+        AND l.estado = 'ACTIVO'
+        AND t.estado = 'LIBERADA'
+        AND t.stock_actual > 0
+        ORDER BY l.fecha_creacion ASC, t.numero ASC
+        """, nativeQuery = true)
+    List<Long> findIdsTandasActivasDeUsuario(@Param("usuarioId") Long usuarioId);
+
     /**
      * Sumar stock actual de un usuario.
      */
@@ -59,6 +93,11 @@ public interface TandaRepository extends JpaRepository<Tanda, Long> {
      */
     List<Tanda> findByLoteIdOrderByNumeroAsc(Long loteId);
 
+    /**
+     * Tandas de varios lotes en una sola consulta (listados de ventas).
+     */
+    List<Tanda> findByLoteIdIn(Collection<Long> loteIds);
+
     /**
      * Contar tandas de un lote.
      */
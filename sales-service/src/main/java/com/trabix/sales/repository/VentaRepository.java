@@ -5,6 +5,7 @@ import com.trabix.common.enums.TipoVenta;
 import com.trabix.sales.entity.Venta;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -13,13 +14,29 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface VentaRepository extends JpaRepository<Venta, Long> {
 
+    // === Listados (usuario y tanda en la misma consulta, sin N+1) ===
+
+    @Override
+    @EntityGraph(attributePaths = {"usuario", "tanda"})
+    Page<Venta> findAll(Pageable pageable);
+
+    // === Operaciones en lote ===
+
+    @EntityGraph(attributePaths = {"usuario", "tanda"})
+    List<Venta> findByIdIn(Collection<Long> ids);
+
+    @Query("SELECT DISTINCT v.tanda.id FROM Venta v WHERE v.id IN :ids")
+    List<Long> findTandaIdsByVentaIds(@Param("ids") Collection<Long> ids);
+
     // === Consultas por usuario ===
     
+    @EntityGraph(attributePaths = {"usuario", "tanda"})
     List<Venta> findByUsuarioIdOrderByFechaRegistroDesc(Long usuarioId);
 
     Page<Venta> findByUsuarioId(Long usuarioId, Pageable pageable);
@@ -28,12 +45,14 @@ public interface VentaRepository extends JpaRepository<Venta, Long> {
 
     // === Consultas por tanda ===
     
+    @EntityGraph(attributePaths = {"usuario", "tanda"})
     List<Venta> findByTandaIdOrderByFechaRegistroDesc(Long tandaId);
 
     List<Venta> findByTandaIdAndEstado(Long tandaId, EstadoVenta estado);
 
     // === Consultas por estado ===
     
+    @EntityGraph(attributePaths = {"usuario", "tanda"})
     Page<Venta> findByEstado(EstadoVenta estado, Pageable pageable);
 
     long countByEstado(EstadoVenta estado);
@@ -44,6 +63,7 @@ public interface VentaRepository extends JpaRepository<Venta, Long> {
 
     // === Consultas de rango de fechas ===
     
+    @EntityGraph(attributePaths = {"usuario", "tanda"})
     List<Venta> findByUsuarioIdAndFechaRegistroBetween(
             Long usuarioId, LocalDateTime desde, LocalDateTime hasta);
 
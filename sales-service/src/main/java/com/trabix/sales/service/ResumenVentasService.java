@@ -0,0 +1,51 @@
+package com.trabix.sales.service;
+
+import com.trabix.sales.repository.ResumenVentasUsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reconstrucción de la tabla resumen_ventas_usuario.
+ *
+ * VentaService la mantiene incrementalmente; esta reconstrucción la recalcula
+ * desde cero en una sola pasada sobre ventas (al arrancar si está vacía,
+ * cada noche como reconciliación, o manualmente desde el endpoint de admin).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ResumenVentasService {
+
+    private final ResumenVentasUsuarioRepository resumenRepository;
+
+    /**
+     * Recalcula todos los resúmenes. Retorna el número de usuarios con resumen.
+     */
+    @Transactional
+    @Scheduled(cron = "${trabix.resumen-ventas.reconstruccion-cron:0 15 4 * * ?}")
+    public int reconstruir() {
+        long inicio = System.currentTimeMillis();
+        resumenRepository.eliminarTodos();
+        int usuarios = resumenRepository.reconstruirDesdeVentas();
+        log.info("📊 Resumen de ventas reconstruido: {} usuarios en {} ms",
+                usuarios, System.currentTimeMillis() - inicio);
+        return usuarios;
+    }
+
+    /**
+     * Primera carga tras crear la tabla: sin resúmenes, /ventas/me/resumen mostraría ceros.
+     */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruirSiVacio() {
+        if (resumenRepository.count() == 0) {
+            resumenRepository.reconstruirDesdeVentas();
+            log.info("📊 Resumen de ventas inicializado");
+        }
+    }
+}
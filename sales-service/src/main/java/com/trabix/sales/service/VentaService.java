@@ -5,17 +5,22 @@ import com.trabix.common.enums.TipoVenta;
 import com.trabix.common.exception.RecursoNoEncontradoException;
 import com.trabix.common.exception.ValidacionNegocioException;
 import com.trabix.sales.dto.*;
+import com.trabix.sales.entity.EventoCuadre;
 import com.trabix.sales.entity.Lote;
+import com.trabix.sales.entity.ResumenVentasUsuario;
 import com.trabix.sales.entity.Tanda;
 import com.trabix.sales.entity.Usuario;
 import com.trabix.sales.entity.Venta;
+import com.trabix.sales.repository.EventoCuadreRepository;
 import com.trabix.sales.repository.LoteRepository;
+import com.trabix.sales.repository.ResumenVentasUsuarioRepository;
 import com.trabix.sales.repository.TandaRepository;
 import com.trabix.sales.repository.UsuarioRepository;
 import com.trabix.sales.repository.VentaRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,7 +30,17 @@ import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
 import java.util.stream.Collectors;
 
 /**
@@ -35,7 +50,8 @@ import java.util.stream.Collectors;
  * - parteVendedor/parteSamuel: División del recaudado (NO son ganancias hasta recuperar inversión)
  * - esGanancia: true solo cuando AMBAS inversiones están recuperadas
  * - Ventas usan FIFO (lote más antiguo primero)
- * - Stock se reduce al registrar (preventivo)
+ * - Stock se reduce al registrar (preventivo), con la fila de la tanda bloqueada:
+ *   ventas simultáneas sobre la misma tanda se serializan en lugar de fallar por @Version
  * - Stock se restaura si se rechaza
  * 
  * PRECIOS:
@@ -55,6 +71,8 @@ public class VentaService {
     private final TandaRepository tandaRepository;
     private final LoteRepository loteRepository;
     private final UsuarioRepository usuarioRepository;
+    private final EventoCuadreRepository eventoCuadreRepository;
+    private final ResumenVentasUsuarioRepository resumenRepository;
 
     // === PRECIOS FIJOS ===
     private static final BigDecimal PRECIO_UNIDAD = new BigDecimal("8000");
@@ -90,7 +108,7 @@ public class VentaService {
 
         Tanda tanda;
         if (request.getTandaId() != null) {
-            tanda = tandaRepository.findById(request.getTandaId())
+            tanda = tandaRepository.findByIdParaActualizar(request.getTandaId())
                     .orElseThrow(() -> new RecursoNoEncontradoException("Tanda", request.getTandaId()));
             
             // Validar que la tanda pertenece al usuario
@@ -100,8 +118,10 @@ public class VentaService {
                 throw new ValidacionNegocioException("La tanda especificada no pertenece a este usuario");
             }
         } else {
-            tanda = tandaRepository.findTandaActivaDeUsuario(usuarioId)
+            Long tandaId = tandaRepository.findIdTandaActivaDeUsuario(usuarioId)
                     .orElseThrow(() -> new ValidacionNegocioException("No tienes stock disponible"));
+            tanda = tandaRepository.findByIdParaActualizar(tandaId)
+                    .orElseThrow(() -> new RecursoNoEncontradoException("Tanda", tandaId));
         }
 
         Lote lote = loteRepository.findById(tanda.getLoteId())
@@ -117,7 +137,7 @@ public class VentaService {
                             tanda.getStockActual(), request.getCantidad()));
         }
 
-        validarSegunTipo(request, tanda);
+        validarSegunTipo(request, tanda, () -> ventaRepository.contarRegalosPorTanda(tanda.getId()));
 
         BigDecimal precioUnitario = calcularPrecioUnitario(request.getTipo(), request.getCantidad());
         BigDecimal precioTotal = precioUnitario.multiply(BigDecimal.valueOf(request.getCantidad()));
@@ -144,6 +164,12 @@ public class VentaService {
 
         venta = ventaRepository.save(venta);
 
+        publicarEventoCuadre(tanda.getId(), "VENTA_REGISTRADA", -request.getCantidad(), BigDecimal.ZERO);
+
+        ResumenVentasUsuario deltaResumen = ResumenVentasUsuario.delta(usuarioId);
+        deltaResumen.registrar();
+        resumenRepository.acumular(deltaResumen);
+
         log.info("📝 Venta registrada: ID={}, Usuario={}, Lote={}, Tanda={}, Tipo={}, Cantidad={}, Total={}, ParteVendedor={}, ParteSamuel={}, EsGanancia={}",
                 venta.getId(), usuario.getCedula(), lote.getId(), tanda.getNumero(),
                 request.getTipo(), request.getCantidad(), precioTotal,
@@ -152,7 +178,7 @@ public class VentaService {
         return mapToResponse(venta, tanda, lote, usuario);
     }
 
-    private void validarSegunTipo(RegistrarVentaRequest request, Tanda tanda) {
+    private void validarSegunTipo(RegistrarVentaRequest request, Tanda tanda, IntSupplier regalosPrevios) {
         TipoVenta tipo = request.getTipo();
         int cantidad = request.getCantidad();
 
@@ -163,7 +189,7 @@ public class VentaService {
                 }
             }
             case REGALO -> {
-                validarLimiteRegalos(tanda, cantidad);
+                validarLimiteRegalos(tanda, cantidad, regalosPrevios.getAsInt());
             }
             case MAYOR_CON_LICOR, MAYOR_SIN_LICOR -> {
                 if (cantidad < CANTIDAD_MINIMA_MAYOR) {
@@ -226,8 +252,7 @@ public class VentaService {
         venta.setParteSamuel(parteSamuel);
     }
 
-    private void validarLimiteRegalos(Tanda tanda, int cantidadSolicitada) {
-        int regalosPrevios = ventaRepository.contarRegalosPorTanda(tanda.getId());
+    private void validarLimiteRegalos(Tanda tanda, int cantidadSolicitada, int regalosPrevios) {
         int limiteRegalos = (tanda.getStockEntregado() * LIMITE_REGALOS_PORCENTAJE) / 100;
         int regalosDisponibles = Math.max(0, limiteRegalos - regalosPrevios);
 
@@ -249,8 +274,8 @@ public class VentaService {
 
         venta.aprobar();
         
-        // Actualizar total recaudado de la tanda
-        Tanda tanda = venta.getTanda();
+        // Actualizar total recaudado de la tanda (fila bloqueada: sin conflictos con ventas concurrentes)
+        Tanda tanda = bloquearTanda(venta);
         if (venta.generaIngreso()) {
             tanda.agregarRecaudado(venta.getPrecioTotal());
             tandaRepository.save(tanda);
@@ -258,25 +283,29 @@ public class VentaService {
         
         ventaRepository.save(venta);
 
-        verificarTriggersCuadre(tanda);
+        publicarEventoCuadre(tanda.getId(), "VENTA_APROBADA", 0,
+                venta.generaIngreso() ? venta.getPrecioTotal() : BigDecimal.ZERO);
+
+        ResumenVentasUsuario deltaResumen = ResumenVentasUsuario.delta(venta.getUsuario().getId());
+        deltaResumen.aprobar(venta);
+        resumenRepository.acumular(deltaResumen);
+
+        Lote lote = loteRepository.findById(tanda.getLoteId()).orElse(null);
+        verificarTriggersCuadre(tanda, lote, tandaRepository.countByLoteId(tanda.getLoteId()));
 
         log.info("✅ Venta aprobada: ID={}", ventaId);
         
-        Lote lote = loteRepository.findById(tanda.getLoteId()).orElse(null);
         return mapToResponse(venta, tanda, lote, venta.getUsuario());
     }
 
     /**
      * Verifica triggers de cuadre después de aprobar venta.
      */
-    private void verificarTriggersCuadre(Tanda tanda) {
+    private void verificarTriggersCuadre(Tanda tanda, Lote lote, int totalTandas) {
         double porcentajeRestante = tanda.getPorcentajeStockRestante();
         int numeroTanda = tanda.getNumero();
-        int totalTandas = tandaRepository.countByLoteId(tanda.getLoteId());
         boolean esUltimaTanda = numeroTanda == totalTandas;
 
-        Lote lote = loteRepository.findById(tanda.getLoteId()).orElse(null);
-        
         if (numeroTanda == 1) {
             // Tanda 1: Verificar si recaudado >= inversión Samuel
             if (lote != null && tanda.getTotalRecaudado() != null && lote.getInversionSamuel() != null) {
@@ -308,6 +337,28 @@ public class VentaService {
         }
     }
 
+    /**
+     * Carga la tanda de la venta con bloqueo de fila antes de modificar su stock o recaudado.
+     */
+    private Tanda bloquearTanda(Venta venta) {
+        Long tandaId = venta.getTanda().getId();
+        return tandaRepository.findByIdParaActualizar(tandaId)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Tanda", tandaId));
+    }
+
+    /**
+     * Registra el cambio de stock/recaudado en el outbox de cuadres (misma transacción que la venta).
+     * billing-service lo consume para evaluar triggers sin escanear todas las tandas.
+     */
+    private void publicarEventoCuadre(Long tandaId, String tipo, int deltaStock, BigDecimal deltaRecaudado) {
+        eventoCuadreRepository.save(EventoCuadre.builder()
+                .tandaId(tandaId)
+                .tipo(tipo)
+                .deltaStock(deltaStock)
+                .deltaRecaudado(deltaRecaudado)
+                .build());
+    }
+
     @Transactional
     public VentaResponse rechazarVenta(Long ventaId, String motivo) {
         Venta venta = ventaRepository.findById(ventaId)
@@ -317,19 +368,207 @@ public class VentaService {
             throw new ValidacionNegocioException("Solo se pueden rechazar ventas pendientes");
         }
 
-        Tanda tanda = venta.getTanda();
+        Tanda tanda = bloquearTanda(venta);
         tanda.restaurarStock(venta.getCantidad());
         tandaRepository.save(tanda);
 
         venta.rechazar(motivo);
         ventaRepository.save(venta);
 
+        publicarEventoCuadre(tanda.getId(), "VENTA_RECHAZADA", venta.getCantidad(), BigDecimal.ZERO);
+
+        ResumenVentasUsuario deltaResumen = ResumenVentasUsuario.delta(venta.getUsuario().getId());
+        deltaResumen.rechazar();
+        resumenRepository.acumular(deltaResumen);
+
         log.info("❌ Venta rechazada: ID={}, Motivo={}. Stock restaurado.", ventaId, motivo);
         
         Lote lote = loteRepository.findById(tanda.getLoteId()).orElse(null);
         return mapToResponse(venta, tanda, lote, venta.getUsuario());
     }
 
+    // === OPERACIONES EN LOTE (cierre del día) ===
+
+    /**
+     * Registra varias ventas del mismo usuario en una sola transacción.
+     *
+     * Mismas validaciones y precios que registrarVenta, pero:
+     * - las tandas involucradas se bloquean una sola vez (en orden de ID)
+     * - el stock se descuenta en memoria y se persiste una vez por tanda
+     * - las ventas se insertan en batch JDBC (hibernate.jdbc.batch_size)
+     * - un solo evento de cuadre por tanda con el delta acumulado
+     * Si una venta no es válida no se registra ninguna.
+     */
+    @Transactional
+    public List<VentaResponse> registrarVentasBatch(Long usuarioId, List<RegistrarVentaRequest> requests) {
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Usuario", usuarioId));
+
+        List<Long> tandasFifo = requests.stream().anyMatch(r -> r.getTandaId() == null)
+                ? tandaRepository.findIdsTandasActivasDeUsuario(usuarioId)
+                : List.of();
+
+        Set<Long> tandaIds = new HashSet<>(tandasFifo);
+        requests.stream()
+                .map(RegistrarVentaRequest::getTandaId)
+                .filter(Objects::nonNull)
+                .forEach(tandaIds::add);
+
+        Map<Long, Tanda> tandas = tandaRepository.findAllByIdParaActualizar(tandaIds).stream()
+                .collect(Collectors.toMap(Tanda::getId, Function.identity()));
+        Set<Long> loteIds = tandas.values().stream().map(Tanda::getLoteId).collect(Collectors.toSet());
+        Map<Long, Lote> lotes = loteRepository.findAllById(loteIds).stream()
+                .collect(Collectors.toMap(Lote::getId, Function.identity()));
+
+        Map<Long, Integer> regalosPorTanda = new HashMap<>();
+        Map<Long, Integer> deltaStockPorTanda = new LinkedHashMap<>();
+        List<Venta> ventas = new ArrayList<>(requests.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            RegistrarVentaRequest request = requests.get(i);
+            try {
+                Tanda tanda = resolverTandaBatch(request, tandas, tandasFifo);
+                Lote lote = lotes.get(tanda.getLoteId());
+
+                if (lote == null || !lote.getUsuarioId().equals(usuarioId)) {
+                    throw new ValidacionNegocioException("La tanda especificada no pertenece a este usuario");
+                }
+                if (!"ACTIVO".equals(lote.getEstado())) {
+                    throw new ValidacionNegocioException("El lote no está activo");
+                }
+                if (tanda.getStockActual() < request.getCantidad()) {
+                    throw new ValidacionNegocioException(
+                            String.format("Stock insuficiente. Disponible: %d, Solicitado: %d",
+                                    tanda.getStockActual(), request.getCantidad()));
+                }
+
+                validarSegunTipo(request, tanda, () -> regalosPorTanda.computeIfAbsent(
+                        tanda.getId(), ventaRepository::contarRegalosPorTanda));
+
+                BigDecimal precioUnitario = calcularPrecioUnitario(request.getTipo(), request.getCantidad());
+                Venta venta = Venta.builder()
+                        .usuario(usuario)
+                        .tanda(tanda)
+                        .tipo(request.getTipo())
+                        .cantidad(request.getCantidad())
+                        .precioUnitario(precioUnitario)
+                        .precioTotal(precioUnitario.multiply(BigDecimal.valueOf(request.getCantidad())))
+                        .estado(EstadoVenta.PENDIENTE)
+                        .nota(request.getNota())
+                        .esGanancia(lote.hayGanancias())
+                        .build();
+                calcularPartes(venta, lote);
+
+                tanda.reducirStock(request.getCantidad());
+                deltaStockPorTanda.merge(tanda.getId(), -request.getCantidad(), Integer::sum);
+                if (request.getTipo() == TipoVenta.REGALO) {
+                    regalosPorTanda.merge(tanda.getId(), request.getCantidad(), Integer::sum);
+                }
+                ventas.add(venta);
+            } catch (ValidacionNegocioException e) {
+                throw new ValidacionNegocioException(String.format("Venta #%d: %s", i + 1, e.getMessage()));
+            }
+        }
+
+        tandaRepository.saveAll(deltaStockPorTanda.keySet().stream().map(tandas::get).toList());
+        ventaRepository.saveAll(ventas);
+        deltaStockPorTanda.forEach((tandaId, delta) ->
+                publicarEventoCuadre(tandaId, "VENTA_REGISTRADA", delta, BigDecimal.ZERO));
+
+        ResumenVentasUsuario deltaResumen = ResumenVentasUsuario.delta(usuarioId);
+        ventas.forEach(v -> deltaResumen.registrar());
+        resumenRepository.acumular(deltaResumen);
+
+        log.info("📝 Ventas registradas en lote: Usuario={}, Ventas={}, Tandas={}",
+                usuario.getCedula(), ventas.size(), deltaStockPorTanda.size());
+
+        return mapToResponseListado(ventas);
+    }
+
+    /**
+     * Tanda de una venta del lote: la indicada o la primera FIFO que aún tenga stock
+     * (el stock ya descontado por ventas anteriores del mismo lote cuenta).
+     */
+    private Tanda resolverTandaBatch(RegistrarVentaRequest request, Map<Long, Tanda> tandas, List<Long> tandasFifo) {
+        if (request.getTandaId() != null) {
+            Tanda tanda = tandas.get(request.getTandaId());
+            if (tanda == null) {
+                throw new RecursoNoEncontradoException("Tanda", request.getTandaId());
+            }
+            return tanda;
+        }
+        return tandasFifo.stream()
+                .map(tandas::get)
+                .filter(t -> t != null && t.getStockActual() > 0)
+                .findFirst()
+                .orElseThrow(() -> new ValidacionNegocioException("No tienes stock disponible"));
+    }
+
+    /**
+     * Aprueba varias ventas pendientes en una sola transacción.
+     *
+     * - las tandas se bloquean una vez y el recaudado se suma una vez por tanda
+     * - un evento de cuadre y una verificación de triggers por tanda (no por venta)
+     * Si alguna venta no existe o no está pendiente no se aprueba ninguna.
+     */
+    @Transactional
+    public List<VentaResponse> aprobarVentasBatch(List<Long> ventaIds) {
+        Set<Long> ids = new LinkedHashSet<>(ventaIds);
+
+        // Bloquear las tandas antes de cargar las ventas: así se leen con su estado actual
+        Map<Long, Tanda> tandas = tandaRepository
+                .findAllByIdParaActualizar(ventaRepository.findTandaIdsByVentaIds(ids)).stream()
+                .collect(Collectors.toMap(Tanda::getId, Function.identity()));
+
+        List<Venta> ventas = ventaRepository.findByIdIn(ids);
+        if (ventas.size() != ids.size()) {
+            Set<Long> encontradas = ventas.stream().map(Venta::getId).collect(Collectors.toSet());
+            Long faltante = ids.stream().filter(id -> !encontradas.contains(id)).findFirst().orElse(null);
+            throw new RecursoNoEncontradoException("Venta", faltante);
+        }
+
+        Map<Long, BigDecimal> recaudadoPorTanda = new LinkedHashMap<>();
+        Map<Long, ResumenVentasUsuario> resumenPorUsuario = new LinkedHashMap<>();
+        for (Venta venta : ventas) {
+            if (venta.getEstado() != EstadoVenta.PENDIENTE) {
+                throw new ValidacionNegocioException(
+                        String.format("Venta %d: Solo se pueden aprobar ventas pendientes", venta.getId()));
+            }
+            venta.aprobar();
+            recaudadoPorTanda.merge(venta.getTanda().getId(),
+                    venta.generaIngreso() ? venta.getPrecioTotal() : BigDecimal.ZERO, BigDecimal::add);
+            resumenPorUsuario.computeIfAbsent(venta.getUsuario().getId(), ResumenVentasUsuario::delta)
+                    .aprobar(venta);
+        }
+
+        recaudadoPorTanda.forEach((tandaId, monto) -> {
+            if (monto.signum() > 0) {
+                tandas.get(tandaId).agregarRecaudado(monto);
+            }
+            publicarEventoCuadre(tandaId, "VENTA_APROBADA", 0, monto);
+        });
+
+        tandaRepository.saveAll(tandas.values());
+        ventaRepository.saveAll(ventas);
+        resumenPorUsuario.values().forEach(resumenRepository::acumular);
+
+        // Triggers una vez por tanda, con lotes y conteo de tandas cargados en bloque
+        Set<Long> loteIds = tandas.values().stream().map(Tanda::getLoteId).collect(Collectors.toSet());
+        Map<Long, Lote> lotes = loteRepository.findAllById(loteIds).stream()
+                .collect(Collectors.toMap(Lote::getId, Function.identity()));
+        Map<Long, Long> totalTandasPorLote = tandaRepository.findByLoteIdIn(loteIds).stream()
+                .collect(Collectors.groupingBy(Tanda::getLoteId, Collectors.counting()));
+
+        for (Tanda tanda : tandas.values()) {
+            verificarTriggersCuadre(tanda, lotes.get(tanda.getLoteId()),
+                    totalTandasPorLote.getOrDefault(tanda.getLoteId(), 0L).intValue());
+        }
+
+        log.info("✅ Ventas aprobadas en lote: Ventas={}, Tandas={}", ventas.size(), tandas.size());
+
+        return mapToResponseListado(ventas);
+    }
+
     @Transactional(readOnly = true)
     public VentaResponse obtenerVenta(Long ventaId) {
         Venta venta = ventaRepository.findById(ventaId)
@@ -342,29 +581,22 @@ public class VentaService {
 
     @Transactional(readOnly = true)
     public Page<VentaResponse> listarVentas(Pageable pageable) {
-        return ventaRepository.findAll(pageable).map(this::mapToResponseSimple);
+        return mapToResponsePagina(ventaRepository.findAll(pageable));
     }
 
     @Transactional(readOnly = true)
     public Page<VentaResponse> listarVentasPendientes(Pageable pageable) {
-        return ventaRepository.findByEstado(EstadoVenta.PENDIENTE, pageable)
-                .map(this::mapToResponseSimple);
+        return mapToResponsePagina(ventaRepository.findByEstado(EstadoVenta.PENDIENTE, pageable));
     }
 
     @Transactional(readOnly = true)
     public List<VentaResponse> listarVentasDeUsuario(Long usuarioId) {
-        return ventaRepository.findByUsuarioIdOrderByFechaRegistroDesc(usuarioId)
-                .stream()
-                .map(this::mapToResponseSimple)
-                .collect(Collectors.toList());
+        return mapToResponseListado(ventaRepository.findByUsuarioIdOrderByFechaRegistroDesc(usuarioId));
     }
 
     @Transactional(readOnly = true)
     public List<VentaResponse> listarVentasDeTanda(Long tandaId) {
-        return ventaRepository.findByTandaIdOrderByFechaRegistroDesc(tandaId)
-                .stream()
-                .map(this::mapToResponseSimple)
-                .collect(Collectors.toList());
+        return mapToResponseListado(ventaRepository.findByTandaIdOrderByFechaRegistroDesc(tandaId));
     }
 
     @Transactional(readOnly = true)
@@ -372,116 +604,57 @@ public class VentaService {
         LocalDateTime inicioHoy = LocalDate.now().atStartOfDay();
         LocalDateTime finHoy = LocalDate.now().atTime(LocalTime.MAX);
 
-        return ventaRepository.findByUsuarioIdAndFechaRegistroBetween(usuarioId, inicioHoy, finHoy)
-                .stream()
-                .map(this::mapToResponseSimple)
-                .collect(Collectors.toList());
+        return mapToResponseListado(
+                ventaRepository.findByUsuarioIdAndFechaRegistroBetween(usuarioId, inicioHoy, finHoy));
     }
 
+    /**
+     * Resumen de ventas del usuario: una lectura por clave primaria de resumen_ventas_usuario
+     * (mantenida incrementalmente al registrar/aprobar/rechazar).
+     */
     @Transactional(readOnly = true)
     public ResumenVentasResponse obtenerResumenUsuario(Long usuarioId) {
-        Object[] stats = ventaRepository.obtenerEstadisticasUsuario(usuarioId);
-        long totalVentas = ((Number) stats[0]).longValue();
-        int totalUnidades = ((Number) stats[1]).intValue();
-        BigDecimal totalRecaudado = stats[2] != null ? (BigDecimal) stats[2] : BigDecimal.ZERO;
-
-        // Partes (no son ganancias)
-        BigDecimal totalParteVendedor = ventaRepository.sumarParteVendedor(usuarioId);
-        BigDecimal totalParteSamuel = ventaRepository.sumarParteSamuel(usuarioId);
-        
-        // Ganancias reales (solo donde esGanancia=true)
-        BigDecimal gananciaRealVendedor = ventaRepository.sumarGananciaRealVendedor(usuarioId);
-        BigDecimal gananciaRealSamuel = ventaRepository.sumarGananciaRealSamuel(usuarioId);
-        
-        if (totalParteVendedor == null) totalParteVendedor = BigDecimal.ZERO;
-        if (totalParteSamuel == null) totalParteSamuel = BigDecimal.ZERO;
-        if (gananciaRealVendedor == null) gananciaRealVendedor = BigDecimal.ZERO;
-        if (gananciaRealSamuel == null) gananciaRealSamuel = BigDecimal.ZERO;
-
-        List<Object[]> statsPorTipo = ventaRepository.obtenerEstadisticasPorTipo(usuarioId);
-
-        int ventasUnidad = 0, unidadesUnidad = 0;
-        BigDecimal recaudadoUnidad = BigDecimal.ZERO;
-        int ventasPromo = 0, unidadesPromo = 0;
-        BigDecimal recaudadoPromo = BigDecimal.ZERO;
-        int ventasSinLicor = 0, unidadesSinLicor = 0;
-        BigDecimal recaudadoSinLicor = BigDecimal.ZERO;
-        int ventasRegalo = 0, unidadesRegalo = 0;
-        int ventasMayor = 0, unidadesMayor = 0;
-        BigDecimal recaudadoMayor = BigDecimal.ZERO;
-
-        for (Object[] row : statsPorTipo) {
-            TipoVenta tipo = (TipoVenta) row[0];
-            int count = ((Number) row[1]).intValue();
-            int unidades = ((Number) row[2]).intValue();
-            BigDecimal monto = row[3] != null ? (BigDecimal) row[3] : BigDecimal.ZERO;
-
-            switch (tipo) {
-                case UNIDAD -> {
-                    ventasUnidad = count;
-                    unidadesUnidad = unidades;
-                    recaudadoUnidad = monto;
-                }
-                case PROMO -> {
-                    ventasPromo = count;
-                    unidadesPromo = unidades;
-                    recaudadoPromo = monto;
-                }
-                case SIN_LICOR -> {
-                    ventasSinLicor = count;
-                    unidadesSinLicor = unidades;
-                    recaudadoSinLicor = monto;
-                }
-                case REGALO -> {
-                    ventasRegalo = count;
-                    unidadesRegalo = unidades;
-                }
-                case MAYOR_CON_LICOR, MAYOR_SIN_LICOR -> {
-                    ventasMayor += count;
-                    unidadesMayor += unidades;
-                    recaudadoMayor = recaudadoMayor.add(monto);
-                }
-            }
-        }
+        ResumenVentasUsuario r = resumenRepository.findById(usuarioId)
+                .orElseGet(() -> ResumenVentasUsuario.delta(usuarioId));
 
-        long pendientes = ventaRepository.countByUsuarioIdAndEstado(usuarioId, EstadoVenta.PENDIENTE);
-        long aprobadas = ventaRepository.countByUsuarioIdAndEstado(usuarioId, EstadoVenta.APROBADA);
-        long rechazadas = ventaRepository.countByUsuarioIdAndEstado(usuarioId, EstadoVenta.RECHAZADA);
+        int totalVentas = r.getVentasAprobadas();
+        BigDecimal totalRecaudado = r.getTotalRecaudado();
 
         BigDecimal promedioVenta = totalVentas > 0
                 ? totalRecaudado.divide(BigDecimal.valueOf(totalVentas), 2, RoundingMode.HALF_UP)
                 : BigDecimal.ZERO;
 
-        int unidadesConPrecio = unidadesUnidad + unidadesPromo + unidadesSinLicor + unidadesMayor;
+        int unidadesConPrecio = r.getUnidadesUnidad() + r.getUnidadesPromo()
+                + r.getUnidadesSinLicor() + r.getUnidadesMayor();
         BigDecimal precioPromedio = unidadesConPrecio > 0
                 ? totalRecaudado.divide(BigDecimal.valueOf(unidadesConPrecio), 2, RoundingMode.HALF_UP)
                 : BigDecimal.ZERO;
 
         return ResumenVentasResponse.builder()
-                .totalVentas((int) totalVentas)
-                .totalUnidadesVendidas(totalUnidades)
+                .totalVentas(totalVentas)
+                .totalUnidadesVendidas(r.getTotalUnidades())
                 .totalRecaudado(totalRecaudado)
-                .totalParteVendedor(totalParteVendedor)
-                .totalParteSamuel(totalParteSamuel)
-                .gananciaRealVendedor(gananciaRealVendedor)
-                .gananciaRealSamuel(gananciaRealSamuel)
-                .ventasUnidad(ventasUnidad)
-                .unidadesUnidad(unidadesUnidad)
-                .recaudadoUnidad(recaudadoUnidad)
-                .ventasPromo(ventasPromo)
-                .unidadesPromo(unidadesPromo)
-                .recaudadoPromo(recaudadoPromo)
-                .ventasSinLicor(ventasSinLicor)
-                .unidadesSinLicor(unidadesSinLicor)
-                .recaudadoSinLicor(recaudadoSinLicor)
-                .ventasRegalo(ventasRegalo)
-                .unidadesRegalo(unidadesRegalo)
-                .ventasMayor(ventasMayor)
-                .unidadesMayor(unidadesMayor)
-                .recaudadoMayor(recaudadoMayor)
-                .ventasPendientes((int) pendientes)
-                .ventasAprobadas((int) aprobadas)
-                .ventasRechazadas((int) rechazadas)
+                .totalParteVendedor(r.getParteVendedor())
+                .totalParteSamuel(r.getParteSamuel())
+                .gananciaRealVendedor(r.getGananciaRealVendedor())
+                .gananciaRealSamuel(r.getGananciaRealSamuel())
+                .ventasUnidad(r.getVentasUnidad())
+                .unidadesUnidad(r.getUnidadesUnidad())
+                .recaudadoUnidad(r.getRecaudadoUnidad())
+                .ventasPromo(r.getVentasPromo())
+                .unidadesPromo(r.getUnidadesPromo())
+                .recaudadoPromo(r.getRecaudadoPromo())
+                .ventasSinLicor(r.getVentasSinLicor())
+                .unidadesSinLicor(r.getUnidadesSinLicor())
+                .recaudadoSinLicor(r.getRecaudadoSinLicor())
+                .ventasRegalo(r.getVentasRegalo())
+                .unidadesRegalo(r.getUnidadesRegalo())
+                .ventasMayor(r.getVentasMayor())
+                .unidadesMayor(r.getUnidadesMayor())
+                .recaudadoMayor(r.getRecaudadoMayor())
+                .ventasPendientes(r.getVentasPendientes())
+                .ventasAprobadas(r.getVentasAprobadas())
+                .ventasRechazadas(r.getVentasRechazadas())
                 .promedioVenta(promedioVenta)
                 .precioPromedioUnitario(precioPromedio)
                 .build();
@@ -501,13 +674,54 @@ public class VentaService {
 
     private VentaResponse mapToResponse(Venta venta, Tanda tanda, Lote lote, Usuario usuario) {
         List<Tanda> tandasLote = tandaRepository.findByLoteIdOrderByNumeroAsc(tanda.getLoteId());
-        int stockDisponibleLote = tandasLote.stream()
-                .filter(t -> "LIBERADA".equals(t.getEstado()))
-                .mapToInt(Tanda::getStockActual)
-                .sum();
+        return mapToResponse(venta, tanda, lote, usuario, ResumenLote.de(tandasLote));
+    }
+
+    /**
+     * Mapea un listado de ventas con un número constante de consultas, sin importar su tamaño:
+     * - usuario y tanda llegan con la venta (EntityGraph en el repositorio)
+     * - lotes y tandas de esos lotes se cargan en bloque (una consulta cada uno)
+     * - el stock disponible y total de tandas se calcula una sola vez por lote
+     */
+    private List<VentaResponse> mapToResponseListado(List<Venta> ventas) {
+        if (ventas.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Long> loteIds = ventas.stream()
+                .map(v -> v.getTanda().getLoteId())
+                .collect(Collectors.toSet());
+
+        Map<Long, Lote> lotes = loteRepository.findAllById(loteIds).stream()
+                .collect(Collectors.toMap(Lote::getId, Function.identity()));
+
+        Map<Long, List<Tanda>> tandasPorLote = tandaRepository.findByLoteIdIn(loteIds).stream()
+                .collect(Collectors.groupingBy(Tanda::getLoteId));
+
+        Map<Long, ResumenLote> resumenPorLote = new HashMap<>();
+
+        return ventas.stream()
+                .map(venta -> {
+                    Tanda tanda = venta.getTanda();
+                    Long loteId = tanda.getLoteId();
+                    ResumenLote resumen = resumenPorLote.computeIfAbsent(loteId,
+                            id -> ResumenLote.de(tandasPorLote.getOrDefault(id, List.of())));
+                    return mapToResponse(venta, tanda, lotes.get(loteId), venta.getUsuario(), resumen);
+                })
+                .collect(Collectors.toList());
+    }
+
+    private Page<VentaResponse> mapToResponsePagina(Page<Venta> page) {
+        return new PageImpl<>(mapToResponseListado(page.getContent()),
+                page.getPageable(), page.getTotalElements());
+    }
+
+    private VentaResponse mapToResponse(Venta venta, Tanda tanda, Lote lote, Usuario usuario,
+                                        ResumenLote resumenLote) {
+        int stockDisponibleLote = resumenLote.stockDisponible();
 
         double porcentaje = tanda.getPorcentajeStockRestante();
-        int totalTandas = tandasLote.size();
+        int totalTandas = resumenLote.totalTandas();
         boolean esUltimaTanda = tanda.getNumero() == totalTandas;
         boolean proximoACuadre = false;
 
@@ -577,13 +791,6 @@ public class VentaService {
                 .build();
     }
 
-    private VentaResponse mapToResponseSimple(Venta venta) {
-        Tanda tanda = venta.getTanda();
-        Lote lote = loteRepository.findById(tanda.getLoteId()).orElse(null);
-        Usuario usuario = venta.getUsuario();
-        return mapToResponse(venta, tanda, lote, usuario);
-    }
-
     private String getDescripcionTanda(int numero, int total) {
         if (total == 2) {
             return switch (numero) {
@@ -600,4 +807,18 @@ public class VentaService {
             };
         }
     }
+
+    /**
+     * Agregados de un lote usados en la respuesta: stock disponible (tandas liberadas) y total de tandas.
+     */
+    private record ResumenLote(int stockDisponible, int totalTandas) {
+
+        static ResumenLote de(List<Tanda> tandasLote) {
+            int stockDisponible = tandasLote.stream()
+                    .filter(t -> "LIBERADA".equals(t.getEstado()))
+                    .mapToInt(Tanda::getStockActual)
+                    .sum();
+            return new ResumenLote(stockDisponible, tandasLote.size());
+        }
+    }
 }
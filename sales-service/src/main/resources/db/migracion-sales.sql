@@ -0,0 +1,51 @@
+-- ============================================
+-- Migraciones de sales-service (idempotentes)
+-- Se ejecutan al arrancar, antes de que Hibernate valide el esquema (ddl-auto: validate).
+-- Separador de sentencias: @@ (los bloques DO contienen ';')
+-- ============================================
+
+-- Resumen materializado de ventas por usuario.
+-- ResumenVentasService lo reconstruye desde ventas al arrancar si la tabla está vacía.
+CREATE TABLE IF NOT EXISTS resumen_ventas_usuario (
+    usuario_id BIGINT PRIMARY KEY REFERENCES usuarios(id) ON DELETE CASCADE,
+    ventas_pendientes INT NOT NULL DEFAULT 0,
+    ventas_aprobadas INT NOT NULL DEFAULT 0,
+    ventas_rechazadas INT NOT NULL DEFAULT 0,
+    total_unidades INT NOT NULL DEFAULT 0,
+    total_recaudado DECIMAL(14,2) NOT NULL DEFAULT 0,
+    parte_vendedor DECIMAL(14,2) NOT NULL DEFAULT 0,
+    parte_samuel DECIMAL(14,2) NOT NULL DEFAULT 0,
+    ganancia_real_vendedor DECIMAL(14,2) NOT NULL DEFAULT 0,
+    ganancia_real_samuel DECIMAL(14,2) NOT NULL DEFAULT 0,
+    ventas_unidad INT NOT NULL DEFAULT 0,
+    unidades_unidad INT NOT NULL DEFAULT 0,
+    recaudado_unidad DECIMAL(14,2) NOT NULL DEFAULT 0,
+    ventas_promo INT NOT NULL DEFAULT 0,
+    unidades_promo INT NOT NULL DEFAULT 0,
+    recaudado_promo DECIMAL(14,2) NOT NULL DEFAULT 0,
+    ventas_sin_licor INT NOT NULL DEFAULT 0,
+    unidades_sin_licor INT NOT NULL DEFAULT 0,
+    recaudado_sin_licor DECIMAL(14,2) NOT NULL DEFAULT 0,
+    ventas_regalo INT NOT NULL DEFAULT 0,
+    unidades_regalo INT NOT NULL DEFAULT 0,
+    ventas_mayor INT NOT NULL DEFAULT 0,
+    unidades_mayor INT NOT NULL DEFAULT 0,
+    recaudado_mayor DECIMAL(14,2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+@@
+
+-- Outbox de eventos de cuadre (sales-service escribe, billing-service consume y elimina)
+CREATE TABLE IF NOT EXISTS eventos_cuadre (
+    id BIGSERIAL PRIMARY KEY,
+    tanda_id BIGINT NOT NULL,
+    tipo VARCHAR(30) NOT NULL,
+    delta_stock INT NOT NULL DEFAULT 0,
+    delta_recaudado DECIMAL(12,2) NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+@@
+
+-- Venta usa el optimizador pooled (allocationSize = 50): cada nextval reserva un bloque de ids
+ALTER SEQUENCE IF EXISTS ventas_id_seq INCREMENT BY 50
+@@
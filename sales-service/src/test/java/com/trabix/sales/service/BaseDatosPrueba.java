@@ -0,0 +1,57 @@
+package com.trabix.sales.service;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.MountableFile;
+
+/**
+ * PostgreSQL real para los tests de integración de sales-service.
+ *
+ * - TRABIX_TEST_DB_URL (+ TRABIX_TEST_DB_USER / TRABIX_TEST_DB_PASSWORD): base existente
+ *   con el esquema de scripts/init-db.sql, p.ej. la de docker-compose
+ *   (jdbc:postgresql://localhost:5432/trabix_db). No requiere Docker en la máquina del test;
+ *   los tests crean sus propios datos y no borran nada
+ * - Si no, un contenedor postgres:15-alpine (Testcontainers), uno por JVM
+ * - Sin ninguno de los dos, los tests se omiten (@EnabledIf sobre disponible)
+ */
+final class BaseDatosPrueba {
+
+    private static final String URL = System.getenv("TRABIX_TEST_DB_URL");
+
+    private static PostgreSQLContainer<?> contenedor;
+
+    private BaseDatosPrueba() {
+    }
+
+    static boolean disponible() {
+        return URL != null || DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    static void registrar(DynamicPropertyRegistry registry) {
+        // En despliegue billing-service (ddl-auto: update) agrega a lotes/tandas las columnas
+        // que init-db.sql no crea (version, total_recaudado, ...)
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "update");
+
+        if (URL != null) {
+            registry.add("spring.datasource.url", () -> URL);
+            registry.add("spring.datasource.username", () -> System.getenv("TRABIX_TEST_DB_USER"));
+            registry.add("spring.datasource.password", () -> System.getenv("TRABIX_TEST_DB_PASSWORD"));
+            return;
+        }
+        PostgreSQLContainer<?> postgres = iniciarContenedor();
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    private static synchronized PostgreSQLContainer<?> iniciarContenedor() {
+        if (contenedor == null) {
+            contenedor = new PostgreSQLContainer<>("postgres:15-alpine")
+                    .withCopyFileToContainer(MountableFile.forHostPath("../scripts/init-db.sql"),
+                            "/docker-entrypoint-initdb.d/init-db.sql");
+            contenedor.start();
+        }
+        return contenedor;
+    }
+}
@@ -0,0 +1,201 @@
+package com.trabix.sales.service;
+
+import com.trabix.common.enums.TipoVenta;
+import com.trabix.sales.dto.RegistrarVentaRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ventas concurrentes sobre una misma tanda contra PostgreSQL real.
+ *
+ * Verifica que el bloqueo de fila (TandaRepository.findByIdParaActualizar) junto con el
+ * @Version de Tanda no pierde actualizaciones de stock/recaudado ni hace fallar requests
+ * con OptimisticLockException.
+ *
+ * Corre contra el contenedor de Testcontainers o, sin Docker, contra una base existente
+ * (TRABIX_TEST_DB_URL, ver BaseDatosPrueba):
+ *
+ * TRABIX_TEST_DB_URL=jdbc:postgresql://localhost:5432/trabix_db TRABIX_TEST_DB_USER=trabix_admin \
+ * TRABIX_TEST_DB_PASSWORD=... mvn -pl sales-service test -Dtest=VentaServiceConcurrenciaTest
+ */
+@SpringBootTest
+@ActiveProfiles("dev")
+@EnabledIf("com.trabix.sales.service.BaseDatosPrueba#disponible")
+class VentaServiceConcurrenciaTest {
+
+    private static final int HILOS = 16;
+    private static final int VENTAS_POR_HILO = 10;
+    private static final int STOCK_INICIAL = 1000;
+    private static final BigDecimal PRECIO_UNIDAD = new BigDecimal("8000");
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registry) {
+        BaseDatosPrueba.registrar(registry);
+    }
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicInteger secuenciaCedulas = new AtomicInteger();
+
+    @Test
+    void registrosConcurrentesNoPierdenStock() throws Exception {
+        long[] ids = crearVendedorConTanda();
+        long usuarioId = ids[0];
+        long tandaId = ids[1];
+
+        Queue<Throwable> fallos = ejecutarEnParalelo(HILOS, hilo -> {
+            for (int i = 0; i < VENTAS_POR_HILO; i++) {
+                ventaService.registrarVenta(usuarioId, unidad(tandaId));
+            }
+        });
+
+        int ventas = HILOS * VENTAS_POR_HILO;
+        assertTrue(fallos.isEmpty(), () -> "Requests fallidos: " + fallos);
+
+        Map<String, Object> tanda = leerTanda(tandaId);
+        assertEquals(STOCK_INICIAL - ventas, ((Number) tanda.get("stock_actual")).intValue());
+        // Una actualización de la tanda por venta, ninguna perdida
+        assertEquals(ventas, ((Number) tanda.get("version")).intValue());
+        assertEquals(ventas, contar("SELECT COUNT(*) FROM ventas WHERE tanda_id = ?", tandaId));
+        assertEquals(-ventas, contar("SELECT COALESCE(SUM(delta_stock), 0) FROM eventos_cuadre WHERE tanda_id = ?", tandaId));
+    }
+
+    @Test
+    void aprobacionesRechazosYRegistrosConcurrentes() throws Exception {
+        long[] ids = crearVendedorConTanda();
+        long usuarioId = ids[0];
+        long tandaId = ids[1];
+
+        int pendientes = HILOS * VENTAS_POR_HILO;
+        List<Long> ventaIds = new ArrayList<>();
+        for (int i = 0; i < pendientes; i++) {
+            ventaIds.add(ventaService.registrarVenta(usuarioId, unidad(tandaId)).getId());
+        }
+
+        // Cada hilo aprueba o rechaza su parte de las pendientes y registra ventas nuevas intercaladas
+        Queue<Throwable> fallos = ejecutarEnParalelo(HILOS, hilo -> {
+            for (int i = hilo; i < pendientes; i += HILOS) {
+                if (i % 2 == 0) {
+                    ventaService.aprobarVenta(ventaIds.get(i));
+                } else {
+                    ventaService.rechazarVenta(ventaIds.get(i), "prueba de concurrencia");
+                }
+                ventaService.registrarVenta(usuarioId, unidad(tandaId));
+            }
+        });
+
+        assertTrue(fallos.isEmpty(), () -> "Requests fallidos: " + fallos);
+
+        int aprobadas = (pendientes + 1) / 2;
+        int rechazadas = pendientes / 2;
+        int nuevas = pendientes;
+
+        Map<String, Object> tanda = leerTanda(tandaId);
+        assertEquals(STOCK_INICIAL - aprobadas - nuevas, ((Number) tanda.get("stock_actual")).intValue());
+        assertEquals(0, PRECIO_UNIDAD.multiply(BigDecimal.valueOf(aprobadas))
+                .compareTo((BigDecimal) tanda.get("total_recaudado")));
+        assertEquals(aprobadas, contar("SELECT COUNT(*) FROM ventas WHERE tanda_id = ? AND estado = 'APROBADA'", tandaId));
+        assertEquals(rechazadas, contar("SELECT COUNT(*) FROM ventas WHERE tanda_id = ? AND estado = 'RECHAZADA'", tandaId));
+        assertEquals(nuevas, contar("SELECT COUNT(*) FROM ventas WHERE tanda_id = ? AND estado = 'PENDIENTE'", tandaId));
+    }
+
+    // ==================== SOPORTE ====================
+
+    @FunctionalInterface
+    private interface Tarea {
+        void ejecutar(int hilo) throws Exception;
+    }
+
+    /**
+     * Lanza las tareas a la vez (todas esperan la misma señal de salida) y devuelve los fallos.
+     */
+    private Queue<Throwable> ejecutarEnParalelo(int hilos, Tarea tarea) throws InterruptedException {
+        Queue<Throwable> fallos = new ConcurrentLinkedQueue<>();
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        try {
+            for (int h = 0; h < hilos; h++) {
+                int hilo = h;
+                executor.execute(() -> {
+                    try {
+                        salida.await();
+                        tarea.ejecutar(hilo);
+                    } catch (Throwable e) {
+                        fallos.add(e);
+                    }
+                });
+            }
+            salida.countDown();
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "Las tareas no terminaron a tiempo");
+        return fallos;
+    }
+
+    /**
+     * Vendedor con un lote activo de una tanda liberada. Retorna {usuarioId, tandaId}.
+     */
+    private long[] crearVendedorConTanda() {
+        String cedula = "9" + System.nanoTime() % 1_000_000_000L + secuenciaCedulas.incrementAndGet();
+        Long usuarioId = jdbcTemplate.queryForObject("""
+                INSERT INTO usuarios (cedula, nombre, telefono, correo, password_hash, rol, nivel, estado)
+                VALUES (?, 'Vendedor Prueba', '3000000000', 'prueba@trabix.test', 'x', 'VENDEDOR', 'N2', 'ACTIVO')
+                RETURNING id
+                """, Long.class, cedula);
+        Long loteId = jdbcTemplate.queryForObject("""
+                INSERT INTO lotes (usuario_id, cantidad_total, modelo, estado, version)
+                VALUES (?, ?, 'MODELO_60_40', 'ACTIVO', 0)
+                RETURNING id
+                """, Long.class, usuarioId, STOCK_INICIAL);
+        Long tandaId = jdbcTemplate.queryForObject("""
+                INSERT INTO tandas (lote_id, numero, cantidad_asignada, stock_entregado, stock_actual,
+                                    estado, fecha_liberacion, version, total_recaudado)
+                VALUES (?, 1, ?, ?, ?, 'LIBERADA', CURRENT_TIMESTAMP, 0, 0)
+                RETURNING id
+                """, Long.class, loteId, STOCK_INICIAL, STOCK_INICIAL, STOCK_INICIAL);
+        return new long[]{usuarioId, tandaId};
+    }
+
+    private static RegistrarVentaRequest unidad(long tandaId) {
+        return RegistrarVentaRequest.builder()
+                .tipo(TipoVenta.UNIDAD)
+                .cantidad(1)
+                .tandaId(tandaId)
+                .build();
+    }
+
+    private Map<String, Object> leerTanda(long tandaId) {
+        return jdbcTemplate.queryForMap(
+                "SELECT stock_actual, total_recaudado, version FROM tandas WHERE id = ?", tandaId);
+    }
+
+    private int contar(String sql, long tandaId) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, tandaId);
+    }
+}
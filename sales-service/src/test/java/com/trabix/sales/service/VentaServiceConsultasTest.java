@@ -0,0 +1,137 @@
+package com.trabix.sales.service;
+
+import com.trabix.common.enums.TipoVenta;
+import com.trabix.sales.dto.RegistrarVentaRequest;
+import com.trabix.sales.dto.VentaResponse;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.MountableFile;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Número de sentencias SQL de los listados paginados de ventas contra PostgreSQL real.
+ *
+ * Cada venta de la página es de un vendedor, lote y tanda distintos: si el mapeo cargara
+ * usuario, tanda o lote por fila, el conteo crecería con el tamaño de página.
+ * Se omite si no hay Docker disponible.
+ */
+@SpringBootTest
+@ActiveProfiles("dev")
+@Testcontainers(disabledWithoutDocker = true)
+class VentaServiceConsultasTest {
+
+    /** Más ventas que la página más grande: la página nunca es la última y siempre hay COUNT */
+    private static final int VENTAS = 60;
+    private static final int[] TAMANOS_PAGINA = {1, 10, 50};
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withCopyFileToContainer(MountableFile.forHostPath("../scripts/init-db.sql"),
+                    "/docker-entrypoint-initdb.d/init-db.sql");
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registry) {
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "update");
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+    }
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /** El contenedor (y el contexto) es uno por clase: las ventas se crean una vez */
+    private static boolean ventasCreadas;
+
+    @BeforeEach
+    void crearVentas() {
+        if (ventasCreadas) {
+            return;
+        }
+        for (int i = 0; i < VENTAS; i++) {
+            long[] ids = crearVendedorConTanda(i);
+            ventaService.registrarVenta(ids[0], RegistrarVentaRequest.builder()
+                    .tipo(TipoVenta.UNIDAD)
+                    .cantidad(1)
+                    .tandaId(ids[1])
+                    .build());
+        }
+        ventasCreadas = true;
+    }
+
+    @Test
+    void listarVentasTieneConteoConstante() {
+        assertConteoConstante(ventaService::listarVentas);
+    }
+
+    @Test
+    void listarVentasPendientesTieneConteoConstante() {
+        assertConteoConstante(ventaService::listarVentasPendientes);
+    }
+
+    private void assertConteoConstante(Function<Pageable, Page<VentaResponse>> listado) {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<Integer, Long> sentencias = new LinkedHashMap<>();
+        for (int tamano : TAMANOS_PAGINA) {
+            estadisticas.clear();
+            Page<VentaResponse> pagina = listado.apply(PageRequest.of(0, tamano, Sort.by("id").descending()));
+            assertEquals(tamano, pagina.getNumberOfElements());
+            sentencias.put(tamano, estadisticas.getPrepareStatementCount());
+        }
+
+        long esperado = sentencias.get(TAMANOS_PAGINA[0]);
+        sentencias.forEach((tamano, conteo) ->
+                assertEquals(esperado, conteo, () -> "Sentencias por tamaño de página: " + sentencias));
+    }
+
+    /**
+     * Vendedor con un lote activo de una tanda liberada. Retorna {usuarioId, tandaId}.
+     */
+    private long[] crearVendedorConTanda(int indice) {
+        Long usuarioId = jdbcTemplate.queryForObject("""
+                INSERT INTO usuarios (cedula, nombre, telefono, correo, password_hash, rol, nivel, estado)
+                VALUES (?, 'Vendedor Prueba', '3000000000', 'prueba@trabix.test', 'x', 'VENDEDOR', 'N2', 'ACTIVO')
+                RETURNING id
+                """, Long.class, "8" + (100_000_000 + indice));
+        Long loteId = jdbcTemplate.queryForObject("""
+                INSERT INTO lotes (usuario_id, cantidad_total, modelo, estado, version)
+                VALUES (?, 100, 'MODELO_60_40', 'ACTIVO', 0)
+                RETURNING id
+                """, Long.class, usuarioId);
+        Long tandaId = jdbcTemplate.queryForObject("""
+                INSERT INTO tandas (lote_id, numero, cantidad_asignada, stock_entregado, stock_actual,
+                                    estado, fecha_liberacion, version, total_recaudado)
+                VALUES (?, 1, 100, 100, 100, 'LIBERADA', CURRENT_TIMESTAMP, 0, 0)
+                RETURNING id
+                """, Long.class, loteId);
+        return new long[]{usuarioId, tandaId};
+    }
+}
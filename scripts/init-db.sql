@@ -31,6 +31,16 @@ CREATE INDEX idx_usuarios_reclutador ON usuarios(reclutador_id);
 CREATE INDEX idx_usuarios_nivel ON usuarios(nivel);
 CREATE INDEX idx_usuarios_estado ON usuarios(estado);
 
+-- Jerarquía de reclutamiento (tabla de clausura: una fila por par ancestro/descendiente)
+CREATE TABLE usuarios_jerarquia (
+    ancestro_id BIGINT NOT NULL REFERENCES usuarios(id) ON DELETE CASCADE,
+    descendiente_id BIGINT NOT NULL REFERENCES usuarios(id) ON DELETE CASCADE,
+    profundidad INT NOT NULL,
+    PRIMARY KEY (ancestro_id, descendiente_id)
+);
+
+CREATE INDEX idx_jerarquia_descendiente ON usuarios_jerarquia(descendiente_id);
+
 -- Lotes (pedidos de granizados)
 CREATE TABLE lotes (
     id BIGSERIAL PRIMARY KEY,
@@ -87,6 +97,38 @@ CREATE INDEX idx_ventas_tanda ON ventas(tanda_id);
 CREATE INDEX idx_ventas_estado ON ventas(estado);
 CREATE INDEX idx_ventas_fecha ON ventas(fecha_registro);
 
+-- sales-service reserva ids de ventas en bloques de 50 (optimizador pooled de Hibernate)
+ALTER SEQUENCE ventas_id_seq INCREMENT BY 50;
+
+-- Resumen materializado de ventas por usuario (sales-service lo mantiene incrementalmente)
+CREATE TABLE resumen_ventas_usuario (
+    usuario_id BIGINT PRIMARY KEY REFERENCES usuarios(id) ON DELETE CASCADE,
+    ventas_pendientes INT NOT NULL DEFAULT 0,
+    ventas_aprobadas INT NOT NULL DEFAULT 0,
+    ventas_rechazadas INT NOT NULL DEFAULT 0,
+    total_unidades INT NOT NULL DEFAULT 0,
+    total_recaudado DECIMAL(14,2) NOT NULL DEFAULT 0,
+    parte_vendedor DECIMAL(14,2) NOT NULL DEFAULT 0,
+    parte_samuel DECIMAL(14,2) NOT NULL DEFAULT 0,
+    ganancia_real_vendedor DECIMAL(14,2) NOT NULL DEFAULT 0,
+    ganancia_real_samuel DECIMAL(14,2) NOT NULL DEFAULT 0,
+    ventas_unidad INT NOT NULL DEFAULT 0,
+    unidades_unidad INT NOT NULL DEFAULT 0,
+    recaudado_unidad DECIMAL(14,2) NOT NULL DEFAULT 0,
+    ventas_promo INT NOT NULL DEFAULT 0,
+    unidades_promo INT NOT NULL DEFAULT 0,
+    recaudado_promo DECIMAL(14,2) NOT NULL DEFAULT 0,
+    ventas_sin_licor INT NOT NULL DEFAULT 0,
+    unidades_sin_licor INT NOT NULL DEFAULT 0,
+    recaudado_sin_licor DECIMAL(14,2) NOT NULL DEFAULT 0,
+    ventas_regalo INT NOT NULL DEFAULT 0,
+    unidades_regalo INT NOT NULL DEFAULT 0,
+    ventas_mayor INT NOT NULL DEFAULT 0,
+    unidades_mayor INT NOT NULL DEFAULT 0,
+    recaudado_mayor DECIMAL(14,2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
 -- Cuadres
 CREATE TABLE cuadres (
                          id BIGSERIAL PRIMARY KEY,
@@ -110,6 +152,17 @@ CREATE TABLE cuadres (
 CREATE INDEX idx_cuadres_tanda ON cuadres(tanda_id);
 CREATE INDEX idx_cuadres_estado ON cuadres(estado);
 
+-- Outbox de eventos de cuadre (sales/inventory-service escriben, billing-service consume y elimina)
+CREATE TABLE eventos_cuadre (
+    id BIGSERIAL PRIMARY KEY,
+    tanda_id BIGINT NOT NULL,
+    tipo VARCHAR(30) NOT NULL,
+    delta_stock INT NOT NULL DEFAULT 0,
+    delta_recaudado DECIMAL(12,2) NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+
 -- Fondo de Recompensas
 CREATE TABLE fondo_recompensas (
     id BIGSERIAL PRIMARY KEY,
@@ -220,14 +273,29 @@ CREATE INDEX idx_documentos_fecha ON documentos(fecha_emision);
 CREATE TABLE refresh_tokens (
     id BIGSERIAL PRIMARY KEY,
     usuario_id BIGINT NOT NULL REFERENCES usuarios(id) ON DELETE CASCADE,
-    token VARCHAR(500) NOT NULL UNIQUE,
+    token_hash CHAR(64) NOT NULL,            -- SHA-256 hex del refresh token
     fecha_expiracion TIMESTAMP NOT NULL,
     revocado BOOLEAN NOT NULL DEFAULT FALSE,
+    ip_address VARCHAR(50),
+    user_agent VARCHAR(255),
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
 CREATE INDEX idx_refresh_tokens_usuario ON refresh_tokens(usuario_id);
-CREATE INDEX idx_refresh_tokens_token ON refresh_tokens(token);
+CREATE UNIQUE INDEX ux_refresh_tokens_token_hash ON refresh_tokens(token_hash);
+CREATE INDEX idx_refresh_tokens_expiracion ON refresh_tokens(fecha_expiracion);
+
+-- Backups incrementales: filas modificadas desde la marca de agua (updated_at > marca).
+-- backup-service crea al arrancar los de las tablas que generan otros servicios
+CREATE INDEX idx_usuarios_updated_at ON usuarios(updated_at);
+CREATE INDEX idx_lotes_updated_at ON lotes(updated_at);
+CREATE INDEX idx_tandas_updated_at ON tandas(updated_at);
+CREATE INDEX idx_ventas_updated_at ON ventas(updated_at);
+CREATE INDEX idx_cuadres_updated_at ON cuadres(updated_at);
+CREATE INDEX idx_fondo_recompensas_updated_at ON fondo_recompensas(updated_at);
+CREATE INDEX idx_configuracion_costos_updated_at ON configuracion_costos(updated_at);
+CREATE INDEX idx_pagos_mensualidad_updated_at ON pagos_mensualidad(updated_at);
+CREATE INDEX idx_documentos_updated_at ON documentos(updated_at);
 
 -- ============================================
 -- DATOS INICIALES
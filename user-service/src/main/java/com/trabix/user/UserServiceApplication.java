@@ -2,12 +2,14 @@ package com.trabix.user;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Servicio de gestión de usuarios TRABIX.
  * Maneja: CRUD usuarios, árbol de cascada, niveles, roles.
  */
 @SpringBootApplication(scanBasePackages = {"com.trabix.user", "com.trabix.common"})
+@EnableScheduling
 public class UserServiceApplication {
 
     public static void main(String[] args) {
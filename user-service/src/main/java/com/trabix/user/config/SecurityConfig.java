@@ -51,6 +51,7 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.DELETE, "/usuarios/**").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.POST, "/usuarios/*/reactivar").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.POST, "/usuarios/*/reset-password").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.POST, "/usuarios/jerarquia/reconstruir").hasRole("ADMIN")
                 // Listar todos solo admin
                 .requestMatchers(HttpMethod.GET, "/usuarios").hasRole("ADMIN")
                 // Ver árbol completo solo admin o reclutador propietario
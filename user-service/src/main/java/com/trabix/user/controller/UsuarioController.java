@@ -6,6 +6,7 @@ import com.trabix.common.enums.RolUsuario;
 import com.trabix.common.exception.AccesoNoAutorizadoException;
 import com.trabix.user.dto.*;
 import com.trabix.user.entity.Usuario;
+import com.trabix.user.service.JerarquiaService;
 import com.trabix.user.service.UsuarioService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -34,6 +35,7 @@ import java.util.List;
 public class UsuarioController {
 
     private final UsuarioService usuarioService;
+    private final JerarquiaService jerarquiaService;
 
     @PostMapping
     @Operation(summary = "Crear usuario", description = "Crea un nuevo vendedor. Solo ADMIN.")
@@ -210,6 +212,14 @@ public class UsuarioController {
         return ResponseEntity.ok(ApiResponse.ok(response));
     }
 
+    @PostMapping("/jerarquia/reconstruir")
+    @Operation(summary = "Reconstruir jerarquía",
+            description = "Reconstruye la tabla de clausura del árbol desde los reclutadores (p.ej. tras restaurar un backup). Solo ADMIN.")
+    public ResponseEntity<ApiResponse<Integer>> reconstruirJerarquia() {
+        int filas = jerarquiaService.reconstruir();
+        return ResponseEntity.ok(ApiResponse.ok(filas, "Jerarquía reconstruida"));
+    }
+
     @GetMapping("/estadisticas")
     @Operation(summary = "Estadísticas del árbol", description = "Obtiene estadísticas generales del árbol de usuarios. Solo ADMIN.")
     public ResponseEntity<ApiResponse<EstadisticasArbolResponse>> obtenerEstadisticas(
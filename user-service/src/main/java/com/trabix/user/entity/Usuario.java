@@ -2,6 +2,7 @@ package com.trabix.user.entity;
 
 import com.trabix.common.enums.EstadoUsuario;
 import com.trabix.common.enums.RolUsuario;
+import com.trabix.common.security.JwtClaims;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.security.core.GrantedAuthority;
@@ -143,4 +144,19 @@ public class Usuario implements UserDetails {
     public String getModeloNegocio() {
         return "N2".equals(nivel) ? "MODELO_60_40" : "MODELO_50_50";
     }
+
+    /**
+     * Construye el usuario autenticado desde los claims del JWT, sin consultar la BD.
+     * Instancia no gestionada por JPA: solo identifica al usuario del request.
+     */
+    public static Usuario desdeClaims(JwtClaims claims) {
+        return Usuario.builder()
+                .id(claims.userId())
+                .cedula(claims.cedula())
+                .nombre(claims.nombre())
+                .nivel(claims.nivel())
+                .rol(RolUsuario.valueOf(claims.rol()))
+                .estado(EstadoUsuario.ACTIVO)
+                .build();
+    }
 }
@@ -0,0 +1,44 @@
+package com.trabix.user.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Tabla de clausura del árbol de cascada (tabla usuarios_jerarquia).
+ *
+ * Una fila por cada par (ancestro, descendiente), incluida la del propio usuario
+ * con profundidad 0. Permite resolver subárbol, conteo de descendientes y
+ * "¿es reclutado de?" con una sola consulta indexada, sin recorrer el árbol.
+ *
+ * Se mantiene al crear usuarios (el reclutador no cambia después) y se reconstruye desde
+ * usuarios.reclutador_id cuando deja de corresponder, p.ej. tras una restauración (ver JerarquiaService).
+ * El estado (activo/inactivo) se filtra al consultar, uniendo con usuarios.
+ */
+@Entity
+@Table(name = "usuarios_jerarquia")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsuarioJerarquia {
+
+    @EmbeddedId
+    private Clave id;
+
+    @Column(nullable = false)
+    private Integer profundidad;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+
+        @Column(name = "ancestro_id")
+        private Long ancestroId;
+
+        @Column(name = "descendiente_id")
+        private Long descendienteId;
+    }
+}
@@ -0,0 +1,115 @@
+package com.trabix.user.repository;
+
+import com.trabix.user.entity.Usuario;
+import com.trabix.user.entity.UsuarioJerarquia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Consultas sobre la tabla de clausura del árbol de cascada.
+ */
+@Repository
+public interface UsuarioJerarquiaRepository extends JpaRepository<UsuarioJerarquia, UsuarioJerarquia.Clave> {
+
+    /**
+     * Fila propia de un usuario nuevo (profundidad 0).
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO usuarios_jerarquia (ancestro_id, descendiente_id, profundidad)
+        VALUES (:usuarioId, :usuarioId, 0)
+        """, nativeQuery = true)
+    int registrarUsuario(@Param("usuarioId") Long usuarioId);
+
+    /**
+     * Hereda los ancestros del reclutador: una fila por cada ancestro (incluido el reclutador).
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO usuarios_jerarquia (ancestro_id, descendiente_id, profundidad)
+        SELECT j.ancestro_id, :usuarioId, j.profundidad + 1
+        FROM usuarios_jerarquia j
+        WHERE j.descendiente_id = :reclutadorId
+        """, nativeQuery = true)
+    int registrarAncestros(@Param("usuarioId") Long usuarioId, @Param("reclutadorId") Long reclutadorId);
+
+    /**
+     * Todo el subárbol de un usuario (sin incluirlo), en una sola consulta.
+     * Ordenado por profundidad: cada nodo llega después de su reclutador.
+     */
+    @Query("""
+        SELECT u FROM UsuarioJerarquia j, Usuario u
+        WHERE u.id = j.id.descendienteId
+        AND j.id.ancestroId = :usuarioId
+        AND j.profundidad > 0
+        ORDER BY j.profundidad, u.id
+        """)
+    List<Usuario> findDescendientes(@Param("usuarioId") Long usuarioId);
+
+    /**
+     * Verifica si usuarioId está en el árbol de reclutadorId (hacia abajo).
+     */
+    @Query("""
+        SELECT CASE WHEN COUNT(j) > 0 THEN true ELSE false END FROM UsuarioJerarquia j
+        WHERE j.id.ancestroId = :reclutadorId
+        AND j.id.descendienteId = :usuarioId
+        AND j.profundidad > 0
+        """)
+    boolean esDescendiente(@Param("usuarioId") Long usuarioId, @Param("reclutadorId") Long reclutadorId);
+
+    /**
+     * Usuarios cuya jerarquía no corresponde a usuarios.reclutador_id: sin fila propia
+     * (creados fuera de user-service o tabla vaciada por una restauración) o sin la fila
+     * de profundidad 1 hacia su reclutador actual (reclutador cambiado por una restauración).
+     */
+    @Query(value = """
+        SELECT COUNT(*) FROM usuarios u
+        WHERE NOT EXISTS (
+            SELECT 1 FROM usuarios_jerarquia j
+            WHERE j.ancestro_id = u.id AND j.descendiente_id = u.id
+        )
+        OR (u.reclutador_id IS NOT NULL AND NOT EXISTS (
+            SELECT 1 FROM usuarios_jerarquia j
+            WHERE j.ancestro_id = u.reclutador_id AND j.descendiente_id = u.id AND j.profundidad = 1
+        ))
+        OR (u.reclutador_id IS NULL AND EXISTS (
+            SELECT 1 FROM usuarios_jerarquia j
+            WHERE j.descendiente_id = u.id AND j.profundidad > 0
+        ))
+        """, nativeQuery = true)
+    long contarInconsistencias();
+
+    /**
+     * Bloquea las escrituras en la tabla hasta el fin de la transacción (las lecturas siguen).
+     */
+    @Modifying
+    @Query(value = "LOCK TABLE usuarios_jerarquia IN EXCLUSIVE MODE", nativeQuery = true)
+    void bloquear();
+
+    @Modifying
+    @Query(value = "DELETE FROM usuarios_jerarquia", nativeQuery = true)
+    int eliminarTodo();
+
+    /**
+     * Reconstruye la tabla completa desde usuarios.reclutador_id (un solo recorrido recursivo).
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO usuarios_jerarquia (ancestro_id, descendiente_id, profundidad)
+        WITH RECURSIVE clausura AS (
+            SELECT id AS ancestro_id, id AS descendiente_id, 0 AS profundidad
+            FROM usuarios
+            UNION ALL
+            SELECT c.ancestro_id, u.id, c.profundidad + 1
+            FROM usuarios u
+            INNER JOIN clausura c ON u.reclutador_id = c.descendiente_id
+        )
+        SELECT ancestro_id, descendiente_id, profundidad FROM clausura
+        """, nativeQuery = true)
+    int reconstruirDesdeUsuarios();
+}
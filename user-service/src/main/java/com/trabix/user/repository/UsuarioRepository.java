@@ -2,6 +2,7 @@ package com.trabix.user.repository;
 
 import com.trabix.common.enums.EstadoUsuario;
 import com.trabix.common.enums.RolUsuario;
+import com.trabix.common.security.FuenteUsuariosRevocados;
 import com.trabix.user.entity.Usuario;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -10,6 +11,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,7 +19,7 @@ import java.util.Optional;
  * Repositorio para operaciones de Usuario.
  */
 @Repository
-public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
+public interface UsuarioRepository extends JpaRepository<Usuario, Long>, FuenteUsuariosRevocados {
 
     Optional<Usuario> findByCedula(String cedula);
 
@@ -39,6 +41,16 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     // Contar reclutados directos
     long countByReclutadorIdAndEstado(Long reclutadorId, EstadoUsuario estado);
 
+    // Contar reclutados directos de varios usuarios: [reclutadorId, total]
+    @Query("""
+        SELECT u.reclutador.id, COUNT(u) FROM Usuario u
+        WHERE u.reclutador.id IN :reclutadorIds AND u.estado = :estado
+        GROUP BY u.reclutador.id
+        """)
+    List<Object[]> contarReclutadosPorReclutador(
+            @Param("reclutadorIds") Collection<Long> reclutadorIds,
+            @Param("estado") EstadoUsuario estado);
+
     // Buscar usuarios por nivel
     List<Usuario> findByNivelAndEstado(String nivel, EstadoUsuario estado);
 
@@ -50,53 +62,25 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     @Query("SELECT u FROM Usuario u WHERE LOWER(u.nombre) LIKE LOWER(CONCAT('%', :nombre, '%')) AND u.estado = :estado")
     List<Usuario> buscarPorNombre(@Param("nombre") String nombre, @Param("estado") EstadoUsuario estado);
 
-    // Obtener todo el árbol hacia abajo desde un usuario (reclutados recursivos)
-    @Query(value = """
-        WITH RECURSIVE arbol AS (
-            SELECT id, nombre, cedula, nivel, estado, reclutador_id, 1 as profundidad
-            FROM usuarios WHERE id = :usuarioId
-            UNION ALL
-            SELECT u.id, u.nombre, u.cedula, u.nivel, u.estado, u.reclutador_id, a.profundidad + 1
-            FROM usuarios u
-            INNER JOIN arbol a ON u.reclutador_id = a.id
-            WHERE a.profundidad < 10
-        )
-        SELECT * FROM arbol WHERE id != :usuarioId
-        """, nativeQuery = true)
-    List<Object[]> obtenerArbolReclutados(@Param("usuarioId") Long usuarioId);
-
-    // Contar total de reclutados en todo el árbol
+    /**
+     * Obtiene el nivel más profundo en todo el sistema.
+     */
     @Query(value = """
-        WITH RECURSIVE arbol AS (
-            SELECT id FROM usuarios WHERE id = :usuarioId
-            UNION ALL
-            SELECT u.id FROM usuarios u
-            INNER JOIN arbol a ON u.reclutador_id = a.id
-        )
-        SELECT COUNT(*) - 1 FROM arbol
+        SELECT MAX(CAST(SUBSTRING(nivel FROM 2) AS INTEGER)) FROM usuarios WHERE estado = 'ACTIVO'
         """, nativeQuery = true)
-    long contarTotalReclutados(@Param("usuarioId") Long usuarioId);
+    Integer obtenerNivelMaximo();
 
     /**
-     * Verifica si un usuario está en la cadena de reclutados de otro (hacia abajo).
-     * Retorna 1 si usuarioId está en el árbol de reclutadorId, 0 si no.
+     * IDs de usuarios que no están en el estado dado (deny-set de autenticación).
      */
-    @Query(value = """
-        WITH RECURSIVE arbol AS (
-            SELECT id FROM usuarios WHERE reclutador_id = :reclutadorId
-            UNION ALL
-            SELECT u.id FROM usuarios u
-            INNER JOIN arbol a ON u.reclutador_id = a.id
-        )
-        SELECT COUNT(*) FROM arbol WHERE id = :usuarioId
-        """, nativeQuery = true)
-    long verificarEsReclutadoDe(@Param("usuarioId") Long usuarioId, @Param("reclutadorId") Long reclutadorId);
+    @Query("SELECT u.id FROM Usuario u WHERE u.estado <> :estado")
+    List<Long> findIdsByEstadoNot(@Param("estado") EstadoUsuario estado);
 
     /**
-     * Obtiene el nivel más profundo en todo el sistema.
+     * IDs de usuarios no activos (deny-set de autenticación).
      */
-    @Query(value = """
-        SELECT MAX(CAST(SUBSTRING(nivel FROM 2) AS INTEGER)) FROM usuarios WHERE estado = 'ACTIVO'
-        """, nativeQuery = true)
-    Integer obtenerNivelMaximo();
+    @Override
+    default List<Long> findIdsNoActivos() {
+        return findIdsByEstadoNot(EstadoUsuario.ACTIVO);
+    }
 }
@@ -1,85 +1,74 @@
 package com.trabix.user.security;
 
-import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
-import lombok.extern.slf4j.Slf4j;
+import com.trabix.common.security.IdentidadGateway;
+import com.trabix.common.security.JwtClaims;
+import com.trabix.common.security.JwtVerifier;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
-import java.util.Date;
+import java.util.Optional;
 
 /**
  * Servicio para validar tokens JWT.
  * Solo valida, no genera (eso lo hace auth-service).
+ * Delega en JwtVerifier (common): un solo parseo por token y caché de claims verificados.
  */
-@Slf4j
 @Service
 public class JwtService {
 
-    private final SecretKey secretKey;
+    private final JwtVerifier verifier;
+    private final IdentidadGateway identidadGateway;
 
-    public JwtService(@Value("${jwt.secret}") String secret) {
-        this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    public JwtService(
+            @Value("${jwt.secret}") String secret,
+            @Value("${jwt.cache.max-entradas:10000}") int maxEntradasCache,
+            @Value("${trabix.security.identidad.secreto:}") String secretoIdentidad) {
+        this.verifier = new JwtVerifier(secret, maxEntradasCache);
+        this.identidadGateway = new IdentidadGateway(secretoIdentidad);
     }
 
     /**
-     * Extrae la cédula (subject) del token.
+     * Verifica firma y expiración una sola vez y retorna los claims.
+     * Vacío si el token es inválido o expiró.
      */
-    public String extraerCedula(String token) {
-        return extraerClaims(token).getSubject();
+    public Optional<JwtClaims> verificar(String token) {
+        return verifier.verificar(token);
     }
 
     /**
-     * Extrae el rol del token.
-     */
-    public String extraerRol(String token) {
-        return extraerClaims(token).get("rol", String.class);
-    }
-
-    /**
-     * Extrae el nivel del token.
+     * Identidad firmada por el gateway (headers X-User-*), si el request la trae.
+     * Solo verifica un HMAC: no parsea el JWT.
      */
-    public String extraerNivel(String token) {
-        return extraerClaims(token).get("nivel", String.class);
+    public Optional<JwtClaims> verificarIdentidad(HttpServletRequest request) {
+        return identidadGateway.verificar(request);
     }
 
     /**
-     * Verifica si el token es válido (no expirado y firma correcta).
+     * Extrae la cédula (subject) del token.
      */
-    public boolean esTokenValido(String token) {
-        try {
-            extraerClaims(token);
-            return !esTokenExpirado(token);
-        } catch (Exception e) {
-            log.warn("Token inválido: {}", e.getMessage());
-            return false;
-        }
+    public String extraerCedula(String token) {
+        return verificar(token).map(JwtClaims::cedula).orElse(null);
     }
 
     /**
-     * Verifica si el token ha expirado.
+     * Extrae el rol del token.
      */
-    public boolean esTokenExpirado(String token) {
-        return extraerExpiracion(token).before(new Date());
+    public String extraerRol(String token) {
+        return verificar(token).map(JwtClaims::rol).orElse(null);
     }
 
     /**
-     * Extrae la fecha de expiración del token.
+     * Extrae el nivel del token.
      */
-    public Date extraerExpiracion(String token) {
-        return extraerClaims(token).getExpiration();
+    public String extraerNivel(String token) {
+        return verificar(token).map(JwtClaims::nivel).orElse(null);
     }
 
     /**
-     * Extrae todos los claims del token.
+     * Verifica si el token es válido (firma correcta y no expirado).
      */
-    private Claims extraerClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public boolean esTokenValido(String token) {
+        return verificar(token).isPresent();
     }
 }
@@ -0,0 +1,113 @@
+package com.trabix.user.service;
+
+import com.trabix.user.entity.UsuarioJerarquia;
+import com.trabix.user.repository.UsuarioJerarquiaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Mantenimiento de la tabla de clausura usuarios_jerarquia.
+ *
+ * ═══════════════════════════════════════════════════════════════════
+ * - Alta: fila propia + ancestros del reclutador (registrar)
+ * - Reconstrucción completa desde usuarios.reclutador_id (un recorrido recursivo)
+ *   cuando la tabla deja de corresponder a usuarios, p.ej. una restauración de
+ *   backup la vacía (TRUNCATE ... CASCADE) o cambia reclutadores:
+ *   · al leer: el usuario consultado sin fila propia → se reconstruye antes de responder
+ *   · periódicamente (verificar-ms) y al arrancar: inconsistencias → se reconstruye
+ *   · a demanda: POST /usuarios/jerarquia/reconstruir (ADMIN)
+ * - La reconstrucción bloquea las escrituras de la tabla (LOCK ... EXCLUSIVE MODE):
+ *   un alta concurrente espera y se aplica sobre la tabla ya reconstruida
+ * ═══════════════════════════════════════════════════════════════════
+ */
+@Slf4j
+@Service
+public class JerarquiaService {
+
+    private final UsuarioJerarquiaRepository jerarquiaRepository;
+    private final TransactionTemplate transaccionPropia;
+
+    public JerarquiaService(UsuarioJerarquiaRepository jerarquiaRepository,
+                            PlatformTransactionManager transactionManager) {
+        this.jerarquiaRepository = jerarquiaRepository;
+        this.transaccionPropia = new TransactionTemplate(transactionManager);
+        this.transaccionPropia.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Registra un usuario nuevo bajo su reclutador (null = entra directo).
+     */
+    @Transactional
+    public void registrar(Long usuarioId, Long reclutadorId) {
+        jerarquiaRepository.registrarUsuario(usuarioId);
+        if (reclutadorId != null) {
+            jerarquiaRepository.registrarAncestros(usuarioId, reclutadorId);
+        }
+    }
+
+    /**
+     * Reconstruye la tabla si el usuario no tiene fila propia (tabla vaciada).
+     *
+     * La comprobación corre en la transacción del llamador (una lectura por clave primaria);
+     * solo la reconstrucción abre una propia, porque se llama también desde lecturas de
+     * solo lectura.
+     */
+    public void asegurarUsuario(Long usuarioId) {
+        UsuarioJerarquia.Clave filaPropia = new UsuarioJerarquia.Clave(usuarioId, usuarioId);
+        if (jerarquiaRepository.existsById(filaPropia)) {
+            return;
+        }
+        transaccionPropia.executeWithoutResult(estado -> {
+            jerarquiaRepository.bloquear();
+            if (!jerarquiaRepository.existsById(filaPropia)) {
+                int filas = reconstruirBloqueada();
+                log.info("Jerarquía de usuarios reconstruida al leer el usuario {}: {} filas", usuarioId, filas);
+            }
+        });
+    }
+
+    /**
+     * Reconstruye la tabla si no corresponde a usuarios.reclutador_id.
+     */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${trabix.usuarios.jerarquia.verificar-ms:60000}",
+            fixedDelayString = "${trabix.usuarios.jerarquia.verificar-ms:60000}")
+    public void verificar() {
+        if (jerarquiaRepository.contarInconsistencias() == 0) {
+            return;
+        }
+        jerarquiaRepository.bloquear();
+        // Otra instancia pudo reconstruirla mientras se esperaba el bloqueo
+        long inconsistentes = jerarquiaRepository.contarInconsistencias();
+        if (inconsistentes > 0) {
+            int filas = reconstruirBloqueada();
+            log.info("Jerarquía de usuarios reconstruida: {} usuarios inconsistentes, {} filas", inconsistentes, filas);
+        }
+    }
+
+    /**
+     * Reconstrucción incondicional (endpoint de administración).
+     *
+     * @return filas de la tabla reconstruida
+     */
+    @Transactional
+    public int reconstruir() {
+        jerarquiaRepository.bloquear();
+        int filas = reconstruirBloqueada();
+        log.info("Jerarquía de usuarios reconstruida a demanda: {} filas", filas);
+        return filas;
+    }
+
+    private int reconstruirBloqueada() {
+        jerarquiaRepository.eliminarTodo();
+        return jerarquiaRepository.reconstruirDesdeUsuarios();
+    }
+}
@@ -6,10 +6,12 @@ import com.trabix.common.exception.RecursoNoEncontradoException;
 import com.trabix.common.exception.ValidacionNegocioException;
 import com.trabix.user.dto.*;
 import com.trabix.user.entity.Usuario;
+import com.trabix.user.repository.UsuarioJerarquiaRepository;
 import com.trabix.user.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -17,7 +19,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.security.SecureRandom;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -29,6 +33,8 @@ import java.util.stream.Collectors;
 public class UsuarioService {
 
     private final UsuarioRepository usuarioRepository;
+    private final UsuarioJerarquiaRepository jerarquiaRepository;
+    private final JerarquiaService jerarquiaService;
     private final PasswordEncoder passwordEncoder;
 
     private static final String CARACTERES_PASSWORD = "ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz23456789";
@@ -66,6 +72,9 @@ public class UsuarioService {
             
             // Calcular nivel: un nivel abajo del reclutador
             nivel = calcularNivelHijo(reclutador.getNivel());
+
+            // Los ancestros del nuevo se copian de los del reclutador: deben existir
+            jerarquiaService.asegurarUsuario(reclutador.getId());
         } else {
             // Sin reclutador = entra directo con admin = N2
             nivel = "N2";
@@ -91,6 +100,10 @@ public class UsuarioService {
                 .build();
 
         usuario = usuarioRepository.save(usuario);
+
+        // Tabla de clausura: fila propia + ancestros del reclutador
+        jerarquiaService.registrar(usuario.getId(), reclutador != null ? reclutador.getId() : null);
+
         log.info("Usuario creado: {} - Nivel: {} - Reclutador: {}", 
                 usuario.getCedula(), nivel, reclutador != null ? reclutador.getCedula() : "DIRECTO");
 
@@ -136,7 +149,7 @@ public class UsuarioService {
         } else {
             usuarios = usuarioRepository.findAll(pageable);
         }
-        return usuarios.map(this::mapToResponse);
+        return mapToResponsePagina(usuarios);
     }
 
     /**
@@ -144,8 +157,7 @@ public class UsuarioService {
      */
     @Transactional(readOnly = true)
     public Page<UsuarioResponse> listarVendedores(Pageable pageable) {
-        return usuarioRepository.findVendedoresActivos(EstadoUsuario.ACTIVO, pageable)
-                .map(this::mapToResponse);
+        return mapToResponsePagina(usuarioRepository.findVendedoresActivos(EstadoUsuario.ACTIVO, pageable));
     }
 
     /**
@@ -214,13 +226,21 @@ public class UsuarioService {
 
     /**
      * Obtiene el árbol de reclutados de un usuario.
+     * Todo el subárbol llega en una consulta (tabla de clausura) y se arma en memoria.
      */
     @Transactional(readOnly = true)
     public ArbolUsuarioResponse obtenerArbolReclutados(Long usuarioId) {
         Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Usuario", usuarioId));
+        jerarquiaService.asegurarUsuario(usuarioId);
 
-        return construirArbol(usuario);
+        // Solo activos: un inactivo corta su rama, igual que el recorrido por niveles
+        Map<Long, List<Usuario>> reclutadosPorReclutador = jerarquiaRepository.findDescendientes(usuarioId)
+                .stream()
+                .filter(u -> u.getEstado() == EstadoUsuario.ACTIVO)
+                .collect(Collectors.groupingBy(u -> u.getReclutador().getId()));
+
+        return construirArbol(usuario, reclutadosPorReclutador);
     }
 
     /**
@@ -233,10 +253,7 @@ public class UsuarioService {
             throw new RecursoNoEncontradoException("Usuario", usuarioId);
         }
 
-        return usuarioRepository.findByReclutadorIdAndEstado(usuarioId, EstadoUsuario.ACTIVO)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapToResponseListado(usuarioRepository.findByReclutadorIdAndEstado(usuarioId, EstadoUsuario.ACTIVO));
     }
 
     /**
@@ -244,10 +261,7 @@ public class UsuarioService {
      */
     @Transactional(readOnly = true)
     public List<UsuarioResponse> buscarPorNombre(String nombre) {
-        return usuarioRepository.buscarPorNombre(nombre, EstadoUsuario.ACTIVO)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapToResponseListado(usuarioRepository.buscarPorNombre(nombre, EstadoUsuario.ACTIVO));
     }
 
     /**
@@ -313,7 +327,8 @@ public class UsuarioService {
      * Verifica si un usuario está en la cadena de reclutados de otro.
      */
     public boolean verificarEsReclutadoDe(Long usuarioId, Long posibleReclutadorId) {
-        return usuarioRepository.verificarEsReclutadoDe(usuarioId, posibleReclutadorId) > 0;
+        jerarquiaService.asegurarUsuario(usuarioId);
+        return jerarquiaRepository.esDescendiente(usuarioId, posibleReclutadorId);
     }
 
     private String calcularNivelHijo(String nivelPadre) {
@@ -372,6 +387,35 @@ public class UsuarioService {
     }
 
     private UsuarioResponse mapToResponse(Usuario usuario) {
+        long totalReclutados = usuarioRepository.countByReclutadorIdAndEstado(usuario.getId(), EstadoUsuario.ACTIVO);
+        return mapToResponse(usuario, totalReclutados);
+    }
+
+    /**
+     * Mapea un listado contando los reclutados directos de todos en una sola consulta.
+     */
+    private List<UsuarioResponse> mapToResponseListado(List<Usuario> usuarios) {
+        if (usuarios.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Long> reclutadosPorUsuario = new HashMap<>();
+        List<Long> ids = usuarios.stream().map(Usuario::getId).collect(Collectors.toList());
+        for (Object[] fila : usuarioRepository.contarReclutadosPorReclutador(ids, EstadoUsuario.ACTIVO)) {
+            reclutadosPorUsuario.put((Long) fila[0], (Long) fila[1]);
+        }
+
+        return usuarios.stream()
+                .map(u -> mapToResponse(u, reclutadosPorUsuario.getOrDefault(u.getId(), 0L)))
+                .collect(Collectors.toList());
+    }
+
+    private Page<UsuarioResponse> mapToResponsePagina(Page<Usuario> page) {
+        return new PageImpl<>(mapToResponseListado(page.getContent()),
+                page.getPageable(), page.getTotalElements());
+    }
+
+    private UsuarioResponse mapToResponse(Usuario usuario, long totalReclutados) {
         UsuarioResponse.ReclutadorInfo reclutadorInfo = null;
         if (usuario.getReclutador() != null) {
             reclutadorInfo = UsuarioResponse.ReclutadorInfo.builder()
@@ -383,8 +427,6 @@ public class UsuarioService {
                     .build();
         }
 
-        long totalReclutados = usuarioRepository.countByReclutadorIdAndEstado(usuario.getId(), EstadoUsuario.ACTIVO);
-
         return UsuarioResponse.builder()
                 .id(usuario.getId())
                 .cedula(usuario.getCedula())
@@ -401,12 +443,11 @@ public class UsuarioService {
                 .build();
     }
 
-    private ArbolUsuarioResponse construirArbol(Usuario usuario) {
-        List<Usuario> reclutadosDirectos = usuarioRepository
-                .findByReclutadorIdAndEstado(usuario.getId(), EstadoUsuario.ACTIVO);
+    private ArbolUsuarioResponse construirArbol(Usuario usuario, Map<Long, List<Usuario>> reclutadosPorReclutador) {
+        List<Usuario> reclutadosDirectos = reclutadosPorReclutador.getOrDefault(usuario.getId(), List.of());
 
         List<ArbolUsuarioResponse> hijosArbol = reclutadosDirectos.stream()
-                .map(this::construirArbol) // Recursivo
+                .map(hijo -> construirArbol(hijo, reclutadosPorReclutador)) // Recursivo, en memoria
                 .collect(Collectors.toList());
 
         int totalDirectos = reclutadosDirectos.size();
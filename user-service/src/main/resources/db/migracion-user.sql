@@ -0,0 +1,18 @@
+-- ============================================
+-- Migraciones de user-service (idempotentes)
+-- Se ejecutan al arrancar, antes de que Hibernate valide el esquema (ddl-auto: validate).
+-- Separador de sentencias: @@ (los bloques DO contienen ';')
+-- ============================================
+
+-- Jerarquía de reclutamiento (tabla de clausura).
+-- UsuarioService la reconstruye desde usuarios.reclutador_id al arrancar si falta algún usuario.
+CREATE TABLE IF NOT EXISTS usuarios_jerarquia (
+    ancestro_id BIGINT NOT NULL REFERENCES usuarios(id) ON DELETE CASCADE,
+    descendiente_id BIGINT NOT NULL REFERENCES usuarios(id) ON DELETE CASCADE,
+    profundidad INT NOT NULL,
+    PRIMARY KEY (ancestro_id, descendiente_id)
+);
+@@
+
+CREATE INDEX IF NOT EXISTS idx_jerarquia_descendiente ON usuarios_jerarquia(descendiente_id)
+@@
@@ -0,0 +1,153 @@
+package com.trabix.user.service;
+
+import com.trabix.user.dto.ArbolUsuarioResponse;
+import com.trabix.user.dto.CrearUsuarioRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.MountableFile;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mantenimiento de usuarios_jerarquia contra PostgreSQL real: alta, reclutador cambiado
+ * fuera de user-service (como lo deja una restauración incremental) y tabla vaciada
+ * (como la deja una restauración completa con TRUNCATE ... CASCADE).
+ * Se omite si no hay Docker disponible.
+ */
+@SpringBootTest
+@ActiveProfiles("dev")
+@Testcontainers(disabledWithoutDocker = true)
+class JerarquiaServiceTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withCopyFileToContainer(MountableFile.forHostPath("../scripts/init-db.sql"),
+                    "/docker-entrypoint-initdb.d/init-db.sql");
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registry) {
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "update");
+    }
+
+    private static final AtomicInteger SECUENCIA = new AtomicInteger();
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private JerarquiaService jerarquiaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void altaHeredaLosAncestrosDelReclutador() {
+        Long a = crear(null);
+        Long b = crear(a);
+        Long c = crear(b);
+
+        assertEquals(Map.of(a, 0), ancestros(a));
+        assertEquals(Map.of(c, 0, b, 1, a, 2), ancestros(c));
+        assertTrue(usuarioService.verificarEsReclutadoDe(c, a));
+        assertFalse(usuarioService.verificarEsReclutadoDe(a, c));
+    }
+
+    @Test
+    void reclutadorCambiadoSeCorrigeAlVerificar() {
+        Long a = crear(null);
+        Long b = crear(a);
+        Long c = crear(b);
+        Long d = crear(c);
+        Long x = crear(null);
+
+        // C (con su rama) pasa de B a X
+        jdbcTemplate.update("UPDATE usuarios SET reclutador_id = ? WHERE id = ?", x, c);
+        jerarquiaService.verificar();
+
+        assertEquals(Map.of(c, 0, x, 1), ancestros(c));
+        assertEquals(Map.of(d, 0, c, 1, x, 2), ancestros(d));
+        assertEquals(Map.of(b, 0, a, 1), ancestros(b));
+        assertTrue(usuarioService.verificarEsReclutadoDe(d, x));
+        assertFalse(usuarioService.verificarEsReclutadoDe(d, a));
+    }
+
+    @Test
+    void tablaVaciadaSeReconstruyeAlLeer() {
+        Long a = crear(null);
+        Long b = crear(a);
+        Long c = crear(b);
+
+        jdbcTemplate.execute("TRUNCATE usuarios_jerarquia");
+        ArbolUsuarioResponse arbol = usuarioService.obtenerArbolReclutados(a);
+
+        assertEquals(1, arbol.getReclutados().size());
+        assertEquals(b, arbol.getReclutados().get(0).getId());
+        assertEquals(c, arbol.getReclutados().get(0).getReclutados().get(0).getId());
+        assertEquals(Map.of(c, 0, b, 1, a, 2), ancestros(c));
+    }
+
+    @Test
+    void altaTrasVaciarLaTablaReconstruyeAntesDeCopiarAncestros() {
+        Long a = crear(null);
+        Long b = crear(a);
+
+        jdbcTemplate.execute("TRUNCATE usuarios_jerarquia");
+        Long c = crear(b);
+
+        assertEquals(Map.of(c, 0, b, 1, a, 2), ancestros(c));
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usuarios u WHERE NOT EXISTS ("
+                + "SELECT 1 FROM usuarios_jerarquia j WHERE j.ancestro_id = u.id AND j.descendiente_id = u.id)",
+                Long.class));
+    }
+
+    @Test
+    void reconstruirADemandaConservaLaTabla() {
+        Long a = crear(null);
+        crear(crear(a));
+
+        Long filasAntes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usuarios_jerarquia", Long.class);
+        int filas = jerarquiaService.reconstruir();
+
+        assertEquals(filasAntes.longValue(), filas);
+    }
+
+    private Long crear(Long reclutadorId) {
+        int n = SECUENCIA.incrementAndGet();
+        return usuarioService.crearUsuario(CrearUsuarioRequest.builder()
+                .cedula("7" + (100_000_000 + n))
+                .nombre("Usuario Prueba " + n)
+                .telefono("3000000000")
+                .correo("jerarquia" + n + "@trabix.test")
+                .password("clave-prueba")
+                .reclutadorId(reclutadorId)
+                .build()).getUsuario().getId();
+    }
+
+    /**
+     * Ancestro → profundidad de todas las filas del usuario (incluida la propia).
+     */
+    private Map<Long, Integer> ancestros(Long usuarioId) {
+        Map<Long, Integer> resultado = new HashMap<>();
+        jdbcTemplate.query("SELECT ancestro_id, profundidad FROM usuarios_jerarquia WHERE descendiente_id = ?",
+                rs -> {
+                    resultado.put(rs.getLong("ancestro_id"), rs.getInt("profundidad"));
+                }, usuarioId);
+        return resultado;
+    }
+}